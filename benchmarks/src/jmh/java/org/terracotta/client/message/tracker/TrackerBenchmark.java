@@ -0,0 +1,64 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.client.message.tracker;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tracking of the responses sent to a client, reconciled as the client acknowledges them.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TrackerBenchmark {
+
+  @Param({"64"})
+  public int inFlight;
+
+  @Param({"locked", "segmented"})
+  public String implementation;
+
+  private final Object request = new Object();
+  private final Object response = new Object();
+  private Tracker<Object, Object> tracker;
+  private long id;
+
+  @Setup
+  public void setUp() {
+    tracker = implementation.equals("segmented") ? new SegmentedTracker<>() : new TrackerImpl<>();
+    id = 0;
+  }
+
+  @Benchmark
+  public Object trackAndReconcile() {
+    long current = ++id;
+    tracker.track(current, current, request, response);
+    if (current % inFlight == 0) {
+      tracker.reconcile(current - inFlight / 2);
+    }
+    return tracker.getTrackedValue(current);
+  }
+}
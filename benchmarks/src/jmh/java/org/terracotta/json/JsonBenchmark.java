@@ -0,0 +1,76 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.json;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mapping with a {@link Json} mapper created by the {@link DefaultJsonFactory}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JsonBenchmark {
+
+  public static class Node {
+    String name = "node-1";
+    String hostname = "localhost";
+    int port = 9410;
+    List<String> tags = Arrays.asList("a", "b", "c");
+  }
+
+  private final Node node = new Node();
+  private Json json;
+  private String serialized;
+
+  @Setup
+  public void setUp() {
+    json = new DefaultJsonFactory().create();
+    serialized = json.toString(node);
+  }
+
+  @Benchmark
+  public Json createMapper() {
+    return new DefaultJsonFactory().create();
+  }
+
+  @Benchmark
+  public String toJson() {
+    return json.toString(node);
+  }
+
+  @Benchmark
+  public Node parse() {
+    return json.parse(serialized, Node.class);
+  }
+
+  @Benchmark
+  public Map<String, Object> mapToObject() {
+    return json.mapToObject(node);
+  }
+}
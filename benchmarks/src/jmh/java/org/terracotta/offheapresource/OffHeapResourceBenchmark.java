@@ -0,0 +1,72 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.offheapresource;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reservations and releases on a shared off-heap resource, from a single thread and under contention.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class OffHeapResourceBenchmark {
+
+  private static final long CHUNK = 1024 * 1024;
+
+  private OffHeapResourceImpl resource;
+
+  @Setup
+  public void setUp() {
+    resource = new OffHeapResourceImpl("benchmark", 1024 * 1024 * 1024 * 1024L);
+  }
+
+  @TearDown
+  public void tearDown() {
+    resource.close();
+  }
+
+  @Benchmark
+  @Threads(1)
+  public boolean reserveRelease() {
+    return reserveAndRelease();
+  }
+
+  @Benchmark
+  @Threads(Threads.MAX)
+  public boolean reserveReleaseContended() {
+    return reserveAndRelease();
+  }
+
+  private boolean reserveAndRelease() {
+    boolean reserved = resource.reserve(CHUNK);
+    if (reserved) {
+      resource.release(CHUNK);
+    }
+    return reserved;
+  }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.persistence.sanskrit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.terracotta.dynamic_config.server.configuration.nomad.persistence.sanskrit.SanskritJsonMapper;
+import org.terracotta.json.DefaultJsonFactory;
+import org.terracotta.persistence.sanskrit.file.FileBasedFilesystemDirectory;
+import org.terracotta.utilities.io.Files;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Appending records to a Sanskrit append log, and replaying an existing one as done on server start.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SanskritBenchmark {
+
+  @Param({"1000"})
+  public int records;
+
+  @Param({"false", "true"})
+  public boolean groupCommit;
+
+  @Param({"text", "binary"})
+  public String format;
+
+  private final SanskritMapper mapper = new SanskritJsonMapper(new DefaultJsonFactory());
+  private Path appendDirectory;
+  private Path replayDirectory;
+  private Sanskrit sanskrit;
+  private final AtomicLong counter = new AtomicLong();
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException, SanskritException {
+    System.setProperty(SanskritImpl.FORMAT_PROPERTY, format);
+    appendDirectory = java.nio.file.Files.createTempDirectory("sanskrit-append");
+    sanskrit = Sanskrit.init(new FileBasedFilesystemDirectory(appendDirectory), mapper, groupCommit);
+
+    replayDirectory = java.nio.file.Files.createTempDirectory("sanskrit-replay");
+    try (Sanskrit replay = Sanskrit.init(new FileBasedFilesystemDirectory(replayDirectory), mapper)) {
+      for (int i = 0; i < records; i++) {
+        replay.setString("key-" + (i % 10), "value-" + i);
+      }
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException, SanskritException {
+    sanskrit.close();
+    Files.deleteTree(appendDirectory);
+    Files.deleteTree(replayDirectory);
+    System.clearProperty(SanskritImpl.FORMAT_PROPERTY);
+  }
+
+  @Benchmark
+  public void append() throws SanskritException {
+    long i = counter.getAndIncrement();
+    sanskrit.setString("key-" + (i % 10), "value-" + i);
+  }
+
+  @Benchmark
+  @Threads(8)
+  public void concurrentAppend() throws SanskritException {
+    if (groupCommit) {
+      append();
+    } else {
+      // the default mode is single-threaded: callers have to serialize their changes
+      synchronized (this) {
+        append();
+      }
+    }
+  }
+
+  @Benchmark
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public String replay() throws SanskritException {
+    try (Sanskrit replay = Sanskrit.init(new FileBasedFilesystemDirectory(replayDirectory), mapper)) {
+      return replay.getString("key-0");
+    }
+  }
+}
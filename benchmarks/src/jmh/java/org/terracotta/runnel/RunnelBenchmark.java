@@ -0,0 +1,128 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.runnel;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import org.terracotta.runnel.decoding.IndexedStructDecoder;
+import org.terracotta.runnel.decoding.StructArrayDecoder;
+import org.terracotta.runnel.decoding.StructDecoder;
+import org.terracotta.runnel.encoding.IndexedStructEncoder;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding and decoding of a struct shaped like a typical entity message.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RunnelBenchmark {
+
+  private static final Struct ENTRY = StructBuilder.newStructBuilder()
+      .string("key", 1)
+      .int64("value", 2)
+      .build();
+
+  private static final Struct MESSAGE = StructBuilder.newStructBuilder()
+      .int32("type", 10)
+      .int64("id", 20)
+      .bool("flag", 30)
+      .string("name", 40)
+      .fp64("ratio", 50)
+      .structs("entries", 60, ENTRY)
+      .build();
+
+  private final ByteBuffer target = ByteBuffer.allocate(1024);
+  private ByteBuffer encoded;
+  private IndexedStructEncoder indexedEncoder;
+
+  @Setup
+  public void setUp() {
+    encoded = encodeWithStructEncoder();
+    indexedEncoder = MESSAGE.indexedEncoder();
+  }
+
+  @Benchmark
+  public ByteBuffer encode() {
+    return encodeWithStructEncoder();
+  }
+
+  @Benchmark
+  public ByteBuffer encodeIndexed() {
+    target.clear();
+    return indexedEncoder
+        .int32(10, 3)
+        .int64(20, 123456789L)
+        .bool(30, true)
+        .string(40, "my-cache")
+        .fp64(50, 0.75)
+        .structs(60)
+          .add().string(1, "a").int64(2, 1L).end()
+          .add().string(1, "b").int64(2, 2L).end()
+        .end()
+        .encode(target);
+  }
+
+  @Benchmark
+  public void decode(Blackhole blackhole) {
+    encoded.rewind();
+    StructDecoder<Void> decoder = MESSAGE.decoder(encoded);
+    blackhole.consume(decoder.int32("type"));
+    blackhole.consume(decoder.int64("id"));
+    blackhole.consume(decoder.bool("flag"));
+    blackhole.consume(decoder.string("name"));
+    blackhole.consume(decoder.fp64("ratio"));
+    StructArrayDecoder<StructDecoder<Void>> entries = decoder.structs("entries");
+    while (entries.hasNext()) {
+      StructDecoder<StructArrayDecoder<StructDecoder<Void>>> entry = entries.next();
+      blackhole.consume(entry.string("key"));
+      blackhole.consume(entry.int64("value"));
+    }
+  }
+
+  @Benchmark
+  public void decodeIndexedPrimitives(Blackhole blackhole) {
+    encoded.rewind();
+    IndexedStructDecoder decoder = MESSAGE.indexedDecoder(encoded);
+    blackhole.consume(decoder.int32(10, 0));
+    blackhole.consume(decoder.int64(20, 0L));
+    blackhole.consume(decoder.bool(30, false));
+    blackhole.consume(decoder.fp64(50, 0.0));
+  }
+
+  private ByteBuffer encodeWithStructEncoder() {
+    return MESSAGE.encoder()
+        .int32("type", 3)
+        .int64("id", 123456789L)
+        .bool("flag", true)
+        .string("name", "my-cache")
+        .fp64("ratio", 0.75)
+        .structs("entries")
+          .add().string("key", "a").int64("value", 1L).end()
+          .add().string("key", "b").int64("value", 2L).end()
+        .end()
+        .encode();
+  }
+}
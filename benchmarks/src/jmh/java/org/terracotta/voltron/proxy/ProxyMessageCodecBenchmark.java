@@ -0,0 +1,76 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.voltron.proxy;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.terracotta.entity.MessageCodecException;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding and decoding of proxied entity calls with the default {@link SerializationCodec}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ProxyMessageCodecBenchmark {
+
+  public interface Store {
+    Integer put(String key, Integer value);
+  }
+
+  private final ProxyMessageCodec codec = new ProxyMessageCodec(Store.class);
+  private ProxyEntityMessage message;
+  private ProxyEntityResponse response;
+  private byte[] encodedMessage;
+  private byte[] encodedResponse;
+
+  @Setup
+  public void setUp() throws Exception {
+    MethodDescriptor put = MethodDescriptor.of(Store.class.getMethod("put", String.class, Integer.class));
+    message = new ProxyEntityMessage(put, new Object[] {"key", 42}, MessageType.MESSAGE);
+    response = ProxyEntityResponse.messageResponse(Integer.class, 42);
+    encodedMessage = codec.encodeMessage(message);
+    encodedResponse = codec.encodeResponse(response);
+  }
+
+  @Benchmark
+  public byte[] encodeMessage() throws MessageCodecException {
+    return codec.encodeMessage(message);
+  }
+
+  @Benchmark
+  public ProxyEntityMessage decodeMessage() throws MessageCodecException {
+    return codec.decodeMessage(encodedMessage);
+  }
+
+  @Benchmark
+  public byte[] encodeResponse() throws MessageCodecException {
+    return codec.encodeResponse(response);
+  }
+
+  @Benchmark
+  public ProxyEntityResponse decodeResponse() throws MessageCodecException {
+    return codec.decodeResponse(encodedResponse);
+  }
+}
@@ -18,25 +18,57 @@ package org.terracotta.client.message.tracker;
 
 import org.terracotta.entity.StateDumpCollector;
 
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 import org.terracotta.entity.ClientSourceId;
 
 class ClientTrackerImpl<M, R> implements ClientTracker<M, R> {
 
-  private final ConcurrentMap<ClientSourceId, TrackerImpl<M, R>> objectTrackers = new ConcurrentHashMap<>();
+  /**
+   * System property to track the messages of each client in a {@link TrackerImpl}, which keeps them in a sorted map,
+   * instead of a {@link SegmentedTracker}.
+   */
+  static final String SORTED_TRACKER_PROPERTY = "org.terracotta.client.message.tracker.sorted";
+
+  private final ConcurrentMap<ClientSourceId, Tracker<M, R>> objectTrackers = new ConcurrentHashMap<>();
+  private final Supplier<Tracker<M, R>> trackerFactory;
 
   public ClientTrackerImpl() {
+    this(Boolean.getBoolean(SORTED_TRACKER_PROPERTY) ? TrackerImpl::new : SegmentedTracker::new);
+  }
+
+  ClientTrackerImpl(Supplier<Tracker<M, R>> trackerFactory) {
+    this.trackerFactory = trackerFactory;
   }
 
   Stream<SequencedRecordedMessage<M, R>> getTrackedValues() {
     return objectTrackers.entrySet().stream().flatMap(t->t.getValue().getTrackedValues().stream().map(e->convert(t.getKey(), e)));
   }
 
-  static <M, R> SequencedRecordedMessage<M, R> convert(ClientSourceId cid, TrackerImpl.RequestResponse<M, R> rr) {
+  /**
+   * Lazily batches the tracked values, one client after the other and in transaction order for each client.
+   * Only the values of a client with a transaction id above its watermark are returned.
+   */
+  Stream<List<RecordedMessage<M, R>>> getTrackedValues(Map<ClientSourceId, Long> watermarks, int batchSize) {
+    if (batchSize <= 0) {
+      throw new IllegalArgumentException("Invalid batch size: " + batchSize);
+    }
+    Iterator<List<RecordedMessage<M, R>>> batches = new BatchIterator(watermarks, batchSize);
+    return StreamSupport.stream(Spliterators.spliteratorUnknownSize(batches, Spliterator.ORDERED | Spliterator.NONNULL), false);
+  }
+
+  static <M, R> SequencedRecordedMessage<M, R> convert(ClientSourceId cid, Tracker.RequestResponse<M, R> rr) {
     return new SequencedRecordedMessage<M, R>() {
       @Override
       public long getSequenceId() {
@@ -65,8 +97,9 @@ class ClientTrackerImpl<M, R> implements ClientTracker<M, R> {
     };
   }
 
-  TrackerImpl<M, R> getTracker(ClientSourceId clientId) {
-    return objectTrackers.computeIfAbsent(clientId, d -> new TrackerImpl<>());
+  Tracker<M, R> getTracker(ClientSourceId clientId) {
+    Tracker<M, R> tracker = objectTrackers.get(clientId);
+    return tracker != null ? tracker : objectTrackers.computeIfAbsent(clientId, d -> trackerFactory.get());
   }
 
   @Override
@@ -81,8 +114,68 @@ class ClientTrackerImpl<M, R> implements ClientTracker<M, R> {
 
   @Override
   public void addStateTo(StateDumpCollector stateDumper) {
-    for (Map.Entry<ClientSourceId, TrackerImpl<M, R>> entry : objectTrackers.entrySet()) {
+    for (Map.Entry<ClientSourceId, Tracker<M, R>> entry : objectTrackers.entrySet()) {
       entry.getValue().addStateTo(stateDumper.subStateDumpCollector(entry.getKey().toString()));
     }
   }
+
+  private class BatchIterator implements Iterator<List<RecordedMessage<M, R>>> {
+
+    private final Iterator<Map.Entry<ClientSourceId, Tracker<M, R>>> clients = objectTrackers.entrySet().iterator();
+    private final Map<ClientSourceId, Long> watermarks;
+    private final int batchSize;
+
+    private ClientSourceId client;
+    private Tracker<M, R> tracker;
+    private long position;
+    private List<RecordedMessage<M, R>> next;
+
+    BatchIterator(Map<ClientSourceId, Long> watermarks, int batchSize) {
+      this.watermarks = watermarks;
+      this.batchSize = batchSize;
+    }
+
+    @Override
+    public boolean hasNext() {
+      if (next == null) {
+        next = fill();
+      }
+      return !next.isEmpty();
+    }
+
+    @Override
+    public List<RecordedMessage<M, R>> next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      List<RecordedMessage<M, R>> batch = next;
+      next = null;
+      return batch;
+    }
+
+    private List<RecordedMessage<M, R>> fill() {
+      List<RecordedMessage<M, R>> batch = new ArrayList<>(batchSize);
+      while (batch.size() < batchSize) {
+        if (tracker == null) {
+          if (!clients.hasNext()) {
+            break;
+          }
+          Map.Entry<ClientSourceId, Tracker<M, R>> entry = clients.next();
+          client = entry.getKey();
+          tracker = entry.getValue();
+          position = watermarks.getOrDefault(client, 0L);
+        }
+        int limit = batchSize - batch.size();
+        List<Tracker.RequestResponse<M, R>> values = tracker.getTrackedValues(position, limit);
+        for (Tracker.RequestResponse<M, R> value : values) {
+          batch.add(convert(client, value));
+          position = value.getTransactionId();
+        }
+        if (values.size() < limit) {
+          tracker = null;
+        }
+      }
+      return batch;
+    }
+  }
 }
@@ -25,8 +25,16 @@ import org.terracotta.entity.StateDumpable;
 
 import com.tc.classloader.CommonComponent;
 
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.function.BiFunction;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Entities that want once and only once message invocation guarantees can
@@ -88,6 +96,49 @@ public interface OOOMessageHandler<M extends EntityMessage, R extends EntityResp
    */
   Stream<RecordedMessage<M, R>> getRecordedMessages();
 
+  /**
+   * Get the tracked messages lazily, in batches of at most {@code batchSize} messages, for a passive sync that does not
+   * need to hold all the tracked messages at once.  The messages of a client come in transaction order, one client
+   * after the other.
+   * <p>
+   * A sync can be resumed by passing, for each client, the highest transaction id the passive already loaded: only the
+   * messages after it are returned.
+   * <p>
+   * The default implementation falls back to the full sync of {@link #getRecordedMessages()}, cut in batches: the
+   * messages come in sequence order rather than one client after the other, and are all sorted upfront.
+   *
+   * @param watermarks the highest transaction id already synced, per client
+   * @param batchSize the maximum number of messages in a batch
+   * @return a stream of non-empty batches of RecordedMessages
+   */
+  default Stream<List<RecordedMessage<M, R>>> getRecordedMessages(Map<ClientSourceId, Long> watermarks, int batchSize) {
+    if (batchSize <= 0) {
+      throw new IllegalArgumentException("Invalid batch size: " + batchSize);
+    }
+    Iterator<RecordedMessage<M, R>> messages = getRecordedMessages()
+        .filter(rm -> rm.getTransactionId() > watermarks.getOrDefault(rm.getClientSourceId(), Long.MIN_VALUE))
+        .iterator();
+    Iterator<List<RecordedMessage<M, R>>> batches = new Iterator<List<RecordedMessage<M, R>>>() {
+      @Override
+      public boolean hasNext() {
+        return messages.hasNext();
+      }
+
+      @Override
+      public List<RecordedMessage<M, R>> next() {
+        if (!messages.hasNext()) {
+          throw new NoSuchElementException();
+        }
+        List<RecordedMessage<M, R>> batch = new ArrayList<>();
+        while (batch.size() < batchSize && messages.hasNext()) {
+          batch.add(messages.next());
+        }
+        return batch;
+      }
+    };
+    return StreamSupport.stream(Spliterators.spliteratorUnknownSize(batches, Spliterator.ORDERED | Spliterator.NONNULL), false);
+  }
+
   /**
    * load all the sequenced messages to the current message tracker
    *
@@ -23,6 +23,8 @@ import org.terracotta.entity.EntityUserException;
 import org.terracotta.entity.InvokeContext;
 import org.terracotta.entity.StateDumpCollector;
 
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.BiFunction;
@@ -101,6 +103,11 @@ public class OOOMessageHandlerImpl<M extends EntityMessage, R extends EntityResp
     return clientMessageTracker.getTrackedValues().sorted(comparingLong(SequencedRecordedMessage::getSequenceId)).map(SequencedRecordedMessage::convert);
   }
 
+  @Override
+  public Stream<List<RecordedMessage<M, R>>> getRecordedMessages(Map<ClientSourceId, Long> watermarks, int batchSize) {
+    return clientMessageTracker.getTrackedValues(watermarks, batchSize);
+  }
+
   @Override
   public void loadRecordedMessages(Stream<RecordedMessage<M, R>> recorded) {
     recorded.forEach(rm-> clientMessageTracker
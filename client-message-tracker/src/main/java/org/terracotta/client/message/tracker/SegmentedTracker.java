@@ -0,0 +1,220 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.client.message.tracker;
+
+import org.terracotta.entity.StateDumpCollector;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A {@link Tracker} keeping the tracked values in fixed size segments indexed by transaction id.
+ * <p>
+ * Tracking and looking up a value never locks. Reconciling moves a watermark: the segments entirely below it are
+ * dropped as a whole and only the slots of the segment it lands in are cleared, so the cost of reconciling is amortized
+ * over the tracked transactions. Only the segments above the watermark are kept, which bounds the memory to the
+ * transactions the client did not acknowledge yet.
+ * <p>
+ * Like {@link TrackerImpl}, a value tracked below the watermark is kept until a reconciliation goes past it: such
+ * values are rare, so they are kept aside in a sorted map rather than in the segments.
+ */
+class SegmentedTracker<M, R> implements Tracker<M, R> {
+
+  private static final int SEGMENT_SHIFT = 6;
+  private static final int SEGMENT_SIZE = 1 << SEGMENT_SHIFT;
+  private static final int SEGMENT_MASK = SEGMENT_SIZE - 1;
+
+  private final ConcurrentMap<Long, Segment<M, R>> segments = new ConcurrentHashMap<>();
+  private final AtomicLong reconciledMarker = new AtomicLong();
+  // values tracked after a reconciliation went past them
+  private final ConcurrentNavigableMap<Long, RequestResponse<M, R>> belowMarker = new ConcurrentSkipListMap<>();
+  // most recently used segment: consecutive transactions avoid the map lookup
+  private volatile Segment<M, R> lastSegment;
+
+  @Override
+  public void track(long track, long id, M source, R value) {
+    if (id <= 0) {
+      return;
+    }
+    RequestResponse<M, R> requestResponse = new RequestResponse<>(track, id, source, value);
+    if (id < reconciledMarker.get()) {
+      belowMarker.put(id, requestResponse);
+    } else {
+      long index = id >>> SEGMENT_SHIFT;
+      Segment<M, R> segment = segment(index, true);
+      segment.set((int) (id & SEGMENT_MASK), requestResponse);
+      if ((index + 1) << SEGMENT_SHIFT <= reconciledMarker.get()) {
+        // a concurrent reconciliation went past this segment, possibly before it got created
+        segments.remove(index, segment);
+      }
+    }
+  }
+
+  @Override
+  public R getTrackedValue(long id) {
+    RequestResponse<M, R> requestResponse = get(id);
+    return requestResponse == null ? null : requestResponse.getResponse();
+  }
+
+  @Override
+  public M getTrackedRequest(long id) {
+    RequestResponse<M, R> requestResponse = get(id);
+    return requestResponse == null ? null : requestResponse.getRequest();
+  }
+
+  @Override
+  public void reconcile(long id) {
+    if (!belowMarker.isEmpty()) {
+      belowMarker.headMap(id).clear();
+    }
+    long previous;
+    do {
+      previous = reconciledMarker.get();
+      if (id <= previous) {
+        // don't go backwards
+        return;
+      }
+    } while (!reconciledMarker.compareAndSet(previous, id));
+
+    // concurrent reconciliations clear disjoint ranges: [previous, id)
+    long fromSegment = previous >>> SEGMENT_SHIFT;
+    long toSegment = id >>> SEGMENT_SHIFT;
+    if (toSegment > fromSegment) {
+      if (toSegment - fromSegment <= segments.size()) {
+        for (long index = fromSegment; index < toSegment; index++) {
+          segments.remove(index);
+        }
+      } else {
+        segments.keySet().removeIf(index -> index < toSegment);
+      }
+    }
+
+    Segment<M, R> segment = segment(toSegment, false);
+    if (segment != null) {
+      for (long cleared = Math.max(previous, toSegment << SEGMENT_SHIFT); cleared < id; cleared++) {
+        segment.set((int) (cleared & SEGMENT_MASK), null);
+      }
+    }
+  }
+
+  @Override
+  public boolean wasReconciled(long id) {
+    return id < reconciledMarker.get();
+  }
+
+  @Override
+  public Collection<RequestResponse<M, R>> getTrackedValues() {
+    List<RequestResponse<M, R>> values = new ArrayList<>(belowMarker.values());
+    long marker = reconciledMarker.get();
+    for (Segment<M, R> segment : segments.values()) {
+      for (int i = 0; i < SEGMENT_SIZE; i++) {
+        RequestResponse<M, R> requestResponse = segment.get(i);
+        if (requestResponse != null && requestResponse.getTransactionId() >= marker) {
+          values.add(requestResponse);
+        }
+      }
+    }
+    return values;
+  }
+
+  @Override
+  public List<RequestResponse<M, R>> getTrackedValues(long after, int limit) {
+    List<RequestResponse<M, R>> values = new ArrayList<>();
+    if (after == Long.MAX_VALUE) {
+      return values;
+    }
+    // all below the segments
+    for (RequestResponse<M, R> requestResponse : belowMarker.tailMap(after + 1).values()) {
+      if (values.size() == limit) {
+        return values;
+      }
+      values.add(requestResponse);
+    }
+    long from = Math.max(after + 1, reconciledMarker.get());
+    long fromSegment = from >>> SEGMENT_SHIFT;
+    // only the in-flight segments are kept, so sorting their indexes is cheap and skips the gaps
+    long[] indexes = segments.keySet().stream().mapToLong(Long::longValue).filter(index -> index >= fromSegment).sorted().toArray();
+    for (long index : indexes) {
+      Segment<M, R> segment = segments.get(index);
+      if (segment == null) {
+        continue;
+      }
+      for (int i = index == fromSegment ? (int) (from & SEGMENT_MASK) : 0; i < SEGMENT_SIZE; i++) {
+        RequestResponse<M, R> requestResponse = segment.get(i);
+        if (requestResponse != null) {
+          if (values.size() == limit) {
+            return values;
+          }
+          values.add(requestResponse);
+        }
+      }
+    }
+    return values;
+  }
+
+  @Override
+  public void addStateTo(StateDumpCollector stateDumper) {
+    List<Long> ids = new ArrayList<>();
+    for (RequestResponse<M, R> requestResponse : getTrackedValues()) {
+      ids.add(requestResponse.getTransactionId());
+    }
+    ids.sort(null);
+    stateDumper.addState("TrackedResponses", ids);
+  }
+
+  private RequestResponse<M, R> get(long id) {
+    if (id < reconciledMarker.get()) {
+      return belowMarker.get(id);
+    }
+    Segment<M, R> segment = segment(id >>> SEGMENT_SHIFT, false);
+    return segment == null ? null : segment.get((int) (id & SEGMENT_MASK));
+  }
+
+  private Segment<M, R> segment(long index, boolean create) {
+    Segment<M, R> segment = lastSegment;
+    if (segment != null && segment.index == index) {
+      return segment;
+    }
+    segment = segments.get(index);
+    if (segment == null) {
+      if (!create) {
+        return null;
+      }
+      segment = segments.computeIfAbsent(index, Segment::new);
+    }
+    lastSegment = segment;
+    return segment;
+  }
+
+  private static class Segment<M, R> extends AtomicReferenceArray<RequestResponse<M, R>> {
+    private static final long serialVersionUID = 1L;
+
+    private final long index;
+
+    Segment(long index) {
+      super(SEGMENT_SIZE);
+      this.index = index;
+    }
+  }
+}
@@ -18,6 +18,8 @@ package org.terracotta.client.message.tracker;
 
 import org.terracotta.entity.StateDumpable;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.function.Predicate;
 
 /**
@@ -81,4 +83,48 @@ interface Tracker<M, R> extends StateDumpable {
    * @return true if the message has been removed from the cached stream
    */
   boolean wasReconciled(long id);
+
+  /**
+   * @return a copy of the tracked requests and responses, in no particular order
+   */
+  Collection<RequestResponse<M, R>> getTrackedValues();
+
+  /**
+   * @param after the transaction id to start after
+   * @param limit the maximum number of values to return
+   * @return a copy of at most {@code limit} tracked requests and responses with a transaction id greater than
+   * {@code after}, in transaction order
+   */
+  List<RequestResponse<M, R>> getTrackedValues(long after, int limit);
+
+  class RequestResponse<M, R> {
+
+    private final long insert;
+    private final long transaction;
+    private final M request;
+    private final R response;
+
+    RequestResponse(long insert, long transaction, M request, R response) {
+      this.insert = insert;
+      this.transaction = transaction;
+      this.request = request;
+      this.response = response;
+    }
+
+    public long getSequenceId() {
+      return insert;
+    }
+
+    public long getTransactionId() {
+      return transaction;
+    }
+
+    public M getRequest() {
+      return request;
+    }
+
+    public R getResponse() {
+      return response;
+    }
+  }
 }
@@ -18,6 +18,7 @@ package org.terracotta.client.message.tracker;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.SortedMap;
 import java.util.TreeMap;
@@ -71,43 +72,27 @@ class TrackerImpl<M, R> implements Tracker<M, R> {
     return id < reconciledMarker;
   }
 
-  synchronized Collection<RequestResponse<M, R>> getTrackedValues() {
+  @Override
+  public synchronized Collection<RequestResponse<M, R>> getTrackedValues() {
     return new ArrayList<>(trackedValues.values());
   }
 
   @Override
-  public synchronized void addStateTo(StateDumpCollector stateDumper) {
-    stateDumper.addState("TrackedResponses", new ArrayList<>(trackedValues.keySet()));
-  }
-
-  static class RequestResponse<M, R> {
-
-    private final long insert;
-    private final long transaction;
-    private final M request;
-    private final R response;
-
-    RequestResponse(long insert, long transaction, M request, R response) {
-      this.insert = insert;
-      this.transaction = transaction;
-      this.request = request;
-      this.response = response;
-    }
-
-    public long getSequenceId() {
-      return insert;
-    }
-
-    public long getTransactionId() {
-      return transaction;
-    }
-
-    public M getRequest() {
-      return request;
+  public synchronized List<RequestResponse<M, R>> getTrackedValues(long after, int limit) {
+    List<RequestResponse<M, R>> values = new ArrayList<>();
+    if (after < Long.MAX_VALUE) {
+      for (RequestResponse<M, R> requestResponse : trackedValues.tailMap(after + 1).values()) {
+        if (values.size() == limit) {
+          break;
+        }
+        values.add(requestResponse);
+      }
     }
+    return values;
+  }
 
-    public R getResponse() {
-      return response;
-    }
+  @Override
+  public synchronized void addStateTo(StateDumpCollector stateDumper) {
+    stateDumper.addState("TrackedResponses", new ArrayList<>(trackedValues.keySet()));
   }
 }
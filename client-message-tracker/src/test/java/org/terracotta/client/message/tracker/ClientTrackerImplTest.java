@@ -17,6 +17,7 @@
 package org.terracotta.client.message.tracker;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.hamcrest.Matchers.sameInstance;
@@ -45,6 +46,18 @@ public class ClientTrackerImplTest {
     assertThat(clientTracker.getTracker(mockClientId(1L)), not(sameInstance(messageTracker)));
   }
 
+  @Test
+  public void sortedTrackerToggle() throws Exception {
+    assertThat(clientTracker.getTracker(mockClientId(1L)), instanceOf(SegmentedTracker.class));
+
+    System.setProperty(ClientTrackerImpl.SORTED_TRACKER_PROPERTY, "true");
+    try {
+      assertThat(new ClientTrackerImpl<>().getTracker(mockClientId(1L)), instanceOf(TrackerImpl.class));
+    } finally {
+      System.clearProperty(ClientTrackerImpl.SORTED_TRACKER_PROPERTY);
+    }
+  }
+
   private ClientSourceId mockClientId(long id) {
     return new ClientSourceId() {
       @Override
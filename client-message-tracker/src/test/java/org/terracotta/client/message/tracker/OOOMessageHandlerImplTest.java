@@ -25,6 +25,8 @@ import org.terracotta.entity.EntityResponse;
 import org.terracotta.entity.InvokeContext;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -37,6 +39,8 @@ import static java.util.stream.Collectors.toSet;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.sameInstance;
+import static org.mockito.Mockito.CALLS_REAL_METHODS;
+import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -290,6 +294,83 @@ public class OOOMessageHandlerImplTest {
     assertThat(clients.contains(clientSourceId3), is(false));
   }
 
+  @Test
+  public void testRecordedMessagesInBatches() throws Exception {
+    DummyClientSourceId clientSourceId1 = new DummyClientSourceId(1);
+    DummyClientSourceId clientSourceId2 = new DummyClientSourceId(2);
+    for (long txn = 1; txn <= 10; txn++) {
+      messageHandler.invoke(new DummyContext(clientSourceId1, txn, 1), mock(EntityMessage.class), (ctxt, msg) -> mock(EntityResponse.class));
+      messageHandler.invoke(new DummyContext(clientSourceId2, txn, 1), mock(EntityMessage.class), (ctxt, msg) -> mock(EntityResponse.class));
+    }
+
+    List<List<RecordedMessage<EntityMessage, EntityResponse>>> batches = messageHandler.getRecordedMessages(Collections.emptyMap(), 3).collect(Collectors.toList());
+    assertThat(batches.size(), is(7));
+    for (List<RecordedMessage<EntityMessage, EntityResponse>> batch : batches.subList(0, 6)) {
+      assertThat(batch.size(), is(3));
+    }
+    assertThat(batches.get(6).size(), is(2));
+
+    Map<Long, List<Long>> transactionsPerClient = batches.stream().flatMap(List::stream)
+        .collect(Collectors.groupingBy(rm -> rm.getClientSourceId().toLong(), Collectors.mapping(RecordedMessage::getTransactionId, Collectors.toList())));
+    assertThat(transactionsPerClient.get(1L), Matchers.contains(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L, 10L));
+    assertThat(transactionsPerClient.get(2L), Matchers.contains(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L, 10L));
+  }
+
+  @Test
+  public void testRecordedMessagesResumeFromWatermarks() throws Exception {
+    DummyClientSourceId clientSourceId1 = new DummyClientSourceId(1);
+    DummyClientSourceId clientSourceId2 = new DummyClientSourceId(2);
+    for (long txn = 1; txn <= 10; txn++) {
+      messageHandler.invoke(new DummyContext(clientSourceId1, txn, 1), mock(EntityMessage.class), (ctxt, msg) -> mock(EntityResponse.class));
+      messageHandler.invoke(new DummyContext(clientSourceId2, txn, 1), mock(EntityMessage.class), (ctxt, msg) -> mock(EntityResponse.class));
+    }
+
+    Map<ClientSourceId, Long> watermarks = new HashMap<>();
+    watermarks.put(clientSourceId1, 10L);
+    watermarks.put(clientSourceId2, 7L);
+
+    List<RecordedMessage<EntityMessage, EntityResponse>> delta = messageHandler.getRecordedMessages(watermarks, 100).flatMap(List::stream).collect(Collectors.toList());
+    assertThat(delta.size(), is(3));
+    for (RecordedMessage<EntityMessage, EntityResponse> recorded : delta) {
+      assertThat(recorded.getClientSourceId(), is(clientSourceId2));
+    }
+    assertThat(delta.stream().map(RecordedMessage::getTransactionId).collect(Collectors.toList()), Matchers.contains(8L, 9L, 10L));
+
+    OOOMessageHandler<EntityMessage, EntityResponse> passive = new OOOMessageHandlerImpl<>(msg -> true, () -> {});
+    passive.loadRecordedMessages(delta.stream());
+    assertThat(passive.lookupResponse(clientSourceId2, 9L), sameInstance(delta.get(1).getResponse()));
+  }
+
+  @Test
+  public void testRecordedMessagesWhenNothingTracked() throws Exception {
+    assertThat(messageHandler.getRecordedMessages(Collections.emptyMap(), 10).count(), is(0L));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testRecordedMessagesInBatchesFallBackToFullSync() throws Exception {
+    DummyClientSourceId clientSourceId1 = new DummyClientSourceId(1);
+    DummyClientSourceId clientSourceId2 = new DummyClientSourceId(2);
+    for (long txn = 1; txn <= 10; txn++) {
+      messageHandler.invoke(new DummyContext(clientSourceId1, txn, 1), mock(EntityMessage.class), (ctxt, msg) -> mock(EntityResponse.class));
+      messageHandler.invoke(new DummyContext(clientSourceId2, txn, 1), mock(EntityMessage.class), (ctxt, msg) -> mock(EntityResponse.class));
+    }
+    OOOMessageHandler<EntityMessage, EntityResponse> legacy = mock(OOOMessageHandler.class, CALLS_REAL_METHODS);
+    doReturn(messageHandler.getRecordedMessages()).when(legacy).getRecordedMessages();
+
+    Map<ClientSourceId, Long> watermarks = new HashMap<>();
+    watermarks.put(clientSourceId1, 10L);
+    watermarks.put(clientSourceId2, 3L);
+
+    List<List<RecordedMessage<EntityMessage, EntityResponse>>> batches = legacy.getRecordedMessages(watermarks, 3).collect(Collectors.toList());
+    assertThat(batches.size(), is(3));
+    assertThat(batches.get(2).size(), is(1));
+    List<Long> delta = batches.stream().flatMap(List::stream)
+        .peek(rm -> assertThat(rm.getClientSourceId(), is(clientSourceId2)))
+        .map(RecordedMessage::getTransactionId).collect(Collectors.toList());
+    assertThat(delta, Matchers.contains(4L, 5L, 6L, 7L, 8L, 9L, 10L));
+  }
+
   private DummyEntityResponse invokeActiveInternal(InvokeContext context, DummyEntityMessage message) {
     return new DummyEntityResponse();
   }
@@ -0,0 +1,249 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.client.message.tracker;
+
+import org.junit.Test;
+import org.terracotta.entity.EntityMessage;
+import org.terracotta.entity.EntityResponse;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.mockito.Mockito.mock;
+
+public class SegmentedTrackerTest {
+
+  @Test
+  public void trackTrackableMessage() throws Exception {
+    EntityMessage message = mock(EntityMessage.class);
+    EntityResponse response = mock(EntityResponse.class);
+
+    Tracker<EntityMessage, EntityResponse> tracker = new SegmentedTracker<>();
+    tracker.track(1L, 1L, message, response);
+
+    assertThat(tracker.getTrackedValue(1L), sameInstance(response));
+    assertThat(tracker.getTrackedRequest(1L), sameInstance(message));
+  }
+
+  @Test
+  public void trackInvalidMessage() throws Exception {
+    EntityMessage message = mock(EntityMessage.class);
+    EntityResponse response = mock(EntityResponse.class);
+
+    Tracker<EntityMessage, EntityResponse> tracker = new SegmentedTracker<>();
+    tracker.track(1L, -1L, message, response);  // a message with non-positive message id
+
+    assertThat(tracker.getTrackedValue(-1L), nullValue());
+    assertThat(tracker.getTrackedValues(), empty());
+  }
+
+  @Test
+  public void reconcile() throws Exception {
+    EntityMessage message = mock(EntityMessage.class);
+    EntityResponse response = mock(EntityResponse.class);
+
+    Tracker<EntityMessage, EntityResponse> tracker = new SegmentedTracker<>();
+    tracker.track(1L, 1L, message, response);
+    tracker.track(2L, 2L, message, response);
+    tracker.track(3L, 3L, message, response);
+
+    tracker.reconcile(1L);
+    assertThat(tracker.getTrackedValue(1L), notNullValue());
+    assertThat(tracker.getTrackedValue(2L), notNullValue());
+    assertThat(tracker.getTrackedValue(3L), notNullValue());
+
+    tracker.reconcile(2L);
+    assertThat(tracker.getTrackedValue(1L), nullValue());
+    assertThat(tracker.getTrackedValue(2L), notNullValue());
+    assertThat(tracker.getTrackedValue(3L), notNullValue());
+    assertThat(tracker.wasReconciled(1L), is(true));
+    assertThat(tracker.wasReconciled(2L), is(false));
+
+    tracker.reconcile(3L);
+    assertThat(tracker.getTrackedValue(1L), nullValue());
+    assertThat(tracker.getTrackedValue(2L), nullValue());
+    assertThat(tracker.getTrackedValue(3L), notNullValue());
+    assertThat(tracker.getTrackedValues(), hasSize(1));
+  }
+
+  @Test
+  public void testDuplicateReconcile() throws Exception {
+    EntityMessage message = mock(EntityMessage.class);
+    EntityResponse response = mock(EntityResponse.class);
+
+    Tracker<EntityMessage, EntityResponse> tracker = new SegmentedTracker<>();
+    tracker.track(1L, 1L, message, response);
+    tracker.track(2L, 2L, message, response);
+    tracker.track(3L, 3L, message, response);
+
+    tracker.reconcile(2L);
+    tracker.reconcile(2L);
+    tracker.reconcile(1L);  // never goes backwards
+    assertThat(tracker.getTrackedValue(1L), nullValue());
+    assertThat(tracker.getTrackedValue(2L), notNullValue());
+  }
+
+  @Test
+  public void trackBelowReconciledIsKeptUntilReconciledPast() throws Exception {
+    EntityMessage message = mock(EntityMessage.class);
+    EntityResponse response = mock(EntityResponse.class);
+
+    // the same as TrackerImpl
+    for (Tracker<EntityMessage, EntityResponse> tracker : Arrays.<Tracker<EntityMessage, EntityResponse>>asList(new SegmentedTracker<>(), new TrackerImpl<>())) {
+      tracker.track(12L, 12L, message, response);
+      tracker.reconcile(10L);
+      tracker.track(5L, 5L, message, response);
+
+      assertThat(tracker.getTrackedValue(5L), sameInstance(response));
+      assertThat(tracker.getTrackedRequest(5L), sameInstance(message));
+      assertThat(tracker.getTrackedValues(), hasSize(2));
+      assertThat(transactionIds(tracker.getTrackedValues(0L, 10)), contains(5L, 12L));
+      assertThat(transactionIds(tracker.getTrackedValues(5L, 10)), contains(12L));
+      assertThat(transactionIds(tracker.getTrackedValues(0L, 1)), contains(5L));
+
+      // a reconciliation that does not move the watermark still clears it
+      tracker.reconcile(6L);
+      assertThat(tracker.getTrackedValue(5L), nullValue());
+      assertThat(transactionIds(tracker.getTrackedValues(0L, 10)), contains(12L));
+    }
+  }
+
+  @Test
+  public void reconcileAcrossSegments() throws Exception {
+    EntityMessage message = mock(EntityMessage.class);
+    EntityResponse response = mock(EntityResponse.class);
+
+    Tracker<EntityMessage, EntityResponse> tracker = new SegmentedTracker<>();
+    for (long id = 1; id <= 1000; id++) {
+      tracker.track(id, id, message, response);
+    }
+    assertThat(tracker.getTrackedValues(), hasSize(1000));
+
+    tracker.reconcile(500L);
+    assertThat(tracker.getTrackedValue(499L), nullValue());
+    assertThat(tracker.getTrackedValue(500L), notNullValue());
+    assertThat(tracker.getTrackedValues(), hasSize(501));
+
+    // a jump far beyond the tracked ids must not walk the gap
+    tracker.reconcile(Long.MAX_VALUE / 2);
+    assertThat(tracker.getTrackedValue(1000L), nullValue());
+    assertThat(tracker.getTrackedValues(), empty());
+
+    tracker.track(Long.MAX_VALUE / 2, Long.MAX_VALUE / 2, message, response);
+    assertThat(tracker.getTrackedValue(Long.MAX_VALUE / 2), notNullValue());
+  }
+
+  @Test
+  public void concurrentTrackAndReconcile() throws Exception {
+    EntityMessage message = mock(EntityMessage.class);
+    EntityResponse response = mock(EntityResponse.class);
+
+    int threads = 4;
+    int perThread = 10_000;
+    Tracker<EntityMessage, EntityResponse> tracker = new SegmentedTracker<>();
+    ExecutorService executor = Executors.newFixedThreadPool(threads + 1);
+    try {
+      CountDownLatch start = new CountDownLatch(1);
+      List<Future<?>> futures = new ArrayList<>();
+      for (int t = 0; t < threads; t++) {
+        int offset = t;
+        futures.add(executor.submit(() -> {
+          start.await();
+          for (long i = 0; i < perThread; i++) {
+            long id = 1 + offset + i * threads;
+            tracker.track(id, id, message, response);
+          }
+          return null;
+        }));
+      }
+      futures.add(executor.submit(() -> {
+        start.await();
+        for (long id = 1; id <= threads * perThread / 2; id += 7) {
+          tracker.reconcile(id);
+        }
+        return null;
+      }));
+      start.countDown();
+      for (Future<?> future : futures) {
+        future.get(30, TimeUnit.SECONDS);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    long reconciled = threads * perThread / 2;
+    tracker.reconcile(reconciled);
+    for (long id = 1; id <= threads * perThread; id++) {
+      if (id < reconciled) {
+        assertThat(tracker.getTrackedValue(id), nullValue());
+      } else {
+        assertThat(tracker.getTrackedValue(id), sameInstance(response));
+      }
+    }
+    assertThat(tracker.getTrackedValues(), hasSize((int) (threads * perThread - reconciled + 1)));
+  }
+
+  @Test
+  public void trackedValuesAfterTransaction() throws Exception {
+    EntityMessage message = mock(EntityMessage.class);
+    EntityResponse response = mock(EntityResponse.class);
+
+    Tracker<EntityMessage, EntityResponse> tracker = new SegmentedTracker<>();
+    for (long id = 1; id <= 200; id++) {
+      tracker.track(id, id, message, response);
+    }
+    tracker.reconcile(50L);
+
+    List<Long> ids = new ArrayList<>();
+    for (Tracker.RequestResponse<EntityMessage, EntityResponse> requestResponse : tracker.getTrackedValues(0L, 5)) {
+      ids.add(requestResponse.getTransactionId());
+    }
+    assertThat(ids, contains(50L, 51L, 52L, 53L, 54L));
+
+    ids.clear();
+    for (Tracker.RequestResponse<EntityMessage, EntityResponse> requestResponse : tracker.getTrackedValues(127L, 3)) {
+      ids.add(requestResponse.getTransactionId());
+    }
+    assertThat(ids, contains(128L, 129L, 130L));
+
+    assertThat(tracker.getTrackedValues(150L, 100).size(), is(50));
+    assertThat(tracker.getTrackedValues(200L, 100).size(), is(0));
+    assertThat(tracker.getTrackedValues(Long.MAX_VALUE, 100).size(), is(0));
+  }
+
+  private static List<Long> transactionIds(List<Tracker.RequestResponse<EntityMessage, EntityResponse>> values) {
+    List<Long> ids = new ArrayList<>();
+    for (Tracker.RequestResponse<EntityMessage, EntityResponse> requestResponse : values) {
+      ids.add(requestResponse.getTransactionId());
+    }
+    return ids;
+  }
+}
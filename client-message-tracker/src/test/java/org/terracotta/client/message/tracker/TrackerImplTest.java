@@ -20,7 +20,12 @@ import org.junit.Test;
 import org.terracotta.entity.EntityMessage;
 import org.terracotta.entity.EntityResponse;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.hamcrest.Matchers.nullValue;
 import static org.hamcrest.Matchers.sameInstance;
@@ -99,4 +104,32 @@ public class TrackerImplTest {
     assertThat(tracker.getTrackedValue(2L), notNullValue());
 
   }
+
+  @Test
+  public void trackedValuesAfterTransaction() throws Exception {
+    EntityMessage message = mock(EntityMessage.class);
+    EntityResponse response = mock(EntityResponse.class);
+
+    Tracker<EntityMessage, EntityResponse> tracker = new TrackerImpl<>();
+    for (long id = 1; id <= 200; id++) {
+      tracker.track(id, id, message, response);
+    }
+    tracker.reconcile(50L);
+
+    List<Long> ids = new ArrayList<>();
+    for (Tracker.RequestResponse<EntityMessage, EntityResponse> requestResponse : tracker.getTrackedValues(0L, 5)) {
+      ids.add(requestResponse.getTransactionId());
+    }
+    assertThat(ids, contains(50L, 51L, 52L, 53L, 54L));
+
+    ids.clear();
+    for (Tracker.RequestResponse<EntityMessage, EntityResponse> requestResponse : tracker.getTrackedValues(127L, 3)) {
+      ids.add(requestResponse.getTransactionId());
+    }
+    assertThat(ids, contains(128L, 129L, 130L));
+
+    assertThat(tracker.getTrackedValues(150L, 100).size(), is(50));
+    assertThat(tracker.getTrackedValues(200L, 100).size(), is(0));
+    assertThat(tracker.getTrackedValues(Long.MAX_VALUE, 100).size(), is(0));
+  }
 }
@@ -32,11 +32,14 @@ import org.terracotta.entity.PassiveSynchronizationChannel;
 import org.terracotta.entity.ServiceException;
 import org.terracotta.entity.ServiceRegistry;
 
-import java.util.stream.Collectors;
+import java.util.Collections;
+import java.util.List;
 import java.util.stream.Stream;
 
 public class DemoActiveEntity implements ActiveServerEntity<EntityMessage, EntityResponse> {
 
+  private static final int SYNC_BATCH_SIZE = 1000;
+
   private final OOOMessageHandler<EntityMessage, EntityResponse> messageHandler;
 
   public DemoActiveEntity(ServiceRegistry serviceRegistry) throws ServiceException {
@@ -92,11 +95,8 @@ public class DemoActiveEntity implements ActiveServerEntity<EntityMessage, Entit
 
     // Sync client message tracker state
     int segmentIndex = concurrencyKeyToSegmentIndex(concurrencyKey);
-    messageHandler.getTrackedClients().forEach(clientSourceId -> {
-      Stream<RecordedMessage<EntityMessage, EntityResponse>> trackedResponsesForSegment = messageHandler.getRecordedMessages();
-      EntityMessage clientMessageTrackerSegmentData = new MessageTrackerSyncMessage(trackedResponsesForSegment.collect(Collectors.toList()));
-      passiveSynchronizationChannel.synchronizeToPassive(clientMessageTrackerSegmentData);
-    });
+    Stream<List<RecordedMessage<EntityMessage, EntityResponse>>> trackedResponses = messageHandler.getRecordedMessages(Collections.emptyMap(), SYNC_BATCH_SIZE);
+    trackedResponses.forEach(batch -> passiveSynchronizationChannel.synchronizeToPassive(new MessageTrackerSyncMessage(batch)));
   }
 
   private int concurrencyKeyToSegmentIndex(int concurrencyKey) {
@@ -0,0 +1,178 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.nomad.client;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * How the Nomad client sends a message to the servers of a phase.
+ * <p>
+ * By default, the servers are contacted one after the other. The concurrent mode contacts up to {@code maxConcurrency}
+ * servers at the same time and gives up on a server that did not answer within {@code serverTimeout}.
+ * <p>
+ * In both modes, the responses and failures are handled in the calling thread and in the order of the servers, so the
+ * result receivers see the same sequence of callbacks, and a phase only ends once every server has answered, failed
+ * or timed out.
+ */
+public final class FanOut {
+  private static final FanOut SEQUENTIAL = new FanOut(1, null);
+
+  private final int maxConcurrency;
+  private final Duration serverTimeout;
+
+  private FanOut(int maxConcurrency, Duration serverTimeout) {
+    this.maxConcurrency = maxConcurrency;
+    this.serverTimeout = serverTimeout;
+  }
+
+  public static FanOut sequential() {
+    return SEQUENTIAL;
+  }
+
+  public static FanOut concurrent(int maxConcurrency, Duration serverTimeout) {
+    if (maxConcurrency < 1) {
+      throw new IllegalArgumentException("Invalid concurrency: " + maxConcurrency);
+    }
+    requireNonNull(serverTimeout);
+    if (serverTimeout.isNegative() || serverTimeout.isZero()) {
+      throw new IllegalArgumentException("Invalid server timeout: " + serverTimeout);
+    }
+    return new FanOut(maxConcurrency, serverTimeout);
+  }
+
+  public int getMaxConcurrency() {
+    return maxConcurrency;
+  }
+
+  public Duration getServerTimeout() {
+    return serverTimeout;
+  }
+
+  <S, U> void run(List<S> servers, Function<S, Callable<U>> request, BiConsumer<S, U> onSuccess, BiConsumer<S, Throwable> onError) {
+    if (serverTimeout == null) {
+      for (S server : servers) {
+        Callable<U> callable = request.apply(server);
+        complete(server, () -> checkResponse(callable.call()), onSuccess, onError);
+      }
+    } else if (!servers.isEmpty()) {
+      runConcurrently(servers, request, onSuccess, onError);
+    }
+  }
+
+  private <S, U> void runConcurrently(List<S> servers, Function<S, Callable<U>> request, BiConsumer<S, U> onSuccess, BiConsumer<S, Throwable> onError) {
+    AtomicInteger threadCount = new AtomicInteger();
+    ExecutorService executor = Executors.newFixedThreadPool(Math.min(maxConcurrency, servers.size()), r -> {
+      Thread thread = new Thread(r, "nomad-fan-out-" + threadCount.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+    try {
+      // the requests are all created in the calling thread before being sent
+      List<Exchange<U>> exchanges = new ArrayList<>(servers.size());
+      for (S server : servers) {
+        exchanges.add(new Exchange<>(request.apply(server)));
+      }
+      for (Exchange<U> exchange : exchanges) {
+        exchange.future = executor.submit(exchange);
+      }
+      executor.shutdown();
+
+      for (int i = 0; i < servers.size(); i++) {
+        Exchange<U> exchange = exchanges.get(i);
+        complete(servers.get(i), () -> checkResponse(exchange.await(serverTimeout.toNanos())), onSuccess, onError);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private static <S, U> void complete(S server, Callable<U> response, BiConsumer<S, U> onSuccess, BiConsumer<S, Throwable> onError) {
+    try {
+      onSuccess.accept(server, response.call());
+    } catch (Exception e) {
+      onError.accept(server, e);
+    }
+  }
+
+  private static <U> U checkResponse(U response) {
+    if (response == null) {
+      throw new AssertionError("Response expected. Bug or wrong mocking ?");
+    }
+    return response;
+  }
+
+  private static class Exchange<U> implements Callable<U> {
+    private final Callable<U> callable;
+    private volatile long startTime;
+    private volatile boolean started;
+    private volatile Future<U> future;
+
+    Exchange(Callable<U> callable) {
+      this.callable = callable;
+    }
+
+    @Override
+    public U call() throws Exception {
+      startTime = System.nanoTime();
+      started = true;
+      return callable.call();
+    }
+
+    /**
+     * Waits for the response, at most {@code timeoutNanos} after the request started to be sent: a request that is still
+     * queued because of the concurrency limit is not timed out.
+     */
+    U await(long timeoutNanos) throws Exception {
+      while (true) {
+        long wait = started ? startTime + timeoutNanos - System.nanoTime() : timeoutNanos;
+        if (wait <= 0) {
+          future.cancel(true);
+          throw new TimeoutException("No response after " + NANOSECONDS.toMillis(timeoutNanos) + "ms");
+        }
+        try {
+          return future.get(wait, NANOSECONDS);
+        } catch (TimeoutException e) {
+          // check again: the request may have started after we began waiting
+        } catch (ExecutionException e) {
+          Throwable cause = e.getCause();
+          if (cause instanceof Error) {
+            throw (Error) cause;
+          }
+          throw (Exception) cause;
+        } catch (InterruptedException e) {
+          future.cancel(true);
+          Thread.currentThread().interrupt();
+          throw e;
+        }
+      }
+    }
+  }
+}
@@ -30,20 +30,34 @@ import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import java.time.Clock;
 import java.util.List;
 
+import static java.util.Objects.requireNonNull;
+
 public class NomadClient<T> implements AutoCloseable {
   private final List<NomadEndpoint<T>> servers;
   private final String host;
   private final String user;
   private final Clock clock;
+  private final FanOut fanOut;
+
+  /**
+   * @param servers the set of servers to run the Nomad protocol across
+   * @param host    the name of the local machine
+   * @param user    the name of the user the current process is running as
+   */
+  public NomadClient(List<NomadEndpoint<T>> servers, String host, String user, Clock clock) {
+    this(servers, host, user, clock, FanOut.sequential());
+  }
 
   /**
    * @param servers the set of servers to run the Nomad protocol across
    * @param host    the name of the local machine
    * @param user    the name of the user the current process is running as
+   * @param fanOut  how each phase contacts the servers
    */
   @SuppressFBWarnings("CT_CONSTRUCTOR_THROW")
-   public NomadClient(List<NomadEndpoint<T>> servers, String host, String user, Clock clock) {
+  public NomadClient(List<NomadEndpoint<T>> servers, String host, String user, Clock clock, FanOut fanOut) {
     this.clock = clock;
+    this.fanOut = requireNonNull(fanOut);
     if (servers.isEmpty()) {
       throw new IllegalArgumentException("There must be at least one server");
     }
@@ -54,17 +68,17 @@ public class NomadClient<T> implements AutoCloseable {
   }
 
   public void tryApplyChange(ChangeResultReceiver<T> results, NomadChange change) {
-    ChangeProcess<T> changeProcess = new ChangeProcess<>(servers, host, user, clock);
+    ChangeProcess<T> changeProcess = new ChangeProcess<>(servers, host, user, clock, fanOut);
     changeProcess.applyChange(results, change);
   }
 
   public void tryRecovery(RecoveryResultReceiver<T> results, int expectedTotalNodeCount, ChangeRequestState forcedState) {
-    RecoveryProcess<T> recoveryProcess = new RecoveryProcess<>(servers, host, user, clock);
+    RecoveryProcess<T> recoveryProcess = new RecoveryProcess<>(servers, host, user, clock, fanOut);
     recoveryProcess.recover(results, expectedTotalNodeCount, forcedState);
   }
 
   public void tryDiscovery(DiscoverResultsReceiver<T> results) {
-    DiscoveryProcess<T> discoveryProcess = new DiscoveryProcess<>(servers, host, user, clock);
+    DiscoveryProcess<T> discoveryProcess = new DiscoveryProcess<>(servers, host, user, clock, fanOut);
     discoveryProcess.discover(results);
   }
 
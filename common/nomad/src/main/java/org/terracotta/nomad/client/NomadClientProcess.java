@@ -30,12 +30,18 @@ public abstract class NomadClientProcess<C, R> {
   protected final String host;
   protected final String user;
   protected final Clock clock;
+  protected final FanOut fanOut;
 
   public NomadClientProcess(List<NomadEndpoint<R>> servers, String host, String user, Clock clock) {
+    this(servers, host, user, clock, FanOut.sequential());
+  }
+
+  public NomadClientProcess(List<NomadEndpoint<R>> servers, String host, String user, Clock clock, FanOut fanOut) {
     this.servers = servers;
     this.host = host;
     this.user = user;
     this.clock = clock;
+    this.fanOut = fanOut;
   }
 
   protected abstract boolean act(AllResultsReceiver<R> results, NomadDecider<R> decider, NomadMessageSender<R> messageSender, C data);
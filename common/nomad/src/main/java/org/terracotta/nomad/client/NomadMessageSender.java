@@ -34,6 +34,7 @@ import org.terracotta.nomad.server.NomadException;
 
 import java.time.Clock;
 import java.time.Instant;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
@@ -41,14 +42,17 @@ import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.function.Consumer;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
 
+import static java.util.Objects.requireNonNull;
 import static java.util.stream.Collectors.toList;
 
 public class NomadMessageSender<T> implements AllResultsReceiver<T> {
 
   private final List<NomadEndpoint<T>> servers;
   private final Clock clock;
+  private final FanOut fanOut;
   private final String host;
   private final String user;
   private final Map<HostPort, Long> mutativeMessageCounts = new ConcurrentHashMap<>();
@@ -58,21 +62,25 @@ public class NomadMessageSender<T> implements AllResultsReceiver<T> {
   protected volatile UUID changeUuid;
 
   public NomadMessageSender(List<NomadEndpoint<T>> servers, String host, String user, Clock clock) {
+    this(servers, host, user, clock, FanOut.sequential());
+  }
+
+  public NomadMessageSender(List<NomadEndpoint<T>> servers, String host, String user, Clock clock, FanOut fanOut) {
     this.host = host;
     this.user = user;
     this.servers = servers;
     this.clock = clock;
+    this.fanOut = requireNonNull(fanOut);
   }
 
   public void sendDiscovers(DiscoverResultsReceiver<T> results) {
     results.startDiscovery(servers.stream().map(NomadEndpoint::getHostPort).collect(toList()));
-    for (NomadEndpoint<T> server : servers) {
-      runSync(
-          server::discover,
-          discovery -> results.discovered(server.getHostPort(), discovery),
-          unwrap(e -> results.discoverFail(server.getHostPort(), e))
-      );
-    }
+    send(
+        servers,
+        server -> server::discover,
+        (server, discovery) -> results.discovered(server.getHostPort(), discovery),
+        (server, e) -> results.discoverFail(server.getHostPort(), e)
+    );
 
     results.endDiscovery();
   }
@@ -80,23 +88,28 @@ public class NomadMessageSender<T> implements AllResultsReceiver<T> {
   public void sendSecondDiscovers(DiscoverResultsReceiver<T> results) {
     results.startSecondDiscovery();
 
-    for (NomadEndpoint<T> server : servers) {
-      long mutativeMessageCount = mutativeMessageCounts.get(server.getHostPort());
-      runSync(
-          server::discover,
-          discovery -> {
-            long secondMutativeMessageCount = discovery.getMutativeMessageCount();
-            if (secondMutativeMessageCount == mutativeMessageCount) {
-              results.discoverRepeated(server.getHostPort());
-            } else {
-              String lastMutationHost = discovery.getLastMutationHost();
-              String lastMutationUser = discovery.getLastMutationUser();
-              results.discoverOtherClient(server.getHostPort(), lastMutationHost, lastMutationUser);
-            }
-          },
-          unwrap(e -> results.discoverFail(server.getHostPort(), e))
-      );
-    }
+    // read when the requests are built, as in the other phases
+    Map<HostPort, Long> expectedMutativeMessageCounts = new HashMap<>();
+    send(
+        servers,
+        server -> {
+          long mutativeMessageCount = mutativeMessageCounts.get(server.getHostPort());
+          expectedMutativeMessageCounts.put(server.getHostPort(), mutativeMessageCount);
+          return server::discover;
+        },
+        (server, discovery) -> {
+          long mutativeMessageCount = expectedMutativeMessageCounts.get(server.getHostPort());
+          long secondMutativeMessageCount = discovery.getMutativeMessageCount();
+          if (secondMutativeMessageCount == mutativeMessageCount) {
+            results.discoverRepeated(server.getHostPort());
+          } else {
+            String lastMutationHost = discovery.getLastMutationHost();
+            String lastMutationUser = discovery.getLastMutationUser();
+            results.discoverOtherClient(server.getHostPort(), lastMutationHost, lastMutationUser);
+          }
+        },
+        (server, e) -> results.discoverFail(server.getHostPort(), e)
+    );
 
     // The endSecondDiscovery() call is made outside this method
   }
@@ -107,10 +120,11 @@ public class NomadMessageSender<T> implements AllResultsReceiver<T> {
     long newVersionNumber = maxVersionNumber.get() + 1;
     Instant now = clock.instant();
 
-    for (NomadEndpoint<T> server : servers) {
-      long mutativeMessageCount = mutativeMessageCounts.get(server.getHostPort());
-      runSync(
-          () -> server.prepare(
+    send(
+        servers,
+        server -> {
+          long mutativeMessageCount = mutativeMessageCounts.get(server.getHostPort());
+          return () -> server.prepare(
               new PrepareMessage(
                   mutativeMessageCount,
                   host,
@@ -120,33 +134,33 @@ public class NomadMessageSender<T> implements AllResultsReceiver<T> {
                   newVersionNumber,
                   change
               )
-          ),
-          response -> {
-            if (response.isAccepted()) {
-              results.prepared(server.getHostPort());
-            } else {
-              RejectionReason rejectionReason = response.getRejectionReason();
-
-              switch (rejectionReason) {
-                case UNACCEPTABLE:
-                  String rejectionMessage = response.getRejectionMessage();
-                  results.prepareChangeUnacceptable(server.getHostPort(), rejectionMessage);
-                  break;
-                case DEAD:
-                  String lastMutationHost = response.getLastMutationHost();
-                  String lastMutationUser = response.getLastMutationUser();
-                  results.prepareOtherClient(server.getHostPort(), lastMutationHost, lastMutationUser);
-                  break;
-                case BAD:
-                  throw new AssertionError("A server rejected a message as bad: " + server.getHostPort());
-                default:
-                  throw new AssertionError("Unexpected RejectionReason: " + rejectionReason);
-              }
+          );
+        },
+        (server, response) -> {
+          if (response.isAccepted()) {
+            results.prepared(server.getHostPort());
+          } else {
+            RejectionReason rejectionReason = response.getRejectionReason();
+
+            switch (rejectionReason) {
+              case UNACCEPTABLE:
+                String rejectionMessage = response.getRejectionMessage();
+                results.prepareChangeUnacceptable(server.getHostPort(), rejectionMessage);
+                break;
+              case DEAD:
+                String lastMutationHost = response.getLastMutationHost();
+                String lastMutationUser = response.getLastMutationUser();
+                results.prepareOtherClient(server.getHostPort(), lastMutationHost, lastMutationUser);
+                break;
+              case BAD:
+                throw new AssertionError("A server rejected a message as bad: " + server.getHostPort());
+              default:
+                throw new AssertionError("Unexpected RejectionReason: " + rejectionReason);
             }
-          },
-          unwrap(e -> results.prepareFail(server.getHostPort(), e))
-      );
-    }
+          }
+        },
+        (server, e) -> results.prepareFail(server.getHostPort(), e)
+    );
 
     results.endPrepare();
   }
@@ -156,10 +170,11 @@ public class NomadMessageSender<T> implements AllResultsReceiver<T> {
 
     Instant now = clock.instant();
 
-    for (NomadEndpoint<T> server : preparedServers) {
-      long mutativeMessageCount = mutativeMessageCounts.get(server.getHostPort());
-      runSync(
-          () -> server.commit(
+    send(
+        preparedServers,
+        server -> {
+          long mutativeMessageCount = mutativeMessageCounts.get(server.getHostPort());
+          return () -> server.commit(
               new CommitMessage(
                   mutativeMessageCount + 1,
                   host,
@@ -167,30 +182,30 @@ public class NomadMessageSender<T> implements AllResultsReceiver<T> {
                   now,
                   changeUuid
               )
-          ),
-          response -> {
-            if (response.isAccepted()) {
-              results.committed(server.getHostPort());
-            } else {
-              RejectionReason rejectionReason = response.getRejectionReason();
-              switch (rejectionReason) {
-                case UNACCEPTABLE:
-                  throw new AssertionError("Commit should not return UNACCEPTABLE");
-                case DEAD:
-                  String lastMutationHost = response.getLastMutationHost();
-                  String lastMutationUser = response.getLastMutationUser();
-                  results.commitOtherClient(server.getHostPort(), lastMutationHost, lastMutationUser);
-                  break;
-                case BAD:
-                  throw new AssertionError("A server rejected a message as bad: " + server.getHostPort());
-                default:
-                  throw new AssertionError("Unexpected RejectionReason: " + rejectionReason);
-              }
+          );
+        },
+        (server, response) -> {
+          if (response.isAccepted()) {
+            results.committed(server.getHostPort());
+          } else {
+            RejectionReason rejectionReason = response.getRejectionReason();
+            switch (rejectionReason) {
+              case UNACCEPTABLE:
+                throw new AssertionError("Commit should not return UNACCEPTABLE");
+              case DEAD:
+                String lastMutationHost = response.getLastMutationHost();
+                String lastMutationUser = response.getLastMutationUser();
+                results.commitOtherClient(server.getHostPort(), lastMutationHost, lastMutationUser);
+                break;
+              case BAD:
+                throw new AssertionError("A server rejected a message as bad: " + server.getHostPort());
+              default:
+                throw new AssertionError("Unexpected RejectionReason: " + rejectionReason);
             }
-          },
-          unwrap(e -> results.commitFail(server.getHostPort(), e))
-      );
-    }
+          }
+        },
+        (server, e) -> results.commitFail(server.getHostPort(), e)
+    );
 
     results.endCommit();
   }
@@ -200,10 +215,11 @@ public class NomadMessageSender<T> implements AllResultsReceiver<T> {
 
     Instant now = clock.instant();
 
-    for (NomadEndpoint<T> server : preparedServers) {
-      long mutativeMessageCount = mutativeMessageCounts.get(server.getHostPort());
-      runSync(
-          () -> server.rollback(
+    send(
+        preparedServers,
+        server -> {
+          long mutativeMessageCount = mutativeMessageCounts.get(server.getHostPort());
+          return () -> server.rollback(
               new RollbackMessage(
                   mutativeMessageCount + 1,
                   host,
@@ -211,30 +227,30 @@ public class NomadMessageSender<T> implements AllResultsReceiver<T> {
                   now,
                   changeUuid
               )
-          ),
-          response -> {
-            if (response.isAccepted()) {
-              results.rolledBack(server.getHostPort());
-            } else {
-              RejectionReason rejectionReason = response.getRejectionReason();
-              switch (rejectionReason) {
-                case UNACCEPTABLE:
-                  throw new AssertionError("Rollback should not return UNACCEPTABLE");
-                case DEAD:
-                  String lastMutationHost = response.getLastMutationHost();
-                  String lastMutationUser = response.getLastMutationUser();
-                  results.rollbackOtherClient(server.getHostPort(), lastMutationHost, lastMutationUser);
-                  break;
-                case BAD:
-                  throw new AssertionError("A server rejected a message as bad: " + server.getHostPort());
-                default:
-                  throw new AssertionError("Unexpected RejectionReason: " + rejectionReason);
-              }
+          );
+        },
+        (server, response) -> {
+          if (response.isAccepted()) {
+            results.rolledBack(server.getHostPort());
+          } else {
+            RejectionReason rejectionReason = response.getRejectionReason();
+            switch (rejectionReason) {
+              case UNACCEPTABLE:
+                throw new AssertionError("Rollback should not return UNACCEPTABLE");
+              case DEAD:
+                String lastMutationHost = response.getLastMutationHost();
+                String lastMutationUser = response.getLastMutationUser();
+                results.rollbackOtherClient(server.getHostPort(), lastMutationHost, lastMutationUser);
+                break;
+              case BAD:
+                throw new AssertionError("A server rejected a message as bad: " + server.getHostPort());
+              default:
+                throw new AssertionError("Unexpected RejectionReason: " + rejectionReason);
             }
-          },
-          unwrap(e -> results.rollbackFail(server.getHostPort(), e))
-      );
-    }
+          }
+        },
+        (server, e) -> results.rollbackFail(server.getHostPort(), e)
+    );
 
     results.endRollback();
   }
@@ -244,40 +260,41 @@ public class NomadMessageSender<T> implements AllResultsReceiver<T> {
 
     Instant now = clock.instant();
 
-    for (NomadEndpoint<T> server : servers) {
-      long mutativeMessageCount = mutativeMessageCounts.get(server.getHostPort());
-      runSync(
-          () -> server.takeover(
+    send(
+        servers,
+        server -> {
+          long mutativeMessageCount = mutativeMessageCounts.get(server.getHostPort());
+          return () -> server.takeover(
               new TakeoverMessage(
                   mutativeMessageCount,
                   host,
                   user,
                   now
               )
-          ),
-          response -> {
-            if (response.isAccepted()) {
-              results.takeover(server.getHostPort());
-            } else {
-              RejectionReason rejectionReason = response.getRejectionReason();
-              switch (rejectionReason) {
-                case UNACCEPTABLE:
-                  throw new AssertionError("Takeover should not return UNACCEPTABLE");
-                case DEAD:
-                  String lastMutationHost = response.getLastMutationHost();
-                  String lastMutationUser = response.getLastMutationUser();
-                  results.takeoverOtherClient(server.getHostPort(), lastMutationHost, lastMutationUser);
-                  break;
-                case BAD:
-                  throw new AssertionError("A server rejected a message as bad: " + server.getHostPort());
-                default:
-                  throw new AssertionError("Unexpected RejectionReason: " + rejectionReason);
-              }
+          );
+        },
+        (server, response) -> {
+          if (response.isAccepted()) {
+            results.takeover(server.getHostPort());
+          } else {
+            RejectionReason rejectionReason = response.getRejectionReason();
+            switch (rejectionReason) {
+              case UNACCEPTABLE:
+                throw new AssertionError("Takeover should not return UNACCEPTABLE");
+              case DEAD:
+                String lastMutationHost = response.getLastMutationHost();
+                String lastMutationUser = response.getLastMutationUser();
+                results.takeoverOtherClient(server.getHostPort(), lastMutationHost, lastMutationUser);
+                break;
+              case BAD:
+                throw new AssertionError("A server rejected a message as bad: " + server.getHostPort());
+              default:
+                throw new AssertionError("Unexpected RejectionReason: " + rejectionReason);
             }
-          },
-          unwrap(e -> results.takeoverFail(server.getHostPort(), e))
-      );
-    }
+          }
+        },
+        (server, e) -> results.takeoverFail(server.getHostPort(), e)
+    );
 
     results.endTakeover();
   }
@@ -296,19 +313,11 @@ public class NomadMessageSender<T> implements AllResultsReceiver<T> {
     preparedServers.add(servers.stream().filter(s -> s.getHostPort().equals(address)).findAny().get());
   }
 
-  private <U> void runSync(Callable<U> callable, Consumer<U> onSuccess, Consumer<Throwable> onError) {
-    try {
-      U result = callable.call();
-      if (result == null) {
-        throw new AssertionError("Response expected. Bug or wrong mocking ?");
-      }
-      onSuccess.accept(result);
-    } catch (Exception e) {
-      onError.accept(e);
-    }
+  private <U> void send(List<NomadEndpoint<T>> targets, Function<NomadEndpoint<T>, Callable<U>> request, BiConsumer<NomadEndpoint<T>, U> onSuccess, BiConsumer<NomadEndpoint<T>, Throwable> onError) {
+    fanOut.run(targets, request, onSuccess, (server, e) -> onError.accept(server, unwrap(e)));
   }
 
-  private static Consumer<Throwable> unwrap(Consumer<Throwable> c) {
-    return t -> c.accept(t instanceof NomadException && t.getCause() != null && t.getCause() != t ? t.getCause() : t);
+  private static Throwable unwrap(Throwable t) {
+    return t instanceof NomadException && t.getCause() != null && t.getCause() != t ? t.getCause() : t;
   }
 }
@@ -17,6 +17,7 @@
 package org.terracotta.nomad.client.change;
 
 import org.terracotta.inet.HostPort;
+import org.terracotta.nomad.client.FanOut;
 import org.terracotta.nomad.client.NomadEndpoint;
 import org.terracotta.nomad.client.NomadMessageSender;
 
@@ -29,6 +30,10 @@ public class ChangeMessageSender<T> extends NomadMessageSender<T> {
     super(servers, host, user, clock);
   }
 
+  public ChangeMessageSender(List<NomadEndpoint<T>> servers, String host, String user, Clock clock, FanOut fanOut) {
+    super(servers, host, user, clock, fanOut);
+  }
+
   @Override
   public void startPrepare(UUID newChangeUuid) {
     super.startPrepare(newChangeUuid);
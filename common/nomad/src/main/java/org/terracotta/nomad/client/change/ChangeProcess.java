@@ -16,6 +16,7 @@
  */
 package org.terracotta.nomad.client.change;
 
+import org.terracotta.nomad.client.FanOut;
 import org.terracotta.nomad.client.NomadClientProcess;
 import org.terracotta.nomad.client.NomadDecider;
 import org.terracotta.nomad.client.NomadEndpoint;
@@ -31,11 +32,15 @@ public class ChangeProcess<T> extends NomadClientProcess<NomadChange, T> {
     super(servers, host, user, clock);
   }
 
+  public ChangeProcess(List<NomadEndpoint<T>> servers, String host, String user, Clock clock, FanOut fanOut) {
+    super(servers, host, user, clock, fanOut);
+  }
+
   public void applyChange(ChangeResultReceiver<T> results, NomadChange change) {
     runProcess(
         new ChangeAllResultsReceiverAdapter<>(results),
         new ChangeProcessDecider<>(),
-        new ChangeMessageSender<>(servers, host, user, clock),
+        new ChangeMessageSender<>(servers, host, user, clock, fanOut),
         change
     );
   }
@@ -17,6 +17,7 @@
 package org.terracotta.nomad.client.recovery;
 
 import org.terracotta.inet.HostPort;
+import org.terracotta.nomad.client.FanOut;
 import org.terracotta.nomad.client.NomadEndpoint;
 import org.terracotta.nomad.client.NomadMessageSender;
 import org.terracotta.nomad.messages.DiscoverResponse;
@@ -30,6 +31,10 @@ public class RecoveryMessageSender<T> extends NomadMessageSender<T> {
     super(servers, host, user, clock);
   }
 
+  public RecoveryMessageSender(List<NomadEndpoint<T>> servers, String host, String user, Clock clock, FanOut fanOut) {
+    super(servers, host, user, clock, fanOut);
+  }
+
   @Override
   public void discovered(HostPort server, DiscoverResponse<T> discovery) {
     super.discovered(server, discovery);
@@ -16,6 +16,7 @@
  */
 package org.terracotta.nomad.client.status;
 
+import org.terracotta.nomad.client.FanOut;
 import org.terracotta.nomad.client.NomadEndpoint;
 import org.terracotta.nomad.client.NomadMessageSender;
 import org.terracotta.nomad.client.change.NomadChange;
@@ -36,6 +37,10 @@ public class DiscoveryMessageSender<T> extends NomadMessageSender<T> {
     super(servers, host, user, clock);
   }
 
+  public DiscoveryMessageSender(List<NomadEndpoint<T>> servers, String host, String user, Clock clock, FanOut fanOut) {
+    super(servers, host, user, clock, fanOut);
+  }
+
   @Override
   public void sendPrepares(PrepareResultsReceiver results, UUID changeUuid, NomadChange change) {
     // ensure we do nothing
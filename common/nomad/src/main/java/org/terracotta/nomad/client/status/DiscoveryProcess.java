@@ -16,6 +16,7 @@
  */
 package org.terracotta.nomad.client.status;
 
+import org.terracotta.nomad.client.FanOut;
 import org.terracotta.nomad.client.NomadClientProcess;
 import org.terracotta.nomad.client.NomadDecider;
 import org.terracotta.nomad.client.NomadEndpoint;
@@ -35,11 +36,15 @@ public class DiscoveryProcess<T> extends NomadClientProcess<NomadChange, T> {
     super(servers, host, user, clock);
   }
 
+  public DiscoveryProcess(List<NomadEndpoint<T>> servers, String host, String user, Clock clock, FanOut fanOut) {
+    super(servers, host, user, clock, fanOut);
+  }
+
   public void discover(DiscoverResultsReceiver<T> results) {
     runProcess(
         new DiscoveryAllResultsReceiverAdapter<>(results),
         new DiscoveryProcessDecider<>(),
-        new DiscoveryMessageSender<>(servers, host, user, clock),
+        new DiscoveryMessageSender<>(servers, host, user, clock, fanOut),
         null
     );
   }
@@ -23,6 +23,7 @@ import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 import org.terracotta.inet.HostPort;
+import org.terracotta.nomad.client.FanOut;
 import org.terracotta.nomad.client.NomadClient;
 import org.terracotta.nomad.client.NomadEndpoint;
 import org.terracotta.nomad.client.change.ChangeResultReceiver;
@@ -39,6 +40,7 @@ import org.terracotta.nomad.server.state.MemoryNomadServerState;
 import org.terracotta.nomad.server.state.NomadServerState;
 
 import java.time.Clock;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -115,6 +117,12 @@ public class NomadTest {
     }
   }
 
+  @Test
+  public void applyChangeConcurrently() throws Exception {
+    client = new NomadClient<>(servers, "host", "user", Clock.systemUTC(), FanOut.concurrent(3, Duration.ofSeconds(10)));
+    applyChange();
+  }
+
   @SuppressWarnings("unchecked")
   @Test
   public void applyChange() throws Exception {
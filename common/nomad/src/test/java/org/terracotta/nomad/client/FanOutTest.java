@@ -0,0 +1,159 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.nomad.client;
+
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assert.assertTrue;
+
+public class FanOutTest {
+  private static final List<String> SERVERS = Arrays.asList("server1", "server2", "server3", "server4");
+
+  private final List<String> events = new ArrayList<>();
+
+  @Test
+  public void sequentialCallsServersInOrder() {
+    FanOut.sequential().run(SERVERS, server -> () -> {
+      events.add("call " + server);
+      return server;
+    }, this::success, this::failure);
+
+    assertThat(events, contains(
+        "call server1", "success server1",
+        "call server2", "success server2",
+        "call server3", "success server3",
+        "call server4", "success server4"));
+  }
+
+  @Test
+  public void sequentialReportsFailures() {
+    FanOut.sequential().run(SERVERS, server -> () -> {
+      if (server.equals("server2")) {
+        throw new IllegalStateException();
+      }
+      return server;
+    }, this::success, this::failure);
+
+    assertThat(events, contains("success server1", "failure server2 IllegalStateException", "success server3", "success server4"));
+  }
+
+  @Test
+  public void concurrentReportsResultsInServerOrder() {
+    FanOut.concurrent(4, Duration.ofSeconds(10)).run(SERVERS, server -> () -> {
+      // the last servers answer first
+      Thread.sleep(50L * (SERVERS.size() - SERVERS.indexOf(server)));
+      if (server.equals("server3")) {
+        throw new IllegalStateException();
+      }
+      return server;
+    }, this::success, this::failure);
+
+    assertThat(events, contains("success server1", "success server2", "failure server3 IllegalStateException", "success server4"));
+  }
+
+  @Test
+  public void concurrentContactsServersInParallel() throws Exception {
+    CountDownLatch allCalled = new CountDownLatch(SERVERS.size());
+
+    long start = System.nanoTime();
+    FanOut.concurrent(4, Duration.ofSeconds(10)).run(SERVERS, server -> () -> {
+      allCalled.countDown();
+      // only returns once every server has been contacted
+      assertTrue(allCalled.await(5, TimeUnit.SECONDS));
+      return server;
+    }, this::success, this::failure);
+
+    assertThat(events, contains("success server1", "success server2", "success server3", "success server4"));
+    assertThat(TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start), is(lessThan(5L)));
+  }
+
+  @Test
+  public void concurrentBoundsTheConcurrency() {
+    AtomicInteger inFlight = new AtomicInteger();
+    AtomicInteger maxInFlight = new AtomicInteger();
+
+    FanOut.concurrent(2, Duration.ofSeconds(10)).run(SERVERS, server -> () -> {
+      maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+      Thread.sleep(50L);
+      inFlight.decrementAndGet();
+      return server;
+    }, this::success, this::failure);
+
+    assertThat(events, contains("success server1", "success server2", "success server3", "success server4"));
+    assertThat(maxInFlight.get(), is(2));
+  }
+
+  @Test
+  public void concurrentTimesOutSlowServers() {
+    FanOut.concurrent(1, Duration.ofMillis(200)).run(SERVERS, server -> () -> {
+      if (server.equals("server1")) {
+        Thread.sleep(10_000L);
+      }
+      return server;
+    }, this::success, this::failure);
+
+    // queued requests are not timed out while the slow server holds the only thread
+    assertThat(events, contains("failure server1 TimeoutException", "success server2", "success server3", "success server4"));
+  }
+
+  @Test
+  public void requestsAreCreatedInCallingThread() {
+    Thread caller = Thread.currentThread();
+
+    FanOut.concurrent(4, Duration.ofSeconds(10)).run(SERVERS, server -> {
+      assertThat(Thread.currentThread(), is(caller));
+      return (Callable<String>) () -> server;
+    }, (server, response) -> {
+      assertThat(Thread.currentThread(), is(caller));
+      success(server, response);
+    }, this::failure);
+
+    assertThat(events, contains("success server1", "success server2", "success server3", "success server4"));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void concurrencyMustBePositive() {
+    FanOut.concurrent(0, Duration.ofSeconds(1));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void timeoutMustBePositive() {
+    FanOut.concurrent(1, Duration.ZERO);
+  }
+
+  private void success(String server, String response) {
+    assertThat(response, is(server));
+    events.add("success " + server);
+  }
+
+  private void failure(String server, Throwable e) {
+    events.add("failure " + server + " " + e.getClass().getSimpleName());
+  }
+}
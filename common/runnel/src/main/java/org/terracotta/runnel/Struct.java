@@ -16,9 +16,11 @@
  */
 package org.terracotta.runnel;
 
+import org.terracotta.runnel.decoding.IndexedStructDecoder;
 import org.terracotta.runnel.decoding.StructDecoder;
 import org.terracotta.runnel.decoding.fields.Field;
 import org.terracotta.runnel.decoding.fields.StructField;
+import org.terracotta.runnel.encoding.IndexedStructEncoder;
 import org.terracotta.runnel.encoding.StructEncoder;
 import org.terracotta.runnel.utils.ReadBuffer;
 
@@ -55,6 +57,17 @@ public class Struct {
     return new StructEncoder<>(root);
   }
 
+  /**
+   * Create a non-thread safe encoder allowing encoding according to the present structure, addressing fields by index.
+   * Note: this method is thread-safe.
+   * @return the encoder.
+   * @see IndexedStructEncoder
+   */
+  public IndexedStructEncoder indexedEncoder() {
+    root.checkFullyInitialized();
+    return new IndexedStructEncoder(root);
+  }
+
   /**
    * Create a non-thread safe decoder allowing decoding according to the present structure.
    * Note: this method is thread-safe.
@@ -66,6 +79,19 @@ public class Struct {
     return new StructDecoder<>(root, new ReadBuffer(byteBuffer));
   }
 
+  /**
+   * Create a non-thread safe decoder allowing random access to the fields according to the present structure,
+   * addressing them by index. The byte buffer is scanned once and its position is moved to the end of the structure.
+   * Note: this method is thread-safe.
+   * @param byteBuffer the byte buffer containing the data to be decoded.
+   * @return the decoder.
+   * @see IndexedStructDecoder
+   */
+  public IndexedStructDecoder indexedDecoder(ByteBuffer byteBuffer) {
+    root.checkFullyInitialized();
+    return new IndexedStructDecoder(root, byteBuffer);
+  }
+
   /**
    * Recursively decode a byte buffer according to the present structure and print the decoded outcome to a print stream.
    * Note: this method is thread-safe.
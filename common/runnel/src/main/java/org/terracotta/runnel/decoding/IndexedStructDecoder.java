@@ -0,0 +1,387 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.runnel.decoding;
+
+import org.terracotta.runnel.decoding.fields.ArrayField;
+import org.terracotta.runnel.decoding.fields.BoolField;
+import org.terracotta.runnel.decoding.fields.ByteBufferField;
+import org.terracotta.runnel.decoding.fields.CharField;
+import org.terracotta.runnel.decoding.fields.EnumField;
+import org.terracotta.runnel.decoding.fields.Field;
+import org.terracotta.runnel.decoding.fields.FloatingPoint64Field;
+import org.terracotta.runnel.decoding.fields.Int32Field;
+import org.terracotta.runnel.decoding.fields.Int64Field;
+import org.terracotta.runnel.decoding.fields.StringField;
+import org.terracotta.runnel.decoding.fields.StructField;
+import org.terracotta.runnel.metadata.Metadata;
+import org.terracotta.runnel.utils.CorruptDataException;
+import org.terracotta.runnel.utils.LimitReachedException;
+import org.terracotta.runnel.utils.ReadBuffer;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * A decoder allowing random access to the fields of structured data described by a {@link org.terracotta.runnel.Struct},
+ * addressing them by the index they were registered with in the {@link org.terracotta.runnel.StructBuilder}.
+ * <p>
+ * Contrary to {@link StructDecoder}, the encoded structure is scanned only once, when the decoder is created, to
+ * build a table of the offsets of all the fields it contains. Fields can then be read in any order and any number of
+ * times, and primitive values and arrays are returned without boxing. Absent fields make the primitive accessors return the
+ * passed-in default value, and the other ones return null.
+ * Fields unknown to the structure, i.e.: written by a newer version of it, are ignored.
+ * Note: Instances of this class are not thread-safe.
+ */
+public class IndexedStructDecoder {
+
+  private final Metadata metadata;
+  private final ByteBuffer byteBuffer;
+  // field ordinal -> (offset << 32 | size), or -1 if the field is absent
+  private final long[] locations;
+  private int position;
+  private int arrayLimit;
+
+  public IndexedStructDecoder(StructField structField, ByteBuffer byteBuffer) {
+    this.metadata = structField.getMetadata();
+    this.byteBuffer = byteBuffer;
+    this.position = byteBuffer.position();
+    int size = readVlqInt(byteBuffer.limit());
+    int limit = position + size;
+    if (limit > byteBuffer.limit()) {
+      throw new LimitReachedException();
+    }
+    this.locations = new long[metadata.fieldCount()];
+    scan(limit);
+    byteBuffer.position(limit);
+  }
+
+  private IndexedStructDecoder(Metadata metadata, ByteBuffer byteBuffer, int from, int to) {
+    this.metadata = metadata;
+    this.byteBuffer = byteBuffer;
+    this.position = from;
+    this.locations = new long[metadata.fieldCount()];
+    scan(to);
+  }
+
+  private void scan(int limit) {
+    Arrays.fill(locations, -1L);
+    while (position < limit) {
+      int index = readVlqInt(limit);
+      int size = readVlqInt(limit);
+      if (position + size > limit) {
+        throw new LimitReachedException();
+      }
+      int ordinal = metadata.ordinalOf(index);
+      if (ordinal >= 0) {
+        locations[ordinal] = ((long) position << 32) | size;
+      }
+      position += size;
+    }
+  }
+
+  private int readVlqInt(int limit) {
+    int value = 0;
+    for (int i = 0; i < 5; i++) {
+      if (position >= limit) {
+        throw new LimitReachedException();
+      }
+      byte b = byteBuffer.get(position++);
+      value |= b & 0x7F;
+      if ((b & 0x80) == 0) {
+        return value;
+      }
+      value <<= 7;
+    }
+    throw new IllegalArgumentException("Cannot decode value greater than Integer.MAX_VALUE");
+  }
+
+  /**
+   * Check if a field is present in the encoded structure.
+   * @param index the field index.
+   * @return true if the field is present, false otherwise.
+   */
+  public boolean has(int index) {
+    int ordinal = metadata.ordinalOf(index);
+    return ordinal >= 0 && locations[ordinal] >= 0;
+  }
+
+  public boolean bool(int index, boolean defaultValue) {
+    int offset = valueOffset(index, BoolField.class, 1);
+    return offset < 0 ? defaultValue : byteBuffer.get(offset) != (byte) 0;
+  }
+
+  public char chr(int index, char defaultValue) {
+    int offset = valueOffset(index, CharField.class, 2);
+    return offset < 0 ? defaultValue : byteBuffer.getChar(offset);
+  }
+
+  public int int32(int index, int defaultValue) {
+    int offset = valueOffset(index, Int32Field.class, 4);
+    return offset < 0 ? defaultValue : byteBuffer.getInt(offset);
+  }
+
+  public long int64(int index, long defaultValue) {
+    int offset = valueOffset(index, Int64Field.class, 8);
+    return offset < 0 ? defaultValue : byteBuffer.getLong(offset);
+  }
+
+  public double fp64(int index, double defaultValue) {
+    int offset = valueOffset(index, FloatingPoint64Field.class, 8);
+    return offset < 0 ? defaultValue : byteBuffer.getDouble(offset);
+  }
+
+  /**
+   * Decode an enumeration.
+   * @param index the field index.
+   * @param defaultValue the value to return if the field is absent.
+   * @param <E> the enumeration's actual type.
+   * @return the decoded value, the default value if the field is absent or null if the encoded value is unmapped.
+   */
+  @SuppressWarnings("unchecked")
+  public <E> E enm(int index, E defaultValue) {
+    EnumField<E> field = (EnumField<E>) checkField(index, EnumField.class);
+    long location = locations[metadata.ordinalOf(index)];
+    if (location < 0) {
+      return defaultValue;
+    }
+    position = offset(location);
+    int intValue = readVlqInt(position + size(location));
+    return field.getEnumMapping().toEnum(intValue);
+  }
+
+  public String string(int index) {
+    ByteBuffer slice = slice(index, StringField.class);
+    return slice == null ? null : new ReadBuffer(slice).getString(slice.remaining());
+  }
+
+  public ByteBuffer byteBuffer(int index) {
+    return slice(index, ByteBufferField.class);
+  }
+
+  /**
+   * Decode a sub-structure.
+   * @param index the field index.
+   * @return a decoder of the sub-structure, or null if the field is absent.
+   */
+  public IndexedStructDecoder struct(int index) {
+    StructField field = checkField(index, StructField.class);
+    long location = locations[metadata.ordinalOf(index)];
+    if (location < 0) {
+      return null;
+    }
+    return new IndexedStructDecoder(field.getMetadata(), byteBuffer, offset(location), offset(location) + size(location));
+  }
+
+  public boolean[] bools(int index) {
+    int length = arrayLength(index, BoolField.class);
+    if (length < 0) {
+      return null;
+    }
+    boolean[] values = new boolean[length];
+    for (int i = 0; i < length; i++) {
+      values[i] = byteBuffer.get(elementOffset(1)) != (byte) 0;
+    }
+    return values;
+  }
+
+  public char[] chrs(int index) {
+    int length = arrayLength(index, CharField.class);
+    if (length < 0) {
+      return null;
+    }
+    char[] values = new char[length];
+    for (int i = 0; i < length; i++) {
+      values[i] = byteBuffer.getChar(elementOffset(2));
+    }
+    return values;
+  }
+
+  public int[] int32s(int index) {
+    int length = arrayLength(index, Int32Field.class);
+    if (length < 0) {
+      return null;
+    }
+    int[] values = new int[length];
+    for (int i = 0; i < length; i++) {
+      values[i] = byteBuffer.getInt(elementOffset(4));
+    }
+    return values;
+  }
+
+  public long[] int64s(int index) {
+    int length = arrayLength(index, Int64Field.class);
+    if (length < 0) {
+      return null;
+    }
+    long[] values = new long[length];
+    for (int i = 0; i < length; i++) {
+      values[i] = byteBuffer.getLong(elementOffset(8));
+    }
+    return values;
+  }
+
+  public double[] fp64s(int index) {
+    int length = arrayLength(index, FloatingPoint64Field.class);
+    if (length < 0) {
+      return null;
+    }
+    double[] values = new double[length];
+    for (int i = 0; i < length; i++) {
+      values[i] = byteBuffer.getDouble(elementOffset(8));
+    }
+    return values;
+  }
+
+  public String[] strings(int index) {
+    int length = arrayLength(index, StringField.class);
+    if (length < 0) {
+      return null;
+    }
+    String[] values = new String[length];
+    for (int i = 0; i < length; i++) {
+      int size = elementSize();
+      values[i] = new ReadBuffer(slice(position, size)).getString(size);
+      position += size;
+    }
+    return values;
+  }
+
+  public ByteBuffer[] byteBuffers(int index) {
+    int length = arrayLength(index, ByteBufferField.class);
+    if (length < 0) {
+      return null;
+    }
+    ByteBuffer[] values = new ByteBuffer[length];
+    for (int i = 0; i < length; i++) {
+      int size = elementSize();
+      values[i] = slice(position, size);
+      position += size;
+    }
+    return values;
+  }
+
+  /**
+   * Decode a structure array.
+   * @param index the field index.
+   * @return a decoder per element of the structure array, or null if the field is absent.
+   */
+  public IndexedStructDecoder[] structs(int index) {
+    ArrayField field = checkField(index, ArrayField.class);
+    int length = arrayLength(index, StructField.class);
+    if (length < 0) {
+      return null;
+    }
+    Metadata elementMetadata = ((StructField) field.subField()).getMetadata();
+    IndexedStructDecoder[] values = new IndexedStructDecoder[length];
+    for (int i = 0; i < length; i++) {
+      int size = elementSize();
+      int from = position;
+      position += size;
+      values[i] = new IndexedStructDecoder(elementMetadata, byteBuffer, from, from + size);
+    }
+    return values;
+  }
+
+  /**
+   * Position this decoder at the first element of the array and return its length, or -1 if the field is absent.
+   */
+  private int arrayLength(int index, Class<? extends Field> subFieldClazz) {
+    ArrayField field = checkField(index, ArrayField.class);
+    Field subField = field.subField();
+    if (subField.getClass() != subFieldClazz) {
+      throw new IllegalArgumentException("Invalid type for field '" + field.name() + "', expected : '" + subFieldClazz.getSimpleName() + "' array but was '" + subField.getClass().getSimpleName() + "' array");
+    }
+    long location = locations[metadata.ordinalOf(index)];
+    if (location < 0) {
+      return -1;
+    }
+    position = offset(location);
+    arrayLimit = position + size(location);
+    int length = readVlqInt(arrayLimit);
+    // every element takes at least one byte
+    if (length > arrayLimit - position) {
+      throw new LimitReachedException();
+    }
+    return length;
+  }
+
+  private int elementSize() {
+    int size = readVlqInt(arrayLimit);
+    if (position + size > arrayLimit) {
+      throw new LimitReachedException();
+    }
+    return size;
+  }
+
+  private int elementOffset(int expectedSize) {
+    int size = elementSize();
+    if (size != expectedSize) {
+      throw new CorruptDataException("Expected field size of " + expectedSize + ", read : " + size);
+    }
+    int offset = position;
+    position += size;
+    return offset;
+  }
+
+  private int valueOffset(int index, Class<? extends Field> fieldClazz, int expectedSize) {
+    checkField(index, fieldClazz);
+    long location = locations[metadata.ordinalOf(index)];
+    if (location < 0) {
+      return -1;
+    }
+    if (size(location) != expectedSize) {
+      throw new CorruptDataException("Expected field size of " + expectedSize + ", read : " + size(location));
+    }
+    return offset(location);
+  }
+
+  private ByteBuffer slice(int index, Class<? extends Field> fieldClazz) {
+    checkField(index, fieldClazz);
+    long location = locations[metadata.ordinalOf(index)];
+    if (location < 0) {
+      return null;
+    }
+    return slice(offset(location), size(location));
+  }
+
+  private ByteBuffer slice(int offset, int size) {
+    ByteBuffer slice = byteBuffer.duplicate();
+    slice.limit(offset + size).position(offset);
+    return slice.slice();
+  }
+
+  private static int offset(long location) {
+    return (int) (location >>> 32);
+  }
+
+  private static int size(long location) {
+    return (int) location;
+  }
+
+  @SuppressWarnings("unchecked")
+  private <T extends Field> T checkField(int index, Class<T> fieldClazz) {
+    Field field = metadata.getFieldByIndex(index);
+    if (field == null) {
+      throw new IllegalArgumentException("No such field : " + index);
+    }
+    if (field.getClass() != fieldClazz) {
+      throw new IllegalArgumentException("Invalid type for field '" + field.name() + "', expected : '" + fieldClazz.getSimpleName() + "' but was '" + field.getClass().getSimpleName() + "'");
+    }
+    return (T) field;
+  }
+
+}
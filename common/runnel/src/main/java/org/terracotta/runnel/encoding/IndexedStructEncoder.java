@@ -0,0 +1,458 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.runnel.encoding;
+
+import org.terracotta.runnel.decoding.fields.ArrayField;
+import org.terracotta.runnel.decoding.fields.BoolField;
+import org.terracotta.runnel.decoding.fields.ByteBufferField;
+import org.terracotta.runnel.decoding.fields.CharField;
+import org.terracotta.runnel.decoding.fields.EnumField;
+import org.terracotta.runnel.decoding.fields.Field;
+import org.terracotta.runnel.decoding.fields.FloatingPoint64Field;
+import org.terracotta.runnel.decoding.fields.Int32Field;
+import org.terracotta.runnel.decoding.fields.Int64Field;
+import org.terracotta.runnel.decoding.fields.StringField;
+import org.terracotta.runnel.decoding.fields.StructField;
+import org.terracotta.runnel.metadata.Metadata;
+import org.terracotta.runnel.utils.VLQ;
+import org.terracotta.runnel.utils.WriteBuffer;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * An encoder allows encoding structured data described by a {@link org.terracotta.runnel.Struct}, addressing
+ * fields by the index they were registered with in the {@link org.terracotta.runnel.StructBuilder}.
+ * <p>
+ * Contrary to {@link StructEncoder}, values are written straight away into a growable buffer which is pooled
+ * per thread, so that encoding does not allocate any intermediate object once warmed up. Both encoders produce
+ * the exact same bytes, so a {@link org.terracotta.runnel.decoding.StructDecoder} can read what this encoder wrote.
+ * <p>
+ * Sub-structures and structure arrays are opened with {@link #struct(int)}, {@link #structs(int)} and
+ * {@link #add()}, and must be closed with {@link #end()}. Once {@link #encode()} or {@link #encode(ByteBuffer)}
+ * got called, the encoder is reset and can be used to encode another structure.
+ * Note: Instances of this class are not thread-safe.
+ */
+public class IndexedStructEncoder {
+
+  private static final int INITIAL_BUFFER_CAPACITY = 256;
+  private static final int MAX_POOLED_BUFFER_CAPACITY = 1024 * 1024;
+  private static final ThreadLocal<Workspace> POOL = new ThreadLocal<>();
+
+  private static final byte ROOT = 0;
+  private static final byte STRUCT = 1;
+  private static final byte STRUCT_ARRAY = 2;
+  private static final byte STRUCT_ARRAY_ELEMENT = 3;
+
+  private final Metadata rootMetadata;
+  private Workspace workspace;
+
+  public IndexedStructEncoder(StructField structField) {
+    this.rootMetadata = structField.getMetadata();
+  }
+
+  public IndexedStructEncoder bool(int index, boolean value) {
+    Workspace ws = valueField(index, BoolField.class, null);
+    ws.buffer.putVlqInt(1);
+    ws.buffer.putBoolean(value);
+    return this;
+  }
+
+  public IndexedStructEncoder chr(int index, char value) {
+    Workspace ws = valueField(index, CharField.class, null);
+    ws.buffer.putVlqInt(2);
+    ws.buffer.putChar(value);
+    return this;
+  }
+
+  @SuppressWarnings("unchecked")
+  public <E> IndexedStructEncoder enm(int index, E value) {
+    Workspace ws = workspace();
+    EnumField<E> field = (EnumField<E>) ws.findField(index, EnumField.class, null);
+    int intValue = field.getEnumMapping().toInt(value);
+    ws.buffer.putVlqInt(index);
+    ws.buffer.putVlqInt(VLQ.encodedSize(intValue));
+    ws.buffer.putVlqInt(intValue);
+    return this;
+  }
+
+  public IndexedStructEncoder int32(int index, int value) {
+    Workspace ws = valueField(index, Int32Field.class, null);
+    ws.buffer.putVlqInt(4);
+    ws.buffer.putInt(value);
+    return this;
+  }
+
+  public IndexedStructEncoder int64(int index, long value) {
+    Workspace ws = valueField(index, Int64Field.class, null);
+    ws.buffer.putVlqInt(8);
+    ws.buffer.putLong(value);
+    return this;
+  }
+
+  public IndexedStructEncoder fp64(int index, double value) {
+    Workspace ws = valueField(index, FloatingPoint64Field.class, null);
+    ws.buffer.putVlqInt(8);
+    ws.buffer.putDouble(value);
+    return this;
+  }
+
+  public IndexedStructEncoder string(int index, String value) {
+    Workspace ws = workspace();
+    ws.findField(index, StringField.class, null);
+    if (value != null) {
+      ws.buffer.putVlqInt(index);
+      ws.putString(value);
+    }
+    return this;
+  }
+
+  public IndexedStructEncoder byteBuffer(int index, ByteBuffer value) {
+    Workspace ws = valueField(index, ByteBufferField.class, null);
+    ws.buffer.putVlqInt(value.remaining());
+    ws.buffer.putByteBuffer(value);
+    return this;
+  }
+
+  public IndexedStructEncoder bools(int index, boolean... values) {
+    Workspace ws = valueField(index, ArrayField.class, BoolField.class);
+    ws.putFixedSizeArrayHeader(values.length, 1);
+    for (boolean value : values) {
+      ws.buffer.putVlqInt(1);
+      ws.buffer.putBoolean(value);
+    }
+    return this;
+  }
+
+  public IndexedStructEncoder chrs(int index, char... values) {
+    Workspace ws = valueField(index, ArrayField.class, CharField.class);
+    ws.putFixedSizeArrayHeader(values.length, 2);
+    for (char value : values) {
+      ws.buffer.putVlqInt(2);
+      ws.buffer.putChar(value);
+    }
+    return this;
+  }
+
+  public IndexedStructEncoder int32s(int index, int... values) {
+    Workspace ws = valueField(index, ArrayField.class, Int32Field.class);
+    ws.putFixedSizeArrayHeader(values.length, 4);
+    for (int value : values) {
+      ws.buffer.putVlqInt(4);
+      ws.buffer.putInt(value);
+    }
+    return this;
+  }
+
+  public IndexedStructEncoder int64s(int index, long... values) {
+    Workspace ws = valueField(index, ArrayField.class, Int64Field.class);
+    ws.putFixedSizeArrayHeader(values.length, 8);
+    for (long value : values) {
+      ws.buffer.putVlqInt(8);
+      ws.buffer.putLong(value);
+    }
+    return this;
+  }
+
+  public IndexedStructEncoder fp64s(int index, double... values) {
+    Workspace ws = valueField(index, ArrayField.class, FloatingPoint64Field.class);
+    ws.putFixedSizeArrayHeader(values.length, 8);
+    for (double value : values) {
+      ws.buffer.putVlqInt(8);
+      ws.buffer.putDouble(value);
+    }
+    return this;
+  }
+
+  public IndexedStructEncoder strings(int index, String... values) {
+    Workspace ws = valueField(index, ArrayField.class, StringField.class);
+    int start = ws.reserveArrayHeader();
+    for (String value : values) {
+      ws.putString(value);
+    }
+    ws.closeArrayHeader(start, values.length);
+    return this;
+  }
+
+  public IndexedStructEncoder byteBuffers(int index, ByteBuffer... values) {
+    Workspace ws = valueField(index, ArrayField.class, ByteBufferField.class);
+    int size = VLQ.encodedSize(values.length);
+    for (ByteBuffer value : values) {
+      size += VLQ.encodedSize(value.remaining()) + value.remaining();
+    }
+    ws.buffer.putVlqInt(size);
+    ws.buffer.putVlqInt(values.length);
+    for (ByteBuffer value : values) {
+      ws.buffer.putVlqInt(value.remaining());
+      ws.buffer.putByteBuffer(value);
+    }
+    return this;
+  }
+
+  /**
+   * Start encoding a sub-structure, which must be closed with {@link #end()}.
+   * @param index the field index.
+   * @return this.
+   */
+  public IndexedStructEncoder struct(int index) {
+    Workspace ws = workspace();
+    StructField field = ws.findField(index, StructField.class, null);
+    ws.buffer.putVlqInt(index);
+    ws.buffer.reserve(1);
+    ws.push(STRUCT, field.getMetadata());
+    return this;
+  }
+
+  /**
+   * Start encoding a structure array, which elements are added with {@link #add()}. The array must be
+   * closed with {@link #end()}.
+   * @param index the field index.
+   * @return this.
+   */
+  public IndexedStructEncoder structs(int index) {
+    Workspace ws = workspace();
+    ArrayField field = ws.findField(index, ArrayField.class, StructField.class);
+    ws.buffer.putVlqInt(index);
+    ws.buffer.reserve(2);
+    ws.push(STRUCT_ARRAY, ((StructField) field.subField()).getMetadata());
+    return this;
+  }
+
+  /**
+   * Start encoding a structure array element, which must be closed with {@link #end()}.
+   * @return this.
+   */
+  public IndexedStructEncoder add() {
+    Workspace ws = workspace();
+    if (ws.kinds[ws.depth] != STRUCT_ARRAY) {
+      throw new IllegalStateException("Cannot add an element outside of a structure array");
+    }
+    ws.buffer.reserve(1);
+    ws.push(STRUCT_ARRAY_ELEMENT, ws.metadata[ws.depth]);
+    return this;
+  }
+
+  /**
+   * Close the current sub-structure, structure array or structure array element.
+   * @return this.
+   */
+  public IndexedStructEncoder end() {
+    Workspace ws = workspace();
+    switch (ws.kinds[ws.depth]) {
+      case ROOT:
+        throw new IllegalStateException("Cannot end root encoder");
+      case STRUCT:
+        ws.closeStructHeader(ws.starts[ws.depth]);
+        ws.depth--;
+        break;
+      case STRUCT_ARRAY:
+        ws.closeArrayHeader(ws.starts[ws.depth], ws.counts[ws.depth]);
+        ws.depth--;
+        break;
+      case STRUCT_ARRAY_ELEMENT:
+        int start = ws.starts[ws.depth];
+        ws.depth--;
+        if (ws.buffer.position() == start) {
+          // like the StructEncoder, skip empty elements
+          ws.buffer.truncate(start - 1);
+        } else {
+          ws.closeStructHeader(start);
+          ws.counts[ws.depth]++;
+        }
+        break;
+      default:
+        throw new AssertionError();
+    }
+    return this;
+  }
+
+  /**
+   * Encode the structure in the given byte buffer, then reset this encoder.
+   * @param bb the byte buffer to fill with the encoded structure.
+   * @return the passed-in byte buffer.
+   */
+  public ByteBuffer encode(ByteBuffer bb) {
+    Workspace ws = closeRoot();
+    try {
+      ws.buffer.copyTo(bb);
+      return bb;
+    } finally {
+      release();
+    }
+  }
+
+  /**
+   * Return a newly allocated byte buffer containing the encoded structure of the exact size, then reset this encoder.
+   * The returned byte buffer is heap-allocated, so it supports {@link ByteBuffer#array()}.
+   * @return the encoded structure in a new byte buffer.
+   */
+  public ByteBuffer encode() {
+    Workspace ws = closeRoot();
+    try {
+      ByteBuffer bb = ByteBuffer.allocate(ws.buffer.position());
+      ws.buffer.copyTo(bb);
+      return bb;
+    } finally {
+      release();
+    }
+  }
+
+  private Workspace closeRoot() {
+    Workspace ws = workspace();
+    if (ws.depth != 0) {
+      throw new IllegalStateException("Cannot encode non-root encoder");
+    }
+    ws.closeStructHeader(ws.starts[0]);
+    return ws;
+  }
+
+  private Workspace valueField(int index, Class<? extends Field> fieldClazz, Class<? extends Field> subFieldClazz) {
+    Workspace ws = workspace();
+    ws.findField(index, fieldClazz, subFieldClazz);
+    ws.buffer.putVlqInt(index);
+    return ws;
+  }
+
+  private Workspace workspace() {
+    Workspace ws = workspace;
+    if (ws == null) {
+      ws = POOL.get();
+      if (ws == null) {
+        ws = new Workspace();
+      } else {
+        POOL.remove();
+      }
+      ws.reset(rootMetadata);
+      workspace = ws;
+    }
+    return ws;
+  }
+
+  private void release() {
+    Workspace ws = workspace;
+    workspace = null;
+    if (ws.buffer.capacity() <= MAX_POOLED_BUFFER_CAPACITY) {
+      POOL.set(ws);
+    }
+  }
+
+  /**
+   * The buffer and encoding stack, which only get allocated once per thread.
+   */
+  private static final class Workspace {
+    private final WriteBuffer buffer = WriteBuffer.growable(INITIAL_BUFFER_CAPACITY);
+    private Metadata[] metadata = new Metadata[8];
+    private byte[] kinds = new byte[8];
+    private int[] starts = new int[8];
+    private int[] lastIndexes = new int[8];
+    private int[] counts = new int[8];
+    private int depth;
+
+    void reset(Metadata rootMetadata) {
+      buffer.clear();
+      buffer.reserve(1);
+      depth = -1;
+      push(ROOT, rootMetadata);
+    }
+
+    void push(byte kind, Metadata md) {
+      int d = ++depth;
+      if (d == kinds.length) {
+        int newLength = d * 2;
+        metadata = Arrays.copyOf(metadata, newLength);
+        kinds = Arrays.copyOf(kinds, newLength);
+        starts = Arrays.copyOf(starts, newLength);
+        lastIndexes = Arrays.copyOf(lastIndexes, newLength);
+        counts = Arrays.copyOf(counts, newLength);
+      }
+      metadata[d] = md;
+      kinds[d] = kind;
+      starts[d] = buffer.position();
+      lastIndexes[d] = -1;
+      counts[d] = 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    <T extends Field> T findField(int index, Class<T> fieldClazz, Class<? extends Field> subFieldClazz) {
+      if (kinds[depth] == STRUCT_ARRAY) {
+        throw new IllegalStateException("Cannot encode a field directly in a structure array, use add()");
+      }
+      Field field = metadata[depth].getFieldByIndex(index);
+      if (field == null) {
+        throw new IllegalArgumentException("No such field : " + index);
+      }
+      if (index <= lastIndexes[depth]) {
+        throw new IllegalArgumentException("No such field left : '" + field.name() + "'");
+      }
+      lastIndexes[depth] = index;
+
+      if (field.getClass() != fieldClazz) {
+        throw new IllegalArgumentException("Invalid type for field '" + field.name() + "', expected : '" + fieldClazz.getSimpleName() + "' but was '" + field.getClass().getSimpleName() + "'");
+      }
+      if (subFieldClazz != null) {
+        Field subField = ((ArrayField) field).subField();
+        if (subField.getClass() != subFieldClazz) {
+          throw new IllegalArgumentException("Invalid subtype for field '" + field.name() + "', expected : '" + subFieldClazz.getSimpleName() + "' but was '" + subField.getClass().getSimpleName() + "'");
+        }
+      }
+      return (T) field;
+    }
+
+    void putString(String value) {
+      buffer.reserve(1);
+      int start = buffer.position();
+      buffer.putString(value);
+      closeStructHeader(start);
+    }
+
+    void putFixedSizeArrayHeader(int length, int valueSize) {
+      int size = VLQ.encodedSize(length) + length * (VLQ.encodedSize(valueSize) + valueSize);
+      buffer.putVlqInt(size);
+      buffer.putVlqInt(length);
+    }
+
+    int reserveArrayHeader() {
+      buffer.reserve(2);
+      return buffer.position();
+    }
+
+    /**
+     * Write the size of the bytes written since {@code start} in the single byte reserved right before it,
+     * making room for a longer size if needed.
+     */
+    void closeStructHeader(int start) {
+      int size = buffer.position() - start;
+      int headerSize = VLQ.encodedSize(size);
+      buffer.shift(start, headerSize - 1);
+      buffer.putVlqInt(start - 1, size);
+    }
+
+    /**
+     * Write the size and the length of the array which elements got written since {@code start} in the two bytes
+     * reserved right before it, making room for a longer size and length if needed.
+     */
+    void closeArrayHeader(int start, int length) {
+      int lengthSize = VLQ.encodedSize(length);
+      int size = lengthSize + buffer.position() - start;
+      int sizeSize = VLQ.encodedSize(size);
+      buffer.shift(start, sizeSize + lengthSize - 2);
+      buffer.putVlqInt(start - 2, size);
+      buffer.putVlqInt(start - 2 + sizeSize, length);
+    }
+  }
+
+}
@@ -21,6 +21,7 @@ import org.terracotta.runnel.decoding.fields.StructField;
 import org.terracotta.runnel.utils.ReadBuffer;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -32,6 +33,8 @@ public class Metadata {
 
   private final List<Field> fields = new ArrayList<>();
   private final Map<String, Field> fieldsByName = new HashMap<>();
+  private Field[] fieldsByIndex;
+  private int[] ordinalsByIndex;
   private volatile boolean initialized = false;
   private volatile boolean initializationFullyChecked = false;
   private final ThreadLocal<Boolean> checkingForFullInitialization = new ThreadLocal<>();
@@ -50,8 +53,18 @@ public class Metadata {
     if (initialized) {
       throw new IllegalStateException("Metadata already initialized");
     }
+    int maxIndex = 0;
     for (Field field : fields) {
       fieldsByName.put(field.name(), field);
+      maxIndex = Math.max(maxIndex, field.index());
+    }
+    fieldsByIndex = new Field[maxIndex + 1];
+    ordinalsByIndex = new int[maxIndex + 1];
+    Arrays.fill(ordinalsByIndex, -1);
+    for (int i = 0; i < fields.size(); i++) {
+      Field field = fields.get(i);
+      fieldsByIndex[field.index()] = field;
+      ordinalsByIndex[field.index()] = i;
     }
     initialized = true;
   }
@@ -94,6 +107,40 @@ public class Metadata {
     return map;
   }
 
+  /**
+   * Look up a field by its index, as registered in the {@link org.terracotta.runnel.StructBuilder}.
+   * @param index the field index.
+   * @return the field, or null if there is no field registered with that index.
+   */
+  public Field getFieldByIndex(int index) {
+    Field[] fieldsByIndex = this.fieldsByIndex;
+    if (index < 0 || index >= fieldsByIndex.length) {
+      return null;
+    }
+    return fieldsByIndex[index];
+  }
+
+  /**
+   * @return the count of fields registered in this metadata.
+   */
+  public int fieldCount() {
+    return fields.size();
+  }
+
+  /**
+   * Look up the registration order of a field, allowing per-field data to be kept in arrays of {@link #fieldCount()}
+   * elements.
+   * @param index the field index.
+   * @return the field's ordinal, or -1 if there is no field registered with that index.
+   */
+  public int ordinalOf(int index) {
+    int[] ordinalsByIndex = this.ordinalsByIndex;
+    if (index < 0 || index >= ordinalsByIndex.length) {
+      return -1;
+    }
+    return ordinalsByIndex[index];
+  }
+
   Field getFieldByName(String name) {
     return fieldsByName.get(name);
   }
@@ -23,38 +23,173 @@ import java.nio.ByteBuffer;
  */
 public class WriteBuffer {
 
-  private final ByteBuffer byteBuffer;
+  private ByteBuffer byteBuffer;
+  private final boolean growable;
 
   public WriteBuffer(ByteBuffer byteBuffer) {
+    this(byteBuffer, false);
+  }
+
+  private WriteBuffer(ByteBuffer byteBuffer, boolean growable) {
     this.byteBuffer = byteBuffer;
+    this.growable = growable;
+  }
+
+  /**
+   * Create a heap-backed write buffer which doubles its capacity whenever a write would overflow it.
+   * @param initialCapacity the initial capacity, in bytes.
+   * @return the write buffer.
+   */
+  public static WriteBuffer growable(int initialCapacity) {
+    return new WriteBuffer(ByteBuffer.allocate(initialCapacity), true);
   }
 
   public void putBoolean(boolean value) {
+    ensureRemaining(1);
     byteBuffer.put(value ? (byte) 1 : (byte) 0);
   }
 
   public void putChar(char value) {
+    ensureRemaining(2);
     byteBuffer.putChar(value);
   }
 
   public void putDouble(double value) {
+    ensureRemaining(8);
     byteBuffer.putDouble(value);
   }
 
   public void putLong(long value) {
+    ensureRemaining(8);
     byteBuffer.putLong(value);
   }
 
   public void putInt(int value) {
+    ensureRemaining(4);
     byteBuffer.putInt(value);
   }
 
   public void putVlqInt(int value) {
+    ensureRemaining(5);
     VLQ.encode(value, byteBuffer);
   }
 
   public void putByteBuffer(ByteBuffer buffer) {
+    ensureRemaining(buffer.remaining());
     byteBuffer.put(buffer);
   }
 
+  /**
+   * Put the modified UTF-8 encoding of a string, as done by {@link StringTool#putEncoded(ByteBuffer, String, int)},
+   * without allocating any intermediate buffer.
+   * @param value the string to encode.
+   * @return the count of bytes written.
+   */
+  public int putString(String value) {
+    int length = value.length();
+    ensureRemaining(length * 3);
+    int start = byteBuffer.position();
+    for (int i = 0; i < length; i++) {
+      char c = value.charAt(i);
+      if (c <= '\u007F' && c != '\u0000') {
+        byteBuffer.put((byte) c);
+      } else if (c <= '\u07FF') {
+        byteBuffer.put((byte) (0xC0 | c >>> 6)).put((byte) (0x80 | (c & 0x3F)));
+      } else {
+        byteBuffer.put((byte) (0xE0 | c >>> 12)).put((byte) (0x80 | ((c >>> 6) & 0x3F))).put((byte) (0x80 | (c & 0x3F)));
+      }
+    }
+    return byteBuffer.position() - start;
+  }
+
+  public int position() {
+    return byteBuffer.position();
+  }
+
+  /**
+   * Move the bytes located between {@code from} and the current position by {@code distance} bytes towards the end
+   * of the buffer, advancing the position accordingly.
+   * This is used to make room for a length prefix which turned out to be longer than what had been reserved.
+   * @param from the position of the first byte to move.
+   * @param distance the count of bytes to move by.
+   */
+  public void shift(int from, int distance) {
+    if (distance == 0) {
+      return;
+    }
+    ensureRemaining(distance);
+    int position = byteBuffer.position();
+    if (byteBuffer.hasArray()) {
+      byte[] array = byteBuffer.array();
+      int offset = byteBuffer.arrayOffset();
+      System.arraycopy(array, offset + from, array, offset + from + distance, position - from);
+    } else {
+      for (int i = position - 1; i >= from; i--) {
+        byteBuffer.put(i + distance, byteBuffer.get(i));
+      }
+    }
+    byteBuffer.position(position + distance);
+  }
+
+  /**
+   * Put a variable-length encoded integer at an absolute position, without changing the current position.
+   * @param position the position to write at.
+   * @param value the value to encode.
+   */
+  public void putVlqInt(int position, int value) {
+    int current = byteBuffer.position();
+    byteBuffer.position(position);
+    VLQ.encode(value, byteBuffer);
+    byteBuffer.position(current);
+  }
+
+  /**
+   * Reserve some bytes at the current position, to be filled later on with {@link #putVlqInt(int, int)}.
+   * @param size the count of bytes to reserve.
+   */
+  public void reserve(int size) {
+    ensureRemaining(size);
+    byteBuffer.position(byteBuffer.position() + size);
+  }
+
+  /**
+   * Discard the bytes written after the given position.
+   * @param position the new position.
+   */
+  public void truncate(int position) {
+    byteBuffer.position(position);
+  }
+
+  /**
+   * Copy the bytes written so far to a byte buffer.
+   * @param target the byte buffer to copy to.
+   */
+  public void copyTo(ByteBuffer target) {
+    if (byteBuffer.hasArray()) {
+      target.put(byteBuffer.array(), byteBuffer.arrayOffset(), byteBuffer.position());
+    } else {
+      ByteBuffer written = byteBuffer.duplicate();
+      written.flip();
+      target.put(written);
+    }
+  }
+
+  public int capacity() {
+    return byteBuffer.capacity();
+  }
+
+  public void clear() {
+    byteBuffer.clear();
+  }
+
+  private void ensureRemaining(int size) {
+    if (growable && byteBuffer.remaining() < size) {
+      int newCapacity = Math.max(byteBuffer.capacity() * 2, byteBuffer.position() + size);
+      ByteBuffer grown = ByteBuffer.allocate(newCapacity);
+      byteBuffer.flip();
+      grown.put(byteBuffer);
+      byteBuffer = grown;
+    }
+  }
+
 }
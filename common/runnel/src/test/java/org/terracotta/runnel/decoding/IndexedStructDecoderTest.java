@@ -0,0 +1,227 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.runnel.decoding;
+
+import org.junit.Test;
+import org.terracotta.runnel.EnumMapping;
+import org.terracotta.runnel.EnumMappingBuilder;
+import org.terracotta.runnel.Struct;
+import org.terracotta.runnel.StructBuilder;
+import org.terracotta.runnel.utils.CorruptDataException;
+
+import java.nio.ByteBuffer;
+
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+public class IndexedStructDecoderTest {
+
+  enum Color {
+    RED, GREEN
+  }
+
+  private static final EnumMapping<Color> COLOR_MAPPING = EnumMappingBuilder.newEnumMappingBuilder(Color.class)
+      .mapping(Color.RED, 1)
+      .mapping(Color.GREEN, 300)
+      .build();
+
+  private static final Struct ENTRY = StructBuilder.newStructBuilder()
+      .string("key", 1)
+      .int64("value", 2)
+      .build();
+
+  private static final Struct STRUCT = StructBuilder.newStructBuilder()
+      .bool("bool", 1)
+      .chr("chr", 2)
+      .enm("color", 3, COLOR_MAPPING)
+      .int32("int", 4)
+      .int64("long", 5)
+      .fp64("double", 6)
+      .string("string", 7)
+      .byteBuffer("bytes", 8)
+      .struct("entry", 9, ENTRY)
+      .int32s("ints", 10)
+      .bools("bools", 11)
+      .chrs("chrs", 12)
+      .int64s("longs", 13)
+      .fp64s("doubles", 14)
+      .strings("strings", 15)
+      .byteBuffers("byteBuffers", 16)
+      .structs("entries", 17, ENTRY)
+      .int64("last", 20)
+      .build();
+
+  @Test
+  public void testRandomAccess() throws Exception {
+    ByteBuffer bb = STRUCT.encoder()
+        .bool("bool", true)
+        .chr("chr", 'c')
+        .enm("color", Color.GREEN)
+        .int32("int", -1)
+        .int64("long", Long.MAX_VALUE)
+        .fp64("double", 1.5)
+        .string("string", "hello")
+        .byteBuffer("bytes", ByteBuffer.wrap(new byte[] {1, 2, 3}))
+        .struct("entry")
+          .string("key", "k")
+          .int64("value", 42L)
+        .end()
+        .int32s("ints")
+          .value(1)
+        .end()
+        .int64("last", 99L)
+        .encode();
+    bb.rewind();
+
+    IndexedStructDecoder decoder = STRUCT.indexedDecoder(bb);
+    assertThat(bb.remaining(), is(0));
+
+    assertThat(decoder.int64(20, 0L), is(99L));
+    assertThat(decoder.int32(4, 0), is(-1));
+    assertThat(decoder.int32(4, 0), is(-1));
+    assertThat(decoder.bool(1, false), is(true));
+    assertThat(decoder.chr(2, ' '), is('c'));
+    assertThat(decoder.enm(3, Color.RED), is(Color.GREEN));
+    assertThat(decoder.int64(5, 0L), is(Long.MAX_VALUE));
+    assertThat(decoder.fp64(6, 0.0), is(1.5));
+    assertThat(decoder.string(7), is("hello"));
+    assertThat(decoder.byteBuffer(8), is(ByteBuffer.wrap(new byte[] {1, 2, 3})));
+    assertThat(decoder.has(10), is(true));
+
+    IndexedStructDecoder entry = decoder.struct(9);
+    assertThat(entry.int64(2, 0L), is(42L));
+    assertThat(entry.string(1), is("k"));
+  }
+
+  @Test
+  public void testArrays() throws Exception {
+    ByteBuffer bb = STRUCT.indexedEncoder()
+        .int32s(10, 1, -2)
+        .bools(11, true, false)
+        .chrs(12, 'a', 'b')
+        .int64s(13, Long.MIN_VALUE)
+        .fp64s(14, 0.5, 2.0)
+        .strings(15, "one", "", "three")
+        .byteBuffers(16, ByteBuffer.wrap(new byte[] {1}), ByteBuffer.wrap(new byte[0]))
+        .structs(17)
+          .add()
+            .string(1, "k1")
+            .int64(2, 1L)
+          .end()
+          .add()
+            .int64(2, 2L)
+          .end()
+        .end()
+        .int64(20, 99L)
+        .encode();
+    bb.rewind();
+
+    IndexedStructDecoder decoder = STRUCT.indexedDecoder(bb);
+    assertThat(decoder.int64(20, 0L), is(99L));
+    assertThat(decoder.strings(15), is(new String[] {"one", "", "three"}));
+    assertThat(decoder.int32s(10), is(new int[] {1, -2}));
+    assertThat(decoder.bools(11), is(new boolean[] {true, false}));
+    assertThat(decoder.chrs(12), is(new char[] {'a', 'b'}));
+    assertThat(decoder.int64s(13), is(new long[] {Long.MIN_VALUE}));
+    assertThat(decoder.fp64s(14), is(new double[] {0.5, 2.0}));
+    assertThat(decoder.byteBuffers(16), is(new ByteBuffer[] {ByteBuffer.wrap(new byte[] {1}), ByteBuffer.wrap(new byte[0])}));
+    assertThat(decoder.int32s(10), is(new int[] {1, -2}));
+
+    IndexedStructDecoder[] entries = decoder.structs(17);
+    assertThat(entries.length, is(2));
+    assertThat(entries[0].string(1), is("k1"));
+    assertThat(entries[0].int64(2, 0L), is(1L));
+    assertThat(entries[1].string(1), is(nullValue()));
+    assertThat(entries[1].int64(2, 0L), is(2L));
+  }
+
+  @Test
+  public void testAbsentFields() throws Exception {
+    ByteBuffer bb = STRUCT.encoder()
+        .int32("int", 10)
+        .encode();
+    bb.rewind();
+
+    IndexedStructDecoder decoder = STRUCT.indexedDecoder(bb);
+    assertThat(decoder.has(4), is(true));
+    assertThat(decoder.has(5), is(false));
+    assertThat(decoder.bool(1, true), is(true));
+    assertThat(decoder.enm(3, Color.RED), is(Color.RED));
+    assertThat(decoder.int64(5, -1L), is(-1L));
+    assertThat(decoder.string(7), is(nullValue()));
+    assertThat(decoder.byteBuffer(8), is(nullValue()));
+    assertThat(decoder.struct(9), is(nullValue()));
+    assertThat(decoder.int32s(10), is(nullValue()));
+    assertThat(decoder.strings(15), is(nullValue()));
+    assertThat(decoder.structs(17), is(nullValue()));
+  }
+
+  @Test
+  public void testUnknownFieldsAreIgnored() throws Exception {
+    Struct newer = StructBuilder.newStructBuilder()
+        .int32("int", 4)
+        .string("added", 15)
+        .int64("last", 20)
+        .int64("addedLast", 50)
+        .build();
+
+    ByteBuffer bb = newer.encoder()
+        .int32("int", 1)
+        .string("added", "x")
+        .int64("last", 2L)
+        .int64("addedLast", 3L)
+        .encode();
+    bb.rewind();
+
+    IndexedStructDecoder decoder = STRUCT.indexedDecoder(bb);
+    assertThat(decoder.int32(4, 0), is(1));
+    assertThat(decoder.int64(20, 0L), is(2L));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidType() throws Exception {
+    ByteBuffer bb = STRUCT.encoder().int32("int", 1).encode();
+    bb.rewind();
+    STRUCT.indexedDecoder(bb).int64(4, 0L);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidArrayType() throws Exception {
+    ByteBuffer bb = STRUCT.encoder().int32s("ints").value(1).end().encode();
+    bb.rewind();
+    STRUCT.indexedDecoder(bb).int64s(10);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNoSuchField() throws Exception {
+    ByteBuffer bb = STRUCT.encoder().int32("int", 1).encode();
+    bb.rewind();
+    STRUCT.indexedDecoder(bb).int32(11, 0);
+  }
+
+  @Test(expected = CorruptDataException.class)
+  public void testCorruptSize() throws Exception {
+    Struct other = StructBuilder.newStructBuilder()
+        .int64("int", 4)
+        .build();
+    ByteBuffer bb = other.encoder().int64("int", 1L).encode();
+    bb.rewind();
+    STRUCT.indexedDecoder(bb).int32(4, 0);
+  }
+
+}
@@ -0,0 +1,216 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.runnel.encoding;
+
+import org.junit.Test;
+import org.terracotta.runnel.EnumMapping;
+import org.terracotta.runnel.EnumMappingBuilder;
+import org.terracotta.runnel.Struct;
+import org.terracotta.runnel.StructBuilder;
+import org.terracotta.runnel.decoding.ArrayDecoder;
+import org.terracotta.runnel.decoding.StructArrayDecoder;
+import org.terracotta.runnel.decoding.StructDecoder;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+public class IndexedStructEncoderTest {
+
+  enum Color {
+    RED, GREEN
+  }
+
+  private static final EnumMapping<Color> COLOR_MAPPING = EnumMappingBuilder.newEnumMappingBuilder(Color.class)
+      .mapping(Color.RED, 1)
+      .mapping(Color.GREEN, 300)
+      .build();
+
+  private static final Struct ENTRY = StructBuilder.newStructBuilder()
+      .string("key", 1)
+      .int64("value", 2)
+      .build();
+
+  private static final Struct STRUCT = StructBuilder.newStructBuilder()
+      .bool("bool", 1)
+      .chr("chr", 2)
+      .enm("color", 3, COLOR_MAPPING)
+      .int32("int", 4)
+      .int64("long", 5)
+      .fp64("double", 6)
+      .string("string", 7)
+      .byteBuffer("bytes", 8)
+      .struct("entry", 9, ENTRY)
+      .int32s("ints", 10)
+      .strings("strings", 11)
+      .structs("entries", 12, ENTRY)
+      .int64("last", 200)
+      .build();
+
+  @Test
+  public void testSameBytesAsStructEncoder() throws Exception {
+    String longString = repeat('x', 200);
+
+    ByteBuffer expected = STRUCT.encoder()
+        .bool("bool", true)
+        .chr("chr", 'c')
+        .enm("color", Color.GREEN)
+        .int32("int", -1)
+        .int64("long", Long.MAX_VALUE)
+        .fp64("double", 1.5)
+        .string("string", "h\u00e9llo \u20ac\u0000")
+        .byteBuffer("bytes", ByteBuffer.wrap(new byte[150]))
+        .struct("entry")
+          .string("key", longString)
+          .int64("value", 1L)
+        .end()
+        .int32s("ints")
+          .value(1)
+          .value(2)
+          .value(3)
+        .end()
+        .strings("strings")
+          .value("a")
+          .value(longString)
+        .end()
+        .structs("entries")
+          .add()
+            .string("key", "k1")
+          .end()
+          .add()
+          .end()
+          .add()
+            .string("key", longString)
+            .int64("value", 2L)
+          .end()
+        .end()
+        .int64("last", 42L)
+        .encode();
+
+    ByteBuffer actual = STRUCT.indexedEncoder()
+        .bool(1, true)
+        .chr(2, 'c')
+        .enm(3, Color.GREEN)
+        .int32(4, -1)
+        .int64(5, Long.MAX_VALUE)
+        .fp64(6, 1.5)
+        .string(7, "h\u00e9llo \u20ac\u0000")
+        .byteBuffer(8, ByteBuffer.wrap(new byte[150]))
+        .struct(9)
+          .string(1, longString)
+          .int64(2, 1L)
+        .end()
+        .int32s(10, 1, 2, 3)
+        .strings(11, "a", longString)
+        .structs(12)
+          .add()
+            .string(1, "k1")
+          .end()
+          .add()
+          .end()
+          .add()
+            .string(1, longString)
+            .int64(2, 2L)
+          .end()
+        .end()
+        .int64(200, 42L)
+        .encode();
+
+    assertThat(actual.position(), is(expected.position()));
+    assertThat(Arrays.equals(actual.array(), expected.array()), is(true));
+  }
+
+  @Test
+  public void testDecodeWithStructDecoder() throws Exception {
+    ByteBuffer bb = STRUCT.indexedEncoder()
+        .int32(4, 10)
+        .struct(9)
+          .string(1, "one")
+        .end()
+        .int32s(10, 5, 6)
+        .structs(12)
+          .add()
+            .int64(2, 7L)
+          .end()
+        .end()
+        .int64(200, 99L)
+        .encode();
+
+    bb.rewind();
+    StructDecoder<Void> decoder = STRUCT.decoder(bb);
+    assertThat(decoder.int32("int"), is(10));
+    StructDecoder<StructDecoder<Void>> entry = decoder.struct("entry");
+    assertThat(entry.string("key"), is("one"));
+    entry.end();
+    ArrayDecoder<Integer, StructDecoder<Void>> ints = decoder.int32s("ints");
+    assertThat(ints.length(), is(2));
+    assertThat(ints.value(), is(5));
+    assertThat(ints.value(), is(6));
+    ints.end();
+    StructArrayDecoder<StructDecoder<Void>> entries = decoder.structs("entries");
+    assertThat(entries.length(), is(1));
+    assertThat(entries.next().int64("value"), is(7L));
+    entries.end();
+    assertThat(decoder.int64("last"), is(99L));
+  }
+
+  @Test
+  public void testEncoderIsReusable() throws Exception {
+    IndexedStructEncoder encoder = ENTRY.indexedEncoder();
+    ByteBuffer first = encoder.string(1, "a").int64(2, 1L).encode();
+    ByteBuffer second = encoder.string(1, "a").int64(2, 1L).encode(ByteBuffer.allocate(64));
+
+    assertThat(second.position(), is(first.position()));
+    first.flip();
+    second.flip();
+    assertThat(second, is(first));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNoSuchField() throws Exception {
+    ENTRY.indexedEncoder().int32(3, 1);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidType() throws Exception {
+    ENTRY.indexedEncoder().int32(2, 1);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testFieldsMustBeInOrder() throws Exception {
+    ENTRY.indexedEncoder().int64(2, 1L).string(1, "a");
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testCannotEncodeNonRoot() throws Exception {
+    STRUCT.indexedEncoder().struct(9).string(1, "a").encode();
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testCannotEndRoot() throws Exception {
+    STRUCT.indexedEncoder().end();
+  }
+
+  private static String repeat(char c, int count) {
+    char[] chars = new char[count];
+    Arrays.fill(chars, c);
+    return new String(chars);
+  }
+
+}
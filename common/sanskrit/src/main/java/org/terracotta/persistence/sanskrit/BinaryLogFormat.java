@@ -0,0 +1,273 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.persistence.sanskrit;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.terracotta.persistence.sanskrit.HashUtils.HASH_LENGTH;
+
+/**
+ * The binary layout of the append log records: the log starts with {@link #MAGIC}, which cannot start a text log, and
+ * each record is:
+ * <pre>
+ *   int    length of the rest of the record
+ *   byte   flags: 1 for a snapshot record
+ *   byte[] chain hash the snapshot was taken at (snapshot records only)
+ *   short  length of the format version, then its UTF-8 bytes
+ *   short  length of the timestamp, then its UTF-8 bytes
+ *   int    length of the data, then its UTF-8 bytes
+ *   byte[] record hash
+ * </pre>
+ * Hashes are stored as their raw {@link HashUtils#HASH_LENGTH} bytes. They are computed over the same bytes as in the
+ * text format, so a log can be converted from one format to the other without touching its hash chain or hash files.
+ */
+final class BinaryLogFormat {
+  static final byte[] MAGIC = {0x00, 'S', 'K', 0x01};
+
+  private static final byte SNAPSHOT_FLAG = 1;
+  private static final byte[] LS_BYTES = MarkableLineParser.LS.getBytes(StandardCharsets.UTF_8);
+  private static final byte[] DOUBLE_LS_BYTES = (MarkableLineParser.LS + MarkableLineParser.LS).getBytes(StandardCharsets.UTF_8);
+
+  private BinaryLogFormat() {
+  }
+
+  static boolean isBinary(ByteBuffer start) {
+    if (start.remaining() < MAGIC.length) {
+      return false;
+    }
+    for (int i = 0; i < MAGIC.length; i++) {
+      if (start.get(start.position() + i) != MAGIC[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  static ByteBuffer encode(String version, String snapshotOf, String timestamp, String data, String hash) {
+    byte[] versionBytes = version.getBytes(StandardCharsets.UTF_8);
+    byte[] timestampBytes = timestamp.getBytes(StandardCharsets.UTF_8);
+    byte[] dataBytes = data.getBytes(StandardCharsets.UTF_8);
+    if (versionBytes.length > Short.MAX_VALUE || timestampBytes.length > Short.MAX_VALUE) {
+      throw new IllegalArgumentException("Format version or timestamp too long");
+    }
+
+    int length = 1 + (snapshotOf == null ? 0 : HASH_LENGTH)
+        + 2 + versionBytes.length
+        + 2 + timestampBytes.length
+        + 4 + dataBytes.length
+        + HASH_LENGTH;
+
+    ByteBuffer record = ByteBuffer.allocate(4 + length);
+    record.putInt(length);
+    if (snapshotOf == null) {
+      record.put((byte) 0);
+    } else {
+      record.put(SNAPSHOT_FLAG);
+      record.put(HashUtils.fromHexText(snapshotOf));
+    }
+    record.putShort((short) versionBytes.length).put(versionBytes);
+    record.putShort((short) timestampBytes.length).put(timestampBytes);
+    record.putInt(dataBytes.length).put(dataBytes);
+    record.put(HashUtils.fromHexText(hash));
+    record.flip();
+    return record;
+  }
+
+  /**
+   * Streams the records of a binary log, reading the channel in large chunks and decoding the fields in place.
+   */
+  static class Reader {
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    private final ReadableByteChannel channel;
+    private ByteBuffer buffer = ByteBuffer.allocate(CHUNK_SIZE);
+    private long bufferOffset;
+    private boolean eof;
+    private boolean incompleteRecord;
+
+    private long recordEnd;
+    private boolean snapshot;
+    private int snapshotOfOffset;
+    private int versionOffset;
+    private int versionLength;
+    private int timestampOffset;
+    private int timestampLength;
+    private int dataOffset;
+    private int dataLength;
+    private int hashOffset;
+
+    Reader(ReadableByteChannel channel) throws IOException {
+      this.channel = channel;
+      buffer.flip();
+      fill(MAGIC.length);
+      if (!isBinary(buffer)) {
+        throw new IOException("Not a binary log");
+      }
+      buffer.position(MAGIC.length);
+      recordEnd = MAGIC.length;
+    }
+
+    /**
+     * Moves to the next record.
+     *
+     * @return false at the end of the log, or if the log ends with an incomplete record
+     */
+    boolean next() throws IOException, SanskritException {
+      buffer.position((int) (recordEnd - bufferOffset));
+
+      if (!fill(4)) {
+        incompleteRecord = buffer.hasRemaining();
+        return false;
+      }
+      int start = buffer.position();
+      int length = buffer.getInt(start);
+      if (length < 1 + 2 + 2 + 4 + HASH_LENGTH) {
+        throw new SanskritException("Invalid record length: " + length + " at: " + (bufferOffset + start));
+      }
+      if (!fill(4 + length)) {
+        incompleteRecord = true;
+        return false;
+      }
+      start = buffer.position();
+      int end = start + 4 + length;
+
+      int position = start + 4;
+      byte flags = buffer.get(position++);
+      snapshot = (flags & SNAPSHOT_FLAG) != 0;
+      if (snapshot) {
+        snapshotOfOffset = position;
+        position += HASH_LENGTH;
+      }
+      versionLength = position + 2 <= end ? buffer.getShort(position) : -1;
+      versionOffset = position + 2;
+      position = versionOffset + Math.max(versionLength, 0);
+      timestampLength = versionLength >= 0 && position + 2 <= end ? buffer.getShort(position) : -1;
+      timestampOffset = position + 2;
+      position = timestampOffset + Math.max(timestampLength, 0);
+      dataLength = timestampLength >= 0 && position + 4 <= end ? buffer.getInt(position) : -1;
+      dataOffset = position + 4;
+      hashOffset = dataOffset + dataLength;
+
+      if (dataLength < 0 || hashOffset + HASH_LENGTH != end) {
+        throw new SanskritException("Invalid record at: " + (bufferOffset + start));
+      }
+
+      recordEnd = bufferOffset + end;
+      return true;
+    }
+
+    /**
+     * @return the position in the log of the end of the current record
+     */
+    long position() {
+      return recordEnd;
+    }
+
+    boolean endsWithIncompleteRecord() {
+      return incompleteRecord;
+    }
+
+    boolean isSnapshot() {
+      return snapshot;
+    }
+
+    String snapshotOf() {
+      return snapshot ? hexText(snapshotOfOffset) : null;
+    }
+
+    String version() {
+      return text(versionOffset, versionLength);
+    }
+
+    String timestamp() {
+      return text(timestampOffset, timestampLength);
+    }
+
+    String data() {
+      return text(dataOffset, dataLength);
+    }
+
+    String hash() {
+      return hexText(hashOffset);
+    }
+
+    /**
+     * @return whether the record hash matches its content chained to the given hash
+     */
+    boolean hashMatches(String lastHash) {
+      ByteBuffer timestamp = slice(timestampOffset, timestampLength);
+      ByteBuffer data = slice(dataOffset, dataLength);
+      byte[] expected;
+      if (lastHash == null) {
+        expected = HashUtils.generateHashBytes(timestamp, ByteBuffer.wrap(LS_BYTES), data);
+      } else {
+        expected = HashUtils.generateHashBytes(
+            ByteBuffer.wrap(lastHash.getBytes(StandardCharsets.US_ASCII)),
+            ByteBuffer.wrap(DOUBLE_LS_BYTES),
+            timestamp,
+            ByteBuffer.wrap(LS_BYTES),
+            data
+        );
+      }
+      return Arrays.equals(expected, Arrays.copyOfRange(buffer.array(), hashOffset, hashOffset + HASH_LENGTH));
+    }
+
+    private String text(int offset, int length) {
+      return new String(buffer.array(), offset, length, StandardCharsets.UTF_8);
+    }
+
+    private String hexText(int offset) {
+      return HashUtils.toHexText(Arrays.copyOfRange(buffer.array(), offset, offset + HASH_LENGTH));
+    }
+
+    private ByteBuffer slice(int offset, int length) {
+      ByteBuffer slice = buffer.duplicate();
+      slice.limit(offset + length).position(offset);
+      return slice;
+    }
+
+    /**
+     * Makes sure that the buffer holds at least the given number of bytes from its position.
+     */
+    private boolean fill(int needed) throws IOException {
+      if (buffer.remaining() >= needed) {
+        return true;
+      }
+
+      bufferOffset += buffer.position();
+      if (buffer.capacity() < needed) {
+        ByteBuffer bigger = ByteBuffer.allocate(Math.max(needed, buffer.capacity() * 2));
+        bigger.put(buffer);
+        buffer = bigger;
+      } else {
+        buffer.compact();
+      }
+
+      while (buffer.position() < needed && !eof) {
+        if (channel.read(buffer) < 0) {
+          eof = true;
+        }
+      }
+      buffer.flip();
+      return buffer.remaining() >= needed;
+    }
+  }
+}
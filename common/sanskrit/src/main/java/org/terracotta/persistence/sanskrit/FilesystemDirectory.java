@@ -31,4 +31,13 @@ public interface FilesystemDirectory {
   void delete(String filename) throws IOException;
 
   void backup(String filename) throws IOException;
+
+  /**
+   * Atomically replaces the target file with the source file.
+   *
+   * @throws UnsupportedOperationException if this directory cannot replace files atomically
+   */
+  default void replace(String source, String target) throws IOException {
+    throw new UnsupportedOperationException("Atomic replacement is not supported by " + getClass().getName());
+  }
 }
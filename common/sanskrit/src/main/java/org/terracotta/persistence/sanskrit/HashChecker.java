@@ -24,17 +24,30 @@ import java.util.Map;
 
 /**
  * Matches up the record hashes to the hashes found in the hash files.
+ * <p>
+ * When records are committed in groups, the hash files only hold the hash of the last record of each group, so up to
+ * {@code maxRecordsPerCommit} records can follow the last hash, or sit between the two hashes.
  */
 public class HashChecker {
   private static final Logger LOGGER = LoggerFactory.getLogger(HashChecker.class);
 
   private final Map<String, String> hashes = new HashMap<>(2);
-  private boolean laterHash;
+  private final int maxRecordsPerCommit;
+  private int laterHashes;
+  private int hashesBetween;
   private String removedFirst;
   private int hashCount;
 
   public HashChecker(String hash0, String hash1) {
-    LOGGER.trace("HashChecker({}, {})", hash0, hash1);
+    this(hash0, hash1, 1);
+  }
+
+  public HashChecker(String hash0, String hash1, int maxRecordsPerCommit) {
+    LOGGER.trace("HashChecker({}, {}, {})", hash0, hash1, maxRecordsPerCommit);
+    if (maxRecordsPerCommit < 1) {
+      throw new IllegalArgumentException("Invalid maxRecordsPerCommit: " + maxRecordsPerCommit);
+    }
+    this.maxRecordsPerCommit = maxRecordsPerCommit;
     if (hash0 != null) {
       hashes.put(hash0, "hash0");
       hashCount++;
@@ -47,10 +60,9 @@ public class HashChecker {
 
   public boolean check(String hash) throws SanskritException {
     if (hashes.isEmpty()) {
-      if (laterHash) {
+      if (++laterHashes > maxRecordsPerCommit) {
         throw new SanskritException("Found hashes after the last recorded hash");
       }
-      laterHash = true;
       LOGGER.trace("check({}): {}", hash, false);
       return false;
     }
@@ -63,7 +75,7 @@ public class HashChecker {
         removedFirst = removed;
       }
     } else {
-      if (removedFirst != null) {
+      if (removedFirst != null && ++hashesBetween >= maxRecordsPerCommit) {
         throw new SanskritException("Found extra hash between final hashes: " + hash);
       }
     }
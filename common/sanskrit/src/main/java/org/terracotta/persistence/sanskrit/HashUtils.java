@@ -19,6 +19,7 @@ package org.terracotta.persistence.sanskrit;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
@@ -27,6 +28,21 @@ import java.util.Arrays;
 public class HashUtils {
   private static final Logger LOGGER = LoggerFactory.getLogger(HashUtils.class);
 
+  /**
+   * Length in bytes of the hashes: they are truncated SHA-512 digests.
+   */
+  public static final int HASH_LENGTH = 20;
+
+  private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+  private static final ThreadLocal<MessageDigest> DIGESTER = ThreadLocal.withInitial(() -> {
+    try {
+      return MessageDigest.getInstance("SHA-512");
+    } catch (NoSuchAlgorithmException e) {
+      throw new AssertionError("Missing hash algorithm: SHA-512");
+    }
+  });
+
   private static final byte[] PRIVATE_BYTES = toBytes(
       0x71, 0x0d, 0x71, 0xd1, 0xca, 0xcd, 0xd1, 0xe1,
       0x8b, 0x56, 0x87, 0x66, 0x0e, 0x35, 0x84, 0xeb,
@@ -59,27 +75,55 @@ public class HashUtils {
   }
 
   public static String generateHash(byte[] input) {
-    return toHexText(Arrays.copyOf(digest(input), 20));
+    return toHexText(Arrays.copyOf(digest(input), HASH_LENGTH));
   }
 
-  private static byte[] digest(byte[] input) {
-    try {
-      MessageDigest digester = MessageDigest.getInstance("SHA-512");
+  /**
+   * Generates the raw bytes of the hash of the concatenated inputs, without copying them: {@code toHexText} of the
+   * result is the same as {@link #generateHash(byte[])} of the concatenated bytes. The inputs are consumed.
+   */
+  public static byte[] generateHashBytes(ByteBuffer... inputs) {
+    MessageDigest digester = DIGESTER.get();
+    for (ByteBuffer input : inputs) {
       digester.update(input);
-      digester.update(PRIVATE_BYTES);
-      return digester.digest();
-    } catch (NoSuchAlgorithmException e) {
-      throw new AssertionError("Missing hash algorithm: SHA-512");
     }
+    digester.update(PRIVATE_BYTES);
+    return Arrays.copyOf(digester.digest(), HASH_LENGTH);
   }
 
-  private static String toHexText(byte[] input) {
-    StringBuilder sb = new StringBuilder(input.length * 2);
+  private static byte[] digest(byte[] input) {
+    MessageDigest digester = DIGESTER.get();
+    digester.update(input);
+    digester.update(PRIVATE_BYTES);
+    return digester.digest();
+  }
+
+  public static String toHexText(byte[] input) {
+    char[] chars = new char[input.length * 2];
+
+    for (int i = 0; i < input.length; i++) {
+      chars[2 * i] = HEX_DIGITS[(input[i] >> 4) & 0xf];
+      chars[2 * i + 1] = HEX_DIGITS[input[i] & 0xf];
+    }
 
-    for (byte b : input) {
-      sb.append(String.format("%02x", b));
+    return new String(chars);
+  }
+
+  public static byte[] fromHexText(String hex) {
+    if (hex.length() % 2 != 0) {
+      throw new IllegalArgumentException("Invalid hex text: " + hex);
     }
 
-    return sb.toString();
+    byte[] bytes = new byte[hex.length() / 2];
+    for (int i = 0; i < bytes.length; i++) {
+      int high = Character.digit(hex.charAt(2 * i), 16);
+      int low = Character.digit(hex.charAt(2 * i + 1), 16);
+      if (high < 0 || low < 0) {
+        throw new IllegalArgumentException("Invalid hex text: " + hex);
+      }
+      bytes[i] = (byte) ((high << 4) | low);
+    }
+
+    return bytes;
   }
 }
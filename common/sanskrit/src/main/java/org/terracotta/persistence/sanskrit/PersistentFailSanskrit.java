@@ -103,6 +103,18 @@ public class PersistentFailSanskrit implements Sanskrit {
     }
   }
 
+  @Override
+  public void compact() throws SanskritException {
+    failCheck();
+
+    try {
+      underlying.compact();
+    } catch (Exception e) {
+      failure = e;
+      throw e;
+    }
+  }
+
   private void failCheck() throws SanskritException {
     if (failure != null) {
       throw new SanskritException("No longer operational due to earlier error", failure);
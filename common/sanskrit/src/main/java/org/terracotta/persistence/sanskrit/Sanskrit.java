@@ -29,9 +29,16 @@ import static org.terracotta.persistence.sanskrit.Owner.own;
 public interface Sanskrit extends AutoCloseable {
 
   static Sanskrit init(FilesystemDirectory filesystemDirectory, SanskritMapper mapper) throws SanskritException {
+    return init(filesystemDirectory, mapper, false);
+  }
+
+  /**
+   * @param groupCommit whether concurrent changes are batched into a single append log write, see {@link SanskritImpl}
+   */
+  static Sanskrit init(FilesystemDirectory filesystemDirectory, SanskritMapper mapper, boolean groupCommit) throws SanskritException {
     try (
         Owner<DirectoryLock, IOException> lockOwner = own(filesystemDirectory.lock(), IOException.class);
-        Owner<SanskritImpl, SanskritException> sanskritOwner = own(new SanskritImpl(filesystemDirectory, mapper), SanskritException.class)
+        Owner<SanskritImpl, SanskritException> sanskritOwner = own(new SanskritImpl(filesystemDirectory, mapper, groupCommit), SanskritException.class)
     ) {
       return new LockReleasingSanskrit(
           new PersistentFailSanskrit(
@@ -73,4 +80,14 @@ public interface Sanskrit extends AutoCloseable {
   MutableSanskritObject newMutableSanskritObject();
 
   void reset() throws SanskritException;
+
+  /**
+   * Replaces the records of the append log with a single snapshot of the current state, so that the next load only
+   * has to replay the snapshot and the records appended after it.
+   *
+   * @throws UnsupportedOperationException if this store cannot be compacted
+   */
+  default void compact() throws SanskritException {
+    throw new UnsupportedOperationException("Compaction is not supported by " + getClass().getName());
+  }
 }
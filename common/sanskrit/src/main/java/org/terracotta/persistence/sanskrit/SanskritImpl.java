@@ -29,7 +29,9 @@ import java.nio.ByteBuffer;
 import java.nio.channels.Channels;
 import java.nio.charset.StandardCharsets;
 import java.time.Instant;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Deque;
 import java.util.List;
 import java.util.Objects;
@@ -42,7 +44,28 @@ import static org.terracotta.persistence.sanskrit.MarkableLineParser.LS;
 
 /**
  * The main class for reading and writing a Sanskrit append log.
- * This class is intended to be used by a single thread and so it is not thread-safe.
+ * <p>
+ * By default this class is intended to be used by a single thread and so it is not thread-safe: each change is
+ * written to the append log and its hash file, both forced to disk, before {@link #applyChange(SanskritChange)}
+ * returns.
+ * <p>
+ * In group-commit mode, {@link #applyChange(SanskritChange)} can be called concurrently. The append log is kept open
+ * for the lifetime of the store and the changes queued by concurrent callers are written with a single write and
+ * force, followed by a single hash file update for the whole batch. A caller still only returns once its own record
+ * is on disk, and the changes of a batch are only visible to the readers once the batch is on disk. A crash in the
+ * middle of a batch can leave up to {@link #MAX_BATCH_SIZE} records without a final hash: they are discarded on the
+ * next load in group-commit mode. The default mode keeps the one-record limit, so it only reopens the logs of a
+ * group-commit store that was closed.
+ * <p>
+ * {@link #compact()} replaces all the records with a snapshot record holding the current state. The snapshot carries
+ * the chain hash of the last record it replaces, and its own hash chains from it, so the hash files stay valid and the
+ * records appended after the snapshot are verified as before. Compaction runs automatically, on load and after
+ * appends, once the number of records after the last snapshot reaches the {@value #COMPACTION_THRESHOLD_PROPERTY}
+ * system property (disabled by default).
+ * <p>
+ * Records are written as text unless the {@value #FORMAT_PROPERTY} system property is set to {@code binary}, in which
+ * case new logs use the length-prefixed {@link BinaryLogFormat}, and existing text logs are converted in place when
+ * loaded. The format of an existing log always wins: a binary log is read and appended to whatever the property.
  */
 @SuppressFBWarnings("CT_CONSTRUCTOR_THROW")
 public class SanskritImpl implements Sanskrit {
@@ -51,96 +74,86 @@ public class SanskritImpl implements Sanskrit {
   private static final String APPEND_LOG_FILE = "append.log";
   private static final String HASH_0_FILE = "hash0";
   private static final String HASH_1_FILE = "hash1";
+  private static final String COMPACT_LOG_FILE = "append.log.compact";
   private static final String FORMAT_VERSION = "format version: ";
+  private static final String SNAPSHOT = "snapshot of: ";
+
+  public static final String COMPACTION_THRESHOLD_PROPERTY = "sanskrit.compaction.threshold";
+  public static final String FORMAT_PROPERTY = "sanskrit.format";
+
+  /**
+   * Maximum number of records written to the append log by one group commit.
+   */
+  public static final int MAX_BATCH_SIZE = 128;
 
   private final FilesystemDirectory filesystemDirectory;
   private final SanskritMapper mapper;
+  private final boolean groupCommit;
+  private final int compactionThreshold = Integer.getInteger(COMPACTION_THRESHOLD_PROPERTY, 0);
+  private final boolean binaryFormat = "binary".equalsIgnoreCase(System.getProperty(FORMAT_PROPERTY));
+
+  // guards data, lastHash, pending and appendedTicket
+  private final Object stateLock = new Object();
+  // guards openAppendLog, nextHashFile, durableTicket and failure: held by the thread writing a batch
+  private final Object flushLock = new Object();
+  private final Deque<PendingRecord> pending = new ArrayDeque<>();
 
   private volatile MutableSanskritObject data;
   private volatile String lastHash;
   private volatile String nextHashFile;
+  private volatile int recordsSinceSnapshot;
+  private volatile boolean binaryLog;
+  private long appendedTicket;
+  private long durableTicket;
+  private FileData openAppendLog;
+  private SanskritException failure;
 
   public SanskritImpl(FilesystemDirectory filesystemDirectory, SanskritMapper mapper) throws SanskritException {
+    this(filesystemDirectory, mapper, false);
+  }
+
+  public SanskritImpl(FilesystemDirectory filesystemDirectory, SanskritMapper mapper, boolean groupCommit) throws SanskritException {
     this.filesystemDirectory = filesystemDirectory;
     this.mapper = mapper;
+    this.groupCommit = groupCommit;
     init();
+    maybeCompact();
   }
 
   private void init() throws SanskritException {
     lastHash = null;
     nextHashFile = null;
+    recordsSinceSnapshot = 0;
     this.data = newMutableSanskritObject();
 
     try {
+      // left over by a compaction that did not complete
       List<String> filesToDelete = new ArrayList<>();
+      filesToDelete.add(COMPACT_LOG_FILE);
       String hash0 = getHashFromFile(HASH_0_FILE, filesToDelete);
       String hash1 = getHashFromFile(HASH_1_FILE, filesToDelete);
-      HashChecker hashChecker = new HashChecker(hash0, hash1);
+      HashChecker hashChecker = new HashChecker(hash0, hash1, groupCommit ? MAX_BATCH_SIZE : 1);
 
       MutableSanskritObject result = newMutableSanskritObject();
 
+      List<ByteBuffer> upgradedLog = null;
+      binaryLog = binaryFormat;
+
       try (FileData appendLog = filesystemDirectory.getFileData(APPEND_LOG_FILE)) {
         if (appendLog != null) {
-          InputStream appendLogStream = new BufferedInputStream(Channels.newInputStream(appendLog));
-          MarkableLineParser parser = new MarkableLineParser(appendLogStream);
-          Stream<String> lines = parser.lines();
-          Stream<Deque<String>> records = groupByEmptyLines(lines);
-
-          AtomicReference<SanskritException> error = new AtomicReference<>();
-          AtomicLong counter = new AtomicLong();
-          try {
-            records.forEach(record -> {
-              try {
-                if (record.size() < 3) {
-                  throw new SanskritException("Invalid record");
-                }
-
-                long idx = counter.incrementAndGet();
-
-                String timestamp;
-                String version;
-                String first = record.removeFirst();
-                if (first.startsWith(FORMAT_VERSION)) {
-                  // V2 and so on
-                  timestamp = record.removeFirst();
-                  version = first.substring(16);
-                } else {
-                  // V1 change format don't have a version flag
-                  timestamp = first;
-                  version = "";
-                }
-                String hash = record.removeLast();
-                String data = String.join(LS, record);
-
-                LOGGER.trace("init(): record {}: timestamp={}, version={}, hash={}, data={}", idx, timestamp, version, hash, data);
-
-                hash = checkHash(timestamp, data, hash);
-                String hashedHash = HashUtils.generateHash(hash);
-                boolean acceptRecord = hashChecker.check(hashedHash);
-
-                LOGGER.trace("init(): record {}: hash={}, hashedHash={}, acceptRecord={}", idx, hash, hashedHash, acceptRecord);
-
-                if (acceptRecord) {
-                  parser.mark();
-                  mapper.fromString(data, version, result);
-                  onNewRecord(timestamp, data);
-                  lastHash = hash;
-                }
-              } catch (SanskritException e) {
-                error.set(e);
-                throw new UncheckedSanskritException(e);
-              }
-            });
-          } catch (UncheckedSanskritException e) {
-            if (error.get() != null) {
-              throw error.get();
-            } else {
-              throw e;
+          long mark;
+          if (startsWithMagic(appendLog)) {
+            binaryLog = true;
+            mark = replayBinary(appendLog, hashChecker, result);
+          } else {
+            if (binaryFormat) {
+              upgradedLog = new ArrayList<>();
             }
+            mark = replayText(appendLog, hashChecker, result, upgradedLog);
           }
 
-          long mark = parser.getMark();
           if (mark == 0) {
+            upgradedLog = null;
             filesToDelete.add("append.log");
           } else {
             try {
@@ -165,12 +178,166 @@ public class SanskritImpl implements Sanskrit {
 
       nextHashFile = hashChecker.nextHashFile();
 
+      if (upgradedLog != null) {
+        // the binary records hash the same bytes as the text ones: the hash files stay valid
+        LOGGER.info("Converting the append log to the binary format");
+        replaceLog(upgradedLog);
+      }
+
       this.data = result;
     } catch (IOException e) {
       throw new SanskritException(e);
     }
   }
 
+  private boolean startsWithMagic(FileData appendLog) throws IOException {
+    ByteBuffer start = ByteBuffer.allocate(BinaryLogFormat.MAGIC.length);
+    while (start.hasRemaining() && appendLog.read(start) >= 0) {
+      // keep reading
+    }
+    start.flip();
+    appendLog.position(0);
+    return BinaryLogFormat.isBinary(start);
+  }
+
+  private long replayText(FileData appendLog, HashChecker hashChecker, MutableSanskritObject result, List<ByteBuffer> upgradedLog) throws SanskritException {
+    InputStream appendLogStream = new BufferedInputStream(Channels.newInputStream(appendLog));
+    MarkableLineParser parser = new MarkableLineParser(appendLogStream);
+    Stream<String> lines = parser.lines();
+    Stream<Deque<String>> records = groupByEmptyLines(lines);
+
+    AtomicReference<SanskritException> error = new AtomicReference<>();
+    AtomicLong counter = new AtomicLong();
+    AtomicReference<String> acceptedHash = new AtomicReference<>();
+    try {
+      records.forEach(record -> {
+        try {
+          if (record.size() < 3) {
+            throw new SanskritException("Invalid record");
+          }
+
+          long idx = counter.incrementAndGet();
+
+          String timestamp;
+          String version;
+          String snapshotOf = null;
+          String first = record.removeFirst();
+          if (first.startsWith(FORMAT_VERSION)) {
+            // V2 and so on
+            if (record.getFirst().startsWith(SNAPSHOT)) {
+              if (idx != 1) {
+                throw new SanskritException("Snapshot found after the first record");
+              }
+              snapshotOf = record.removeFirst().substring(SNAPSHOT.length());
+              if (record.size() < 2) {
+                throw new SanskritException("Invalid snapshot record");
+              }
+            }
+            timestamp = record.removeFirst();
+            version = first.substring(16);
+          } else {
+            // V1 change format don't have a version flag
+            timestamp = first;
+            version = "";
+          }
+          String hash = record.removeLast();
+          String data = String.join(LS, record);
+
+          LOGGER.trace("init(): record {}: timestamp={}, version={}, hash={}, data={}", idx, timestamp, version, hash, data);
+
+          String recordHash = hash;
+          if (snapshotOf != null) {
+            // the snapshot hash chains from the hash of the last record it replaces, which it takes over
+            lastHash = snapshotOf;
+            checkHash(timestamp, data, hash);
+            hash = snapshotOf;
+          } else {
+            hash = checkHash(timestamp, data, hash);
+          }
+          String hashedHash = HashUtils.generateHash(hash);
+          boolean acceptRecord = hashChecker.check(hashedHash);
+
+          LOGGER.trace("init(): record {}: hash={}, hashedHash={}, acceptRecord={}", idx, hash, hashedHash, acceptRecord);
+
+          if (acceptRecord) {
+            parser.mark();
+            mapper.fromString(data, version, result);
+            onNewRecord(timestamp, data);
+            acceptedHash.set(hash);
+            if (upgradedLog != null) {
+              upgradedLog.add(BinaryLogFormat.encode(version, snapshotOf, timestamp, data, recordHash));
+            }
+            recordsSinceSnapshot = snapshotOf != null ? 0 : recordsSinceSnapshot + 1;
+          }
+          // discarded records still chain the hash of the records after them
+          lastHash = hash;
+        } catch (SanskritException e) {
+          error.set(e);
+          throw new UncheckedSanskritException(e);
+        }
+      });
+    } catch (UncheckedSanskritException e) {
+      if (error.get() != null) {
+        throw error.get();
+      } else {
+        throw e;
+      }
+    }
+
+    lastHash = acceptedHash.get();
+
+    return parser.getMark();
+  }
+
+  private long replayBinary(FileData appendLog, HashChecker hashChecker, MutableSanskritObject result) throws IOException, SanskritException {
+    BinaryLogFormat.Reader reader = new BinaryLogFormat.Reader(appendLog);
+    String acceptedHash = null;
+    long mark = 0;
+    long idx = 0;
+
+    while (reader.next()) {
+      idx++;
+
+      String snapshotOf = reader.snapshotOf();
+      if (snapshotOf != null) {
+        if (idx != 1) {
+          throw new SanskritException("Snapshot found after the first record");
+        }
+        // the snapshot hash chains from the hash of the last record it replaces, which it takes over
+        lastHash = snapshotOf;
+      }
+
+      if (!reader.hashMatches(lastHash)) {
+        throw new SanskritException("Hash mismatch for record " + idx + ": " + reader.hash());
+      }
+
+      String hash = snapshotOf != null ? snapshotOf : reader.hash();
+      String hashedHash = HashUtils.generateHash(hash);
+      boolean acceptRecord = hashChecker.check(hashedHash);
+
+      LOGGER.trace("init(): record {}: hash={}, hashedHash={}, acceptRecord={}", idx, hash, hashedHash, acceptRecord);
+
+      if (acceptRecord) {
+        mark = reader.position();
+        String timestamp = reader.timestamp();
+        String data = reader.data();
+        mapper.fromString(data, reader.version(), result);
+        onNewRecord(timestamp, data);
+        acceptedHash = hash;
+        recordsSinceSnapshot = snapshotOf != null ? 0 : recordsSinceSnapshot + 1;
+      }
+      // discarded records still chain the hash of the records after them
+      lastHash = hash;
+    }
+
+    if (reader.endsWithIncompleteRecord()) {
+      LOGGER.warn("Discarding the incomplete record at the end of the append log");
+    }
+
+    lastHash = acceptedHash;
+    return mark;
+  }
+
   String getHashToDelete(HashChecker hashChecker) throws SanskritException {
     return hashChecker.done();
   }
@@ -248,34 +415,106 @@ public class SanskritImpl implements Sanskrit {
   }
 
   @Override
-  public void close() {
+  public void close() throws SanskritException {
+    if (groupCommit) {
+      synchronized (flushLock) {
+        try {
+          flushAll();
+        } finally {
+          closeAppendLog();
+        }
+      }
+    }
   }
 
   @Override
   public String getString(String key) throws SanskritException {
-    return data.getString(key);
+    synchronized (stateLock) {
+      return data.getString(key);
+    }
   }
 
   @Override
   public Long getLong(String key) throws SanskritException {
-    return data.getLong(key);
+    synchronized (stateLock) {
+      return data.getLong(key);
+    }
   }
 
   @Override
   public SanskritObject getObject(String key) throws SanskritException {
-    final SanskritObject found = data.getObject(key);
-    if (found == null) {
-      return null;
+    synchronized (stateLock) {
+      final SanskritObject found = data.getObject(key);
+      if (found == null) {
+        return null;
+      }
+      SanskritObjectImpl copy = new SanskritObjectImpl(mapper);
+      found.accept(copy);
+      return copy;
     }
-    SanskritObjectImpl copy = new SanskritObjectImpl(mapper);
-    found.accept(copy);
-    return copy;
   }
 
   @Override
   public void applyChange(SanskritChange change) throws SanskritException {
-    change.accept(data);
-    appendChange(change);
+    if (groupCommit) {
+      awaitDurable(enqueueChange(change));
+    } else {
+      change.accept(data);
+      appendChange(change);
+    }
+    maybeCompact();
+  }
+
+  @Override
+  public void compact() throws SanskritException {
+    synchronized (flushLock) {
+      synchronized (stateLock) {
+        if (groupCommit) {
+          // holding the state lock: the snapshot must not hold a change whose record is not yet on disk
+          flushAll();
+          closeAppendLog();
+        }
+        if (recordsSinceSnapshot == 0) {
+          LOGGER.trace("compact(): nothing to compact");
+          return;
+        }
+
+        MutableSanskritObject snapshot = data;
+        String text = mapper.toString(snapshot::accept);
+        String timestamp = getTimestamp();
+        String snapshotHash = calculateHash(timestamp, text);
+        LOGGER.trace("compact(): replacing {} records with: {}", recordsSinceSnapshot, text);
+
+        // the hash files hold the hash of the last record, which the snapshot takes over: the new log is valid as is
+        replaceLog(Collections.singletonList(encodeRecord(lastHash, timestamp, text, snapshotHash)));
+
+        recordsSinceSnapshot = 0;
+      }
+    }
+  }
+
+  /**
+   * Atomically replaces the append log with a new one holding the given records.
+   */
+  private void replaceLog(List<ByteBuffer> entries) throws SanskritException {
+    try {
+      filesystemDirectory.delete(COMPACT_LOG_FILE);
+      try (FileData newLog = filesystemDirectory.create(COMPACT_LOG_FILE, false)) {
+        if (binaryLog) {
+          writeFully(newLog, ByteBuffer.wrap(BinaryLogFormat.MAGIC));
+        }
+        write(newLog, entries);
+      }
+      filesystemDirectory.replace(COMPACT_LOG_FILE, APPEND_LOG_FILE);
+    } catch (IOException e) {
+      throw new SanskritException(e);
+    }
+  }
+
+  private void maybeCompact() throws SanskritException {
+    if (compactionThreshold > 0 && recordsSinceSnapshot >= compactionThreshold) {
+      compact();
+    }
   }
 
   @Override
@@ -285,13 +524,22 @@ public class SanskritImpl implements Sanskrit {
 
   @Override
   public void reset() throws SanskritException {
-    try {
-      filesystemDirectory.delete(HASH_0_FILE);
-      filesystemDirectory.delete(HASH_1_FILE);
-      filesystemDirectory.backup(APPEND_LOG_FILE);
-      init();
-    } catch (IOException e) {
-      throw new SanskritException(e);
+    synchronized (flushLock) {
+      synchronized (stateLock) {
+        if (groupCommit) {
+          // holding the state lock: no record can be queued against the state being reset
+          flushAll();
+          closeAppendLog();
+        }
+        try {
+          filesystemDirectory.delete(HASH_0_FILE);
+          filesystemDirectory.delete(HASH_1_FILE);
+          filesystemDirectory.backup(APPEND_LOG_FILE);
+          init();
+        } catch (IOException e) {
+          throw new SanskritException(e);
+        }
+      }
     }
   }
 
@@ -309,34 +557,143 @@ public class SanskritImpl implements Sanskrit {
   void appendRecord(String timestamp, String data) throws SanskritException {
     LOGGER.trace("appendRecord({}, {})", timestamp, data);
     String hash = calculateHash(timestamp, data);
-    appendEntry((FORMAT_VERSION + mapper.getCurrentFormatVersion()) + LS + timestamp + LS + data + LS + hash + LS + LS, hash);
+    appendEntry(encodeRecord(null, timestamp, data, hash), hash);
+  }
+
+  private ByteBuffer encodeRecord(String snapshotOf, String timestamp, String data, String hash) {
+    String version = mapper.getCurrentFormatVersion();
+    if (binaryLog) {
+      return BinaryLogFormat.encode(version, snapshotOf, timestamp, data, hash);
+    }
+    String snapshotLine = snapshotOf == null ? "" : SNAPSHOT + snapshotOf + LS;
+    return StandardCharsets.UTF_8.encode(FORMAT_VERSION + version + LS + snapshotLine + timestamp + LS + data + LS + hash + LS + LS);
   }
 
   private String getTimestamp() {
     return Instant.now().toString();
   }
 
-  private void appendEntry(String logEntry, String entryHash) throws SanskritException {
-    LOGGER.trace("appendEntry({}, {})", logEntry, entryHash);
+  private void appendEntry(ByteBuffer logEntry, String entryHash) throws SanskritException {
+    LOGGER.trace("appendEntry({})", entryHash);
+
+    try (FileData appendLog = getAppendLogForAppend()) {
+      write(appendLog, Collections.singletonList(logEntry));
+    } catch (IOException e) {
+      throw new SanskritException(e);
+    }
+
+    commitHash(entryHash);
+    lastHash = entryHash;
+    recordsSinceSnapshot++;
+  }
+
+  /**
+   * Records the hash of the last record on disk in the next hash file, and deletes the previous one.
+   */
+  private void commitHash(String entryHash) throws SanskritException {
     String finalHash = HashUtils.generateHash(entryHash);
-    LOGGER.trace("appendEntry({}): finalHash: {}", entryHash, finalHash);
+    LOGGER.trace("commitHash({}): finalHash: {}", entryHash, finalHash);
 
-    try (
-        FileData appendLog = getAppendLogForAppend();
-        FileData hashFile = createNewHashFile()
-    ) {
-      write(appendLog, logEntry);
-      write(hashFile, finalHash);
+    try (FileData hashFile = createNewHashFile()) {
+      write(hashFile, Collections.singletonList(StandardCharsets.UTF_8.encode(finalHash)));
 
       nextHashFile = flipHashFile();
       filesystemDirectory.delete(nextHashFile);
-
-      lastHash = entryHash;
     } catch (IOException e) {
       throw new SanskritException(e);
     }
   }
 
+  /**
+   * Queues the record of the change for the next group commit, which applies the change in memory once on disk.
+   *
+   * @return the ticket of the record, which is durable once a group commit has reached it
+   */
+  private long enqueueChange(SanskritChange change) throws SanskritException {
+    synchronized (stateLock) {
+      String text = mapper.toString(change);
+      String timestamp = getTimestamp();
+      String hash = calculateHash(timestamp, text);
+      LOGGER.trace("enqueueChange(): {}", text);
+      pending.addLast(new PendingRecord(change, encodeRecord(null, timestamp, text, hash), hash));
+      lastHash = hash;
+      return ++appendedTicket;
+    }
+  }
+
+  /**
+   * Returns once the record with the given ticket is on disk. The first waiting thread to get the flush lock writes
+   * all the queued records on behalf of the others.
+   */
+  private void awaitDurable(long ticket) throws SanskritException {
+    synchronized (flushLock) {
+      while (durableTicket < ticket) {
+        flushBatch();
+      }
+    }
+  }
+
+  private void flushAll() throws SanskritException {
+    long ticket;
+    synchronized (stateLock) {
+      ticket = appendedTicket;
+    }
+    awaitDurable(ticket);
+  }
+
+  private void flushBatch() throws SanskritException {
+    if (failure != null) {
+      throw new SanskritException("Group commit failed earlier", failure);
+    }
+
+    List<PendingRecord> batch = new ArrayList<>();
+    synchronized (stateLock) {
+      while (batch.size() < MAX_BATCH_SIZE && !pending.isEmpty()) {
+        batch.add(pending.removeFirst());
+      }
+    }
+
+    LOGGER.trace("flushBatch(): {} records", batch.size());
+
+    try {
+      List<ByteBuffer> entries = new ArrayList<>(batch.size());
+      for (PendingRecord record : batch) {
+        entries.add(record.logEntry);
+      }
+
+      if (openAppendLog == null) {
+        openAppendLog = getAppendLogForAppend();
+      }
+      write(openAppendLog, entries);
+      commitHash(batch.get(batch.size() - 1).hash);
+
+      // the readers only see the changes once they are durable
+      synchronized (stateLock) {
+        for (PendingRecord record : batch) {
+          record.change.accept(data);
+        }
+      }
+
+      durableTicket += batch.size();
+      recordsSinceSnapshot += batch.size();
+    } catch (SanskritException | RuntimeException e) {
+      failure = e instanceof SanskritException ? (SanskritException) e : new SanskritException(e);
+      throw e;
+    }
+  }
+
+  private void closeAppendLog() throws SanskritException {
+    if (openAppendLog != null) {
+      try {
+        openAppendLog.close();
+      } catch (IOException e) {
+        throw new SanskritException(e);
+      } finally {
+        openAppendLog = null;
+      }
+    }
+  }
+
   private String flipHashFile() {
     if (Objects.equals(nextHashFile, HASH_0_FILE)) {
       return HASH_1_FILE;
@@ -348,7 +705,11 @@ public class SanskritImpl implements Sanskrit {
   private FileData getAppendLogForAppend() throws SanskritException {
     try (Owner<FileData, IOException> appendLogOwner = Owner.own(filesystemDirectory.create(APPEND_LOG_FILE, true), IOException.class)) {
       FileData appendLog = appendLogOwner.borrow();
-      appendLog.position(appendLog.size());
+      long size = appendLog.size();
+      appendLog.position(size);
+      if (binaryLog && size == 0) {
+        writeFully(appendLog, ByteBuffer.wrap(BinaryLogFormat.MAGIC));
+      }
       return appendLogOwner.release();
     } catch (IOException e) {
       throw new SanskritException(e);
@@ -363,12 +724,10 @@ public class SanskritImpl implements Sanskrit {
     }
   }
 
-  private void write(FileData fileData, String text) throws SanskritException {
+  private void write(FileData fileData, List<ByteBuffer> entries) throws SanskritException {
     try {
-      ByteBuffer bytes = StandardCharsets.UTF_8.encode(text);
-
-      while (bytes.hasRemaining()) {
-        fileData.write(bytes);
+      for (ByteBuffer entry : entries) {
+        writeFully(fileData, entry);
       }
 
       fileData.force(false);
@@ -376,4 +735,22 @@ public class SanskritImpl implements Sanskrit {
       throw new SanskritException(e);
     }
   }
+
+  private static void writeFully(FileData fileData, ByteBuffer bytes) throws IOException {
+    while (bytes.hasRemaining()) {
+      fileData.write(bytes);
+    }
+  }
+
+  private static class PendingRecord {
+    private final SanskritChange change;
+    private final ByteBuffer logEntry;
+    private final String hash;
+
+    PendingRecord(SanskritChange change, ByteBuffer logEntry, String hash) {
+      this.change = change;
+      this.logEntry = logEntry;
+      this.hash = hash;
+    }
+  }
 }
@@ -33,6 +33,8 @@ import java.nio.file.StandardOpenOption;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
 import static java.nio.file.StandardOpenOption.CREATE;
 import static java.nio.file.StandardOpenOption.CREATE_NEW;
 import static java.nio.file.StandardOpenOption.READ;
@@ -98,4 +100,14 @@ public class FileBasedFilesystemDirectory implements FilesystemDirectory {
       org.terracotta.utilities.io.Files.relocate(path, dest);
     }
   }
+
+  @Override
+  public void replace(String source, String target) throws IOException {
+    Files.move(directory.resolve(source), directory.resolve(target), ATOMIC_MOVE, REPLACE_EXISTING);
+    try (FileChannel channel = FileChannel.open(directory, READ)) {
+      channel.force(true);
+    } catch (IOException e) {
+      // some platforms cannot open or sync a directory: the move itself is still atomic
+    }
+  }
 }
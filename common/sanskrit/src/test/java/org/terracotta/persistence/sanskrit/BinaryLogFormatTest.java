@@ -0,0 +1,128 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.persistence.sanskrit;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.terracotta.persistence.sanskrit.MarkableLineParser.LS;
+
+public class BinaryLogFormatTest {
+  private static final String HASH_1 = HashUtils.generateHash("2020-01-01T00:00:00Z", LS, "{\"a\":1}");
+  private static final String HASH_2 = HashUtils.generateHash(HASH_1, LS, LS, "2020-01-01T00:00:01Z", LS, "{\"b\":\"\u0124\"}");
+
+  @Test
+  public void roundTrip() throws Exception {
+    byte[] log = log(
+        BinaryLogFormat.encode("2", null, "2020-01-01T00:00:00Z", "{\"a\":1}", HASH_1),
+        BinaryLogFormat.encode("2", HASH_1, "2020-01-01T00:00:01Z", "{\"b\":\"\u0124\"}", HASH_2)
+    );
+
+    BinaryLogFormat.Reader reader = new BinaryLogFormat.Reader(channel(log));
+
+    assertTrue(reader.next());
+    assertFalse(reader.isSnapshot());
+    assertNull(reader.snapshotOf());
+    assertEquals("2", reader.version());
+    assertEquals("2020-01-01T00:00:00Z", reader.timestamp());
+    assertEquals("{\"a\":1}", reader.data());
+    assertEquals(HASH_1, reader.hash());
+    assertTrue(reader.hashMatches(null));
+
+    assertTrue(reader.next());
+    assertTrue(reader.isSnapshot());
+    assertEquals(HASH_1, reader.snapshotOf());
+    assertEquals("{\"b\":\"\u0124\"}", reader.data());
+    assertEquals(HASH_2, reader.hash());
+    assertTrue(reader.hashMatches(HASH_1));
+    assertFalse(reader.hashMatches(HASH_2));
+    assertEquals(log.length, reader.position());
+
+    assertFalse(reader.next());
+    assertFalse(reader.endsWithIncompleteRecord());
+  }
+
+  @Test
+  public void recordLargerThanChunk() throws Exception {
+    char[] chars = new char[200_000];
+    Arrays.fill(chars, 'x');
+    String data = new String(chars);
+    String hash = HashUtils.generateHash("t", LS, data);
+
+    BinaryLogFormat.Reader reader = new BinaryLogFormat.Reader(channel(log(BinaryLogFormat.encode("2", null, "t", data, hash))));
+
+    assertTrue(reader.next());
+    assertEquals(data, reader.data());
+    assertTrue(reader.hashMatches(null));
+    assertFalse(reader.next());
+  }
+
+  @Test
+  public void incompleteRecord() throws Exception {
+    byte[] log = log(
+        BinaryLogFormat.encode("2", null, "2020-01-01T00:00:00Z", "{\"a\":1}", HASH_1),
+        BinaryLogFormat.encode("2", null, "2020-01-01T00:00:01Z", "{\"b\":2}", HASH_2)
+    );
+    byte[] truncated = Arrays.copyOf(log, log.length - 5);
+
+    BinaryLogFormat.Reader reader = new BinaryLogFormat.Reader(channel(truncated));
+
+    assertTrue(reader.next());
+    long firstRecordEnd = reader.position();
+    assertFalse(reader.next());
+    assertTrue(reader.endsWithIncompleteRecord());
+    assertEquals(firstRecordEnd, reader.position());
+  }
+
+  @Test(expected = SanskritException.class)
+  public void invalidRecord() throws Exception {
+    ByteBuffer record = BinaryLogFormat.encode("2", null, "2020-01-01T00:00:00Z", "{\"a\":1}", HASH_1);
+    // data length larger than the record
+    record.putInt(4 + 1 + 2 + 1 + 2 + 20, 1000);
+
+    new BinaryLogFormat.Reader(channel(log(record))).next();
+  }
+
+  @Test(expected = IOException.class)
+  public void notBinary() throws Exception {
+    new BinaryLogFormat.Reader(channel("format version: 2".getBytes("UTF-8")));
+  }
+
+  private static byte[] log(ByteBuffer... records) {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    out.write(BinaryLogFormat.MAGIC, 0, BinaryLogFormat.MAGIC.length);
+    for (ByteBuffer record : records) {
+      out.write(record.array(), record.position(), record.remaining());
+    }
+    return out.toByteArray();
+  }
+
+  private static ReadableByteChannel channel(byte[] bytes) {
+    return Channels.newChannel(new ByteArrayInputStream(bytes));
+  }
+}
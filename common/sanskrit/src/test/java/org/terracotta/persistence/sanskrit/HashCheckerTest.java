@@ -126,4 +126,49 @@ public class HashCheckerTest {
     assertTrue(checker.check("e"));
     checker.check("e");
   }
+
+  @Test
+  public void groupCommitRecordsAfterLastHash() throws Exception {
+    HashChecker checker = new HashChecker("b", null, 3);
+    assertTrue(checker.check("a"));
+    assertTrue(checker.check("b"));
+    assertFalse(checker.check("c"));
+    assertFalse(checker.check("d"));
+    assertFalse(checker.check("e"));
+    assertNull(checker.done());
+    assertEquals("hash1", checker.nextHashFile());
+  }
+
+  @Test(expected = SanskritException.class)
+  public void groupCommitTooManyRecordsAfterLastHash() throws Exception {
+    HashChecker checker = new HashChecker("b", null, 3);
+    assertTrue(checker.check("a"));
+    assertTrue(checker.check("b"));
+    assertFalse(checker.check("c"));
+    assertFalse(checker.check("d"));
+    assertFalse(checker.check("e"));
+    checker.check("f");
+  }
+
+  @Test
+  public void groupCommitRecordsBetweenHashes() throws Exception {
+    HashChecker checker = new HashChecker("b", "e", 3);
+    assertTrue(checker.check("a"));
+    assertTrue(checker.check("b"));
+    assertTrue(checker.check("c"));
+    assertTrue(checker.check("d"));
+    assertTrue(checker.check("e"));
+    assertEquals("hash0", checker.done());
+    assertEquals("hash0", checker.nextHashFile());
+  }
+
+  @Test(expected = SanskritException.class)
+  public void groupCommitTooManyRecordsBetweenHashes() throws Exception {
+    HashChecker checker = new HashChecker("b", "f", 3);
+    assertTrue(checker.check("a"));
+    assertTrue(checker.check("b"));
+    assertTrue(checker.check("c"));
+    assertTrue(checker.check("d"));
+    checker.check("e");
+  }
 }
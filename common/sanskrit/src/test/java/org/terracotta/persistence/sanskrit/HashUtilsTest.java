@@ -18,6 +18,10 @@ package org.terracotta.persistence.sanskrit;
 
 import org.junit.Test;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 
 public class HashUtilsTest {
@@ -36,4 +40,26 @@ public class HashUtilsTest {
   public void multiByteCharacter() {
     assertEquals("f72730c87ac92d97c723605ac7bc33fe16e92255", HashUtils.generateHash("Ɵ"));
   }
+
+  @Test
+  public void hashBytes() {
+    byte[] hash = HashUtils.generateHashBytes(
+        ByteBuffer.wrap("a".getBytes(StandardCharsets.UTF_8)),
+        ByteBuffer.wrap("bc".getBytes(StandardCharsets.UTF_8))
+    );
+    assertEquals(HashUtils.HASH_LENGTH, hash.length);
+    assertEquals("e65287c61b6fa7e061f62f9fe1979a1dde62e447", HashUtils.toHexText(hash));
+  }
+
+  @Test
+  public void hexText() {
+    byte[] bytes = {0x00, 0x0f, (byte) 0xa5, (byte) 0xff};
+    assertEquals("000fa5ff", HashUtils.toHexText(bytes));
+    assertArrayEquals(bytes, HashUtils.fromHexText("000fa5ff"));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void invalidHexText() {
+    HashUtils.fromHexText("0g");
+  }
 }
@@ -18,7 +18,7 @@ package org.terracotta.persistence.sanskrit;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
-import java.nio.charset.Charset;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
@@ -29,17 +29,23 @@ import java.util.concurrent.atomic.AtomicInteger;
 import static org.junit.Assert.assertTrue;
 
 public class MemoryFilesystemDirectory implements FilesystemDirectory {
-  private static final Charset UTF_8 = Charset.forName("UTF-8");
-
-  private final ConcurrentMap<String, String> files = new ConcurrentHashMap<>();
+  private final ConcurrentMap<String, byte[]> files = new ConcurrentHashMap<>();
   private final Set<String> locks = new HashSet<>();
   private final Semaphore directoryLock = new Semaphore(1);
   private boolean fail;
+  private volatile long forceMillis;
 
   public void fail() {
     fail = true;
   }
 
+  /**
+   * Makes every force take the given time, like a real disk would.
+   */
+  public void slowForce(long millis) {
+    forceMillis = millis;
+  }
+
   @Override
   public DirectoryLock lock() throws IOException {
     checkFail();
@@ -64,7 +70,7 @@ public class MemoryFilesystemDirectory implements FilesystemDirectory {
         throw new IOException("File open: " + filename);
       }
     } else {
-      files.put(filename, "");
+      files.put(filename, new byte[0]);
     }
 
     locks.add(filename);
@@ -100,6 +106,21 @@ public class MemoryFilesystemDirectory implements FilesystemDirectory {
     delete(filename);
   }
 
+  @Override
+  public void replace(String source, String target) throws IOException {
+    checkFail();
+
+    if (locks.contains(source) || locks.contains(target)) {
+      throw new IOException("File open: " + source + " or " + target);
+    }
+
+    byte[] content = files.remove(source);
+    if (content == null) {
+      throw new IOException("No such file: " + source);
+    }
+    files.put(target, content);
+  }
+
   private void checkFail() throws IOException {
     if (fail) {
       throw new IOException("fail");
@@ -120,6 +141,14 @@ public class MemoryFilesystemDirectory implements FilesystemDirectory {
     @Override
     public void force(boolean metaData) throws IOException {
       checkFail();
+      if (forceMillis > 0) {
+        try {
+          Thread.sleep(forceMillis);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new IOException(e);
+        }
+      }
     }
 
     @Override
@@ -130,17 +159,15 @@ public class MemoryFilesystemDirectory implements FilesystemDirectory {
       int writePosition = position.get();
       int writeExtent = writePosition + writeLength;
 
-      files.compute(filename, (k, v) -> {
-        byte[] bytes = v.getBytes(UTF_8);
+      files.compute(filename, (k, bytes) -> {
         int newLength = Math.max(bytes.length, writeExtent);
 
         ByteBuffer newValue = ByteBuffer.allocate(newLength);
         newValue.put(bytes);
         newValue.position(writePosition);
         newValue.put(src);
-        newValue.flip();
 
-        return UTF_8.decode(newValue).toString();
+        return newValue.array();
       });
 
       position.set(writeExtent);
@@ -152,8 +179,7 @@ public class MemoryFilesystemDirectory implements FilesystemDirectory {
     public int read(ByteBuffer dst) throws IOException {
       checkFail();
 
-      String data = files.get(filename);
-      byte[] bytes = data.getBytes(UTF_8);
+      byte[] bytes = files.get(filename);
 
       int readPosition = position.get();
       if (readPosition >= bytes.length) {
@@ -185,7 +211,7 @@ public class MemoryFilesystemDirectory implements FilesystemDirectory {
     @Override
     public long size() throws IOException {
       checkFail();
-      return files.get(filename).length();
+      return files.get(filename).length;
     }
 
     @Override
@@ -195,8 +221,8 @@ public class MemoryFilesystemDirectory implements FilesystemDirectory {
       int intSize = (int) size;
 
       files.compute(filename, (k, v) -> {
-        if (v.length() > size) {
-          return v.substring(0, intSize);
+        if (v.length > size) {
+          return Arrays.copyOf(v, intSize);
         } else {
           return v;
         }
@@ -24,11 +24,21 @@ import org.terracotta.persistence.sanskrit.change.SanskritChangeBuilder;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.terracotta.persistence.sanskrit.MarkableLineParser.LS;
 
@@ -126,6 +136,32 @@ public class SanskritTest {
     loadAndFail();
   }
 
+  @Test
+  public void groupCommitInitTwoRecordsNoFinalHash() throws Exception {
+    // an interrupted group commit
+    LogInfo logInfo = LogUtil.createLog(makeMap("key", "value1"), makeMap("key", "value2"));
+    createFileWithContent("append.log", logInfo.getText());
+
+    try (Sanskrit sanskrit = Sanskrit.init(filesystemDirectory, mapper, true)) {
+      assertState(sanskrit, makeMap(), "key");
+    }
+
+    assertNullFiles("append.log", "hash0", "hash1");
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void groupCommitInitTooManyRecordsNoFinalHash() throws Exception {
+    Map<String, Object>[] records = new Map[SanskritImpl.MAX_BATCH_SIZE + 1];
+    for (int i = 0; i < records.length; i++) {
+      records[i] = makeMap("key", (long) i);
+    }
+    LogInfo logInfo = LogUtil.createLog(records);
+    createFileWithContent("append.log", logInfo.getText());
+
+    loadAndFail(true);
+  }
+
   @Test
   public void initOneRecordIncorrectFinalHash() throws Exception {
     LogInfo logInfo = LogUtil.createLog(makeMap("key", "value"));
@@ -463,6 +499,388 @@ public class SanskritTest {
     }
   }
 
+  @Test
+  public void groupCommitConcurrentChanges() throws Exception {
+    int threads = 8;
+    int changesPerThread = 50;
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try (Sanskrit sanskrit = Sanskrit.init(filesystemDirectory, mapper, true)) {
+      CountDownLatch start = new CountDownLatch(1);
+      List<Future<?>> futures = new ArrayList<>();
+      for (int t = 0; t < threads; t++) {
+        int thread = t;
+        futures.add(executor.submit(() -> {
+          start.await();
+          for (int i = 0; i < changesPerThread; i++) {
+            sanskrit.setLong("key-" + thread + "-" + i, i);
+          }
+          return null;
+        }));
+      }
+      start.countDown();
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    Map<String, Object> expected = new HashMap<>();
+    for (int t = 0; t < threads; t++) {
+      for (int i = 0; i < changesPerThread; i++) {
+        expected.put("key-" + t + "-" + i, (long) i);
+      }
+    }
+
+    try (Sanskrit sanskrit = Sanskrit.init(filesystemDirectory, mapper, true)) {
+      assertState(sanskrit, expected);
+    }
+    loadAndAssertState(expected);
+  }
+
+  @Test
+  public void groupCommitAppendAfterReset() throws Exception {
+    try (Sanskrit sanskrit = Sanskrit.init(filesystemDirectory, mapper, true)) {
+      sanskrit.setString("key1", "value1");
+      sanskrit.reset();
+      sanskrit.setString("key2", "value2");
+    }
+
+    loadAndAssertState(makeMap("key2", "value2"), "key1");
+  }
+
+  @Test
+  public void groupCommitInitRecordsAfterFinalHash() throws Exception {
+    LogInfo logInfo = LogUtil.createLog(makeMap("key", "value1"), makeMap("key", "value2"), makeMap("key", "value3"));
+    createFileWithContent("append.log", logInfo.getText());
+    createFileWithContent("hash0", logInfo.getHash(0));
+
+    try (Sanskrit sanskrit = Sanskrit.init(filesystemDirectory, mapper, true)) {
+      assertEquals("value1", sanskrit.getString("key"));
+    }
+
+    assertAppendLog(logInfo.getText(0));
+    assertFile("hash0", logInfo.getHash(0));
+    assertNullFiles("hash1");
+  }
+
+  @Test
+  public void groupCommitInitRecordsBetweenFinalHashes() throws Exception {
+    LogInfo logInfo = LogUtil.createLog(makeMap("key", "value1"), makeMap("key", "value2"), makeMap("key", "value3"));
+    createFileWithContent("append.log", logInfo.getText());
+    createFileWithContent("hash0", logInfo.getHash(0));
+    createFileWithContent("hash1", logInfo.getHash(2));
+
+    try (Sanskrit sanskrit = Sanskrit.init(filesystemDirectory, mapper, true)) {
+      assertEquals("value3", sanskrit.getString("key"));
+    }
+
+    assertAppendLog(logInfo.getText());
+    assertFile("hash1", logInfo.getHash());
+    assertNullFiles("hash0");
+  }
+
+  @Test
+  public void initRecordsBetweenFinalHashes() throws Exception {
+    LogInfo logInfo = LogUtil.createLog(makeMap("key", "value1"), makeMap("key", "value2"), makeMap("key", "value3"));
+    createFileWithContent("append.log", logInfo.getText());
+    createFileWithContent("hash0", logInfo.getHash(0));
+    createFileWithContent("hash1", logInfo.getHash(2));
+
+    loadAndFail();
+  }
+
+  @Test
+  public void groupCommitChangeIsNotVisibleBeforeDurable() throws Exception {
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try (Sanskrit sanskrit = Sanskrit.init(filesystemDirectory, mapper, true)) {
+      filesystemDirectory.slowForce(200);
+      Future<?> write = executor.submit(() -> {
+        sanskrit.setString("key", "value");
+        return null;
+      });
+      Thread.sleep(50);
+
+      assertNull(sanskrit.getString("key"));
+      write.get();
+      assertEquals("value", sanskrit.getString("key"));
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void closedGroupCommitLogReopensInDefaultMode() throws Exception {
+    try (Sanskrit sanskrit = Sanskrit.init(filesystemDirectory, mapper, true)) {
+      sanskrit.setString("key1", "value1");
+      sanskrit.setString("key2", "value2");
+    }
+
+    try (Sanskrit sanskrit = Sanskrit.init(filesystemDirectory, mapper)) {
+      assertState(sanskrit, makeMap("key1", "value1", "key2", "value2"));
+      sanskrit.setString("key3", "value3");
+    }
+
+    try (Sanskrit sanskrit = Sanskrit.init(filesystemDirectory, mapper, true)) {
+      assertState(sanskrit, makeMap("key1", "value1", "key2", "value2", "key3", "value3"));
+    }
+  }
+
+  @Test
+  public void interruptedGroupCommitLogFailsInDefaultMode() throws Exception {
+    LogInfo logInfo = LogUtil.createLog(makeMap("key1", "value1"), makeMap("key2", "value2"), makeMap("key3", "value3"), makeMap("key4", "value4"));
+    createFileWithContent("append.log", logInfo.getText());
+    createFileWithContent("hash0", logInfo.getHash(1));
+
+    loadAndFail();
+  }
+
+  @Test
+  public void compact() throws Exception {
+    try (Sanskrit sanskrit = Sanskrit.init(filesystemDirectory, mapper)) {
+      SanskritObjectImpl object = new SanskritObjectImpl(mapper);
+      object.setString("subkey1", "abc");
+      object.setLong("subkey2", 1L);
+
+      sanskrit.setString("key1", "value1");
+      sanskrit.setString("key1", "value2");
+      sanskrit.setLong("key2", 2L);
+      sanskrit.setObject("key3", object);
+      sanskrit.setString("key4", "value4");
+      sanskrit.removeKey("key4");
+
+      sanskrit.compact();
+
+      assertEquals("value2", sanskrit.getString("key1"));
+      sanskrit.setString("key5", "value5");
+    }
+
+    String appendLog = getFileText("append.log");
+    assertEquals(2, appendLog.split("format version: ", -1).length - 1);
+    assertTrue(appendLog.contains("snapshot of: "));
+
+    try (Sanskrit sanskrit = Sanskrit.init(filesystemDirectory, mapper)) {
+      assertEquals("value2", sanskrit.getString("key1"));
+      assertEquals(2L, (long) sanskrit.getLong("key2"));
+      assertEquals("abc", sanskrit.getObject("key3").getString("subkey1"));
+      assertEquals(1L, (long) sanskrit.getObject("key3").getLong("subkey2"));
+      assertNull(sanskrit.getString("key4"));
+      assertEquals("value5", sanskrit.getString("key5"));
+
+      // compacting a snapshot followed by records
+      sanskrit.compact();
+    }
+
+    loadAndAssertState(makeMap("key1", "value2", "key2", 2L, "key5", "value5"), "key4");
+    assertEquals(1, getFileText("append.log").split("format version: ", -1).length - 1);
+  }
+
+  @Test
+  public void compactNothing() throws Exception {
+    try (Sanskrit sanskrit = Sanskrit.init(filesystemDirectory, mapper)) {
+      sanskrit.compact();
+    }
+
+    assertNullFiles("append.log", "hash0", "hash1");
+  }
+
+  @Test
+  public void compactTamperedSnapshot() throws Exception {
+    try (Sanskrit sanskrit = Sanskrit.init(filesystemDirectory, mapper)) {
+      sanskrit.setString("key", "value1");
+      sanskrit.compact();
+    }
+
+    String appendLog = getFileText("append.log");
+    filesystemDirectory.delete("append.log");
+    createFileWithContent("append.log", appendLog.replace("value1", "value2"));
+
+    loadAndFail();
+  }
+
+  @Test
+  public void compactIncompleteIsIgnored() throws Exception {
+    try (Sanskrit sanskrit = Sanskrit.init(filesystemDirectory, mapper)) {
+      sanskrit.setString("key", "value1");
+    }
+    createFileWithContent("append.log.compact", "incomplete");
+
+    loadAndAssertState(makeMap("key", "value1"));
+    assertNullFiles("append.log.compact");
+  }
+
+  @Test
+  public void compactWithThreshold() throws Exception {
+    System.setProperty(SanskritImpl.COMPACTION_THRESHOLD_PROPERTY, "3");
+    try {
+      try (Sanskrit sanskrit = Sanskrit.init(filesystemDirectory, mapper)) {
+        for (int i = 0; i < 7; i++) {
+          sanskrit.setLong("key", i);
+        }
+      }
+
+      // two compactions, then one record
+      assertEquals(2, getFileText("append.log").split("format version: ", -1).length - 1);
+      loadAndAssertState(makeMap("key", 6L));
+    } finally {
+      System.clearProperty(SanskritImpl.COMPACTION_THRESHOLD_PROPERTY);
+    }
+  }
+
+  @Test
+  public void groupCommitCompact() throws Exception {
+    try (Sanskrit sanskrit = Sanskrit.init(filesystemDirectory, mapper, true)) {
+      sanskrit.setString("key1", "value1");
+      sanskrit.setString("key2", "value2");
+      sanskrit.compact();
+      sanskrit.setString("key3", "value3");
+    }
+
+    loadAndAssertState(makeMap("key1", "value1", "key2", "value2", "key3", "value3"));
+  }
+
+  @Test
+  public void groupCommitCompactWithConcurrentChanges() throws Exception {
+    int threads = 8;
+    int changesPerThread = 20;
+    ExecutorService executor = Executors.newFixedThreadPool(threads + 1);
+    try {
+      for (int round = 0; round < 20; round++) {
+        filesystemDirectory = new MemoryFilesystemDirectory();
+        // gives the writers the time to queue changes while a batch is being written
+        filesystemDirectory.slowForce(1);
+        try (Sanskrit sanskrit = Sanskrit.init(filesystemDirectory, mapper, true)) {
+          CountDownLatch start = new CountDownLatch(1);
+          AtomicInteger applied = new AtomicInteger();
+          List<Future<?>> futures = new ArrayList<>();
+          for (int t = 0; t < threads; t++) {
+            int thread = t;
+            futures.add(executor.submit(() -> {
+              start.await();
+              for (int i = 0; i < changesPerThread; i++) {
+                sanskrit.setLong("key-" + thread, i);
+                applied.incrementAndGet();
+              }
+              return null;
+            }));
+          }
+          futures.add(executor.submit(() -> {
+            start.await();
+            while (applied.get() < threads * changesPerThread / 2) {
+              Thread.yield();
+            }
+            // a single compaction in the middle of the writes, so that its snapshot is what gets reloaded
+            sanskrit.compact();
+            return null;
+          }));
+          start.countDown();
+          for (Future<?> future : futures) {
+            future.get();
+          }
+        }
+
+        Map<String, Object> expected = new HashMap<>();
+        for (int t = 0; t < threads; t++) {
+          expected.put("key-" + t, (long) changesPerThread - 1);
+        }
+        loadAndAssertState(expected);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void binaryFormat() throws Exception {
+    System.setProperty(SanskritImpl.FORMAT_PROPERTY, "binary");
+    try {
+      try (Sanskrit sanskrit = Sanskrit.init(filesystemDirectory, mapper)) {
+        sanskrit.setString("key1", "value1");
+        sanskrit.setLong("key2", 2L);
+      }
+      assertTrue(isBinaryLog());
+    } finally {
+      System.clearProperty(SanskritImpl.FORMAT_PROPERTY);
+    }
+
+    // the format of an existing log wins
+    try (Sanskrit sanskrit = Sanskrit.init(filesystemDirectory, mapper)) {
+      assertEquals("value1", sanskrit.getString("key1"));
+      sanskrit.setString("key3", "value3");
+      sanskrit.compact();
+      sanskrit.setString("key4", "value4");
+    }
+    assertTrue(isBinaryLog());
+
+    loadAndAssertState(makeMap("key1", "value1", "key2", 2L, "key3", "value3", "key4", "value4"));
+  }
+
+  @Test
+  public void binaryFormatUpgradesTextLog() throws Exception {
+    LogInfo logInfo = LogUtil.createLog(makeMap("key", "value1"), makeMap("key", "value2"));
+    createFileWithContent("append.log", logInfo.getText());
+    createFileWithContent("hash0", logInfo.getHash());
+
+    System.setProperty(SanskritImpl.FORMAT_PROPERTY, "binary");
+    try {
+      try (Sanskrit sanskrit = Sanskrit.init(filesystemDirectory, mapper)) {
+        assertEquals("value2", sanskrit.getString("key"));
+      }
+    } finally {
+      System.clearProperty(SanskritImpl.FORMAT_PROPERTY);
+    }
+
+    assertTrue(isBinaryLog());
+    assertFile("hash0", logInfo.getHash());
+
+    try (Sanskrit sanskrit = Sanskrit.init(filesystemDirectory, mapper)) {
+      assertEquals("value2", sanskrit.getString("key"));
+      sanskrit.setString("key", "value3");
+    }
+
+    loadAndAssertState(makeMap("key", "value3"));
+  }
+
+  @Test
+  public void binaryFormatIncompleteRecord() throws Exception {
+    System.setProperty(SanskritImpl.FORMAT_PROPERTY, "binary");
+    try {
+      try (Sanskrit sanskrit = Sanskrit.init(filesystemDirectory, mapper, true)) {
+        sanskrit.setString("key", "value1");
+      }
+    } finally {
+      System.clearProperty(SanskritImpl.FORMAT_PROPERTY);
+    }
+
+    byte[] complete = getFileBytes("append.log");
+    byte[] torn = Arrays.copyOf(complete, complete.length + 10);
+    torn[complete.length + 3] = 100;
+    filesystemDirectory.delete("append.log");
+    createFileWithContent("append.log", torn);
+
+    loadAndAssertState(makeMap("key", "value1"));
+    assertArrayEquals(complete, getFileBytes("append.log"));
+  }
+
+  @Test
+  public void binaryFormatTamperedRecord() throws Exception {
+    System.setProperty(SanskritImpl.FORMAT_PROPERTY, "binary");
+    try {
+      try (Sanskrit sanskrit = Sanskrit.init(filesystemDirectory, mapper)) {
+        sanskrit.setString("key", "value1");
+      }
+    } finally {
+      System.clearProperty(SanskritImpl.FORMAT_PROPERTY);
+    }
+
+    byte[] bytes = getFileBytes("append.log");
+    String text = new String(bytes, StandardCharsets.ISO_8859_1).replace("value1", "value2");
+    filesystemDirectory.delete("append.log");
+    createFileWithContent("append.log", text.getBytes(StandardCharsets.ISO_8859_1));
+
+    loadAndFail();
+  }
+
   private static String lines(String... lines) {
     StringBuilder sb = new StringBuilder();
     for (String line : lines) {
@@ -485,13 +903,17 @@ public class SanskritTest {
     return map;
   }
 
-  @SuppressWarnings("try")
   private void loadAndFail() throws Exception {
+    loadAndFail(false);
+  }
+
+  @SuppressWarnings("try")
+  private void loadAndFail(boolean groupCommit) throws Exception {
     String appendLog = getFileText("append.log");
     String hash0 = getFileText("hash0");
     String hash1 = getFileText("hash1");
 
-    try (Sanskrit sanskrit = Sanskrit.init(filesystemDirectory, mapper)) {
+    try (Sanskrit sanskrit = Sanskrit.init(filesystemDirectory, mapper, groupCommit)) {
       fail("Expected SanskritException");
     } catch (SanskritException e) {
       // expected
@@ -559,6 +981,19 @@ public class SanskritTest {
     }
   }
 
+  private byte[] getFileBytes(String filename) throws IOException {
+    try (FileData fileData = filesystemDirectory.getFileData(filename)) {
+      ByteBuffer bytes = ByteBuffer.allocate((int) fileData.size());
+      fileData.read(bytes);
+      return bytes.array();
+    }
+  }
+
+  private boolean isBinaryLog() throws IOException {
+    byte[] bytes = getFileBytes("append.log");
+    return BinaryLogFormat.isBinary(ByteBuffer.wrap(bytes));
+  }
+
   private void assertNullFiles(String... filenames) throws Exception {
     for (String filename : filenames) {
       assertNull(filesystemDirectory.getFileData(filename));
@@ -566,8 +1001,12 @@ public class SanskritTest {
   }
 
   private void createFileWithContent(String filename, String text) throws Exception {
+    createFileWithContent(filename, text.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private void createFileWithContent(String filename, byte[] content) throws Exception {
     try (FileData fileData = filesystemDirectory.create(filename, false)) {
-      ByteBuffer bytes = StandardCharsets.UTF_8.encode(text);
+      ByteBuffer bytes = ByteBuffer.wrap(content);
 
       while (bytes.hasRemaining()) {
         fileData.write(bytes);
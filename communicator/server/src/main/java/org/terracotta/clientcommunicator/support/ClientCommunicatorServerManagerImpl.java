@@ -24,45 +24,96 @@ import org.terracotta.entity.EntityResponse;
 import org.terracotta.entity.MessageCodecException;
 
 import java.nio.ByteBuffer;
-import java.util.HashSet;
+import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
 
 /**
+ * Multicasts are serialized once and the very same response is handed to every target client.
+ * <p>
+ * Outstanding acks are tracked per request with a countdown, and a per-client index of the requests a client still has to
+ * ack, so that acks and disconnects only touch the requests the client participates in. A request is completed (and its
+ * source released with a {@link ClientCommunicatorRequestType#REQUEST_COMPLETE}) as soon as every target client has either
+ * acked or disconnected, or when it outlives the configured request lifetime.
+ *
  * @author vmad
  */
 public class ClientCommunicatorServerManagerImpl<M extends EntityMessage, R extends EntityResponse> implements ClientCommunicatorServerManager<M, R> {
 
+    public static final long DEFAULT_REQUEST_LIFETIME_MS = TimeUnit.MINUTES.toMillis(5);
+
+    private static final byte[] EMPTY = new byte[0];
+
     private final ClientCommunicator clientCommunicator;
     private final ClientCommunicatorMessageFactory<M, R> clientCommunicatorMessageFactory;
+    private final long requestLifetimeNanos;
+    private final LongSupplier nanoTime;
     private final AtomicInteger requestSequence = new AtomicInteger(0);
     private final ConcurrentMap<Integer, ClientRequestInfo> pendingRequests = new ConcurrentHashMap<>();
+    private final ConcurrentMap<ClientDescriptor, Set<Integer>> pendingRequestsByClient = new ConcurrentHashMap<>();
+    // requests in creation order, hence also in expiry order since they all share the same lifetime
+    private final Queue<ClientRequestInfo> expiryQueue = new ConcurrentLinkedQueue<>();
+    private final LongAdder completedRequests = new LongAdder();
+    private final LongAdder expiredRequests = new LongAdder();
 
     public ClientCommunicatorServerManagerImpl(ClientCommunicator clientCommunicator, ClientCommunicatorMessageFactory<M, R> clientCommunicatorMessageFactory) {
+        this(clientCommunicator, clientCommunicatorMessageFactory, DEFAULT_REQUEST_LIFETIME_MS, TimeUnit.MILLISECONDS);
+    }
+
+    public ClientCommunicatorServerManagerImpl(ClientCommunicator clientCommunicator, ClientCommunicatorMessageFactory<M, R> clientCommunicatorMessageFactory, long requestLifetime, TimeUnit unit) {
+        this(clientCommunicator, clientCommunicatorMessageFactory, requestLifetime, unit, System::nanoTime);
+    }
+
+    ClientCommunicatorServerManagerImpl(ClientCommunicator clientCommunicator, ClientCommunicatorMessageFactory<M, R> clientCommunicatorMessageFactory, long requestLifetime, TimeUnit unit, LongSupplier nanoTime) {
+        if (requestLifetime <= 0) {
+            throw new IllegalArgumentException("requestLifetime must be positive: " + requestLifetime);
+        }
         this.clientCommunicator = clientCommunicator;
         this.clientCommunicatorMessageFactory = clientCommunicatorMessageFactory;
+        this.requestLifetimeNanos = unit.toNanos(requestLifetime);
+        this.nanoTime = nanoTime;
     }
 
     @Override
     public R sendWithAck(Set<ClientDescriptor> toClients, byte[] message, ClientDescriptor source) throws MessageCodecException {
+        long now = nanoTime.getAsLong();
+        expireRequests(now);
+
         int requestSequenceNumber = requestSequence.getAndIncrement();
-        pendingRequests.putIfAbsent(requestSequenceNumber, new ClientRequestInfo(source, toClients));
+        ClientRequestInfo clientRequestInfo = new ClientRequestInfo(requestSequenceNumber, source, toClients, now + requestLifetimeNanos);
+        pendingRequests.put(requestSequenceNumber, clientRequestInfo);
+        expiryQueue.add(clientRequestInfo);
+        for (ClientDescriptor client : clientRequestInfo.pendingClients) {
+            pendingRequestsByClient.computeIfAbsent(client, c -> ConcurrentHashMap.newKeySet()).add(requestSequenceNumber);
+        }
+
+        R request = clientCommunicatorMessageFactory.createEntityResponse(ClientCommunicatorRequestCodec.serialize(new ClientCommunicatorRequest(ClientCommunicatorRequestType.ACK, requestSequenceNumber, message)));
         for (ClientDescriptor connectedClient : toClients) {
-            clientCommunicator.sendNoResponse(connectedClient,
-                    clientCommunicatorMessageFactory.createEntityResponse(ClientCommunicatorRequestCodec.serialize(new ClientCommunicatorRequest(ClientCommunicatorRequestType.ACK, requestSequenceNumber, message))));
+            clientCommunicator.sendNoResponse(connectedClient, request);
         }
 
-        return clientCommunicatorMessageFactory.createEntityResponse(ClientCommunicatorRequestCodec.serialize(new ClientCommunicatorRequest(ClientCommunicatorRequestType.CLIENT_WAIT, requestSequenceNumber, new byte[0])));
+        if (clientRequestInfo.pendingClients.isEmpty()) {
+            // nobody to wait for: the source can be released right away
+            complete(clientRequestInfo);
+        }
 
+        return clientCommunicatorMessageFactory.createEntityResponse(ClientCommunicatorRequestCodec.serialize(new ClientCommunicatorRequest(ClientCommunicatorRequestType.CLIENT_WAIT, requestSequenceNumber, EMPTY)));
     }
 
     @Override
     public void sendWithNoAck(Set<ClientDescriptor> toClients, byte[] message) throws MessageCodecException {
+        if (toClients.isEmpty()) {
+            return;
+        }
+        R request = clientCommunicatorMessageFactory.createEntityResponse(ClientCommunicatorRequestCodec.serialize(new ClientCommunicatorRequest(ClientCommunicatorRequestType.NO_ACK, -1, message)));
         for (ClientDescriptor connectedClient : toClients) {
-            clientCommunicator.sendNoResponse(connectedClient,
-                    clientCommunicatorMessageFactory.createEntityResponse(ClientCommunicatorRequestCodec.serialize(new ClientCommunicatorRequest(ClientCommunicatorRequestType.NO_ACK, -1, message))));
+            clientCommunicator.sendNoResponse(connectedClient, request);
         }
     }
 
@@ -71,50 +122,117 @@ public class ClientCommunicatorServerManagerImpl<M extends EntityMessage, R exte
         ByteBuffer buffer = ByteBuffer.wrap(clientCommunicatorMessageFactory.extractBytesFromMessage(ackMessage));
         int requestSequenceNumber = buffer.getInt();
         ClientRequestInfo clientRequestInfo = pendingRequests.get(requestSequenceNumber);
-        if(clientRequestInfo != null) {
-            clientRequestInfo.addAckForClient(client);
-            if (clientRequestInfo.isAckCompleted()) {
-                clientCommunicator.sendNoResponse(clientRequestInfo.getClientDescriptor(),
-                        clientCommunicatorMessageFactory.createEntityResponse(ClientCommunicatorRequestCodec.serialize(new ClientCommunicatorRequest(ClientCommunicatorRequestType.REQUEST_COMPLETE,
-                                requestSequenceNumber, new byte[0]))));
-
-                pendingRequests.remove(requestSequenceNumber);
+        if (clientRequestInfo != null) {
+            unindex(client, requestSequenceNumber);
+            if (clientRequestInfo.release(client)) {
+                complete(clientRequestInfo);
             }
         }
+        expireRequests(nanoTime.getAsLong());
     }
 
     @Override
     public void handleClientDisconnect(ClientDescriptor client) {
-        for(ClientRequestInfo requestInfo : pendingRequests.values()) {
-            requestInfo.removeDisconnectedClient(client);
+        Set<Integer> requestSequenceNumbers = pendingRequestsByClient.remove(client);
+        if (requestSequenceNumbers == null) {
+            return;
+        }
+        try {
+            for (Integer requestSequenceNumber : requestSequenceNumbers) {
+                ClientRequestInfo clientRequestInfo = pendingRequests.get(requestSequenceNumber);
+                if (clientRequestInfo != null && clientRequestInfo.release(client)) {
+                    complete(clientRequestInfo);
+                }
+            }
+        } catch (MessageCodecException e) {
+            throw new RuntimeException(e);
         }
     }
 
+    /**
+     * @return the number of requests sent with {@link #sendWithAck(Set, byte[], ClientDescriptor)} still waiting for acks
+     */
+    public int getPendingRequestCount() {
+        return pendingRequests.size();
+    }
 
-    private static class ClientRequestInfo {
-        private final ClientDescriptor clientDescriptor;
-        private final Set<ClientDescriptor> connectedClients;
-        private final Set<ClientDescriptor> ackedClients = new HashSet<>();
+    /**
+     * @return the number of requests that were completed because every target client acked or disconnected
+     */
+    public long getCompletedRequestCount() {
+        return completedRequests.sum();
+    }
 
-        private ClientRequestInfo(ClientDescriptor clientDescriptor, Set<ClientDescriptor> connectedClients) {
-            this.clientDescriptor = clientDescriptor;
-            this.connectedClients = new HashSet<>(connectedClients);
+    /**
+     * @return the number of requests that were completed because they outlived the request lifetime
+     */
+    public long getExpiredRequestCount() {
+        return expiredRequests.sum();
+    }
+
+    private void complete(ClientRequestInfo clientRequestInfo) throws MessageCodecException {
+        if (finish(clientRequestInfo)) {
+            completedRequests.increment();
         }
+    }
 
-        public ClientDescriptor getClientDescriptor() {
-            return clientDescriptor;
+    private void expireRequests(long now) throws MessageCodecException {
+        ClientRequestInfo head;
+        while ((head = expiryQueue.peek()) != null) {
+            boolean pending = pendingRequests.get(head.requestSequenceNumber) == head;
+            if (pending && now - head.deadline < 0) {
+                return;
+            }
+            if (expiryQueue.remove(head) && pending && finish(head)) {
+                expiredRequests.increment();
+            }
         }
+    }
 
-        public void addAckForClient(ClientDescriptor client) {
-            ackedClients.add(client);
+    /**
+     * Removes the request and releases its source. Only the first caller for a given request succeeds.
+     */
+    private boolean finish(ClientRequestInfo clientRequestInfo) throws MessageCodecException {
+        int requestSequenceNumber = clientRequestInfo.requestSequenceNumber;
+        if (!pendingRequests.remove(requestSequenceNumber, clientRequestInfo)) {
+            return false;
         }
+        for (ClientDescriptor client : clientRequestInfo.pendingClients) {
+            unindex(client, requestSequenceNumber);
+        }
+        clientCommunicator.sendNoResponse(clientRequestInfo.source,
+                clientCommunicatorMessageFactory.createEntityResponse(ClientCommunicatorRequestCodec.serialize(new ClientCommunicatorRequest(ClientCommunicatorRequestType.REQUEST_COMPLETE,
+                        requestSequenceNumber, EMPTY))));
+        return true;
+    }
 
-        public boolean isAckCompleted() {
-            return ackedClients.equals(connectedClients);
+    private void unindex(ClientDescriptor client, int requestSequenceNumber) {
+        pendingRequestsByClient.computeIfPresent(client, (c, requestSequenceNumbers) -> {
+            requestSequenceNumbers.remove(requestSequenceNumber);
+            return requestSequenceNumbers.isEmpty() ? null : requestSequenceNumbers;
+        });
+    }
+
+    private static class ClientRequestInfo {
+        private final int requestSequenceNumber;
+        private final ClientDescriptor source;
+        private final Set<ClientDescriptor> pendingClients = ConcurrentHashMap.newKeySet();
+        private final AtomicInteger outstandingAcks;
+        private final long deadline;
+
+        private ClientRequestInfo(int requestSequenceNumber, ClientDescriptor source, Set<ClientDescriptor> toClients, long deadline) {
+            this.requestSequenceNumber = requestSequenceNumber;
+            this.source = source;
+            this.pendingClients.addAll(toClients);
+            this.outstandingAcks = new AtomicInteger(pendingClients.size());
+            this.deadline = deadline;
         }
 
-        public void removeDisconnectedClient(ClientDescriptor client) {
-            connectedClients.remove(client);
+        /**
+         * @return true if the given client was the last one this request was waiting for
+         */
+        boolean release(ClientDescriptor client) {
+            return pendingClients.remove(client) && outstandingAcks.decrementAndGet() == 0;
         }
     }
 }
@@ -0,0 +1,186 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.clientcommunicator.support;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.terracotta.entity.ClientCommunicator;
+import org.terracotta.entity.ClientDescriptor;
+import org.terracotta.entity.EntityMessage;
+import org.terracotta.entity.EntityResponse;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class ClientCommunicatorServerManagerImplTest {
+
+    private final ClientCommunicator clientCommunicator = mock(ClientCommunicator.class);
+    private final ClientDescriptor source = mock(ClientDescriptor.class);
+    private final ClientDescriptor client1 = mock(ClientDescriptor.class);
+    private final ClientDescriptor client2 = mock(ClientDescriptor.class);
+
+    private long now;
+    private ClientCommunicatorServerManagerImpl<Message, Response> manager;
+
+    @Before
+    public void setUp() {
+        manager = new ClientCommunicatorServerManagerImpl<>(clientCommunicator, new MessageFactory(), 1, TimeUnit.SECONDS, () -> now);
+    }
+
+    @Test
+    public void testSendWithAckSerializesOnceAndCompletesAfterAllAcks() throws Exception {
+        Response response = manager.sendWithAck(new HashSet<>(Arrays.asList(client1, client2)), "hello".getBytes(), source);
+        ClientCommunicatorRequest wait = ClientCommunicatorRequestCodec.deserialize(response.bytes);
+        assertEquals(ClientCommunicatorRequestType.CLIENT_WAIT, wait.getRequestType());
+
+        ArgumentCaptor<Response> sent = ArgumentCaptor.forClass(Response.class);
+        verify(clientCommunicator).sendNoResponse(eq(client1), sent.capture());
+        verify(clientCommunicator).sendNoResponse(eq(client2), sent.capture());
+        List<Response> requests = sent.getAllValues();
+        assertSame(requests.get(0), requests.get(1));
+        assertEquals(ClientCommunicatorRequestType.ACK, ClientCommunicatorRequestCodec.deserialize(requests.get(0).bytes).getRequestType());
+
+        manager.handleClientAck(client1, ack(wait.getRequestSequenceNumber()));
+        manager.handleClientAck(client1, ack(wait.getRequestSequenceNumber()));
+        verify(clientCommunicator, never()).sendNoResponse(eq(source), any());
+        assertEquals(1, manager.getPendingRequestCount());
+
+        manager.handleClientAck(client2, ack(wait.getRequestSequenceNumber()));
+        assertRequestComplete(wait.getRequestSequenceNumber());
+        assertEquals(0, manager.getPendingRequestCount());
+        assertEquals(1, manager.getCompletedRequestCount());
+    }
+
+    @Test
+    public void testDisconnectOfLastPendingClientCompletesRequest() throws Exception {
+        int seq = sequenceNumber(manager.sendWithAck(new HashSet<>(Arrays.asList(client1, client2)), "hello".getBytes(), source));
+        int other = sequenceNumber(manager.sendWithAck(Collections.singleton(client1), "hello".getBytes(), source));
+
+        manager.handleClientAck(client1, ack(seq));
+        manager.handleClientDisconnect(client2);
+
+        assertRequestComplete(seq);
+        assertEquals(1, manager.getPendingRequestCount());
+
+        manager.handleClientDisconnect(client1);
+        assertRequestComplete(other);
+        assertEquals(0, manager.getPendingRequestCount());
+        assertEquals(2, manager.getCompletedRequestCount());
+    }
+
+    @Test
+    public void testSendWithAckToNoClientsCompletesImmediately() throws Exception {
+        int seq = sequenceNumber(manager.sendWithAck(Collections.emptySet(), "hello".getBytes(), source));
+
+        assertRequestComplete(seq);
+        assertEquals(0, manager.getPendingRequestCount());
+    }
+
+    @Test
+    public void testPendingRequestsExpire() throws Exception {
+        int seq = sequenceNumber(manager.sendWithAck(Collections.singleton(client1), "hello".getBytes(), source));
+
+        now += TimeUnit.MILLISECONDS.toNanos(999);
+        manager.sendWithNoAck(Collections.singleton(client2), "hello".getBytes());
+        manager.sendWithAck(Collections.singleton(client2), "hello".getBytes(), source);
+        assertEquals(2, manager.getPendingRequestCount());
+
+        now += TimeUnit.MILLISECONDS.toNanos(1);
+        manager.sendWithAck(Collections.singleton(client2), "hello".getBytes(), source);
+        assertRequestComplete(seq);
+        assertEquals(2, manager.getPendingRequestCount());
+        assertEquals(1, manager.getExpiredRequestCount());
+        assertEquals(0, manager.getCompletedRequestCount());
+
+        // late ack of an expired request is ignored
+        manager.handleClientAck(client1, ack(seq));
+        verify(clientCommunicator, times(1)).sendNoResponse(eq(source), any());
+    }
+
+    private void assertRequestComplete(int seq) throws Exception {
+        ArgumentCaptor<Response> captor = ArgumentCaptor.forClass(Response.class);
+        verify(clientCommunicator, atLeastOnce()).sendNoResponse(eq(source), captor.capture());
+        boolean found = false;
+        for (Response response : captor.getAllValues()) {
+            ClientCommunicatorRequest request = ClientCommunicatorRequestCodec.deserialize(response.bytes);
+            found |= request.getRequestType() == ClientCommunicatorRequestType.REQUEST_COMPLETE && request.getRequestSequenceNumber() == seq;
+        }
+        assertTrue("REQUEST_COMPLETE not sent for " + seq, found);
+    }
+
+    private static int sequenceNumber(Response response) throws Exception {
+        return ClientCommunicatorRequestCodec.deserialize(response.bytes).getRequestSequenceNumber();
+    }
+
+    private static Message ack(int seq) {
+        return new Message(ByteBuffer.allocate(4).putInt(seq).array());
+    }
+
+    private static class Message implements EntityMessage {
+        private final byte[] bytes;
+
+        Message(byte[] bytes) {
+            this.bytes = bytes;
+        }
+    }
+
+    private static class Response implements EntityResponse {
+        private final byte[] bytes;
+
+        Response(byte[] bytes) {
+            this.bytes = bytes;
+        }
+    }
+
+    private static class MessageFactory implements ClientCommunicatorMessageFactory<Message, Response> {
+        @Override
+        public Message createEntityMessage(byte[] message) {
+            return new Message(message);
+        }
+
+        @Override
+        public byte[] extractBytesFromMessage(Message entityMessage) {
+            return entityMessage.bytes;
+        }
+
+        @Override
+        public Response createEntityResponse(byte[] message) {
+            return new Response(message);
+        }
+
+        @Override
+        public byte[] extractBytesFromResponse(Response entityResponse) {
+            return entityResponse.bytes;
+        }
+    }
+}
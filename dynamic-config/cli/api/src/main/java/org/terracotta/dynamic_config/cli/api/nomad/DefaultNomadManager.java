@@ -33,6 +33,7 @@ import org.terracotta.dynamic_config.api.model.nomad.ClusterActivationNomadChang
 import org.terracotta.dynamic_config.api.model.nomad.DynamicConfigNomadChange;
 import org.terracotta.inet.HostPort;
 import org.terracotta.nomad.NomadEnvironment;
+import org.terracotta.nomad.client.FanOut;
 import org.terracotta.nomad.client.NomadClient;
 import org.terracotta.nomad.client.NomadEndpoint;
 import org.terracotta.nomad.client.change.ChangeResultReceiver;
@@ -86,11 +87,21 @@ public class DefaultNomadManager<T> implements NomadManager<T> {
   private final NomadEnvironment environment;
   private final MultiDiagnosticServiceProvider multiDiagnosticServiceProvider;
   private final NomadEntityProvider nomadEntityProvider;
+  private final FanOut fanOut;
 
   public DefaultNomadManager(NomadEnvironment environment, MultiDiagnosticServiceProvider multiDiagnosticServiceProvider, NomadEntityProvider nomadEntityProvider) {
+    this(environment, multiDiagnosticServiceProvider, nomadEntityProvider, FanOut.sequential());
+  }
+
+  /**
+   * @param fanOut how the nomad phases contact the nodes. With a concurrent fan-out, the nodes are not contacted in
+   *               the order of the node lists anymore (i.e. passives first).
+   */
+  public DefaultNomadManager(NomadEnvironment environment, MultiDiagnosticServiceProvider multiDiagnosticServiceProvider, NomadEntityProvider nomadEntityProvider, FanOut fanOut) {
     this.environment = environment;
     this.multiDiagnosticServiceProvider = multiDiagnosticServiceProvider;
     this.nomadEntityProvider = nomadEntityProvider;
+    this.fanOut = fanOut;
   }
 
   public void runConfigurationDiscovery(Map<Endpoint, LogicalServerState> nodes, DiscoverResultsReceiver<T> results) {
@@ -136,7 +147,7 @@ public class DefaultNomadManager<T> implements NomadManager<T> {
     String host = environment.getHost();
     String user = environment.getUser();
     Clock clock = environment.getClock();
-    return new NomadClient<>(nomadEndpoints, host, user, clock);
+    return new NomadClient<>(nomadEndpoints, host, user, clock, fanOut);
   }
 
   /**
@@ -258,7 +269,7 @@ public class DefaultNomadManager<T> implements NomadManager<T> {
     String host = environment.getHost();
     String user = environment.getUser();
     Clock clock = environment.getClock();
-    return new NomadClient<T>(nomadEndpoints, host, user, clock) {
+    return new NomadClient<T>(nomadEndpoints, host, user, clock, fanOut) {
       @Override
       public void close() {
         try {
@@ -35,6 +35,9 @@ import org.terracotta.persistence.sanskrit.SanskritObject;
 import org.terracotta.persistence.sanskrit.change.SanskritChangeBuilder;
 
 import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -57,14 +60,34 @@ import static org.terracotta.dynamic_config.server.configuration.nomad.persisten
 import static org.terracotta.dynamic_config.server.configuration.nomad.persistence.NomadSanskritKeys.PREV_CHANGE_UUID;
 
 public class SanskritNomadServerState implements NomadServerState<NodeContext> {
+  private static final int DEFAULT_CHANGE_RESULT_CACHE_SIZE = 128;
+
   private final Sanskrit sanskrit;
   private final ConfigStorage configStorage;
   private final HashComputer hashComputer;
+  // change results already loaded from the config storage and verified against their hash, by change uuid.
+  // Never handed out: callers get copies, which they may modify.
+  private final Map<UUID, ChangeResult> changeResults;
 
   public SanskritNomadServerState(Sanskrit sanskrit, ConfigStorage configStorage, HashComputer hashComputer) {
+    this(sanskrit, configStorage, hashComputer, DEFAULT_CHANGE_RESULT_CACHE_SIZE);
+  }
+
+  public SanskritNomadServerState(Sanskrit sanskrit, ConfigStorage configStorage, HashComputer hashComputer, int changeResultCacheSize) {
+    if (changeResultCacheSize < 0) {
+      throw new IllegalArgumentException("Invalid change result cache size: " + changeResultCacheSize);
+    }
     this.sanskrit = sanskrit;
     this.configStorage = configStorage;
     this.hashComputer = hashComputer;
+    this.changeResults = new LinkedHashMap<UUID, ChangeResult>(16, 0.75f, true) {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<UUID, ChangeResult> eldest) {
+        return size() > changeResultCacheSize;
+      }
+    };
   }
 
   @Override
@@ -148,15 +171,9 @@ public class SanskritNomadServerState implements NomadServerState<NodeContext> {
       String creationUser = child.getString(CHANGE_CREATION_USER);
       Instant creationTimestamp = Instant.parse(child.getString(CHANGE_CREATION_TIMESTAMP));
 
-      // loads the config file as it was written by the nomad system
-      Config config = configStorage.getConfig(version);
-      try {
-        hashComputer.checkHash(config, expectedHash);
-      } catch (NomadException e) {
-        throw new NomadException("Bad hash for change: " + changeUuid + ". " + e.getMessage());
-      }
+      NodeContext changeResult = getChangeResult(changeUuid, version, expectedHash);
 
-      return new ChangeState<>(state, version, prevChangeUuid, change, config.getTopology(), creationHost, creationUser, creationTimestamp, expectedHash);
+      return new ChangeState<>(state, version, prevChangeUuid, change, changeResult, creationHost, creationUser, creationTimestamp, expectedHash);
     } catch (ConfigStorageException | SanskritException e) {
       throw new NomadException("Failed to read configuration: " + changeUuid, e);
     }
@@ -183,10 +200,16 @@ public class SanskritNomadServerState implements NomadServerState<NodeContext> {
       Long version = sanskritChange.getChangeVersion();
       if (version != null) {
         NodeContext changeResult = sanskritChange.getChangeResult();
+        // the config file of this version is overwritten
+        invalidateChangeResults(version);
         configStorage.saveConfig(version, changeResult);
       }
 
       sanskrit.applyChange(sanskritChange.getSanskritChange());
+
+      if (version != null) {
+        putChangeResult(sanskritChange.getChangeUuid(), new ChangeResult(version, sanskritChange.getChangeResultHash(), sanskritChange.getChangeResult().clone()));
+      }
     } catch (SanskritException | ConfigStorageException e) {
       throw new NomadException("Failed to update distributed transaction state", e);
     }
@@ -208,6 +231,9 @@ public class SanskritNomadServerState implements NomadServerState<NodeContext> {
 
   @Override
   public void reset() throws NomadException {
+    synchronized (changeResults) {
+      changeResults.clear();
+    }
     NomadException error = null;
     try {
       sanskrit.reset();
@@ -228,6 +254,39 @@ public class SanskritNomadServerState implements NomadServerState<NodeContext> {
     }
   }
 
+  private NodeContext getChangeResult(UUID changeUuid, long version, String expectedHash) throws NomadException, ConfigStorageException {
+    ChangeResult changeResult;
+    synchronized (changeResults) {
+      changeResult = changeResults.get(changeUuid);
+    }
+
+    if (changeResult == null || !changeResult.matches(version, expectedHash)) {
+      // loads the config file as it was written by the nomad system
+      Config config = configStorage.getConfig(version);
+      try {
+        hashComputer.checkHash(config, expectedHash);
+      } catch (NomadException e) {
+        throw new NomadException("Bad hash for change: " + changeUuid + ". " + e.getMessage());
+      }
+      changeResult = new ChangeResult(version, expectedHash, config.getTopology());
+      putChangeResult(changeUuid, changeResult);
+    }
+
+    return changeResult.topology.clone();
+  }
+
+  private void putChangeResult(UUID changeUuid, ChangeResult changeResult) {
+    synchronized (changeResults) {
+      changeResults.put(changeUuid, changeResult);
+    }
+  }
+
+  private void invalidateChangeResults(long version) {
+    synchronized (changeResults) {
+      changeResults.values().removeIf(changeResult -> changeResult.version == version);
+    }
+  }
+
   private String getString(String key) {
     try {
       return sanskrit.getString(key);
@@ -261,4 +320,20 @@ public class SanskritNomadServerState implements NomadServerState<NodeContext> {
       throw new RuntimeException(e);
     }
   }
+
+  private static class ChangeResult {
+    private final long version;
+    private final String hash;
+    private final NodeContext topology;
+
+    ChangeResult(long version, String hash, NodeContext topology) {
+      this.version = version;
+      this.hash = hash;
+      this.topology = topology;
+    }
+
+    boolean matches(long version, String hash) {
+      return this.version == version && Objects.equals(this.hash, hash);
+    }
+  }
 }
@@ -58,8 +58,10 @@ public class SanskritNomadStateChange implements NomadStateChange<NodeContext> {
   private final Sanskrit sanskrit;
   private final SanskritChangeBuilder changeBuilder;
   private final HashComputer hashComputer;
+  private volatile UUID changeUuid;
   private volatile Long changeVersion;
   private volatile NodeContext changeResult;
+  private volatile String changeResultHash;
 
   public SanskritNomadStateChange(Sanskrit sanskrit, SanskritChangeBuilder changeBuilder, HashComputer hashComputer) {
     this.sanskrit = sanskrit;
@@ -123,9 +125,11 @@ public class SanskritNomadStateChange implements NomadStateChange<NodeContext> {
 
   @Override
   public NomadStateChange<NodeContext> createChange(UUID changeUuid, ChangeRequest<NodeContext> changeRequest) throws NomadException {
+    this.changeUuid = changeUuid;
     changeVersion = changeRequest.getVersion();
     changeResult = changeRequest.getChangeResult();
     String resultHash = hashComputer.computeHash(new Config(changeResult, Version.CURRENT));
+    changeResultHash = resultHash;
 
     MutableSanskritObject child = sanskrit.newMutableSanskritObject();
 
@@ -169,6 +173,10 @@ public class SanskritNomadStateChange implements NomadStateChange<NodeContext> {
     return changeBuilder.build();
   }
 
+  public UUID getChangeUuid() {
+    return changeUuid;
+  }
+
   public Long getChangeVersion() {
     return changeVersion;
   }
@@ -176,4 +184,8 @@ public class SanskritNomadStateChange implements NomadStateChange<NodeContext> {
   public NodeContext getChangeResult() {
     return changeResult;
   }
+
+  public String getChangeResultHash() {
+    return changeResultHash;
+  }
 }
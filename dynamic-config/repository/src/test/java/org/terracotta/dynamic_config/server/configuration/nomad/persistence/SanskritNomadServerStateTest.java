@@ -49,6 +49,8 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.terracotta.dynamic_config.api.model.Setting.OFFHEAP_RESOURCES;
@@ -78,7 +80,9 @@ public class SanskritNomadServerStateTest {
   @Before
   public void before() {
     Testing.replaceUIDs(topology.getCluster());
-    when(sanskrit.newMutableSanskritObject()).thenReturn(new SanskritObjectImpl(new SanskritJsonMapper(new DefaultJsonFactory())));
+    // the node keeps its uid in the node context
+    topology = new NodeContext(topology.getCluster(), topology.getCluster().getSingleNode().get().getUID());
+    when(sanskrit.newMutableSanskritObject()).thenAnswer(invocation -> new SanskritObjectImpl(new SanskritJsonMapper(new DefaultJsonFactory())));
     state = new SanskritNomadServerState(sanskrit, configStorage, new DefaultHashComputer());
   }
 
@@ -198,6 +202,112 @@ public class SanskritNomadServerStateTest {
     assertEquals("set offheap-resources.primary-server-resource=2GB", change.getSummary());
   }
 
+  @Test
+  public void getChangeStateLoadsConfigOnce() throws Exception {
+    UUID uuid = UUID.randomUUID();
+    MutableSanskritObject changeObject = changeObject(1L);
+    when(sanskrit.getObject(uuid.toString())).thenReturn(changeObject);
+    when(configStorage.getConfig(1L)).thenReturn(new Config(topology, Version.CURRENT));
+
+    ChangeState<NodeContext> first = state.getChangeState(uuid);
+    ChangeState<NodeContext> second = state.getChangeState(uuid);
+
+    assertEquals(topology, first.getChangeResult());
+    assertEquals(topology, second.getChangeResult());
+    verify(configStorage, times(1)).getConfig(1L);
+  }
+
+  @Test
+  public void getChangeStateReturnsCopiesOfTheCachedConfig() throws Exception {
+    UUID uuid = UUID.randomUUID();
+    MutableSanskritObject changeObject = changeObject(1L);
+    when(sanskrit.getObject(uuid.toString())).thenReturn(changeObject);
+    when(configStorage.getConfig(1L)).thenReturn(new Config(topology.clone(), Version.CURRENT));
+
+    state.getChangeState(uuid).getChangeResult().getCluster().setSecurityAuthc("file");
+
+    assertEquals(topology, state.getChangeState(uuid).getChangeResult());
+    verify(configStorage, times(1)).getConfig(1L);
+  }
+
+  @Test
+  public void getChangeStateEvictsLeastRecentlyUsedResults() throws Exception {
+    state = new SanskritNomadServerState(sanskrit, configStorage, new DefaultHashComputer(), 2);
+    UUID[] uuids = new UUID[3];
+    for (int i = 0; i < uuids.length; i++) {
+      long version = i + 1;
+      uuids[i] = UUID.randomUUID();
+      MutableSanskritObject changeObject = changeObject(version);
+      when(sanskrit.getObject(uuids[i].toString())).thenReturn(changeObject);
+      when(configStorage.getConfig(version)).thenReturn(new Config(topology, Version.CURRENT));
+    }
+
+    for (UUID uuid : uuids) {
+      assertEquals(topology, state.getChangeState(uuid).getChangeResult());
+    }
+    // the first change was evicted by the third one, the other two are still cached
+    for (int i = uuids.length - 1; i >= 0; i--) {
+      assertEquals(topology, state.getChangeState(uuids[i]).getChangeResult());
+    }
+
+    verify(configStorage, times(2)).getConfig(1L);
+    verify(configStorage, times(1)).getConfig(2L);
+    verify(configStorage, times(1)).getConfig(3L);
+  }
+
+  @Test
+  public void getChangeStateAfterChangeDoesNotLoadConfig() throws Exception {
+    UUID uuid = UUID.randomUUID();
+    SettingNomadChange settingNomadChange = SettingNomadChange.set(Applicability.cluster(), OFFHEAP_RESOURCES, "primary-server-resource", "2GB");
+    state.applyStateChange(state.newStateChange().createChange(uuid, new ChangeRequest<>(COMMITTED, 1L, null, settingNomadChange, topology, "host", "user", now)));
+    MutableSanskritObject changeObject = changeObject(1L);
+    when(sanskrit.getObject(uuid.toString())).thenReturn(changeObject);
+
+    assertEquals(topology, state.getChangeState(uuid).getChangeResult());
+    verify(configStorage, never()).getConfig(1L);
+  }
+
+  @Test
+  public void getChangeStateReloadsConfigOfOverwrittenVersion() throws Exception {
+    UUID uuid = UUID.randomUUID();
+    MutableSanskritObject changeObject = changeObject(1L);
+    when(sanskrit.getObject(uuid.toString())).thenReturn(changeObject);
+    when(configStorage.getConfig(1L)).thenReturn(new Config(topology, Version.CURRENT));
+    state.getChangeState(uuid);
+
+    SettingNomadChange settingNomadChange = SettingNomadChange.set(Applicability.cluster(), OFFHEAP_RESOURCES, "primary-server-resource", "2GB");
+    state.applyStateChange(state.newStateChange().createChange(UUID.randomUUID(), new ChangeRequest<>(COMMITTED, 1L, null, settingNomadChange, topology, "host", "user", now)));
+    state.getChangeState(uuid);
+
+    verify(configStorage, times(2)).getConfig(1L);
+  }
+
+  @Test
+  public void getChangeStateAfterResetReloadsConfig() throws Exception {
+    UUID uuid = UUID.randomUUID();
+    MutableSanskritObject changeObject = changeObject(1L);
+    when(sanskrit.getObject(uuid.toString())).thenReturn(changeObject);
+    when(configStorage.getConfig(1L)).thenReturn(new Config(topology, Version.CURRENT));
+
+    state.getChangeState(uuid);
+    state.reset();
+    state.getChangeState(uuid);
+
+    verify(configStorage, times(2)).getConfig(1L);
+  }
+
+  private MutableSanskritObject changeObject(long version) throws Exception {
+    MutableSanskritObject changeObject = sanskrit.newMutableSanskritObject();
+    changeObject.setString("state", "COMMITTED");
+    changeObject.setLong("version", version);
+    changeObject.set("operation", SettingNomadChange.set(Applicability.cluster(), OFFHEAP_RESOURCES, "primary-server-resource", "2GB"), Version.CURRENT.getValue());
+    changeObject.setString("changeResultHash", "1063a7c79380cc1c8372c1f78d1104eefdeed073");
+    changeObject.setString("creationHost", "host");
+    changeObject.setString("creationUser", "user");
+    changeObject.setString("creationTimestamp", now.toString());
+    return changeObject;
+  }
+
   @Test
   public void makeFirstChange() throws Exception {
     runChangeTest(1L);
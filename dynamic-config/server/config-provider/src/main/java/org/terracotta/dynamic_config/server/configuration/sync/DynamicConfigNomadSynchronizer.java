@@ -37,6 +37,7 @@ import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.Queue;
 import java.util.Set;
 import java.util.UUID;
@@ -66,6 +67,44 @@ public class DynamicConfigNomadSynchronizer {
     this.nomadServer = nomadServer;
   }
 
+  /**
+   * @return the last change of this node's append log, ignoring the rolled back ones, if it is committed
+   */
+  public Optional<NomadChangeInfo> getLastCommittedChange() throws NomadException {
+    NomadChangeInfo last = null;
+    for (NomadChangeInfo change : nomadServer.getChangeHistory()) {
+      if (change.getChangeRequestState() != ROLLED_BACK) {
+        last = change;
+      }
+    }
+    return last != null && last.getChangeRequestState() == COMMITTED ? Optional.of(last) : Optional.empty();
+  }
+
+  /**
+   * Syncs the changes that the source node made after the last committed change of this node.
+   * <p>
+   * The source changes were computed from the change advertised by {@link #getLastCommittedChange()}: this node's append
+   * log must not have changed since, otherwise a full sync is required.
+   */
+  public Set<Require> syncNomadChangesAfter(UUID lastSyncedChangeUuid, List<NomadChangeInfo> sourceChanges) throws NomadException {
+    NomadChangeInfo last = getLastCommittedChange().orElse(null);
+    if (last == null || !last.getChangeUuid().equals(lastSyncedChangeUuid)) {
+      throw new IllegalStateException("Node cannot sync because its configuration change history has changed since " + lastSyncedChangeUuid + ": a full sync is required");
+    }
+
+    // [11] + [12]
+    // rolled back changes missing on this node are ignored [14]
+    Deque<NomadChangeInfo> sourceRelevantChanges = sourceChanges.stream().filter(c -> c.getChangeRequestState() == COMMITTED || c.getChangeRequestState() == PREPARED).collect(toCollection(LinkedList::new));
+
+    LOGGER.info("Syncing {} changes from source made after {}", sourceRelevantChanges.size(), last);
+
+    Set<Require> requires = new HashSet<>(normalSync(sourceRelevantChanges));
+    if (requires.isEmpty()) {
+      requires.add(NOTHING);
+    }
+    return requires;
+  }
+
   public Set<Require> syncNomadChanges(List<NomadChangeInfo> sourceChanges, Cluster sourceTopology) throws NomadException {
     // ensure the source list and this node's list of changes are all committed ones
     // We might have some relevant prepared changes at the end that we will handle after
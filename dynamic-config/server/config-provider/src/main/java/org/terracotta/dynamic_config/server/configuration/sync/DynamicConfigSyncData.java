@@ -21,6 +21,7 @@ import org.terracotta.dynamic_config.api.service.NomadChangeInfo;
 import org.terracotta.json.Json;
 
 import java.util.List;
+import java.util.UUID;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
 
@@ -32,24 +33,43 @@ public class DynamicConfigSyncData {
   private final List<NomadChangeInfo> nomadChanges;
   private final String license;
   private final Cluster cluster;
+  private final UUID lastSyncedChangeUuid;
 
   // For Json
   private DynamicConfigSyncData() {
     nomadChanges = null;
     license = null;
     cluster = null;
+    lastSyncedChangeUuid = null;
   }
 
   public DynamicConfigSyncData(List<NomadChangeInfo> nomadChanges, Cluster cluster, String license) {
+    this(nomadChanges, cluster, license, null);
+  }
+
+  /**
+   * @param lastSyncedChangeUuid the last change of the passive node after which the nomad changes apply, or null if the
+   *                             nomad changes are the full history of the active node
+   */
+  public DynamicConfigSyncData(List<NomadChangeInfo> nomadChanges, Cluster cluster, String license, UUID lastSyncedChangeUuid) {
     this.nomadChanges = nomadChanges;
     this.cluster = cluster;
     this.license = license;
+    this.lastSyncedChangeUuid = lastSyncedChangeUuid;
   }
 
   public List<NomadChangeInfo> getNomadChanges() {
     return nomadChanges;
   }
 
+  public UUID getLastSyncedChangeUuid() {
+    return lastSyncedChangeUuid;
+  }
+
+  public boolean isIncremental() {
+    return lastSyncedChangeUuid != null;
+  }
+
   public String getLicense() {
     return license;
   }
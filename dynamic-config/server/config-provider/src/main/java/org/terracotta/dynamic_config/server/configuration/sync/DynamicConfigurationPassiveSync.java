@@ -20,14 +20,18 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.terracotta.dynamic_config.api.model.NodeContext;
 import org.terracotta.dynamic_config.api.service.DynamicConfigService;
+import org.terracotta.dynamic_config.api.service.NomadChangeInfo;
 import org.terracotta.dynamic_config.api.service.TopologyService;
 import org.terracotta.dynamic_config.api.server.DynamicConfigNomadServer;
 import org.terracotta.nomad.server.NomadException;
 
+import java.util.List;
 import java.util.Objects;
 import java.util.Set;
 import java.util.function.Supplier;
 
+import static org.terracotta.nomad.server.ChangeRequestState.COMMITTED;
+
 public class DynamicConfigurationPassiveSync {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(DynamicConfigurationPassiveSync.class);
@@ -58,6 +62,52 @@ public class DynamicConfigurationPassiveSync {
     }
   }
 
+  /**
+   * Called on the active node to only send the changes made after the last change synced by a passive node.
+   * <p>
+   * Falls back to the full change history when the passive node did not advertise any change, or when its last change
+   * is not a committed change of this node (i.e. the histories have diverged).
+   *
+   * @param lastSyncedChange the change returned by {@link #getLastSyncedChange()} on the passive node, or null
+   */
+  public DynamicConfigSyncData getSyncData(NomadChangeInfo lastSyncedChange) {
+    if (lastSyncedChange == null) {
+      return getSyncData();
+    }
+    try {
+      List<NomadChangeInfo> changes = nomadServer.getChangeHistory();
+      for (int i = changes.size() - 1; i >= 0; i--) {
+        NomadChangeInfo change = changes.get(i);
+        if (change.matches(lastSyncedChange)) {
+          if (change.getChangeRequestState() != COMMITTED) {
+            break;
+          }
+          List<NomadChangeInfo> missing = changes.subList(i + 1, changes.size());
+          LOGGER.debug("Sending {} changes made after {}", missing.size(), lastSyncedChange);
+          return new DynamicConfigSyncData(missing, topologyService.getUpcomingNodeContext().getCluster(), licenseContent.get(), lastSyncedChange.getChangeUuid());
+        }
+      }
+      LOGGER.info("Change history of passive node has diverged after {}: sending the full change history", lastSyncedChange);
+      return getSyncData();
+    } catch (NomadException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  /**
+   * Called on a passive node to get the change to advertise to the active node, so that only the changes made after
+   * it are synced.
+   *
+   * @return the last change of this node, or null if it is not committed and a full sync is required
+   */
+  public NomadChangeInfo getLastSyncedChange() {
+    try {
+      return nomadSynchronizer.getLastCommittedChange().orElse(null);
+    } catch (NomadException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
   /**
    * Nomad changes:
    * - SettingNomadChange (config change)
@@ -83,7 +133,9 @@ public class DynamicConfigurationPassiveSync {
    */
   public Set<Require> sync(DynamicConfigSyncData data) throws NomadException {
     // sync the active append log in the passive append log
-    Set<Require> requires = nomadSynchronizer.syncNomadChanges(data.getNomadChanges(), data.getCluster());
+    Set<Require> requires = data.isIncremental() ?
+        nomadSynchronizer.syncNomadChangesAfter(data.getLastSyncedChangeUuid(), data.getNomadChanges()) :
+        nomadSynchronizer.syncNomadChanges(data.getNomadChanges(), data.getCluster());
 
     // sync the license from active node
     syncLicense(data.getLicense());
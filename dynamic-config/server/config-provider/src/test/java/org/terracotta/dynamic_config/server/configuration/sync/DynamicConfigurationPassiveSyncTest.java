@@ -52,6 +52,7 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
 import static org.hamcrest.Matchers.startsWith;
 import static org.junit.Assert.assertThrows;
 import static org.junit.internal.matchers.ThrowableMessageMatcher.hasMessage;
@@ -517,6 +518,95 @@ public class DynamicConfigurationPassiveSyncTest {
         throwing(instanceOf(IllegalStateException.class)).andMessage(startsWith("Unable to find any change in the source node matching the topology used to activate this node.")));
   }
 
+  @Test
+  public void test_incremental_sync_of_missing_changes() throws NomadException {
+    NomadChangeInfo synced = committed(randomUUID(), change("a", "100MB"), 2L);
+    NomadChangeInfo missing = committed(randomUUID(), change("a", "200MB"), 3L);
+
+    active.add(activeActivation);
+    active.add(synced);
+    active.add(rolledBack(randomUUID(), change("a", "300MB"), 4L));
+    active.add(missing);
+
+    passive.add(passiveActivation);
+    passive.add(synced);
+
+    DynamicConfigSyncData syncData = codec.decode(codec.encode(activeSyncManager.getSyncData(passiveSyncManager.getLastSyncedChange())));
+    assertThat(syncData.getLastSyncedChangeUuid(), is(synced.getChangeUuid()));
+    assertThat(syncData.getNomadChanges().size(), is(2));
+    assertThat(syncData.getNomadChanges().get(1).getChangeUuid(), is(missing.getChangeUuid()));
+
+    assertThat(passiveSyncManager.sync(syncData), hasItem(RESTART_REQUIRED));
+
+    check(1, 1, 0);
+  }
+
+  @Test
+  public void test_incremental_sync_up_to_date() throws NomadException {
+    active.add(activeActivation);
+    active.add(committed(randomUUID(), change("a", "100MB"), 2L));
+
+    passive.addAll(active);
+
+    DynamicConfigSyncData syncData = codec.decode(codec.encode(activeSyncManager.getSyncData(passiveSyncManager.getLastSyncedChange())));
+    assertThat(syncData.isIncremental(), is(true));
+    assertThat(syncData.getNomadChanges().isEmpty(), is(true));
+
+    assertThat(passiveSyncManager.sync(syncData), hasItem(NOTHING));
+
+    check(0, 0, 0);
+  }
+
+  @Test
+  public void test_incremental_sync_falls_back_to_full_sync_when_diverged() throws NomadException {
+    active.add(activeActivation);
+    active.add(committed(randomUUID(), change("a", "100MB"), 2L));
+
+    passive.add(passiveActivation);
+    passive.add(committed(randomUUID(), change("a", "300MB"), 2L));
+
+    DynamicConfigSyncData syncData = activeSyncManager.getSyncData(passiveSyncManager.getLastSyncedChange());
+    assertThat(syncData.isIncremental(), is(false));
+    assertThat(syncData.getNomadChanges(), is(equalTo(active)));
+  }
+
+  @Test
+  public void test_incremental_sync_falls_back_to_full_sync_when_rolled_back_on_active() throws NomadException {
+    UUID uuid = randomUUID();
+
+    active.add(activeActivation);
+    active.add(rolledBack(uuid, change("a", "100MB"), 2L));
+
+    passive.add(passiveActivation);
+    passive.add(committed(uuid, change("a", "100MB"), 2L));
+
+    assertThat(activeSyncManager.getSyncData(passiveSyncManager.getLastSyncedChange()).isIncremental(), is(false));
+  }
+
+  @Test
+  public void test_incremental_sync_requires_committed_change() throws NomadException {
+    passive.add(passiveActivation);
+    passive.add(prepared(randomUUID(), change("a", "100MB"), 2L));
+
+    assertThat(passiveSyncManager.getLastSyncedChange(), is(nullValue()));
+    assertThat(activeSyncManager.getSyncData(null).isIncremental(), is(false));
+  }
+
+  @Test
+  public void test_incremental_sync_fails_when_passive_changed() throws NomadException {
+    active.add(activeActivation);
+    active.add(committed(randomUUID(), change("a", "100MB"), 2L));
+
+    passive.add(passiveActivation);
+
+    DynamicConfigSyncData syncData = activeSyncManager.getSyncData(passiveSyncManager.getLastSyncedChange());
+    passive.add(committed(randomUUID(), change("a", "300MB"), 2L));
+
+    IllegalStateException e = assertThrows(IllegalStateException.class, () -> passiveSyncManager.sync(syncData));
+    assertThat(e, hasMessage(startsWith("Node cannot sync because its configuration change history has changed since")));
+    check(0, 0, 0);
+  }
+
   private void check(int prepare, int commits, int rollbacks) throws NomadException {
     verify(passiveNomadServer, times(prepare)).prepare(any());
     verify(passiveNomadServer, times(commits)).commit(any());
@@ -60,6 +60,16 @@ class CleaningLeaseMaintainer implements LeaseMaintainer {
     return delegate.waitForLease(timeout, timeUnit);
   }
 
+  @Override
+  public long getLastRenewalLag(TimeUnit timeUnit) {
+    return delegate.getLastRenewalLag(timeUnit);
+  }
+
+  @Override
+  public long getMaxRenewalLag(TimeUnit timeUnit) {
+    return delegate.getMaxRenewalLag(timeUnit);
+  }
+
   @Override
   public void close() throws IOException {
     closeResources();
@@ -53,6 +53,22 @@ public interface LeaseMaintainer extends Closeable {
    */
   boolean waitForLease(long timeout, TimeUnit timeUnit) throws InterruptedException;
 
+  /**
+   * Returns how late the last lease renewal started, compared to when it was due. A growing lag means that the
+   * renewals are delayed and that the lease may expire before it is renewed.
+   * @param timeUnit the time unit of the result
+   * @return the lag of the last lease renewal
+   */
+  long getLastRenewalLag(TimeUnit timeUnit);
+
+  /**
+   * Returns the largest lag of the lease renewals so far.
+   * @param timeUnit the time unit of the result
+   * @return the maximum lag of the lease renewals
+   * @see #getLastRenewalLag(TimeUnit)
+   */
+  long getMaxRenewalLag(TimeUnit timeUnit);
+
   /**
    * Destroys this lease maintainer and closes all associated resources <em>without interacting with the server</em>
    * @throws IOException if an I/O error occurs
@@ -34,6 +34,13 @@ import static org.terracotta.lease.LeaseEntityConstants.ENTITY_VERSION;
  */
 public class LeaseMaintainerFactory {
   private static final Logger LOGGER = LoggerFactory.getLogger(LeaseMaintainerFactory.class);
+
+  /**
+   * System property to maintain the lease of each connection with two dedicated threads, instead of sharing the
+   * threads of a {@link LeaseScheduler} across the connections.
+   */
+  static final String DEDICATED_THREADS_PROPERTY = "org.terracotta.lease.dedicatedThreads";
+
   /**
    * Creates a LeaseMaintainer to maintain a lease on the connection. This should only be called once for any one
    * Connection.
@@ -49,6 +56,10 @@ public class LeaseMaintainerFactory {
     LeaseMaintainerImpl leaseMaintainer = new LeaseMaintainerImpl(leaseAcquirer);
     leaseReconnectListener.setUnderlying(leaseMaintainer);
 
+    if (!Boolean.getBoolean(DEDICATED_THREADS_PROPERTY)) {
+      return new CleaningLeaseMaintainer(leaseMaintainer, connection, LeaseScheduler.shared().maintain(leaseMaintainer, connection));
+    }
+
     LeaseMaintenanceThread leaseMaintenanceThread = new LeaseMaintenanceThread(leaseMaintainer);
     LeaseExpiryConnectionKillingThread leaseExpiryConnectionKillingThread = new LeaseExpiryConnectionKillingThread(leaseMaintainer, connection);
 
@@ -22,6 +22,7 @@ import org.slf4j.LoggerFactory;
 import java.io.IOException;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 
 /**
@@ -37,6 +38,8 @@ class LeaseMaintainerImpl implements LeaseMaintainer, LeaseReconnectListener {
   private final TimeSource timeSource;
   private final AtomicReference<LeaseInternal> currentLease;
   private final CountDownLatch hasLease;
+  private final AtomicLong maxRenewalLagNanos = new AtomicLong();
+  private volatile long lastRenewalLagNanos;
 
   LeaseMaintainerImpl(LeaseAcquirer leaseAcquirer) {
     this.leaseAcquirer = leaseAcquirer;
@@ -60,11 +63,30 @@ class LeaseMaintainerImpl implements LeaseMaintainer, LeaseReconnectListener {
     return hasLease.await(timeout, timeUnit);
   }
 
+  @Override
+  public long getLastRenewalLag(TimeUnit timeUnit) {
+    return timeUnit.convert(lastRenewalLagNanos, TimeUnit.NANOSECONDS);
+  }
+
+  @Override
+  public long getMaxRenewalLag(TimeUnit timeUnit) {
+    return timeUnit.convert(maxRenewalLagNanos.get(), TimeUnit.NANOSECONDS);
+  }
+
   @Override
   public void close() throws IOException {
     leaseAcquirer.close();
   }
 
+  void renewalStarted(long lagNanos) {
+    long lag = Math.max(0L, lagNanos);
+    lastRenewalLagNanos = lag;
+    maxRenewalLagNanos.accumulateAndGet(lag, Math::max);
+    if (LOGGER.isDebugEnabled()) {
+      LOGGER.debug("Lease renewal started {}ms late", TimeUnit.NANOSECONDS.toMillis(lag));
+    }
+  }
+
   long refreshLease() throws LeaseException, InterruptedException {
     try {
       LOGGER.debug("Refreshing lease");
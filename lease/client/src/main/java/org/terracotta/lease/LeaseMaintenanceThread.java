@@ -22,6 +22,7 @@ import org.terracotta.exception.ConnectionClosedException;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.util.concurrent.TimeUnit;
 
 class LeaseMaintenanceThread extends Thread implements Closeable {
   private static final Logger LOGGER = LoggerFactory.getLogger(LeaseMaintenanceThread.class);
@@ -39,9 +40,12 @@ class LeaseMaintenanceThread extends Thread implements Closeable {
   }
 
   public void run() {
+    long renewalDue = timeSource.nanoTime();
     while (!shutdown) {
       try {
+        leaseMaintainer.renewalStarted(timeSource.nanoTime() - renewalDue);
         long waitLength = leaseMaintainer.refreshLease();
+        renewalDue = timeSource.nanoTime() + TimeUnit.MILLISECONDS.toNanos(waitLength);
 
         if (LOGGER.isDebugEnabled()) {
           LOGGER.debug("Lease refresh wait: " + waitLength);
@@ -0,0 +1,287 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.lease;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.terracotta.connection.Connection;
+import org.terracotta.exception.ConnectionClosedException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Multiplexes the lease renewals and the lease expiry checks of all the connections of the JVM on a few shared
+ * threads, instead of two dedicated threads per connection.
+ * <p>
+ * A single timer thread schedules the work and runs the expiry checks, which do not block. The renewals and the
+ * connection closes on lease expiry run on two fixed size pools, whose idle threads are reclaimed, fed by bounded
+ * queues. A renewal or a close can block for as long as its server does not answer, so each of them is interrupted
+ * once it exceeds its timeout: a hung connection only holds a thread for that long, and the renewals and closes of the
+ * other connections queued behind it go on. A timed out renewal is retried, and work refused by a full queue is
+ * retried later.
+ */
+class LeaseScheduler {
+  private static final Logger LOGGER = LoggerFactory.getLogger(LeaseScheduler.class);
+  private static final long EXPIRY_CHECK_MILLIS = 200L;
+  private static final long RETRY_MILLIS = 200L;
+  private static final int DEFAULT_THREADS = 16;
+  private static final long DEFAULT_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(10L);
+  private static final int QUEUE_CAPACITY = 1024;
+  private static final long THREAD_KEEP_ALIVE_SECONDS = 30L;
+
+  private static volatile LeaseScheduler shared;
+
+  private final TimeSource timeSource;
+  private final long timeoutMillis;
+  private final ScheduledExecutorService timer;
+  private final ThreadPoolExecutor workers;
+  private final ThreadPoolExecutor closers;
+
+  /**
+   * @param threads the size of the renewal pool and of the connection close pool
+   * @param timeoutMillis the time after which a renewal or a connection close is interrupted
+   */
+  LeaseScheduler(int threads, long timeoutMillis) {
+    this.timeSource = TimeSourceProvider.getTimeSource();
+    this.timeoutMillis = timeoutMillis;
+    this.timer = Executors.newSingleThreadScheduledExecutor(daemonThreads("LeaseScheduler"));
+    this.workers = boundedPool(threads, "LeaseMaintenanceWorker");
+    this.closers = boundedPool(threads, "LeaseExpiryConnectionKiller");
+  }
+
+  static LeaseScheduler shared() {
+    LeaseScheduler scheduler = shared;
+    if (scheduler == null) {
+      synchronized (LeaseScheduler.class) {
+        scheduler = shared;
+        if (scheduler == null) {
+          shared = scheduler = new LeaseScheduler(DEFAULT_THREADS, DEFAULT_TIMEOUT_MILLIS);
+        }
+      }
+    }
+    return scheduler;
+  }
+
+  /**
+   * Starts maintaining the lease of a connection.
+   *
+   * @return the registration to close to stop maintaining the lease
+   */
+  Closeable maintain(LeaseMaintainerImpl leaseMaintainer, Connection connection) {
+    Registration registration = new Registration(leaseMaintainer, connection);
+    registration.start();
+    return registration;
+  }
+
+  void shutdown() {
+    timer.shutdownNow();
+    workers.shutdownNow();
+    closers.shutdownNow();
+  }
+
+  private static ThreadPoolExecutor boundedPool(int threads, String name) {
+    ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, THREAD_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+        new LinkedBlockingQueue<>(QUEUE_CAPACITY), daemonThreads(name));
+    pool.allowCoreThreadTimeOut(true);
+    return pool;
+  }
+
+  private static ThreadFactory daemonThreads(String name) {
+    AtomicInteger count = new AtomicInteger();
+    return runnable -> {
+      Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    };
+  }
+
+  /**
+   * Interrupts the thread that created it, until it is released by that thread.
+   */
+  private static class Interruptible {
+    private Thread thread = Thread.currentThread();
+
+    synchronized void interrupt() {
+      if (thread != null) {
+        thread.interrupt();
+      }
+    }
+
+    synchronized void release() {
+      thread = null;
+      // an interrupt racing with the end of the work must not interrupt the next task of this thread
+      Thread.interrupted();
+    }
+  }
+
+  private class Registration implements Closeable {
+    private final LeaseMaintainerImpl leaseMaintainer;
+    private final Connection connection;
+
+    private volatile boolean shutdown = false;
+    private volatile long renewalDueNanos;
+    private volatile ScheduledFuture<?> nextRenewal;
+    private volatile ScheduledFuture<?> expiryCheck;
+    // guarded by this: the renewal in flight, to interrupt on close
+    private Interruptible renewal;
+
+    Registration(LeaseMaintainerImpl leaseMaintainer, Connection connection) {
+      this.leaseMaintainer = leaseMaintainer;
+      this.connection = connection;
+    }
+
+    void start() {
+      expiryCheck = timer.scheduleWithFixedDelay(this::checkExpiry, EXPIRY_CHECK_MILLIS, EXPIRY_CHECK_MILLIS, TimeUnit.MILLISECONDS);
+      scheduleRenewal(0L);
+    }
+
+    private void scheduleRenewal(long waitLength) {
+      if (shutdown) {
+        return;
+      }
+      renewalDueNanos = timeSource.nanoTime() + TimeUnit.MILLISECONDS.toNanos(waitLength);
+      nextRenewal = timer.schedule(this::submitRenewal, waitLength, TimeUnit.MILLISECONDS);
+    }
+
+    private void submitRenewal() {
+      try {
+        workers.execute(this::renew);
+      } catch (RejectedExecutionException e) {
+        if (!workers.isShutdown()) {
+          LOGGER.warn("Too many lease renewals pending, retrying in " + RETRY_MILLIS + "ms");
+          scheduleRenewal(RETRY_MILLIS);
+        }
+      }
+    }
+
+    private void renew() {
+      Interruptible current;
+      synchronized (this) {
+        if (shutdown) {
+          return;
+        }
+        renewal = current = new Interruptible();
+      }
+      ScheduledFuture<?> timeout = timer.schedule(current::interrupt, timeoutMillis, TimeUnit.MILLISECONDS);
+      leaseMaintainer.renewalStarted(timeSource.nanoTime() - renewalDueNanos);
+
+      long waitLength = 0L;
+      try {
+        waitLength = leaseMaintainer.refreshLease();
+
+        if (LOGGER.isDebugEnabled()) {
+          LOGGER.debug("Lease refresh wait: " + waitLength);
+        }
+      } catch (InterruptedException e) {
+        // closed, or timed out: reschedule unless closed
+        if (!shutdown) {
+          LOGGER.warn("Lease renewal did not complete within " + timeoutMillis + "ms, retrying in " + RETRY_MILLIS + "ms");
+          waitLength = RETRY_MILLIS;
+        }
+      } catch (LeaseException | RuntimeException e) {
+        if (containsCause(e, ConnectionClosedException.class)) {
+          shutdown = true;
+          expiryCheck.cancel(false);
+        } else {
+          LOGGER.error("Error obtaining lease", e);
+        }
+      } finally {
+        timeout.cancel(false);
+        synchronized (this) {
+          renewal = null;
+          current.release();
+        }
+      }
+      scheduleRenewal(waitLength);
+    }
+
+    private void checkExpiry() {
+      if (shutdown) {
+        return;
+      }
+      Lease lease = leaseMaintainer.getCurrentLease();
+
+      if (!(lease instanceof NullLease) && !lease.isValidAndContiguous(lease)) {
+        try {
+          closers.execute(() -> closeConnection(lease));
+          expiryCheck.cancel(false);
+        } catch (RejectedExecutionException e) {
+          // retried by the next check
+          LOGGER.warn("Too many connection closes pending, retrying in " + EXPIRY_CHECK_MILLIS + "ms");
+        }
+      }
+    }
+
+    private void closeConnection(Lease lease) {
+      if (shutdown) {
+        return;
+      }
+      Interruptible close = new Interruptible();
+      ScheduledFuture<?> timeout = timer.schedule(close::interrupt, timeoutMillis, TimeUnit.MILLISECONDS);
+      try {
+        LOGGER.info("Lease lost, so closing connection to server: " + lease);
+        connection.close();
+      } catch (IOException e) {
+        LOGGER.error("Closing connection, due to lease expiry, caused an error", e);
+      } catch (IllegalStateException e) {
+        // Already closed.
+      } finally {
+        timeout.cancel(false);
+        close.release();
+      }
+    }
+
+    @Override
+    public void close() {
+      // Interrupt the renewal as it may be in a blocking call, but never the connection close on lease expiry
+      synchronized (this) {
+        shutdown = true;
+        if (renewal != null) {
+          renewal.interrupt();
+        }
+      }
+      ScheduledFuture<?> scheduled = nextRenewal;
+      if (scheduled != null) {
+        scheduled.cancel(false);
+      }
+      if (expiryCheck != null) {
+        expiryCheck.cancel(false);
+      }
+    }
+  }
+
+  private static boolean containsCause(Throwable failure, Class<? extends Throwable> cause) {
+    Throwable intermediate = failure;
+    do {
+      if (cause.isInstance(intermediate)) {
+        return true;
+      }
+    } while ((intermediate = intermediate.getCause()) != null);
+
+    return false;
+  }
+}
@@ -24,6 +24,7 @@ import org.mockito.junit.MockitoJUnitRunner;
 
 import java.util.Timer;
 import java.util.TimerTask;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
@@ -50,6 +51,18 @@ public class LeaseMaintainerImplTest {
     leaseMaintainer = new LeaseMaintainerImpl(delayedLeaseAcquirer);
   }
 
+  @Test
+  public void renewalLagIsRecorded() throws Exception {
+    assertEquals(0L, leaseMaintainer.getLastRenewalLag(TimeUnit.MILLISECONDS));
+
+    leaseMaintainer.renewalStarted(TimeUnit.MILLISECONDS.toNanos(300L));
+    leaseMaintainer.renewalStarted(TimeUnit.MILLISECONDS.toNanos(100L));
+    leaseMaintainer.renewalStarted(-1L);
+
+    assertEquals(0L, leaseMaintainer.getLastRenewalLag(TimeUnit.MILLISECONDS));
+    assertEquals(300L, leaseMaintainer.getMaxRenewalLag(TimeUnit.MILLISECONDS));
+  }
+
   @Test
   public void closeClosesEntity() throws Exception {
     leaseMaintainer.close();
@@ -0,0 +1,217 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.lease;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.terracotta.connection.Connection;
+import org.terracotta.exception.ConnectionClosedException;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockingDetails;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.Silent.class)
+public class LeaseSchedulerTest {
+  private TestTimeSource timeSource = new TestTimeSource();
+
+  @Mock
+  private LeaseMaintainerImpl leaseMaintainer;
+
+  @Mock
+  private LeaseMaintainerImpl otherLeaseMaintainer;
+
+  @Mock
+  private Connection connection;
+
+  @Mock
+  private Connection otherConnection;
+
+  private LeaseScheduler scheduler;
+
+  @Before
+  public void before() throws Exception {
+    TimeSourceProvider.setTimeSource(timeSource);
+    when(leaseMaintainer.getCurrentLease()).thenReturn(new NullLease());
+    when(otherLeaseMaintainer.getCurrentLease()).thenReturn(new NullLease());
+    scheduler = new LeaseScheduler(2, 200L);
+  }
+
+  @After
+  public void after() {
+    scheduler.shutdown();
+  }
+
+  @Test
+  public void renewsUntilClosed() throws Exception {
+    when(leaseMaintainer.refreshLease()).thenReturn(10L);
+
+    Closeable registration = scheduler.maintain(leaseMaintainer, connection);
+    verify(leaseMaintainer, timeout(2000L).atLeast(3)).refreshLease();
+    verify(leaseMaintainer, atLeast(3)).renewalStarted(anyLong());
+
+    registration.close();
+    Thread.sleep(100L);
+    int renewals = renewalCount(leaseMaintainer);
+    Thread.sleep(200L);
+    assertEquals(renewals, renewalCount(leaseMaintainer));
+    verify(connection, never()).close();
+  }
+
+  @Test
+  public void closedConnectionStopsRenewals() throws Exception {
+    when(leaseMaintainer.refreshLease()).thenThrow(new ConnectionClosedException("Connection closed"));
+
+    scheduler.maintain(leaseMaintainer, connection);
+    verify(leaseMaintainer, timeout(2000L)).refreshLease();
+    Thread.sleep(200L);
+    verify(leaseMaintainer, times(1)).refreshLease();
+  }
+
+  @Test
+  public void blockedRenewalsDoNotDelayOtherConnections() throws Exception {
+    // more hung connections than workers
+    int blockedConnections = 4;
+    CountDownLatch blocked = new CountDownLatch(blockedConnections);
+    CountDownLatch interrupted = new CountDownLatch(blockedConnections);
+    List<Closeable> registrations = new ArrayList<>();
+    List<LeaseMaintainerImpl> blockedMaintainers = new ArrayList<>();
+    for (int i = 0; i < blockedConnections; i++) {
+      LeaseMaintainerImpl blockedMaintainer = mock(LeaseMaintainerImpl.class);
+      when(blockedMaintainer.getCurrentLease()).thenReturn(new NullLease());
+      when(blockedMaintainer.refreshLease()).then(invocation -> {
+        blocked.countDown();
+        try {
+          Thread.sleep(Long.MAX_VALUE);
+        } catch (InterruptedException e) {
+          interrupted.countDown();
+          throw e;
+        }
+        return 0L;
+      });
+      blockedMaintainers.add(blockedMaintainer);
+      registrations.add(scheduler.maintain(blockedMaintainer, mock(Connection.class)));
+    }
+    assertTrue(blocked.await(2, TimeUnit.SECONDS));
+
+    // renewals of other connections go on
+    when(otherLeaseMaintainer.refreshLease()).thenReturn(10L);
+    Closeable otherRegistration = scheduler.maintain(otherLeaseMaintainer, otherConnection);
+    verify(otherLeaseMaintainer, timeout(5000L).atLeast(3)).refreshLease();
+
+    // and so do the connection closes on lease expiry
+    when(leaseMaintainer.refreshLease()).thenReturn(1000L);
+    when(leaseMaintainer.getCurrentLease()).thenReturn(new LeaseImpl(timeSource, -200L, -100L));
+    scheduler.maintain(leaseMaintainer, connection);
+    verify(connection, timeout(5000L)).close();
+
+    // the blocked renewals time out and are retried
+    assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+    for (LeaseMaintainerImpl blockedMaintainer : blockedMaintainers) {
+      verify(blockedMaintainer, timeout(5000L).atLeast(2)).refreshLease();
+    }
+
+    for (Closeable registration : registrations) {
+      registration.close();
+    }
+    otherRegistration.close();
+  }
+
+  @Test
+  public void blockedConnectionClosesDoNotDelayOtherConnections() throws Exception {
+    // more hung connections than closers
+    int blockedConnections = 4;
+    CountDownLatch interrupted = new CountDownLatch(blockedConnections);
+    for (int i = 0; i < blockedConnections; i++) {
+      LeaseMaintainerImpl expiredMaintainer = mock(LeaseMaintainerImpl.class);
+      when(expiredMaintainer.refreshLease()).thenReturn(1000L);
+      when(expiredMaintainer.getCurrentLease()).thenReturn(new LeaseImpl(timeSource, -200L, -100L));
+      Connection blockedConnection = mock(Connection.class);
+      doAnswer(invocation -> {
+        try {
+          Thread.sleep(Long.MAX_VALUE);
+        } catch (InterruptedException e) {
+          interrupted.countDown();
+        }
+        return null;
+      }).when(blockedConnection).close();
+      scheduler.maintain(expiredMaintainer, blockedConnection);
+    }
+
+    when(leaseMaintainer.refreshLease()).thenReturn(1000L);
+    when(leaseMaintainer.getCurrentLease()).thenReturn(new LeaseImpl(timeSource, -200L, -100L));
+    scheduler.maintain(leaseMaintainer, connection);
+
+    verify(connection, timeout(5000L)).close();
+    assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void expiredLeaseClosesConnection() throws Exception {
+    when(leaseMaintainer.refreshLease()).thenReturn(1000L);
+    when(leaseMaintainer.getCurrentLease()).thenReturn(new LeaseImpl(timeSource, -200L, -100L));
+
+    scheduler.maintain(leaseMaintainer, connection);
+    verify(connection, timeout(2000L)).close();
+  }
+
+  @Test
+  public void expiredLeaseClosesConnectionCopingWithConnectionAlreadyClosed() throws Exception {
+    when(leaseMaintainer.refreshLease()).thenReturn(1000L);
+    when(leaseMaintainer.getCurrentLease()).thenReturn(new LeaseImpl(timeSource, -200L, -100L));
+    doThrow(IllegalStateException.class).when(connection).close();
+
+    scheduler.maintain(leaseMaintainer, connection);
+    verify(connection, timeout(2000L)).close();
+  }
+
+  @Test
+  public void validLeaseDoesNotCloseConnection() throws Exception {
+    when(leaseMaintainer.refreshLease()).thenReturn(1000L);
+    when(leaseMaintainer.getCurrentLease()).thenReturn(new LeaseImpl(timeSource, 0L, 10000L));
+
+    scheduler.maintain(leaseMaintainer, connection);
+    verify(leaseMaintainer, timeout(2000L).atLeast(2)).getCurrentLease();
+    verify(connection, never()).close();
+  }
+
+  private static int renewalCount(LeaseMaintainerImpl leaseMaintainer) {
+    return (int) mockingDetails(leaseMaintainer).getInvocations().stream()
+        .filter(invocation -> invocation.getMethod().getName().equals("refreshLease"))
+        .count();
+  }
+}
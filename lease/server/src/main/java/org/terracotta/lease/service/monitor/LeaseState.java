@@ -31,17 +31,24 @@ import java.util.concurrent.TimeUnit;
 /**
  * The central component of the connection leasing code. This object holds the state of the leases for each client and
  * allows updates to that state in a thread-safe way.
+ * <p>
+ * The issued leases are also kept in a {@link LeaseWheel}, so that checking the leases only visits the ones that are
+ * due instead of all of them.
  */
 public class LeaseState implements StateDumpable {
   private static final Logger LOGGER = LoggerFactory.getLogger(LeaseState.class);
+  private static final long WHEEL_TICK_MILLIS = 100L;
+  private static final int WHEEL_SIZE = 1024;
 
   private final TimeSource timeSource;
   private final ClientConnectionCloser clientConnectionCloser;
   private final ConcurrentHashMap<ClientDescriptor, Lease> leases = new ConcurrentHashMap<>();
+  private final LeaseWheel wheel;
 
   public LeaseState(TimeSource timeSource, ClientConnectionCloser clientConnectionCloser) {
     this.timeSource = timeSource;
     this.clientConnectionCloser = clientConnectionCloser;
+    this.wheel = new LeaseWheel(timeSource.nanoTime(), TimeUnit.MILLISECONDS.toNanos(WHEEL_TICK_MILLIS), WHEEL_SIZE);
   }
 
   public void disconnected(ClientDescriptor clientDescriptor) {
@@ -60,19 +67,20 @@ public class LeaseState implements StateDumpable {
       throw new AssertionError("Got a reconnected event but the client does not have a ReconnectionLease");
     }
 
-    ValidLease newLease = createLease(leaseLength);
+    ValidLease newLease = createLease(clientDescriptor, leaseLength);
     leases.put(clientDescriptor, newLease);
+    wheel.schedule(newLease);
   }
 
   public boolean acquireLease(ClientDescriptor clientDescriptor, long leaseLength) {
-    ValidLease newLease = createLease(leaseLength);
-
     while (true) {
       Lease currentLease = leases.get(clientDescriptor);
 
       if (currentLease == null) {
+        ValidLease newLease = createLease(clientDescriptor, leaseLength);
         Lease existingLease = leases.putIfAbsent(clientDescriptor, newLease);
         if (existingLease == null) {
+          wheel.schedule(newLease);
           return true;
         }
       } else {
@@ -80,68 +88,50 @@ public class LeaseState implements StateDumpable {
           return false; // This client's connection is being closed
         }
 
-        ValidLease currentValidLease = (ValidLease) currentLease;
-        if (newLease.expiresBefore(currentValidLease)) {
-          return true;
-        }
-
-        boolean replaced = leases.replace(clientDescriptor, currentLease, newLease);
-        if (replaced) {
-          return true;
-        }
+        // The lease is renewed in place: false if it was found expired, and so is about to be closed
+        return ((ValidLease) currentLease).renew(leaseExpiry(leaseLength));
       }
     }
   }
 
-  private ValidLease createLease(long leaseLength) {
-    long leaseExpiry = timeSource.nanoTime() + TimeUnit.MILLISECONDS.toNanos(leaseLength);
-    return new ValidLease(leaseExpiry);
+  private ValidLease createLease(ClientDescriptor clientDescriptor, long leaseLength) {
+    return new ValidLease(clientDescriptor, leaseExpiry(leaseLength));
+  }
+
+  private long leaseExpiry(long leaseLength) {
+    return timeSource.nanoTime() + TimeUnit.MILLISECONDS.toNanos(leaseLength);
   }
 
   void checkLeases() {
     LOGGER.debug("Checking leases");
     long now = timeSource.nanoTime();
-
-    // The iterator from ConcurrentHashMap.iterator() is guaranteed not to throw a ConcurrentModificationException
-    // We rely on that guarantee here because we may modify the leases map inside the iteration.
-    for (ClientDescriptor clientDescriptor : leases.keySet()) {
-      checkLease(clientDescriptor, now);
-    }
+    wheel.advance(now, lease -> checkLease(lease, now));
   }
 
-  private void checkLease(ClientDescriptor clientDescriptor, long now) {
-    while (true) {
-      Lease lease = leases.get(clientDescriptor);
-
-      if (lease == null) {
-        return; // Some other thread called checkLeases() and expired the lease
-      }
+  /**
+   * @return {@code true} if the lease does not need to be checked anymore
+   */
+  private boolean checkLease(ValidLease lease, long now) {
+    ClientDescriptor clientDescriptor = lease.getClientDescriptor();
 
-      if (lease instanceof ExpiredLease) {
-        if (LOGGER.isTraceEnabled()) {
-          LOGGER.trace("Lease for client: " + clientDescriptor + " is an ExpiredLease");
-        }
-        return; // Some other thread is expiring this lease - leave it alone
-      }
+    if (leases.get(clientDescriptor) != lease) {
+      return true; // The client disconnected or reconnected since this lease was issued
+    }
 
-      if (!lease.isExpired(now)) {
-        if (LOGGER.isTraceEnabled()) {
-          LOGGER.trace("Lease for client: " + clientDescriptor + " is still valid: " + lease);
-        }
-        return; // The lease is still valid so no change needed
+    if (!lease.expire(now)) {
+      if (LOGGER.isTraceEnabled()) {
+        LOGGER.trace("Lease for client: " + clientDescriptor + " is still valid: " + lease);
       }
+      return false; // The lease is still valid so no change needed
+    }
 
-      Lease expiredLease = new ExpiredLease();
-      boolean replaced = leases.replace(clientDescriptor, lease, expiredLease);
-
-      if (replaced) {
-        LOGGER.info("Closing connection to client: " + clientDescriptor + " due to lease expiry");
-        clientConnectionCloser.closeClientConnection(clientDescriptor);
-        return;
-      }
+    boolean replaced = leases.replace(clientDescriptor, lease, new ExpiredLease());
 
-      // Otherwise loop because another thread updated the lease whilst we looked at it
+    if (replaced) {
+      LOGGER.info("Closing connection to client: " + clientDescriptor + " due to lease expiry");
+      clientConnectionCloser.closeClientConnection(clientDescriptor);
     }
+    return true;
   }
 
   @Override
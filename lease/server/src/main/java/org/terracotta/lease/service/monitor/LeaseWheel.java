@@ -0,0 +1,96 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.lease.service.monitor;
+
+import java.util.function.Predicate;
+
+/**
+ * A hashed timing wheel of the issued leases, bucketed by expiry time.
+ * <p>
+ * Renewing a lease does not touch the wheel: a lease is only moved to the bucket of its current expiry when its
+ * previous bucket comes due. Checking the leases thus only visits the buckets that are due, and each lease at most
+ * once per lease length (or once per turn of the wheel for leases longer than the wheel span).
+ */
+class LeaseWheel {
+  private final long origin;
+  private final long tickNanos;
+  private final ValidLease[] buckets;
+  private final int mask;
+
+  // guarded by this
+  private long currentTick;
+
+  LeaseWheel(long now, long tickNanos, int size) {
+    if (tickNanos <= 0) {
+      throw new IllegalArgumentException("Tick must be positive: " + tickNanos);
+    }
+    if (Integer.bitCount(size) != 1) {
+      throw new IllegalArgumentException("Size must be a power of two: " + size);
+    }
+    this.origin = now;
+    this.tickNanos = tickNanos;
+    this.buckets = new ValidLease[size];
+    this.mask = size - 1;
+  }
+
+  synchronized void schedule(ValidLease lease) {
+    // a lease due in a past tick goes in the current one, which is visited again on the next check
+    long tick = Math.max(tickOf(lease.getLeaseExpiry()), currentTick);
+    int index = (int) (tick & mask);
+    lease.next = buckets[index];
+    buckets[index] = lease;
+  }
+
+  /**
+   * Visits the leases in the buckets due at {@code now}.
+   *
+   * @param now the current time
+   * @param remove tells whether a visited lease leaves the wheel, or else is rescheduled according to its expiry
+   */
+  void advance(long now, Predicate<ValidLease> remove) {
+    long from;
+    long to;
+    synchronized (this) {
+      to = tickOf(now);
+      // the current tick is visited again since it was not over at the last check
+      from = Math.max(currentTick, to - mask);
+      currentTick = Math.max(currentTick, to);
+    }
+
+    for (long tick = from; tick <= to; tick++) {
+      ValidLease lease = detach((int) (tick & mask));
+      while (lease != null) {
+        ValidLease next = lease.next;
+        lease.next = null;
+        if (!remove.test(lease)) {
+          schedule(lease);
+        }
+        lease = next;
+      }
+    }
+  }
+
+  private synchronized ValidLease detach(int index) {
+    ValidLease head = buckets[index];
+    buckets[index] = null;
+    return head;
+  }
+
+  private long tickOf(long time) {
+    return Math.floorDiv(time - origin, tickNanos);
+  }
+}
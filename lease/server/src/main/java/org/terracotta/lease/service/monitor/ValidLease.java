@@ -16,16 +16,38 @@
  */
 package org.terracotta.lease.service.monitor;
 
+import org.terracotta.entity.ClientDescriptor;
+
 /**
  * Represents a lease that has been issued to a client. It may have expired, but if so, that has not been detected yet.
+ * <p>
+ * A lease is renewed in place, and is its own node in the {@link LeaseWheel}.
  */
 class ValidLease implements Lease {
-  private final long leaseExpiry;
+  private final ClientDescriptor clientDescriptor;
+  private volatile long leaseExpiry;
+  // guarded by this
+  private boolean expired;
+  // guarded by the LeaseWheel
+  ValidLease next;
 
   ValidLease(long leaseExpiry) {
+    this(null, leaseExpiry);
+  }
+
+  ValidLease(ClientDescriptor clientDescriptor, long leaseExpiry) {
+    this.clientDescriptor = clientDescriptor;
     this.leaseExpiry = leaseExpiry;
   }
 
+  ClientDescriptor getClientDescriptor() {
+    return clientDescriptor;
+  }
+
+  long getLeaseExpiry() {
+    return leaseExpiry;
+  }
+
   @Override
   public boolean isExpired(long now) {
     return leaseExpiry - now < 0;
@@ -40,6 +62,33 @@ class ValidLease implements Lease {
     return leaseExpiry - newLease.leaseExpiry < 0;
   }
 
+  /**
+   * Extends the lease up to the given expiry, unless it was found expired.
+   *
+   * @return {@code false} if the lease expired
+   */
+  synchronized boolean renew(long newExpiry) {
+    if (expired) {
+      return false;
+    }
+    if (leaseExpiry - newExpiry < 0) {
+      leaseExpiry = newExpiry;
+    }
+    return true;
+  }
+
+  /**
+   * Marks the lease as expired if it is at the given time, after which it cannot be renewed anymore.
+   *
+   * @return {@code true} if the lease expired
+   */
+  synchronized boolean expire(long now) {
+    if (!expired && isExpired(now)) {
+      expired = true;
+    }
+    return expired;
+  }
+
   @Override
   public String toString() {
     return "ValidLease{ leaseExpiry:" + leaseExpiry + " }";
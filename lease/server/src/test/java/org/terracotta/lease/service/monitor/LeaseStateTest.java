@@ -141,6 +141,49 @@ public class LeaseStateTest {
     verify(clientConnectionCloser).closeClientConnection(clientDescriptor1);
   }
 
+  @Test
+  public void renewingKeepsTheLeaseAlive() {
+    assertTrue(leaseState.acquireLease(clientDescriptor1, 150L));
+
+    for (int i = 0; i < 20; i++) {
+      timeSource.tickMillis(100L);
+      assertTrue(leaseState.acquireLease(clientDescriptor1, 150L));
+      leaseState.checkLeases();
+    }
+    verifyNoMoreInteractions(clientConnectionCloser);
+
+    timeSource.tickMillis(200L);
+    leaseState.checkLeases();
+    verify(clientConnectionCloser).closeClientConnection(clientDescriptor1);
+  }
+
+  @Test
+  public void leasesLongerThanTheWheelSpanExpire() {
+    assertTrue(leaseState.acquireLease(clientDescriptor1, 300_000L));
+
+    for (int i = 0; i < 299; i++) {
+      timeSource.tickMillis(1_000L);
+      leaseState.checkLeases();
+    }
+    verifyNoMoreInteractions(clientConnectionCloser);
+
+    timeSource.tickMillis(2_000L);
+    leaseState.checkLeases();
+    verify(clientConnectionCloser).closeClientConnection(clientDescriptor1);
+  }
+
+  @Test
+  public void disconnectedClientIsNotClosed() {
+    assertTrue(leaseState.acquireLease(clientDescriptor1, 10L));
+    leaseState.disconnected(clientDescriptor1);
+
+    timeSource.tickMillis(100L);
+    leaseState.checkLeases();
+    verifyNoMoreInteractions(clientConnectionCloser);
+
+    assertTrue(leaseState.acquireLease(clientDescriptor1, 10L));
+  }
+
   @Test
   public void testStateDump() {
     MockStateDumpCollector stateDumper = new MockStateDumpCollector();
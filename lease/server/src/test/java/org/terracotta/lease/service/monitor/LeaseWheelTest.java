@@ -0,0 +1,109 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.lease.service.monitor;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+
+public class LeaseWheelTest {
+  private static final long TICK = 100L;
+
+  @Test
+  public void onlyVisitsTheDueBuckets() {
+    LeaseWheel wheel = new LeaseWheel(0L, TICK, 8);
+    ValidLease lease1 = new ValidLease(150L);
+    ValidLease lease2 = new ValidLease(350L);
+    wheel.schedule(lease1);
+    wheel.schedule(lease2);
+
+    List<ValidLease> visited = new ArrayList<>();
+    visited.addAll(advance(wheel, 50L));
+    assertThat(visited, empty());
+
+    visited.addAll(advance(wheel, 160L));
+    assertThat(visited, contains(lease1));
+
+    visited.clear();
+    visited.addAll(advance(wheel, 360L));
+    assertThat(visited, contains(lease2));
+  }
+
+  @Test
+  public void renewedLeasesAreRescheduled() {
+    LeaseWheel wheel = new LeaseWheel(0L, TICK, 8);
+    ValidLease lease = new ValidLease(150L);
+    wheel.schedule(lease);
+    lease.renew(450L);
+
+    List<ValidLease> visited = new ArrayList<>();
+    visited.addAll(advance(wheel, 160L));
+    assertThat(visited, empty());
+
+    visited.addAll(advance(wheel, 300L));
+    assertThat(visited, empty());
+
+    visited.addAll(advance(wheel, 460L));
+    assertThat(visited, contains(lease));
+  }
+
+  @Test
+  public void leasesBeyondTheWheelSpanWaitForTheirTurn() {
+    LeaseWheel wheel = new LeaseWheel(0L, TICK, 4);
+    ValidLease lease = new ValidLease(1050L);
+    wheel.schedule(lease);
+
+    List<ValidLease> visited = new ArrayList<>();
+    for (long now = 0; now < 1050L; now += 50L) {
+      visited.addAll(advance(wheel, now));
+    }
+    assertThat(visited, empty());
+
+    visited.addAll(advance(wheel, 1060L));
+    assertThat(visited, contains(lease));
+  }
+
+  @Test
+  public void aLongPauseVisitsEveryBucketOnce() {
+    LeaseWheel wheel = new LeaseWheel(0L, TICK, 4);
+    ValidLease lease1 = new ValidLease(150L);
+    ValidLease lease2 = new ValidLease(250L);
+    wheel.schedule(lease1);
+    wheel.schedule(lease2);
+
+    List<ValidLease> visited = new ArrayList<>();
+    visited.addAll(advance(wheel, 10_000L));
+    assertThat(visited, contains(lease1, lease2));
+  }
+
+  private static List<ValidLease> advance(LeaseWheel wheel, long now) {
+    List<ValidLease> expired = new ArrayList<>();
+    wheel.advance(now, lease -> {
+      if (lease.expire(now)) {
+        expired.add(lease);
+        return true;
+      }
+      return false;
+    });
+    return expired;
+  }
+}
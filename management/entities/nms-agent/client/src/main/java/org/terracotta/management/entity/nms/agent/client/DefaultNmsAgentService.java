@@ -39,13 +39,16 @@ import org.terracotta.management.registry.ManagementRegistry;
 import org.terracotta.voltron.proxy.MessageListener;
 import org.terracotta.voltron.proxy.client.EndpointListener;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
 import java.util.Objects;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
 import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.function.BiConsumer;
@@ -66,6 +69,9 @@ public class DefaultNmsAgentService implements EndpointListener, MessageListener
   private volatile NmsAgentEntity entity;
   private volatile ManagementRegistry registry;
   private volatile String[] previouslyExposedTags;
+  private volatile PushBuffer pushBuffer;
+  // all the buffered pushes are sent while holding this lock, see PushBuffer
+  private final Object pushLock = new Object();
 
   private long timeoutMs = 5000;
   private Executor managementCallExecutor = Runnable::run;
@@ -146,6 +152,14 @@ public class DefaultNmsAgentService implements EndpointListener, MessageListener
   public synchronized void close() {
     if (!closed) {
       LOGGER.info("Closing management agent service");
+      synchronized (pushLock) {
+        PushBuffer pushBuffer = this.pushBuffer;
+        if (pushBuffer != null) {
+          // send what is pending before closing
+          pushBuffer.flush();
+          this.pushBuffer = null;
+        }
+      }
       ManagementRegistry registry = getRegistry();
       // disable bridging
       if (registry != null) {
@@ -224,6 +238,37 @@ public class DefaultNmsAgentService implements EndpointListener, MessageListener
     this.onOperationError = onOperationError;
   }
 
+  /**
+   * Enables the batching of the notifications and statistics pushed to the server.
+   * <p>
+   * Instead of doing one entity call per push on the calling thread, the pushes are buffered during {@code window}
+   * and then sent from the scheduler: all the statistics of the window in one call, and the notifications pipelined.
+   * At most {@code capacity} notifications and statistics are kept in the buffer: further pushes are dropped and
+   * counted (see {@link #getDroppedNotificationCount()} and {@link #getDroppedStatisticCount()}).
+   */
+  public NmsAgentService setPushBatching(ScheduledExecutorService scheduler, long window, TimeUnit unit, int capacity) {
+    PushBuffer pushBuffer = new PushBuffer(scheduler, window, unit, capacity, pushLock, this::sendPushes);
+    synchronized (pushLock) {
+      // the new buffer cannot send anything before the pushes of the previous one are sent
+      PushBuffer previous = this.pushBuffer;
+      this.pushBuffer = pushBuffer;
+      if (previous != null) {
+        previous.flush();
+      }
+    }
+    return this;
+  }
+
+  public long getDroppedNotificationCount() {
+    PushBuffer pushBuffer = this.pushBuffer;
+    return pushBuffer == null ? 0 : pushBuffer.getDroppedNotificationCount();
+  }
+
+  public long getDroppedStatisticCount() {
+    PushBuffer pushBuffer = this.pushBuffer;
+    return pushBuffer == null ? 0 : pushBuffer.getDroppedStatisticCount();
+  }
+
   // features
 
   @Override
@@ -255,7 +300,12 @@ public class DefaultNmsAgentService implements EndpointListener, MessageListener
       // ensure to send the notification with the root context
       notification.setContext(notification.getContext().with(root));
       LOGGER.trace("pushNotification({})", notification);
-      runOperation(() -> getEntity().pushNotification(null, notification));
+      PushBuffer pushBuffer = this.pushBuffer;
+      if (pushBuffer != null) {
+        pushBuffer.offer(notification);
+      } else {
+        runOperation(() -> getEntity().pushNotification(null, notification));
+      }
     }
   }
 
@@ -272,7 +322,12 @@ public class DefaultNmsAgentService implements EndpointListener, MessageListener
         statistic.setContext(statistic.getContext().with(root));
       }
       LOGGER.trace("pushStatistics({})", statistics.length);
-      runOperation(() -> getEntity().pushStatistics(null, statistics));
+      PushBuffer pushBuffer = this.pushBuffer;
+      if (pushBuffer != null) {
+        pushBuffer.offer(statistics);
+      } else {
+        runOperation(() -> getEntity().pushStatistics(null, statistics));
+      }
     }
   }
 
@@ -322,6 +377,47 @@ public class DefaultNmsAgentService implements EndpointListener, MessageListener
     runOperation(() -> getEntity().answerManagementCall(null, managementCallIdentifier, aReturn));
   }
 
+  private void sendPushes(List<ContextualNotification> notifications, List<ContextualStatistics> statistics) {
+    LOGGER.trace("sendPushes({}, {})", notifications.size(), statistics.size());
+    if (!notifications.isEmpty()) {
+      sendNotifications(notifications);
+    }
+    if (!statistics.isEmpty()) {
+      runOperation(() -> getEntity().pushStatistics(null, statistics.toArray(new ContextualStatistics[0])));
+    }
+  }
+
+  /**
+   * Sends all the notifications without waiting for the previous ones, then awaits each of them so that every failure
+   * is reported. A retry only sends its own notification again.
+   */
+  private void sendNotifications(List<ContextualNotification> notifications) {
+    List<Future<?>> pipelined = new ArrayList<>(notifications.size());
+    try {
+      NmsAgentEntity entity = getEntity();
+      for (ContextualNotification notification : notifications) {
+        pipelined.add(entity.pushNotification(null, notification));
+      }
+    } catch (RuntimeException e) {
+      // the notifications not sent yet are sent one at a time below, and report their own failure
+      LOGGER.trace("sendNotifications(): {} of {} notifications pipelined", pipelined.size(), notifications.size(), e);
+    }
+    for (int i = 0; i < notifications.size(); i++) {
+      ContextualNotification notification = notifications.get(i);
+      Future<?> sent = i < pipelined.size() ? pipelined.get(i) : null;
+      runOperation(new Supplier<Future<?>>() {
+        private Future<?> next = sent;
+
+        @Override
+        public Future<?> get() {
+          Future<?> future = next;
+          next = null;
+          return future != null ? future : getEntity().pushNotification(null, notification);
+        }
+      });
+    }
+  }
+
   protected void runOperation(Supplier<Future<?>> op) {
     if (!isClosed()) {
       try {
@@ -0,0 +1,167 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.management.entity.nms.agent.client;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.terracotta.management.model.notification.ContextualNotification;
+import org.terracotta.management.model.stats.ContextualStatistics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+
+/**
+ * Buffers the notifications and statistics pushed by a client during a time window, and hands them over in one batch
+ * at the end of the window.
+ * <p>
+ * The buffer is bounded: once it holds {@code capacity} items, new pushes are dropped and counted. Statistics pushed
+ * together are kept together, so an array larger than the capacity, which would never fit, is not buffered: it is sent
+ * right away on the pushing thread, after the pending pushes.
+ * <p>
+ * Batches are taken and sent while holding the send lock given at construction, whichever thread flushes (the
+ * scheduler, a close, a reconfiguration), so they are sent in the order they were taken.
+ */
+class PushBuffer {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(PushBuffer.class);
+
+  private final ScheduledExecutorService scheduler;
+  private final long windowNanos;
+  private final int capacity;
+  private final BiConsumer<List<ContextualNotification>, List<ContextualStatistics>> sender;
+  private final Object sendLock;
+  private final LongAdder droppedNotifications = new LongAdder();
+  private final LongAdder droppedStatistics = new LongAdder();
+
+  // guarded by this
+  private List<ContextualNotification> notifications = new ArrayList<>();
+  private List<ContextualStatistics> statistics = new ArrayList<>();
+  private boolean flushScheduled;
+  private long reportedDrops;
+
+  PushBuffer(ScheduledExecutorService scheduler, long window, TimeUnit unit, int capacity, Object sendLock, BiConsumer<List<ContextualNotification>, List<ContextualStatistics>> sender) {
+    if (window < 0) {
+      throw new IllegalArgumentException("Invalid window: " + window);
+    }
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("Invalid capacity: " + capacity);
+    }
+    this.scheduler = Objects.requireNonNull(scheduler);
+    this.windowNanos = unit.toNanos(window);
+    this.capacity = capacity;
+    this.sendLock = Objects.requireNonNull(sendLock);
+    this.sender = Objects.requireNonNull(sender);
+  }
+
+  void offer(ContextualNotification notification) {
+    synchronized (this) {
+      if (size() >= capacity) {
+        droppedNotifications.increment();
+        return;
+      }
+      notifications.add(notification);
+      if (flushScheduled) {
+        return;
+      }
+      flushScheduled = true;
+    }
+    scheduleFlush();
+  }
+
+  void offer(ContextualStatistics... statistics) {
+    if (statistics.length > capacity) {
+      sendPending(Arrays.asList(statistics));
+      return;
+    }
+    synchronized (this) {
+      if (size() + statistics.length > capacity) {
+        droppedStatistics.add(statistics.length);
+        return;
+      }
+      Collections.addAll(this.statistics, statistics);
+      if (flushScheduled) {
+        return;
+      }
+      flushScheduled = true;
+    }
+    scheduleFlush();
+  }
+
+  /**
+   * Sends the pending notifications and statistics, if any, on the calling thread
+   */
+  void flush() {
+    sendPending(Collections.emptyList());
+  }
+
+  /**
+   * Sends the pending notifications and statistics, followed by the given statistics, on the calling thread
+   */
+  private void sendPending(List<ContextualStatistics> unbuffered) {
+    synchronized (sendLock) {
+      List<ContextualNotification> notifications;
+      List<ContextualStatistics> statistics;
+      long drops = getDroppedNotificationCount() + getDroppedStatisticCount();
+      boolean reportDrops;
+      synchronized (this) {
+        notifications = this.notifications;
+        statistics = this.statistics;
+        this.notifications = new ArrayList<>();
+        this.statistics = new ArrayList<>();
+        flushScheduled = false;
+        reportDrops = drops > reportedDrops;
+        reportedDrops = drops;
+      }
+      statistics.addAll(unbuffered);
+      if (reportDrops) {
+        LOGGER.warn("Push buffer full (capacity: {}): {} notifications and {} statistics dropped so far", capacity, getDroppedNotificationCount(), getDroppedStatisticCount());
+      }
+      if (!notifications.isEmpty() || !statistics.isEmpty()) {
+        sender.accept(notifications, statistics);
+      }
+    }
+  }
+
+  long getDroppedNotificationCount() {
+    return droppedNotifications.sum();
+  }
+
+  long getDroppedStatisticCount() {
+    return droppedStatistics.sum();
+  }
+
+  private int size() {
+    return notifications.size() + statistics.size();
+  }
+
+  private void scheduleFlush() {
+    try {
+      scheduler.schedule(this::flush, windowNanos, TimeUnit.NANOSECONDS);
+    } catch (RejectedExecutionException e) {
+      // scheduler is closed: do not keep the pushes in the buffer
+      flush();
+    }
+  }
+}
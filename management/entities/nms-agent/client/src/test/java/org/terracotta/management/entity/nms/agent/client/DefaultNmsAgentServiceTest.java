@@ -0,0 +1,142 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.management.entity.nms.agent.client;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.terracotta.management.model.context.Context;
+import org.terracotta.management.model.notification.ContextualNotification;
+import org.terracotta.management.model.stats.ContextualStatistics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class DefaultNmsAgentServiceTest {
+
+  private final NmsAgentEntity entity = mock(NmsAgentEntity.class);
+  private final ScheduledExecutorService scheduler = mock(ScheduledExecutorService.class);
+  private final List<Throwable> errors = new ArrayList<>();
+  private final List<DefaultNmsAgentService.Operation> failedOperations = new ArrayList<>();
+
+  private DefaultNmsAgentService service;
+
+  @Before
+  public void setUp() {
+    when(entity.pushNotification(any(), any())).thenReturn(CompletableFuture.completedFuture(null));
+    when(entity.pushStatistics(any(), any())).thenReturn(CompletableFuture.completedFuture(null));
+    service = new DefaultNmsAgentService(Context.create("clientId", "client"), entity);
+    service.setOnOperationError((operation, error) -> {
+      failedOperations.add(operation);
+      errors.add(error);
+    });
+  }
+
+  @Test
+  public void test_pushes_are_buffered_until_the_window_ends() {
+    service.setPushBatching(scheduler, 1, TimeUnit.SECONDS, 10);
+
+    service.pushNotification(new ContextualNotification(Context.empty(), "TYPE"));
+    service.pushStatistics(statistics(), statistics());
+    verify(entity, never()).pushNotification(any(), any());
+    verify(entity, never()).pushStatistics(any(), any());
+
+    ArgumentCaptor<Runnable> flush = ArgumentCaptor.forClass(Runnable.class);
+    verify(scheduler).schedule(flush.capture(), anyLong(), any(TimeUnit.class));
+    flush.getValue().run();
+
+    verify(entity).pushNotification(any(), any());
+    // all the statistics of the window in one call
+    verify(entity).pushStatistics(any(), any(), any());
+  }
+
+  @Test
+  public void test_pending_pushes_are_sent_on_close() {
+    service.setPushBatching(scheduler, 1, TimeUnit.SECONDS, 10);
+    service.pushNotification(new ContextualNotification(Context.empty(), "TYPE"));
+    service.pushStatistics(statistics());
+
+    service.close();
+
+    verify(entity).pushNotification(any(), any());
+    verify(entity).pushStatistics(any(), any());
+  }
+
+  @Test
+  public void test_pending_pushes_are_sent_when_batching_is_reconfigured() {
+    service.setPushBatching(scheduler, 1, TimeUnit.SECONDS, 10);
+    service.pushNotification(new ContextualNotification(Context.empty(), "TYPE"));
+
+    service.setPushBatching(scheduler, 2, TimeUnit.SECONDS, 10);
+
+    verify(entity).pushNotification(any(), any());
+  }
+
+  @Test
+  public void test_every_failed_pipelined_notification_is_reported() {
+    CompletableFuture<Void> failure1 = new CompletableFuture<>();
+    failure1.completeExceptionally(new IllegalStateException("1"));
+    CompletableFuture<Void> failure3 = new CompletableFuture<>();
+    failure3.completeExceptionally(new IllegalStateException("3"));
+    when(entity.pushNotification(any(), any()))
+        .thenReturn(failure1)
+        .thenReturn(CompletableFuture.completedFuture(null))
+        .thenReturn(failure3)
+        .thenReturn(CompletableFuture.completedFuture(null));
+    service.setPushBatching(scheduler, 1, TimeUnit.SECONDS, 10);
+    for (int i = 1; i <= 3; i++) {
+      service.pushNotification(new ContextualNotification(Context.empty(), String.valueOf(i)));
+    }
+
+    ArgumentCaptor<Runnable> flush = ArgumentCaptor.forClass(Runnable.class);
+    verify(scheduler).schedule(flush.capture(), anyLong(), any(TimeUnit.class));
+    flush.getValue().run();
+
+    assertThat(errors.size(), equalTo(2));
+    assertThat(errors.get(0).getMessage(), equalTo("1"));
+    assertThat(errors.get(1).getMessage(), equalTo("3"));
+
+    // a retry only sends its own notification again
+    ArgumentCaptor<ContextualNotification> sent = ArgumentCaptor.forClass(ContextualNotification.class);
+    failedOperations.get(1).retry();
+    verify(entity, times(4)).pushNotification(any(), sent.capture());
+    List<String> types = new ArrayList<>();
+    for (ContextualNotification notification : sent.getAllValues()) {
+      types.add(notification.getType());
+    }
+    assertThat(types, equalTo(Arrays.asList("1", "2", "3", "3")));
+  }
+
+  private static ContextualStatistics statistics() {
+    return new ContextualStatistics("capability", Context.empty(), Collections.emptyMap());
+  }
+}
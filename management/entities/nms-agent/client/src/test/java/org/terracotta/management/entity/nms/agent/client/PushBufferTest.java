@@ -0,0 +1,231 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.management.entity.nms.agent.client;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.terracotta.management.model.context.Context;
+import org.terracotta.management.model.notification.ContextualNotification;
+import org.terracotta.management.model.stats.ContextualStatistics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class PushBufferTest {
+
+  private final ScheduledExecutorService scheduler = mock(ScheduledExecutorService.class);
+  private final List<List<ContextualNotification>> sentNotifications = new ArrayList<>();
+  private final List<List<ContextualStatistics>> sentStatistics = new ArrayList<>();
+
+  private ExecutorService executor;
+
+  @Before
+  public void setUp() {
+    executor = Executors.newFixedThreadPool(4);
+  }
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void test_pushes_of_a_window_are_sent_in_one_batch() {
+    PushBuffer buffer = buffer(10);
+
+    buffer.offer(notification(0));
+    buffer.offer(statistics(1), statistics(2));
+    buffer.offer(notification(3));
+
+    // one flush scheduled at the end of the window, for the whole window
+    ArgumentCaptor<Runnable> flush = ArgumentCaptor.forClass(Runnable.class);
+    verify(scheduler).schedule(flush.capture(), eq(TimeUnit.MILLISECONDS.toNanos(100)), eq(TimeUnit.NANOSECONDS));
+    assertThat(sentNotifications.size(), equalTo(0));
+
+    flush.getValue().run();
+    assertThat(sentNotifications.size(), equalTo(1));
+    assertThat(types(sentNotifications.get(0)), equalTo(Arrays.asList("0", "3")));
+    assertThat(capabilities(sentStatistics.get(0)), equalTo(Arrays.asList("1", "2")));
+
+    // an empty window sends nothing
+    buffer.flush();
+    assertThat(sentNotifications.size(), equalTo(1));
+
+    // the next push opens a new window
+    buffer.offer(notification(4));
+    verify(scheduler, times(2)).schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
+    buffer.flush();
+    assertThat(types(sentNotifications.get(1)), equalTo(Collections.singletonList("4")));
+    assertThat(sentStatistics.get(1).size(), equalTo(0));
+  }
+
+  @Test
+  public void test_pushes_are_dropped_and_counted_at_capacity() {
+    PushBuffer buffer = buffer(3);
+
+    buffer.offer(notification(0));
+    buffer.offer(statistics(1));
+    // does not fit as a whole
+    buffer.offer(statistics(2), statistics(3));
+    buffer.offer(notification(4));
+    buffer.offer(notification(5));
+    buffer.offer(statistics(6));
+
+    assertThat(buffer.getDroppedNotificationCount(), equalTo(1L));
+    assertThat(buffer.getDroppedStatisticCount(), equalTo(3L));
+
+    buffer.flush();
+    assertThat(types(sentNotifications.get(0)), equalTo(Arrays.asList("0", "4")));
+    assertThat(capabilities(sentStatistics.get(0)), equalTo(Collections.singletonList("1")));
+
+    // room again once flushed, and the counters are kept
+    buffer.offer(notification(7));
+    buffer.flush();
+    assertThat(types(sentNotifications.get(1)), equalTo(Collections.singletonList("7")));
+    assertThat(buffer.getDroppedNotificationCount(), equalTo(1L));
+    assertThat(buffer.getDroppedStatisticCount(), equalTo(3L));
+  }
+
+  @Test
+  public void test_statistics_larger_than_the_capacity_are_sent_right_away() {
+    PushBuffer buffer = buffer(3);
+
+    buffer.offer(notification(0));
+    buffer.offer(statistics(1));
+    buffer.offer(statistics(2), statistics(3), statistics(4), statistics(5));
+
+    // sent in one batch after the pending pushes, and not dropped
+    assertThat(sentNotifications.size(), equalTo(1));
+    assertThat(types(sentNotifications.get(0)), equalTo(Collections.singletonList("0")));
+    assertThat(capabilities(sentStatistics.get(0)), equalTo(Arrays.asList("1", "2", "3", "4", "5")));
+    assertThat(buffer.getDroppedStatisticCount(), equalTo(0L));
+
+    // the buffer is empty again
+    buffer.offer(statistics(6));
+    buffer.flush();
+    assertThat(capabilities(sentStatistics.get(1)), equalTo(Collections.singletonList("6")));
+  }
+
+  @Test
+  public void test_batches_are_sent_in_order_whatever_the_flushing_thread() throws Exception {
+    int count = 5_000;
+    List<Integer> sent = Collections.synchronizedList(new ArrayList<>());
+    PushBuffer buffer = new PushBuffer(scheduler, 100, TimeUnit.MILLISECONDS, count, new Object(), (notifications, statistics) -> {
+      // a slow send, during which another thread could take and send the next batch
+      LockSupport.parkNanos(ThreadLocalRandom.current().nextInt(50_000));
+      for (ContextualNotification notification : notifications) {
+        sent.add(Integer.parseInt(notification.getType()));
+      }
+    });
+
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<?>> flushers = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      flushers.add(executor.submit(() -> {
+        start.await();
+        while (!Thread.currentThread().isInterrupted()) {
+          buffer.flush();
+        }
+        return null;
+      }));
+    }
+    start.countDown();
+    for (int i = 0; i < count; i++) {
+      buffer.offer(notification(i));
+      if (i % 10 == 0) {
+        // let the flushers take small batches
+        LockSupport.parkNanos(10_000);
+      }
+    }
+    for (Future<?> flusher : flushers) {
+      flusher.cancel(true);
+    }
+    executor.shutdown();
+    executor.awaitTermination(10, TimeUnit.SECONDS);
+    buffer.flush();
+
+    assertThat(sent.size(), equalTo(count));
+    for (int i = 0; i < count; i++) {
+      assertThat(sent.get(i), equalTo(i));
+    }
+  }
+
+  @Test
+  public void test_pushes_are_sent_right_away_when_the_scheduler_is_closed() {
+    ScheduledExecutorService closed = Executors.newSingleThreadScheduledExecutor();
+    closed.shutdown();
+    PushBuffer buffer = new PushBuffer(closed, 100, TimeUnit.MILLISECONDS, 10, new Object(), this::send);
+
+    buffer.offer(notification(0));
+
+    assertThat(types(sentNotifications.get(0)), equalTo(Collections.singletonList("0")));
+  }
+
+  private PushBuffer buffer(int capacity) {
+    return new PushBuffer(scheduler, 100, TimeUnit.MILLISECONDS, capacity, new Object(), this::send);
+  }
+
+  private void send(List<ContextualNotification> notifications, List<ContextualStatistics> statistics) {
+    sentNotifications.add(notifications);
+    sentStatistics.add(statistics);
+  }
+
+  private static ContextualNotification notification(int i) {
+    return new ContextualNotification(Context.empty(), String.valueOf(i));
+  }
+
+  private static ContextualStatistics statistics(int i) {
+    return new ContextualStatistics(String.valueOf(i), Context.empty(), Collections.emptyMap());
+  }
+
+  private static List<String> types(List<ContextualNotification> notifications) {
+    List<String> types = new ArrayList<>();
+    for (ContextualNotification notification : notifications) {
+      types.add(notification.getType());
+    }
+    return types;
+  }
+
+  private static List<String> capabilities(List<ContextualStatistics> statistics) {
+    List<String> capabilities = new ArrayList<>();
+    for (ContextualStatistics statistic : statistics) {
+      capabilities.add(statistic.getCapability());
+    }
+    return capabilities;
+  }
+}
@@ -16,14 +16,31 @@
  */
 package org.terracotta.management.model.context;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
 import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
+ * An immutable set of key-value pairs, kept in insertion order.
+ * <p>
+ * Entries are stored in parallel arrays with interned keys: contexts are small, so looking up a key is a short scan
+ * that mostly compares references. The hash code is computed once, and {@link #with(String, String)} or
+ * {@link #without(String)} return the same instance when they would not change anything.
+ *
  * @author Ludovic Orban
  * @author Mathieu Carbou
  */
@@ -31,29 +48,69 @@ public class Context extends AbstractMap<String, String> implements Serializable
 
   private static final long serialVersionUID = 1;
 
-  private final Map<String, String> back = new LinkedHashMap<>();
+  // same serialized form as when the entries were kept in a LinkedHashMap field
+  private static final ObjectStreamField[] serialPersistentFields = {new ObjectStreamField("back", Map.class)};
+
+  // context keys come from a small vocabulary, but interning is capped in case keys would be generated
+  private static final int MAX_INTERNED_KEYS = 4096;
+  private static final ConcurrentMap<String, String> KEYS = new ConcurrentHashMap<>();
+
+  private static final String[] NO_STRINGS = new String[0];
+  private static final Context EMPTY = new Context(NO_STRINGS, NO_STRINGS);
+
+  private final transient String[] keys;
+  private final transient String[] values;
+  private final transient int hash;
+  // only set on the instance being deserialized, which is resolved to a context created from these entries
+  private transient Map<String, String> back;
 
-  private Context(Map<String, String> back) {
-    this.back.putAll(back);
+  private Context(String[] keys, String[] values) {
+    this.keys = keys;
+    this.values = values;
+    // same hash as a map with the same entries
+    int h = 0;
+    for (int i = 0; i < keys.length; i++) {
+      h += keys[i].hashCode() ^ Objects.hashCode(values[i]);
+    }
+    this.hash = h;
   }
 
   public Map<String, String> toMap() {
-    return Collections.unmodifiableMap(back);
+    return Collections.unmodifiableMap(this);
   }
 
   public Context without(String key) {
-    Context context = new Context(back);
-    context.back.remove(key);
-    return context;
+    int idx = indexOf(key);
+    if (idx < 0) {
+      return this;
+    }
+    String[] k = new String[keys.length - 1];
+    String[] v = new String[keys.length - 1];
+    System.arraycopy(keys, 0, k, 0, idx);
+    System.arraycopy(values, 0, v, 0, idx);
+    System.arraycopy(keys, idx + 1, k, idx, k.length - idx);
+    System.arraycopy(values, idx + 1, v, idx, v.length - idx);
+    return new Context(k, v);
   }
 
   public Context with(String key, String val) {
     if (val == null) {
       throw new NullPointerException();
     }
-    Context context = new Context(back);
-    context.back.put(key, val);
-    return context;
+    int idx = indexOf(key);
+    if (idx >= 0) {
+      if (val.equals(values[idx])) {
+        return this;
+      }
+      String[] v = values.clone();
+      v[idx] = val;
+      return new Context(keys, v);
+    }
+    String[] k = Arrays.copyOf(keys, keys.length + 1);
+    String[] v = Arrays.copyOf(values, values.length + 1);
+    k[keys.length] = intern(key);
+    v[values.length] = val;
+    return new Context(k, v);
   }
 
   public Context with(Map<String, String> props) {
@@ -62,24 +119,78 @@ public class Context extends AbstractMap<String, String> implements Serializable
         throw new NullPointerException();
       }
     }
-    Context context = new Context(back);
-    context.back.putAll(props);
+    if (props instanceof Context) {
+      return with((Context) props);
+    }
+    Context context = this;
+    for (Entry<String, String> entry : props.entrySet()) {
+      context = context.with(entry.getKey(), entry.getValue());
+    }
+    return context;
+  }
+
+  private Context with(Context props) {
+    if (isEmpty()) {
+      return props;
+    }
+    Context context = this;
+    for (int i = 0; i < props.keys.length; i++) {
+      context = context.with(props.keys[i], props.values[i]);
+    }
     return context;
   }
 
   public String get(String key) {
-    return back.get(key);
+    int idx = indexOf(key);
+    return idx < 0 ? null : values[idx];
+  }
+
+  @Override
+  public String get(Object key) {
+    return key instanceof String ? get((String) key) : null;
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return key instanceof String && indexOf((String) key) >= 0;
   }
 
   public int size() {
-    return back.size();
+    return keys.length;
   }
 
-  public boolean isEmpty() {return back.isEmpty();}
+  public boolean isEmpty() {return keys.length == 0;}
 
   @Override
   public Set<Entry<String, String>> entrySet() {
-    return toMap().entrySet();
+    return new AbstractSet<Entry<String, String>>() {
+      @Override
+      public Iterator<Entry<String, String>> iterator() {
+        return new Iterator<Entry<String, String>>() {
+          int i;
+
+          @Override
+          public boolean hasNext() {
+            return i < keys.length;
+          }
+
+          @Override
+          public Entry<String, String> next() {
+            if (i >= keys.length) {
+              throw new NoSuchElementException();
+            }
+            Entry<String, String> entry = new SimpleImmutableEntry<>(keys[i], values[i]);
+            i++;
+            return entry;
+          }
+        };
+      }
+
+      @Override
+      public int size() {
+        return keys.length;
+      }
+    };
   }
 
   @Override
@@ -87,29 +198,101 @@ public class Context extends AbstractMap<String, String> implements Serializable
     if (this == o) return true;
     if (o == null || getClass() != o.getClass()) return false;
     Context context = (Context) o;
-    return back.equals(context.back);
+    return keys.length == context.keys.length && hashCode() == context.hashCode() && contains(context);
   }
 
   @Override
   public int hashCode() {
-    return back.hashCode();
+    return hash;
   }
 
   @Override
   public String toString() {
-    return back.toString();
+    StringBuilder sb = new StringBuilder("{");
+    for (int i = 0; i < keys.length; i++) {
+      if (i > 0) {
+        sb.append(", ");
+      }
+      sb.append(keys[i]).append('=').append(values[i]);
+    }
+    return sb.append('}').toString();
   }
 
   public boolean contains(Context subCtx) {
-    return back.entrySet().containsAll(subCtx.back.entrySet());
+    if (subCtx == this) {
+      return true;
+    }
+    if (subCtx.keys.length > keys.length) {
+      return false;
+    }
+    for (int i = 0; i < subCtx.keys.length; i++) {
+      int idx = indexOf(subCtx.keys[i]);
+      if (idx < 0 || !Objects.equals(values[idx], subCtx.values[i])) {
+        return false;
+      }
+    }
+    return true;
   }
 
   public boolean contains(String key) {
-    return back.containsKey(key);
+    return indexOf(key) >= 0;
   }
 
   public boolean contains(String key, String val) {
-    return back.containsKey(key) && back.get(key).equals(val);
+    int idx = indexOf(key);
+    return idx >= 0 && values[idx].equals(val);
+  }
+
+  private int indexOf(String key) {
+    String[] keys = this.keys;
+    // keys are interned so a reference comparison is usually enough
+    for (int i = 0; i < keys.length; i++) {
+      if (keys[i] == key) {
+        return i;
+      }
+    }
+    for (int i = 0; i < keys.length; i++) {
+      if (keys[i].equals(key)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private void writeObject(ObjectOutputStream out) throws IOException {
+    Map<String, String> back = new LinkedHashMap<>();
+    for (int i = 0; i < keys.length; i++) {
+      back.put(keys[i], values[i]);
+    }
+    ObjectOutputStream.PutField fields = out.putFields();
+    fields.put("back", back);
+    out.writeFields();
+  }
+
+  @SuppressWarnings("unchecked")
+  private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+    Map<String, String> back = (Map<String, String>) in.readFields().get("back", null);
+    if (back == null) {
+      throw new IOException("Invalid context: missing entries");
+    }
+    this.back = back;
+  }
+
+  private Object readResolve() {
+    return create(back);
+  }
+
+  private static String intern(String key) {
+    Objects.requireNonNull(key);
+    String interned = KEYS.get(key);
+    if (interned != null) {
+      return interned;
+    }
+    if (KEYS.size() >= MAX_INTERNED_KEYS) {
+      return key;
+    }
+    interned = KEYS.putIfAbsent(key, key);
+    return interned == null ? key : interned;
   }
 
   public static Context create(String key, String val) {
@@ -117,10 +300,24 @@ public class Context extends AbstractMap<String, String> implements Serializable
   }
 
   public static Context create(Map<String, String> map) {
-    return new Context(map);
+    if (map instanceof Context) {
+      return (Context) map;
+    }
+    if (map.isEmpty()) {
+      return EMPTY;
+    }
+    String[] k = new String[map.size()];
+    String[] v = new String[map.size()];
+    int i = 0;
+    for (Entry<String, String> entry : map.entrySet()) {
+      k[i] = intern(entry.getKey());
+      v[i] = entry.getValue();
+      i++;
+    }
+    return new Context(k, v);
   }
 
   public static Context empty() {
-    return new Context(Collections.<String, String>emptyMap());
+    return EMPTY;
   }
 }
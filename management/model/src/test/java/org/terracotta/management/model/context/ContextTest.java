@@ -0,0 +1,130 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.management.model.context;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+@RunWith(JUnit4.class)
+public class ContextTest {
+
+  // Context.create("consumerId", "1").with("alias", "cache-1").with("cacheName", "my-cache") serialized when the entries were kept in a LinkedHashMap
+  private static final String LEGACY_FORM = "rO0ABXNyAC9vcmcudGVycmFjb3R0YS5tYW5hZ2VtZW50Lm1vZGVsLmNvbnRleHQuQ29udGV4dAAAAAAAAAABAgABTAAEYmFja3QAD0xqYXZhL3V0aWwvTWFwO3hwc3IAF2phdmEudXRpbC5MaW5rZWRIYXNoTWFwNMBOXBBswPsCAAFaAAthY2Nlc3NPcmRlcnhyABFqYXZhLnV0aWwuSGFzaE1hcAUH2sHDFmDRAwACRgAKbG9hZEZhY3RvckkACXRocmVzaG9sZHhwP0AAAAAAAAN3CAAAAAQAAAADdAAKY29uc3VtZXJJZHQAATF0AAVhbGlhc3QAB2NhY2hlLTF0AAljYWNoZU5hbWV0AAhteS1jYWNoZXgA";
+
+  private final Context context = Context.create("consumerId", "1").with("alias", "cache-1").with("cacheName", "my-cache");
+
+  @Test
+  public void test_with_and_without() {
+    assertThat(context.size(), equalTo(3));
+    assertThat(context.get("alias"), equalTo("cache-1"));
+    assertThat(context.with("alias", "cache-2").get("alias"), equalTo("cache-2"));
+    assertThat(context.get("alias"), equalTo("cache-1"));
+    assertThat(context.without("alias").get("alias"), is(nullValue()));
+    assertThat(context.without("alias").size(), equalTo(2));
+
+    // no change
+    assertThat(context.with("alias", "cache-1"), sameInstance(context));
+    assertThat(context.without("unknown"), sameInstance(context));
+  }
+
+  @Test
+  public void test_insertion_order_is_kept() {
+    assertThat(context.toString(), equalTo("{consumerId=1, alias=cache-1, cacheName=my-cache}"));
+    assertThat(context.with("consumerId", "2").toString(), equalTo("{consumerId=2, alias=cache-1, cacheName=my-cache}"));
+    assertThat(context.without("alias").with("alias", "cache-1").toString(), equalTo("{consumerId=1, cacheName=my-cache, alias=cache-1}"));
+  }
+
+  @Test
+  public void test_equals_and_hashcode_of_a_map() {
+    Map<String, String> map = new HashMap<>();
+    map.put("cacheName", "my-cache");
+    map.put("alias", "cache-1");
+    map.put("consumerId", "1");
+
+    Context other = Context.create(map);
+    assertThat(other, equalTo(context));
+    assertThat(other.hashCode(), equalTo(context.hashCode()));
+    assertThat(context.hashCode(), equalTo(map.hashCode()));
+    assertThat(context.equals(other.with("alias", "cache-2")), is(false));
+    assertThat(context.equals(other.without("alias")), is(false));
+  }
+
+  @Test
+  public void test_contains() {
+    assertThat(context.contains(Context.empty()), is(true));
+    assertThat(context.contains(Context.create("alias", "cache-1").with("consumerId", "1")), is(true));
+    assertThat(context.contains(Context.create("alias", "cache-2")), is(false));
+    assertThat(context.contains(context.with("other", "value")), is(false));
+    // keys built at runtime are not the same references as the interned ones
+    assertThat(context.contains(new String(new char[]{'a', 'l', 'i', 'a', 's'}), "cache-1"), is(true));
+  }
+
+  @Test
+  public void test_serialization() throws Exception {
+    Context copy = copy(context);
+    assertThat(copy, equalTo(context));
+    assertThat(copy.toString(), equalTo(context.toString()));
+    assertThat(copy.hashCode(), equalTo(context.hashCode()));
+    assertThat(copy.get("alias"), equalTo("cache-1"));
+    assertThat(copy(Context.empty()), sameInstance(Context.empty()));
+  }
+
+  @Test
+  public void test_legacy_serialized_form() throws Exception {
+    try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(Base64.getDecoder().decode(LEGACY_FORM)))) {
+      Context legacy = (Context) in.readObject();
+      assertThat(legacy, equalTo(context));
+      assertThat(legacy.toString(), equalTo(context.toString()));
+    }
+  }
+
+  @Test
+  public void test_with_map() {
+    Map<String, String> props = new LinkedHashMap<>();
+    props.put("alias", "cache-2");
+    props.put("tier", "OnHeap");
+    assertThat(context.with(props).toString(), equalTo("{consumerId=1, alias=cache-2, cacheName=my-cache, tier=OnHeap}"));
+    assertThat(Context.empty().with(context), sameInstance(context));
+  }
+
+  private static Context copy(Context context) throws IOException, ClassNotFoundException {
+    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    try (ObjectOutputStream oos = new ObjectOutputStream(baos)) {
+      oos.writeObject(context);
+    }
+    try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(baos.toByteArray()))) {
+      return (Context) in.readObject();
+    }
+  }
+}
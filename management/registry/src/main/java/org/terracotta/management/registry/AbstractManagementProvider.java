@@ -50,6 +50,8 @@ public abstract class AbstractManagementProvider<T> implements ManagementProvide
   private final Class<? extends T> managedType;
   private final CapabilityContext capabilityContext;
 
+  private volatile long version = Versions.next();
+
   @SuppressFBWarnings("CT_CONSTRUCTOR_THROW")
   public AbstractManagementProvider(Class<? extends T> managedType) {
     this.managedType = managedType;
@@ -81,6 +83,7 @@ public abstract class AbstractManagementProvider<T> implements ManagementProvide
   public void register(T managedObject) {
     ExposedObject<T> exposedObject = wrap(managedObject);
     this.exposedObjects.add(exposedObject);
+    version = Versions.next();
   }
 
   @Override
@@ -88,6 +91,7 @@ public abstract class AbstractManagementProvider<T> implements ManagementProvide
     for (ExposedObject<T> exposedObject : exposedObjects) {
       if (exposedObject.getTarget().equals(managedObject)) {
         if (this.exposedObjects.remove(exposedObject)) {
+          version = Versions.next();
           dispose(exposedObject);
           return;
         }
@@ -100,6 +104,7 @@ public abstract class AbstractManagementProvider<T> implements ManagementProvide
     while (!exposedObjects.isEmpty()) {
       dispose(exposedObjects.poll());
     }
+    version = Versions.next();
   }
 
   @Override
@@ -158,6 +163,11 @@ public abstract class AbstractManagementProvider<T> implements ManagementProvide
   protected void dispose(ExposedObject<T> exposedObject) {
   }
 
+  @Override
+  public long getVersion() {
+    return version;
+  }
+
   @Override
   public Collection<ExposedObject<T>> getExposedObjects() {
     return exposedObjects;
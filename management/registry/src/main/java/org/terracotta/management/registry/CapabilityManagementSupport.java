@@ -49,4 +49,12 @@ public interface CapabilityManagementSupport {
   Collection<? extends Capability> getCapabilities();
 
   Collection<String> getCapabilityNames();
+
+  /**
+   * @return a version that increases each time a provider is added or removed, or an object is registered or
+   * unregistered in one of the providers, or {@link Versions#UNTRACKED} if this registry does not track its changes
+   */
+  default long getVersion() {
+    return Versions.UNTRACKED;
+  }
 }
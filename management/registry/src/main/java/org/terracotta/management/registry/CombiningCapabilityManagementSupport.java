@@ -70,6 +70,15 @@ public class CombiningCapabilityManagementSupport implements CapabilityManagemen
     return list;
   }
 
+  @Override
+  public long getVersion() {
+    long v = 0;
+    for (CapabilityManagementSupport capabilityManagementSupport : capabilityManagementSupports) {
+      v = Versions.combine(v, capabilityManagementSupport.getVersion());
+    }
+    return v;
+  }
+
   @Override
   public String toString() {
     final StringBuilder sb = new StringBuilder("CombiningCapabilityManagementSupport{");
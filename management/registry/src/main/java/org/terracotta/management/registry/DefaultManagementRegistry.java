@@ -42,6 +42,8 @@ public class DefaultManagementRegistry implements ManagementRegistry, Closeable
 
   protected final List<ManagementProvider<?>> managementProviders = new CopyOnWriteArrayList<>();
 
+  private volatile long version = Versions.next();
+
   public DefaultManagementRegistry() {
     this.context = Context.empty();
     this.contextContainer = null;
@@ -70,12 +72,16 @@ public class DefaultManagementRegistry implements ManagementRegistry, Closeable
         return false;
       }
     }
-    return managementProviders.add(provider);
+    boolean added = managementProviders.add(provider);
+    version = Versions.next();
+    return added;
   }
 
   @Override
   public void removeManagementProvider(ManagementProvider<?> provider) {
-    managementProviders.remove(provider);
+    if (managementProviders.remove(provider)) {
+      version = Versions.next();
+    }
   }
 
   @SuppressWarnings({"unchecked", "rawtypes"})
@@ -133,6 +139,15 @@ public class DefaultManagementRegistry implements ManagementRegistry, Closeable
     return allProviders;
   }
 
+  @Override
+  public long getVersion() {
+    long v = version;
+    for (ManagementProvider<?> provider : managementProviders) {
+      v = Versions.combine(v, provider.getVersion());
+    }
+    return v;
+  }
+
   @Override
   public ContextContainer getContextContainer() {
     return contextContainer;
@@ -152,6 +167,7 @@ public class DefaultManagementRegistry implements ManagementRegistry, Closeable
       }
       managementProviders.removeAll(providers);
     }
+    version = Versions.next();
   }
 
 }
@@ -28,6 +28,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.function.LongSupplier;
 
 import static java.util.stream.Collectors.toList;
@@ -73,4 +74,10 @@ public class DefaultStatisticsManagementProvider<T> extends AbstractManagementPr
     return StatisticRegistry.collect(exposedObject.getStatisticRegistry(), statisticNames, since);
   }
 
+  @Override
+  public Optional<StatisticRegistry> findStatisticRegistry(Context context) {
+    DefaultStatisticsExposedObject<T> exposedObject = (DefaultStatisticsExposedObject<T>) findExposedObject(context);
+    return exposedObject == null ? Optional.empty() : Optional.of(exposedObject.getStatisticRegistry());
+  }
+
 }
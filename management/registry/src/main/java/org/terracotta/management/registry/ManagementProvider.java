@@ -22,10 +22,12 @@ import org.terracotta.management.model.capabilities.context.CapabilityContext;
 import org.terracotta.management.model.capabilities.descriptors.Descriptor;
 import org.terracotta.management.model.context.Context;
 import org.terracotta.management.model.stats.Statistic;
+import org.terracotta.management.model.stats.StatisticRegistry;
 
 import java.io.Serializable;
 import java.util.Collection;
 import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.ExecutionException;
 
 /**
@@ -90,6 +92,17 @@ public interface ManagementProvider<T> {
    */
   Map<String, Statistic<? extends Serializable>> collectStatistics(Context context, Collection<String> statisticNames, long since);
 
+  /**
+   * Find the statistic registry backing the statistics of the given context, if the provider collects its statistics
+   * from a registry. This enables to resolve once the statistics of an exposed object and query them several times.
+   *
+   * @param context the context.
+   * @return the statistic registry of the exposed object supporting this context, if any
+   */
+  default Optional<StatisticRegistry> findStatisticRegistry(Context context) {
+    return Optional.empty();
+  }
+
   /**
    * Call an action, if the provider supports this.
    *
@@ -127,4 +140,12 @@ public interface ManagementProvider<T> {
   Collection<ExposedObject<T>> getExposedObjects();
 
   ExposedObject<T> findExposedObject(T managedObject);
+
+  /**
+   * @return a version that increases each time an object is registered or unregistered, or
+   * {@link Versions#UNTRACKED} if this provider does not track its changes
+   */
+  default long getVersion() {
+    return Versions.UNTRACKED;
+  }
 }
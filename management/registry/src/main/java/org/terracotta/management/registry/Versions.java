@@ -0,0 +1,49 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.management.registry;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Versions stamped on registries and providers when their exposed objects change.
+ * <p>
+ * All the versions are taken from the same sequence so that a registry composed of several parts can report the
+ * highest version of its parts: this version will increase whenever any of these parts changes.
+ */
+public final class Versions {
+
+  /**
+   * Version reported by a registry or a provider that does not track its changes
+   */
+  public static final long UNTRACKED = -1;
+
+  private static final AtomicLong SEQUENCE = new AtomicLong();
+
+  private Versions() {
+  }
+
+  public static long next() {
+    return SEQUENCE.incrementAndGet();
+  }
+
+  /**
+   * @return the highest of both versions, or {@link #UNTRACKED} if one of them is not tracked
+   */
+  public static long combine(long v1, long v2) {
+    return v1 == UNTRACKED || v2 == UNTRACKED ? UNTRACKED : Math.max(v1, v2);
+  }
+}
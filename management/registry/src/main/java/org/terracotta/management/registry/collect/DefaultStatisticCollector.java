@@ -18,19 +18,13 @@ package org.terracotta.management.registry.collect;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.terracotta.management.model.context.Context;
 import org.terracotta.management.model.stats.ContextualStatistics;
-import org.terracotta.management.registry.CapabilityManagement;
 import org.terracotta.management.registry.CapabilityManagementSupport;
-import org.terracotta.management.registry.ExposedObject;
-import org.terracotta.management.registry.ManagementProvider;
-import org.terracotta.management.registry.ResultSet;
+import org.terracotta.management.registry.Versions;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.LinkedHashSet;
 import java.util.Objects;
-import java.util.Set;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
@@ -51,6 +45,7 @@ public class DefaultStatisticCollector implements StatisticCollector {
   private ScheduledFuture<?> task;
   private long intervalMs;
   private volatile long lastCollectTime;
+  private volatile StatisticCollectionPlan plan;
 
   public DefaultStatisticCollector(final CapabilityManagementSupport managementRegistry,
                                    ScheduledExecutorService scheduledExecutorService,
@@ -65,34 +60,18 @@ public class DefaultStatisticCollector implements StatisticCollector {
     this.runnable = () -> {
       try {
         if (running) {
-          Collection<ContextualStatistics> statistics = new ArrayList<>();
-
-          for (String capabilityName : managementRegistry.getCapabilityNames()) {
-
-            Set<Context> allContexts = new LinkedHashSet<>();
-
-            for (ManagementProvider<?> managementProvider : managementRegistry.getManagementProvidersByCapability(capabilityName)) {
-              if (managementProvider.getClass().isAnnotationPresent(StatisticProvider.class)) {
-                for (ExposedObject<?> exposedObject : managementProvider.getExposedObjects()) {
-                  allContexts.add(exposedObject.getContext());
-                }
-              }
-            }
-
-            if (!allContexts.isEmpty()) {
-              CapabilityManagement capabilityManagement = managementRegistry.withCapability(capabilityName);
-              ResultSet<ContextualStatistics> resultSet = capabilityManagement
-                  .queryAllStatistics()
-                  .on(allContexts)
-                  .since(lastCollectTime)
-                  .build()
-                  .execute();
-              for (ContextualStatistics contextualStatistics : resultSet) {
-                statistics.add(contextualStatistics);
-              }
-            }
+          // the version is read before compiling so that any change happening during the compilation triggers a new one
+          long version = managementRegistry.getVersion();
+          StatisticCollectionPlan plan = this.plan;
+          if (plan == null || version == Versions.UNTRACKED || plan.getVersion() != version) {
+            plan = StatisticCollectionPlan.compile(managementRegistry, version);
+            this.plan = plan;
+            LOGGER.trace("Compiled statistic collection plan for {} contexts at version {}", plan.size(), version);
           }
 
+          Collection<ContextualStatistics> statistics = new ArrayList<>(plan.size());
+          plan.collect(lastCollectTime, statistics);
+
           if (running && !statistics.isEmpty()) {
             collector.onStatistics(statistics);
 
@@ -0,0 +1,143 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.management.registry.collect;
+
+import org.terracotta.management.model.context.Context;
+import org.terracotta.management.model.stats.ContextualStatistics;
+import org.terracotta.management.model.stats.StatisticRegistry;
+import org.terracotta.management.registry.CapabilityManagementSupport;
+import org.terracotta.management.registry.ExposedObject;
+import org.terracotta.management.registry.ManagementProvider;
+import org.terracotta.statistics.registry.Statistic;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.terracotta.management.model.stats.DelegatingStatistic.convertStats;
+
+/**
+ * The statistics to collect from a registry, resolved once per registry version.
+ * <p>
+ * Walking the capabilities, checking which providers are statistic providers and looking up the exposed objects
+ * matching each context is only done when the plan is compiled. Then, each collection only queries the resolved
+ * statistic sources.
+ */
+final class StatisticCollectionPlan {
+
+  private final long version;
+  private final List<Entry> entries;
+
+  private StatisticCollectionPlan(long version, List<Entry> entries) {
+    this.version = version;
+    this.entries = entries;
+  }
+
+  long getVersion() {
+    return version;
+  }
+
+  int size() {
+    return entries.size();
+  }
+
+  void collect(long since, Collection<ContextualStatistics> statistics) {
+    for (Entry entry : entries) {
+      statistics.add(entry.collect(since));
+    }
+  }
+
+  /**
+   * @param version the version of the registry, read before compiling the plan
+   */
+  static StatisticCollectionPlan compile(CapabilityManagementSupport registry, long version) {
+    List<Entry> entries = new ArrayList<>();
+
+    for (String capabilityName : registry.getCapabilityNames()) {
+      Collection<ManagementProvider<?>> providers = registry.getManagementProvidersByCapability(capabilityName);
+
+      Set<Context> allContexts = new LinkedHashSet<>();
+      for (ManagementProvider<?> managementProvider : providers) {
+        if (managementProvider.getClass().isAnnotationPresent(StatisticProvider.class)) {
+          for (ExposedObject<?> exposedObject : managementProvider.getExposedObjects()) {
+            allContexts.add(exposedObject.getContext());
+          }
+        }
+      }
+
+      for (Context context : allContexts) {
+        List<Source> sources = new ArrayList<>(1);
+        for (ManagementProvider<?> managementProvider : providers) {
+          if (managementProvider.supports(context)) {
+            sources.add(source(managementProvider, context));
+          }
+        }
+        entries.add(new Entry(capabilityName, context, sources.toArray(new Source[0])));
+      }
+    }
+
+    return new StatisticCollectionPlan(version, entries);
+  }
+
+  private static Source source(ManagementProvider<?> managementProvider, Context context) {
+    Optional<StatisticRegistry> statisticRegistry = managementProvider.findStatisticRegistry(context);
+    if (statisticRegistry.isPresent()) {
+      StatisticRegistry registry = statisticRegistry.get();
+      return (since, statistics) -> {
+        for (Map.Entry<String, Statistic<? extends Serializable>> e : registry.queryStatistics(since).entrySet()) {
+          if (!e.getValue().isEmpty()) {
+            statistics.put(e.getKey(), e.getValue());
+          }
+        }
+      };
+    }
+    return (since, statistics) -> managementProvider.collectStatistics(context, Collections.emptyList(), since)
+        .forEach((name, statistic) -> statistics.put(name, convertStats(statistic)));
+  }
+
+  @FunctionalInterface
+  private interface Source {
+    void collect(long since, Map<String, Statistic<? extends Serializable>> statistics);
+  }
+
+  private static final class Entry {
+    private final String capabilityName;
+    private final Context context;
+    private final Source[] sources;
+
+    Entry(String capabilityName, Context context, Source[] sources) {
+      this.capabilityName = capabilityName;
+      this.context = context;
+      this.sources = sources;
+    }
+
+    ContextualStatistics collect(long since) {
+      Map<String, Statistic<? extends Serializable>> statistics = sources.length == 0 ? Collections.emptyMap() : new HashMap<>();
+      for (Source source : sources) {
+        source.collect(since, statistics);
+      }
+      return new ContextualStatistics(capabilityName, context, statistics);
+    }
+  }
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.management.registry.collect;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.terracotta.management.model.context.Context;
+import org.terracotta.management.model.stats.ContextualStatistics;
+import org.terracotta.management.registry.DefaultManagementRegistry;
+import org.terracotta.management.registry.DefaultStatisticsExposedObject;
+import org.terracotta.management.registry.DefaultStatisticsManagementProvider;
+import org.terracotta.management.registry.Named;
+import org.terracotta.management.registry.RequiredContext;
+import org.terracotta.statistics.StatisticType;
+import org.terracotta.statistics.ValueStatistic;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+@RunWith(JUnit4.class)
+public class DefaultStatisticCollectorTest {
+
+  private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+  private final DefaultManagementRegistry registry = new DefaultManagementRegistry(Context.create("instanceId", "instance-0"));
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void test_version_changes_with_registry() {
+    registry.addManagementProvider(new MyStatisticsProvider());
+    long version = registry.getVersion();
+    assertThat(registry.getVersion(), equalTo(version));
+
+    MyCounter counter = new MyCounter("counter-1");
+    registry.register(counter);
+    assertThat(registry.getVersion() > version, is(true));
+
+    version = registry.getVersion();
+    registry.unregister(counter);
+    assertThat(registry.getVersion() > version, is(true));
+  }
+
+  @Test
+  public void test_plan_collects_registered_objects() {
+    registry.addManagementProvider(new MyStatisticsProvider());
+    MyCounter counter1 = new MyCounter("counter-1");
+    MyCounter counter2 = new MyCounter("counter-2");
+    registry.register(counter1);
+    registry.register(counter2);
+    counter1.count.set(1);
+    counter2.count.set(2);
+
+    StatisticCollectionPlan plan = StatisticCollectionPlan.compile(registry, registry.getVersion());
+    assertThat(plan.size(), equalTo(2));
+
+    List<ContextualStatistics> statistics = new ArrayList<>();
+    plan.collect(0, statistics);
+    assertThat(statistics.size(), equalTo(2));
+    assertThat(statistics.get(0).getCapability(), equalTo("MyStatistics"));
+    assertThat(statistics.get(0).getContext().get("counterName"), equalTo("counter-1"));
+    assertThat(statistics.get(0).<Long>getLatestSampleValue("Count").get(), equalTo(1L));
+    assertThat(statistics.get(1).<Long>getLatestSampleValue("Count").get(), equalTo(2L));
+
+    // the plan reads the current values without being compiled again
+    counter1.count.set(10);
+    statistics.clear();
+    plan.collect(0, statistics);
+    assertThat(statistics.get(0).<Long>getLatestSampleValue("Count").get(), equalTo(10L));
+  }
+
+  @Test
+  public void test_collector_recompiles_plan_on_change() throws InterruptedException {
+    registry.addManagementProvider(new MyStatisticsProvider());
+    registry.register(new MyCounter("counter-1"));
+
+    BlockingQueue<Collection<ContextualStatistics>> collected = new LinkedBlockingQueue<>();
+    DefaultStatisticCollector collector = new DefaultStatisticCollector(registry, executor, collected::add, System::currentTimeMillis);
+    collector.startStatisticCollector(10, TimeUnit.MILLISECONDS);
+
+    Collection<ContextualStatistics> statistics = collected.poll(10, TimeUnit.SECONDS);
+    assertThat(statistics, is(notNullValue()));
+    assertThat(statistics.size(), equalTo(1));
+
+    registry.register(new MyCounter("counter-2"));
+
+    do {
+      statistics = collected.poll(10, TimeUnit.SECONDS);
+      assertThat(statistics, is(notNullValue()));
+    } while (statistics.size() == 1);
+    assertThat(statistics.size(), equalTo(2));
+
+    collector.stopStatisticCollector();
+    assertThat(collector.isRunning(), is(not(true)));
+  }
+
+  public static class MyCounter {
+    final String name;
+    final AtomicLong count = new AtomicLong();
+
+    MyCounter(String name) {
+      this.name = name;
+    }
+  }
+
+  @Named("MyStatistics")
+  @RequiredContext({@Named("instanceId"), @Named("counterName")})
+  static class MyStatisticsProvider extends DefaultStatisticsManagementProvider<MyCounter> {
+    MyStatisticsProvider() {
+      super(MyCounter.class, System::currentTimeMillis, Context.create("instanceId", "instance-0"));
+    }
+
+    @Override
+    protected DefaultStatisticsExposedObject<MyCounter> wrap(MyCounter counter) {
+      DefaultStatisticsExposedObject<MyCounter> exposedObject = new DefaultStatisticsExposedObject<>(counter, timeSource, parentContext.with("counterName", counter.name));
+      exposedObject.getStatisticRegistry().registerStatistic("Count", new ValueStatistic<Long>() {
+        @Override
+        public Long value() {
+          return counter.count.get();
+        }
+
+        @Override
+        public StatisticType type() {
+          return StatisticType.COUNTER;
+        }
+      });
+      return exposedObject;
+    }
+  }
+}
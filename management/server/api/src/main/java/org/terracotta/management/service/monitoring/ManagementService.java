@@ -17,12 +17,15 @@
 package org.terracotta.management.service.monitoring;
 
 import java.io.Closeable;
+import java.util.List;
+import java.util.Optional;
 
 import org.terracotta.entity.ClientDescriptor;
 import org.terracotta.entity.CommonServerEntity;
 import org.terracotta.management.model.call.Parameter;
 import org.terracotta.management.model.cluster.Cluster;
 import org.terracotta.management.model.context.Context;
+import org.terracotta.management.model.notification.ContextualNotification;
 
 /**
  * Class used by the active NMS Entity to monitor the stripe and send management calls
@@ -42,6 +45,22 @@ public interface ManagementService extends Closeable {
    */
   Cluster readTopology();
 
+  /**
+   * @return the current topology with its version. Reading the topology several times without any topology change in
+   * between returns the same snapshot, without copying it again.
+   * <p>
+   * Can be called from active entity only
+   */
+  TopologySnapshot readTopologySnapshot();
+
+  /**
+   * @return the topology notifications that happened after the given version, in order, or an empty optional if they
+   * are not available anymore, in which case a full snapshot must be read again.
+   * <p>
+   * Can be called from active entity only
+   */
+  Optional<List<ContextualNotification>> readTopologyChangesSince(long version);
+
   /**
    * Request a management call from an entity client to another client of the same entity
    * <p>
@@ -0,0 +1,52 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.management.service.monitoring;
+
+import org.terracotta.management.model.cluster.Cluster;
+
+/**
+ * A published, read-only version of the stripe topology.
+ * <p>
+ * A new snapshot is only produced when the topology changes: reading the same version several times returns the same
+ * instance, so the cluster held by a snapshot must never be mutated.
+ */
+public final class TopologySnapshot {
+
+  private final long version;
+  private final Cluster cluster;
+
+  public TopologySnapshot(long version, Cluster cluster) {
+    this.version = version;
+    this.cluster = cluster;
+  }
+
+  /**
+   * @return the topology version this snapshot has been taken at. Versions are increasing for a given server.
+   */
+  public long getVersion() {
+    return version;
+  }
+
+  public Cluster getCluster() {
+    return cluster;
+  }
+
+  @Override
+  public String toString() {
+    return "TopologySnapshot{version=" + version + '}';
+  }
+}
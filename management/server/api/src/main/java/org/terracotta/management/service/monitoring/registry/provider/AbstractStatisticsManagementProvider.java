@@ -31,6 +31,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 @RequiredContext({@Named("consumerId")})
 public abstract class AbstractStatisticsManagementProvider<T extends AliasBinding> extends AliasBindingManagementProvider<T> {
@@ -63,6 +64,12 @@ public abstract class AbstractStatisticsManagementProvider<T extends AliasBindin
     return StatisticRegistry.collect(exposedObject.getStatisticRegistry(), statisticNames, since);
   }
 
+  @Override
+  public Optional<StatisticRegistry> findStatisticRegistry(Context context) {
+    AbstractExposedStatistics<T> exposedObject = (AbstractExposedStatistics<T>) findExposedObject(context);
+    return exposedObject == null ? Optional.empty() : Optional.of(exposedObject.getStatisticRegistry());
+  }
+
   @Override
   protected AbstractExposedStatistics<T> wrap(T managedObject) {
     Context context = Context.empty()
@@ -25,6 +25,7 @@ import org.terracotta.management.registry.CapabilityManagement;
 import org.terracotta.management.registry.DefaultCapabilityManagement;
 import org.terracotta.management.registry.ExposedObject;
 import org.terracotta.management.registry.ManagementProvider;
+import org.terracotta.management.registry.Versions;
 import org.terracotta.management.sequence.TimeSource;
 import org.terracotta.management.service.monitoring.registry.provider.AbstractEntityManagementProvider;
 import org.terracotta.management.service.monitoring.registry.provider.MonitoringServiceAware;
@@ -56,6 +57,7 @@ class DefaultEntityManagementRegistry implements EntityManagementRegistry, Topol
   private final CompletableFuture<?> onEntityCreated = new CompletableFuture<>();
   private final CompletableFuture<?> onClose = new CompletableFuture<>();
   private volatile boolean closed;
+  private volatile long version = Versions.next();
 
   DefaultEntityManagementRegistry(long consumerId, EntityMonitoringService monitoringService, TimeSource timeSource) {
     this.contextContainer = new ContextContainer("consumerId", String.valueOf(consumerId));
@@ -96,6 +98,7 @@ class DefaultEntityManagementRegistry implements EntityManagementRegistry, Topol
       }
     }
     boolean added = managementProviders.add(provider);
+    version = Versions.next();
     if (added) {
       if (provider instanceof MonitoringServiceAware) {
         ((MonitoringServiceAware) provider).setMonitoringService(monitoringService);
@@ -107,7 +110,9 @@ class DefaultEntityManagementRegistry implements EntityManagementRegistry, Topol
 
   @Override
   public void removeManagementProvider(ManagementProvider<?> provider) {
-    managementProviders.remove(provider);
+    if (managementProviders.remove(provider)) {
+      version = Versions.next();
+    }
   }
 
   @Override
@@ -145,6 +150,15 @@ class DefaultEntityManagementRegistry implements EntityManagementRegistry, Topol
     return allProviders;
   }
 
+  @Override
+  public long getVersion() {
+    long v = version;
+    for (ManagementProvider<?> provider : managementProviders) {
+      v = Versions.combine(v, provider.getVersion());
+    }
+    return v;
+  }
+
   @SuppressWarnings({"unchecked", "rawtypes"})
   @Override
   public CompletableFuture<Void> register(Object managedObject) {
@@ -19,14 +19,19 @@ package org.terracotta.management.service.monitoring;
 import org.terracotta.management.model.call.ContextualCall;
 import org.terracotta.management.model.call.ContextualReturn;
 import org.terracotta.management.model.cluster.Client;
+import org.terracotta.management.model.context.Context;
 import org.terracotta.management.model.message.DefaultManagementCallMessage;
 import org.terracotta.management.model.message.DefaultMessage;
 import org.terracotta.management.model.notification.ContextualNotification;
 import org.terracotta.management.model.stats.ContextualStatistics;
 import org.terracotta.management.sequence.SequenceGenerator;
 
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
@@ -36,6 +41,8 @@ class DefaultFiringService implements FiringService {
 
   private final SequenceGenerator sequenceGenerator;
   private final List<DefaultManagementService> managementServices = new CopyOnWriteArrayList<>();
+  // management services indexed by their consumer id, which is the collector id marking the statistics they collect
+  private final Map<String, List<DefaultManagementService>> managementServicesByCollectorId = new ConcurrentHashMap<>();
   private final List<DefaultClientMonitoringService> clientMonitoringServices = new CopyOnWriteArrayList<>();
 
   DefaultFiringService(SequenceGenerator sequenceGenerator) {
@@ -51,7 +58,46 @@ class DefaultFiringService implements FiringService {
   @Override
   public void fireStatistics(ContextualStatistics[] statistics) {
     DefaultMessage message = new DefaultMessage(sequenceGenerator.next(), "STATISTICS", statistics);
-    managementServices.forEach(managementService -> managementService.onMessageToSend(message));
+
+    // The statistic collector of a NMS entity collects all statistics from the shared management registry (entities)
+    // plus its own management entity, and marks them with its collector id.
+    // Such statistics are only routed to the management services of the same NMS entity.
+    // Client statistics are routed to all management services.
+    String collectorId = null;
+    Collection<String> collectorIds = null;
+    for (ContextualStatistics statistic : statistics) {
+      Context context = statistic.getContext();
+      if (context.contains(Client.KEY)) {
+        managementServices.forEach(managementService -> managementService.onMessageToSend(message));
+        return;
+      }
+      String id = context.get(DefaultStatisticService.COLLECTOR_ID);
+      if (id == null || id.equals(collectorId)) {
+        continue;
+      }
+      if (collectorId == null) {
+        collectorId = id;
+      } else {
+        if (collectorIds == null) {
+          collectorIds = new HashSet<>();
+          collectorIds.add(collectorId);
+        }
+        collectorIds.add(id);
+      }
+    }
+
+    if (collectorIds != null) {
+      collectorIds.forEach(id -> fireStatistics(id, message));
+    } else if (collectorId != null) {
+      fireStatistics(collectorId, message);
+    }
+  }
+
+  private void fireStatistics(String collectorId, DefaultMessage message) {
+    List<DefaultManagementService> services = managementServicesByCollectorId.get(collectorId);
+    if (services != null) {
+      services.forEach(managementService -> managementService.onMessageToSend(message));
+    }
   }
 
   @Override
@@ -80,9 +126,20 @@ class DefaultFiringService implements FiringService {
 
   void addManagementService(DefaultManagementService managementService) {
     managementServices.add(managementService);
+    managementServicesByCollectorId.compute(String.valueOf(managementService.getConsumerId()), (id, services) -> {
+      if (services == null) {
+        services = new CopyOnWriteArrayList<>();
+      }
+      services.add(managementService);
+      return services;
+    });
   }
 
   void removeManagementService(DefaultManagementService managementService) {
     managementServices.remove(managementService);
+    managementServicesByCollectorId.computeIfPresent(String.valueOf(managementService.getConsumerId()), (id, services) -> {
+      services.remove(managementService);
+      return services.isEmpty() ? null : services;
+    });
   }
 }
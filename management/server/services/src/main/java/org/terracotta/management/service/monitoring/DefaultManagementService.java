@@ -27,17 +27,17 @@ import org.terracotta.management.model.cluster.Cluster;
 import org.terracotta.management.model.cluster.Server;
 import org.terracotta.management.model.cluster.ServerEntity;
 import org.terracotta.management.model.context.Context;
-import org.terracotta.management.model.context.Contextual;
 import org.terracotta.management.model.message.ManagementCallMessage;
 import org.terracotta.management.model.message.Message;
+import org.terracotta.management.model.notification.ContextualNotification;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentSkipListSet;
 
 /**
  * @author Mathieu Carbou
@@ -50,6 +50,8 @@ class DefaultManagementService implements ManagementService, TopologyEventListen
   private final DefaultFiringService firingService;
   private final TopologyService topologyService;
   private final Map<ClientDescriptor, Collection<String>> managementCallRequests = new ConcurrentHashMap<>();
+  // reverse index of managementCallRequests, so that routing a call or its answer does not scan every client
+  private final Map<String, ClientDescriptor> managementCallCallers = new ConcurrentHashMap<>();
 
   private volatile ManagementExecutor managementExecutor;
 
@@ -71,7 +73,19 @@ class DefaultManagementService implements ManagementService, TopologyEventListen
   @Override
   public Cluster readTopology() {
     LOGGER.trace("[{}] readTopology()", consumerId);
-    return topologyService.getClusterCopy();
+    return topologyService.getTopologySnapshot().getCluster();
+  }
+
+  @Override
+  public TopologySnapshot readTopologySnapshot() {
+    LOGGER.trace("[{}] readTopologySnapshot()", consumerId);
+    return topologyService.getTopologySnapshot();
+  }
+
+  @Override
+  public Optional<List<ContextualNotification>> readTopologyChangesSince(long version) {
+    LOGGER.trace("[{}] readTopologyChangesSince({})", consumerId, version);
+    return topologyService.getTopologyChangesSince(version);
   }
 
   @Override
@@ -115,13 +129,16 @@ class DefaultManagementService implements ManagementService, TopologyEventListen
   public void onBecomeActive(String serverName) {
     LOGGER.trace("[{}] onBecomeActive()", this.consumerId);
     managementCallRequests.clear();
+    managementCallCallers.clear();
   }
 
   @Override
   public void onUnfetch(long consumerId, ClientDescriptor clientDescriptor) {
     if (consumerId == this.consumerId) {
-      if (managementCallRequests.remove(clientDescriptor) != null) {
+      Collection<String> managementCallIdentifiers = managementCallRequests.remove(clientDescriptor);
+      if (managementCallIdentifiers != null) {
         LOGGER.trace("[{}] onUnfetch({})", this.consumerId, clientDescriptor);
+        managementCallIdentifiers.forEach(managementCallCallers::remove);
       }
     }
   }
@@ -136,18 +153,10 @@ class DefaultManagementService implements ManagementService, TopologyEventListen
         break;
 
       case "STATISTICS":
+        // statistics are routed by the firing service to the management services having the same consumerId as
+        // the collector (same NMS entity), or to all of them for client statistics
         if (managementExecutor != null) {
-          String cid = "" + consumerId;
-          // The statistic collector collects all statistics from the shared management registry (entities)
-          // plus 1 management entity (which contains this collector).
-          // Here, we only accept groups of stats that are collected by the collector that have the same
-          // consumerId (same NMS entity)
-          boolean accepted = message.unwrap(Contextual.class).stream()
-              .map(Contextual::getContext)
-              .anyMatch(context -> context.contains(Client.KEY) || context.contains("collectorId", cid));
-          if (accepted) {
-            managementExecutor.sendMessageToClients(message);
-          }
+          managementExecutor.sendMessageToClients(message);
         }
         break;
 
@@ -176,34 +185,38 @@ class DefaultManagementService implements ManagementService, TopologyEventListen
     }
   }
 
+  long getConsumerId() {
+    return consumerId;
+  }
+
   private void track(ClientDescriptor caller, String managementCallIdentifier) {
     managementCallRequests
-        .computeIfAbsent(caller, clientDescriptor -> new ConcurrentSkipListSet<>())
+        .computeIfAbsent(caller, clientDescriptor -> ConcurrentHashMap.newKeySet())
         .add(managementCallIdentifier);
+    managementCallCallers.put(managementCallIdentifier, caller);
   }
 
   private Optional<ClientDescriptor> unTrack(String managementCallIdentifier) {
-    for (Map.Entry<ClientDescriptor, Collection<String>> entry : managementCallRequests.entrySet()) {
-      if (entry.getValue().remove(managementCallIdentifier)) {
-        return Optional.of(entry.getKey());
-      }
+    ClientDescriptor caller = managementCallCallers.remove(managementCallIdentifier);
+    if (caller == null) {
+      return Optional.empty();
     }
-    return Optional.empty();
+    Collection<String> managementCallIdentifiers = managementCallRequests.get(caller);
+    if (managementCallIdentifiers != null) {
+      managementCallIdentifiers.remove(managementCallIdentifier);
+    }
+    return Optional.of(caller);
   }
 
   private boolean isTracked(String managementCallIdentifier) {
-    for (Map.Entry<ClientDescriptor, Collection<String>> entry : managementCallRequests.entrySet()) {
-      if (entry.getValue().contains(managementCallIdentifier)) {
-        return true;
-      }
-    }
-    return false;
+    return managementCallCallers.containsKey(managementCallIdentifier);
   }
 
   @Override
   public void close() {
     LOGGER.info("[{}] Closing management service", this.consumerId);
     managementCallRequests.clear();
+    managementCallCallers.clear();
     topologyService.removeTopologyEventListener(this);
     firingService.removeManagementService(this);
   }
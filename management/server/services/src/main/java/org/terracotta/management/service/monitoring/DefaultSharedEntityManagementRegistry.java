@@ -23,6 +23,7 @@ import org.terracotta.management.model.context.ContextContainer;
 import org.terracotta.management.registry.CapabilityManagement;
 import org.terracotta.management.registry.DefaultCapabilityManagement;
 import org.terracotta.management.registry.ManagementProvider;
+import org.terracotta.management.registry.Versions;
 
 import java.util.Collection;
 import java.util.Comparator;
@@ -44,6 +45,7 @@ class DefaultSharedEntityManagementRegistry implements SharedEntityManagementReg
 
   private final List<EntityManagementRegistry> serverRegistries = new CopyOnWriteArrayList<>();
   private final List<EntityManagementRegistry> entityRegistries = new CopyOnWriteArrayList<>();
+  private volatile long version = Versions.next();
 
   @Override
   public Collection<ContextContainer> getContextContainers() {
@@ -79,6 +81,15 @@ class DefaultSharedEntityManagementRegistry implements SharedEntityManagementReg
         .collect(Collectors.toCollection(TreeSet::new));
   }
 
+  @Override
+  public long getVersion() {
+    long v = version;
+    for (EntityManagementRegistry registry : entityRegistries) {
+      v = Versions.combine(v, registry.getVersion());
+    }
+    return v;
+  }
+
   /**
    * Returns the existing registry having the SAME consumerId that is not the added one
    */
@@ -87,6 +98,7 @@ class DefaultSharedEntityManagementRegistry implements SharedEntityManagementReg
     boolean active = entityManagementRegistry.getMonitoringService().isActiveEntityService();
     LOGGER.trace("[{}] addEntityManagementRegistry() active={}", consumerId, active);
     entityRegistries.add(entityManagementRegistry);
+    version = Versions.next();
     return entityRegistries.stream()
         .filter(existing -> existing != entityManagementRegistry && existing.getMonitoringService().getConsumerId() == consumerId)
         .findAny();
@@ -97,6 +109,7 @@ class DefaultSharedEntityManagementRegistry implements SharedEntityManagementReg
     boolean active = managementRegistry.getMonitoringService().isActiveEntityService();
     LOGGER.trace("[{}] removeEntityManagementRegistry() active={}", consumerId, active);
     entityRegistries.remove(managementRegistry);
+    version = Versions.next();
   }
 
   Optional<EntityManagementRegistry> addServerManagementRegistry(EntityManagementRegistry serverManagementRegistry) {
@@ -44,6 +44,9 @@ class DefaultStatisticService implements StatisticService, Closeable {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(DefaultStatisticService.class);
 
+  // context key marking the statistics with the consumer id of the NMS entity having collected them
+  static final String COLLECTOR_ID = "collectorId";
+
   private static final AtomicLong managementSchedulerCount = new AtomicLong();
 
   private final ScheduledExecutorService managementScheduler = Executors.unconfigurableScheduledExecutorService(new ScheduledThreadPoolExecutor(
@@ -88,7 +91,7 @@ class DefaultStatisticService implements StatisticService, Closeable {
         managementScheduler,
         list -> {
           // Add a marker on the statistics to know which statistics collector has collected them (from which NMS entity)
-          list.forEach(stats -> stats.setContext(stats.getContext().with("collectorId", "" + consumerId)));
+          list.forEach(stats -> stats.setContext(stats.getContext().with(COLLECTOR_ID, "" + consumerId)));
           monitoringService.pushStatistics(list.toArray(new ContextualStatistics[0]));
         },
         timeSource::getTimestamp
@@ -44,8 +44,11 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -57,6 +60,7 @@ import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -77,6 +81,7 @@ import static org.terracotta.management.service.monitoring.Notification.SERVER_S
 class TopologyService implements PlatformListener {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(TopologyService.class);
+  private static final int HISTORY_SIZE = Integer.getInteger("terracotta.management.topology.history", 1024);
 
   private final Cluster cluster;
   private final Stripe stripe;
@@ -88,9 +93,24 @@ class TopologyService implements PlatformListener {
   private final PlatformConfiguration platformConfiguration;
   private final List<TopologyEventListener> topologyEventListeners = new CopyOnWriteArrayList<>();
 
+  // bumped after each topology mutation: a snapshot is only copied once per version, then shared by all readers
+  private final AtomicLong version = new AtomicLong();
+  // last topology changes, used to compute a delta between 2 versions instead of copying the whole topology
+  private final Deque<TopologyChange> changes = new ArrayDeque<>();
+  private final int historySize;
+
   private volatile Server currentActive;
+  private volatile TopologySnapshot snapshot = new TopologySnapshot(-1, null);
 
   TopologyService(FiringService firingService, PlatformConfiguration platformConfiguration) {
+    this(firingService, platformConfiguration, HISTORY_SIZE);
+  }
+
+  TopologyService(FiringService firingService, PlatformConfiguration platformConfiguration, int historySize) {
+    if (historySize < 0) {
+      throw new IllegalArgumentException("Invalid topology history size: " + historySize);
+    }
+    this.historySize = historySize;
     this.firingService = Objects.requireNonNull(firingService);
     this.platformConfiguration = platformConfiguration;
     this.cluster = new Cluster();
@@ -135,7 +155,7 @@ class TopologyService implements PlatformListener {
       attrs.put("buildId", server.getBuildId());
       attrs.put("state", server.getState().toString());
 
-      firingService.fireNotification(new ContextualNotification(server.getContext(), SERVER_JOINED.name(), attrs));
+      fireTopologyChange(new ContextualNotification(server.getContext(), SERVER_JOINED.name(), attrs));
 
       serverStateChanged(self, new ServerState("ACTIVE", now, now));
     }
@@ -165,7 +185,7 @@ class TopologyService implements PlatformListener {
       attrs.put("buildId", server.getBuildId());
       attrs.put("state", server.getState().toString());
 
-      firingService.fireNotification(new ContextualNotification(server.getContext(), SERVER_JOINED.name(), attrs));
+      fireTopologyChange(new ContextualNotification(server.getContext(), SERVER_JOINED.name(), attrs));
     }
   }
 
@@ -187,7 +207,7 @@ class TopologyService implements PlatformListener {
       attrs.put("buildId", null);
       attrs.put("state", server.getState().toString());
 
-      firingService.fireNotification(new ContextualNotification(context, SERVER_LEFT.name(), attrs));
+      fireTopologyChange(new ContextualNotification(context, SERVER_LEFT.name(), attrs));
     });
   }
 
@@ -211,7 +231,7 @@ class TopologyService implements PlatformListener {
         ServerEntity entity = ServerEntity.create(identifier).setConsumerId(platformEntity.consumerID);
 
         if (server.addServerEntity(entity)) {
-          firingService.fireNotification(new ContextualNotification(entity.getContext(), SERVER_ENTITY_CREATED.name()));
+          fireTopologyChange(new ContextualNotification(entity.getContext(), SERVER_ENTITY_CREATED.name()));
 
           whenServerEntity(platformEntity.consumerID, sender.getServerName()).complete(entity);
 
@@ -267,7 +287,7 @@ class TopologyService implements PlatformListener {
             topologyEventListeners.forEach(listener -> listener.onEntityDestroyed(platformEntity.consumerID));
           }
 
-          firingService.fireNotification(new ContextualNotification(context, SERVER_ENTITY_DESTROYED.name()));
+          fireTopologyChange(new ContextualNotification(context, SERVER_ENTITY_DESTROYED.name()));
         });
     }
   }
@@ -286,7 +306,7 @@ class TopologyService implements PlatformListener {
             cluster.addClient(client);
 
             if (client.addConnection(Connection.create(clientIdentifier.getConnectionUid(), getActiveServer(), endpoint))) {
-                firingService.fireNotification(new ContextualNotification(server.getContext(), CLIENT_CONNECTED.name(), client.getContext()));
+                fireTopologyChange(new ContextualNotification(server.getContext(), CLIENT_CONNECTED.name(), client.getContext()));
             }
         });
     }
@@ -303,7 +323,7 @@ class TopologyService implements PlatformListener {
             cluster.getClient(clientIdentifier)
               .ifPresent(client -> {
                 client.addProperty(key, value);
-                  firingService.fireNotification(new ContextualNotification(client.getContext(), Notification.CLIENT_PROPERTY_ADDED.name(), Collections.singletonMap(key, value)));
+                  fireTopologyChange(new ContextualNotification(client.getContext(), Notification.CLIENT_PROPERTY_ADDED.name(), Collections.singletonMap(key, value)));
               });
         });
     }
@@ -321,7 +341,7 @@ class TopologyService implements PlatformListener {
               .ifPresent(client -> {
                 Context clientContext = client.getContext();
                 client.remove();
-                  firingService.fireNotification(new ContextualNotification(server.getContext(), CLIENT_DISCONNECTED.name(), clientContext));
+                  fireTopologyChange(new ContextualNotification(server.getContext(), CLIENT_DISCONNECTED.name(), clientContext));
               });
         });
     }
@@ -340,7 +360,7 @@ class TopologyService implements PlatformListener {
         .ifPresent(connection -> currentActive.getServerEntity(platformEntity.name, platformEntity.typeName)
           .ifPresent(entity -> {
             connection.fetchServerEntity(platformEntity.name, platformEntity.typeName);
-            firingService.fireNotification(new ContextualNotification(entity.getContext(), SERVER_ENTITY_FETCHED.name(), client.getContext()));
+            fireTopologyChange(new ContextualNotification(entity.getContext(), SERVER_ENTITY_FETCHED.name(), client.getContext()));
             whenFetchClient(platformEntity.consumerID, clientDescriptor).complete(client);
             topologyEventListeners.forEach(listener -> listener.onFetch(platformEntity.consumerID, clientDescriptor));
           })));
@@ -362,7 +382,7 @@ class TopologyService implements PlatformListener {
             .ifPresent(connection -> {
               entityFetches.get(platformEntity.consumerID).remove(clientDescriptor);
               if (connection.unfetchServerEntity(platformEntity.name, platformEntity.typeName)) {
-                firingService.fireNotification(new ContextualNotification(entity.getContext(), SERVER_ENTITY_UNFETCHED.name(), client.getContext()));
+                fireTopologyChange(new ContextualNotification(entity.getContext(), SERVER_ENTITY_UNFETCHED.name(), client.getContext()));
               }
               topologyEventListeners.forEach(listener -> listener.onUnfetch(platformEntity.consumerID, clientDescriptor));
             })));
@@ -397,7 +417,7 @@ class TopologyService implements PlatformListener {
         server.setBuildId(null).setVersion(null);
       }
 
-      firingService.fireNotification(new ContextualNotification(server.getContext(), SERVER_STATE_CHANGED.name(), attrs));
+      fireTopologyChange(new ContextualNotification(server.getContext(), SERVER_STATE_CHANGED.name(), attrs));
     });
   }
 
@@ -440,7 +460,7 @@ class TopologyService implements PlatformListener {
     whenFetchClient(consumerId, clientDescriptor).executeOrDelay("client-registry", client -> {
       if (!newRegistry.equals(client.getManagementRegistry().orElse(null))) {
         client.setManagementRegistry(newRegistry);
-        firingService.fireNotification(new ContextualNotification(client.getContext(), Notification.CLIENT_REGISTRY_AVAILABLE.name()));
+        fireTopologyChange(new ContextualNotification(client.getContext(), Notification.CLIENT_REGISTRY_AVAILABLE.name()));
       }
     });
   }
@@ -456,7 +476,7 @@ class TopologyService implements PlatformListener {
       Set<String> newTags = new HashSet<>(Arrays.asList(tags));
       if (!currtags.equals(newTags)) {
         client.setTags(tags);
-        firingService.fireNotification(new ContextualNotification(client.getContext(), Notification.CLIENT_TAGS_UPDATED.name()));
+        fireTopologyChange(new ContextualNotification(client.getContext(), Notification.CLIENT_TAGS_UPDATED.name()));
       }
     });
   }
@@ -504,7 +524,7 @@ class TopologyService implements PlatformListener {
     whenServerEntity(consumerId, serverName).executeOrDelay("entity-registry", serverEntity -> {
       if (!newRegistry.equals(serverEntity.getManagementRegistry().orElse(null))) {
         serverEntity.setManagementRegistry(newRegistry);
-        firingService.fireNotification(new ContextualNotification(serverEntity.getContext(), Notification.ENTITY_REGISTRY_AVAILABLE.name()));
+        fireTopologyChange(new ContextualNotification(serverEntity.getContext(), Notification.ENTITY_REGISTRY_AVAILABLE.name()));
       }
     });
   }
@@ -539,7 +559,49 @@ class TopologyService implements PlatformListener {
         .map(Client::getContext);
   }
 
-  synchronized Cluster getClusterCopy() {
+  /**
+   * @return the current topology snapshot. This is lock-free as long as the topology has not changed since the last
+   * snapshot was taken, otherwise the topology is copied once and the copy is shared by all following readers.
+   */
+  TopologySnapshot getTopologySnapshot() {
+    TopologySnapshot current = snapshot;
+    if (current.getVersion() == version.get()) {
+      return current;
+    }
+    synchronized (this) {
+      current = snapshot;
+      long v = version.get();
+      if (current.getVersion() != v) {
+        current = new TopologySnapshot(v, getClusterCopy());
+        snapshot = current;
+      }
+      return current;
+    }
+  }
+
+  /**
+   * @return the topology notifications fired after the given version, or empty if some of them have already been
+   * evicted from the history
+   */
+  Optional<List<ContextualNotification>> getTopologyChangesSince(long since) {
+    synchronized (changes) {
+      if (since >= version.get()) {
+        return Optional.of(Collections.emptyList());
+      }
+      if (changes.isEmpty() || changes.peekFirst().version > since + 1) {
+        return Optional.empty();
+      }
+      List<ContextualNotification> delta = new ArrayList<>();
+      for (TopologyChange change : changes) {
+        if (change.version > since) {
+          delta.add(change.notification);
+        }
+      }
+      return Optional.of(delta);
+    }
+  }
+
+  private Cluster getClusterCopy() {
     try (ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
       try (ObjectOutputStream oos = new ObjectOutputStream(baos)) {
         oos.writeObject(cluster);
@@ -579,6 +641,16 @@ class TopologyService implements PlatformListener {
     return isServerActive(getServerName());
   }
 
+  private void fireTopologyChange(ContextualNotification notification) {
+    synchronized (changes) {
+      changes.addLast(new TopologyChange(version.incrementAndGet(), notification));
+      while (changes.size() > historySize) {
+        changes.removeFirst();
+      }
+    }
+    firingService.fireNotification(notification);
+  }
+
   private ExecutionChain<Client> whenFetchClient(long consumerId, ClientDescriptor clientDescriptor) {
     ConcurrentMap<ClientDescriptor, ExecutionChain<Client>> fetches = entityFetches.computeIfAbsent(consumerId, cid -> new ConcurrentHashMap<>());
     return fetches.computeIfAbsent(clientDescriptor, key -> new ExecutionChain<>());
@@ -616,4 +688,14 @@ class TopologyService implements PlatformListener {
   private static boolean isInterestingEntity(PlatformEntity platformEntity) {
     return !ENTITY_TYPE_BLACKLIST.contains(platformEntity.typeName);
   }
+
+  private static class TopologyChange {
+    final long version;
+    final ContextualNotification notification;
+
+    TopologyChange(long version, ContextualNotification notification) {
+      this.version = version;
+      this.notification = notification;
+    }
+  }
 }
@@ -61,6 +61,8 @@ import java.util.concurrent.LinkedBlockingQueue;
 import java.util.stream.Collectors;
 
 import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.Assert.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
@@ -369,6 +371,34 @@ public class VoltronMonitoringServiceTest {
     assertThat(activeEntityMonitoringService.getConsumerId(), equalTo(1L));
   }
 
+  @Test
+  public void test_stats_routed_by_collector() throws Exception {
+    test_fetch_entity();
+
+    BlockingQueue<Message> otherBuffer = new LinkedBlockingQueue<>();
+    ManagementService otherManagementService = activeServiceProvider.getService(2, new ManagementServiceConfiguration());
+    otherManagementService.setManagementExecutor(new ManagementExecutorAdapter() {
+      @Override
+      public void sendMessageToClients(Message message) {
+        otherBuffer.add(message);
+      }
+    });
+    messages();
+
+    ContextualStatistics[] data = {new ContextualStatistics("capability", Context.empty().with("collectorId", "2"), Collections.emptyMap())};
+    activeDataListener.pushBestEffortsData(active, UNRELIABLE_CHANNEL_KEY, new ManagementMessage("server-1", 1, true, STATISTICS, data));
+    assertThat(messages().size(), equalTo(0));
+    assertThat(otherBuffer.size(), equalTo(1));
+
+    clientMonitoringService.pushStatistics(new FakeDesc("1-1"), new ContextualStatistics("capability", Context.empty(), Collections.emptyMap()));
+    assertThat(messageTypes(messages()), equalTo(Collections.singletonList("STATISTICS")));
+    assertThat(otherBuffer.size(), equalTo(2));
+
+    otherManagementService.close();
+    activeDataListener.pushBestEffortsData(active, UNRELIABLE_CHANNEL_KEY, new ManagementMessage("server-1", 1, true, STATISTICS, data));
+    assertThat(otherBuffer.size(), equalTo(2));
+  }
+
   @Test
   public void test_notifs_and_stats() throws Exception {
     test_fetch_entity();
@@ -429,6 +459,48 @@ public class VoltronMonitoringServiceTest {
     verifyNoMoreInteractions(managementExecutor);
   }
 
+  @Test
+  public void test_topology_snapshot() throws Exception {
+    TopologySnapshot snapshot = managementService.readTopologySnapshot();
+    assertThat(managementService.readTopologySnapshot(), sameInstance(snapshot));
+    assertThat(managementService.readTopology(), sameInstance(snapshot.getCluster()));
+
+    activePlatformListener.addNode(active, CLIENTS_PATH, "client-2", new PlatformConnectedClient("uuid-2", "name", InetAddress.getByName("localhost"), 1235, InetAddress.getByName("localhost"), 5679, 222));
+
+    TopologySnapshot next = managementService.readTopologySnapshot();
+    assertThat(next.getVersion() > snapshot.getVersion(), is(true));
+    assertThat(next.getCluster().getClientCount(), equalTo(snapshot.getCluster().getClientCount() + 1));
+    assertThat(managementService.readTopology(), sameInstance(next.getCluster()));
+  }
+
+  @Test
+  public void test_topology_changes_since() throws Exception {
+    long version = managementService.readTopologySnapshot().getVersion();
+    assertThat(managementService.readTopologyChangesSince(version).get().isEmpty(), is(true));
+
+    activePlatformListener.addNode(active, CLIENTS_PATH, "client-2", new PlatformConnectedClient("uuid-2", "name", InetAddress.getByName("localhost"), 1235, InetAddress.getByName("localhost"), 5679, 222));
+    activePlatformListener.addNode(active, FETCHED_PATH, "fetch-2-1", new PlatformClientFetchedEntity("client-2", "entity-1", new FakeDesc("2-1")));
+
+    List<String> types = managementService.readTopologyChangesSince(version).get().stream()
+        .map(ContextualNotification::getType)
+        .collect(Collectors.toList());
+    assertThat(types, equalTo(Arrays.asList("CLIENT_CONNECTED", "SERVER_ENTITY_FETCHED")));
+    assertThat(managementService.readTopologySnapshot().getVersion(), equalTo(version + 2));
+  }
+
+  @Test
+  public void test_topology_changes_evicted() throws Exception {
+    TopologyService topologyService = new TopologyService(mock(FiringService.class), new MyPlatformConfiguration(active.getServerName(), active.getHostName(), active.getBindPort()), 1);
+    topologyService.serverDidBecomeActive(active);
+    topologyService.serverDidJoinStripe(passive);
+
+    long version = topologyService.getTopologySnapshot().getVersion();
+    assertThat(version, equalTo(3L)); // joined, state changed, joined
+    assertThat(topologyService.getTopologyChangesSince(version - 2).isPresent(), is(false));
+    assertThat(topologyService.getTopologyChangesSince(version - 1).get().size(), equalTo(1));
+    assertThat(topologyService.getTopologySnapshot().getCluster().getSingleStripe().getServerCount(), equalTo(2));
+  }
+
   private void assertTopologyEquals(String file) {
     if (!file.startsWith("/")) {
       file = "/" + file;
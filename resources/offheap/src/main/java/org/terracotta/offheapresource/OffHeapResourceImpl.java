@@ -16,61 +16,44 @@
  */
 package org.terracotta.offheapresource;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 import org.terracotta.offheapresource.management.OffHeapResourceBinding;
 import org.terracotta.tripwire.MemoryMonitor;
 import org.terracotta.tripwire.TripwireFactory;
 
-import java.io.IOException;
-import java.io.InputStream;
-import java.util.Map;
-import java.util.Properties;
 import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
 import java.util.function.Consumer;
 
 /**
  * An implementation of {@link OffHeapResource}.
+ * <p>
+ * Reservations are striped: each stripe holds a credit leased in chunks from the global state, so that most
+ * reservations and releases only touch the stripe of the calling thread. The global state never leases more than the
+ * capacity, and the credits left in the stripes are reclaimed before a reservation or a capacity change is refused.
  */
 final class OffHeapResourceImpl implements OffHeapResource, AutoCloseable {
 
-  private static final Logger LOGGER = LoggerFactory.getLogger(OffHeapResourceImpl.class);
-
-  private static final String MESSAGE_PROPERTIES_RESOURCE_NAME = "/offheap-message.properties";
-  private static final String OFFHEAP_INFO_KEY = "offheap.info";
-  private static final String OFFHEAP_WARN_KEY = "offheap.warn";
-  private static final String DEFAULT_MESSAGE = "Offheap allocation for resource \"{}\" reached {}%, you may run out of memory if allocation continues.";
-  private static final Properties MESSAGE_PROPERTIES;
-  private final Map<UUID, OffHeapUsageListener> listenerMap = new ConcurrentHashMap<>();
-
-  static {
-    Properties defaults = new Properties();
-    defaults.setProperty(OFFHEAP_INFO_KEY, DEFAULT_MESSAGE);
-    defaults.setProperty(OFFHEAP_WARN_KEY, DEFAULT_MESSAGE);
-    MESSAGE_PROPERTIES = new Properties(defaults);
-    boolean loaded = false;
-    try (InputStream resource = OffHeapResourceImpl.class.getResourceAsStream(MESSAGE_PROPERTIES_RESOURCE_NAME)) {
-      if (resource != null) {
-        MESSAGE_PROPERTIES.load(resource);
-        loaded = true;
-      }
-    } catch (IOException e) {
-      LOGGER.debug("Exception loading {}", MESSAGE_PROPERTIES_RESOURCE_NAME, e);
-    } finally {
-      if (!loaded) {
-        LOGGER.info("Unable to load {}, will be using default messages.", MESSAGE_PROPERTIES_RESOURCE_NAME);
-      }
-
-    }
-  }
+  // one credit per stripe, spaced by a cache line to avoid false sharing
+  private static final int STRIPE_SPACING = 8;
+  private static final int STRIPES = Integer.highestOneBit(Math.min(64, Runtime.getRuntime().availableProcessors()) * 2 - 1);
+  // the credit a stripe leases at once is a fraction of the capacity shared by all the stripes
+  private static final int CHUNKS_PER_STRIPE = 64;
+  // bounds of the exponential back off between two reclaims of the credits
+  private static final long MIN_BACK_OFF_NANOS = 1_000L;
+  private static final long MAX_BACK_OFF_NANOS = 1_000_000L;
 
+  // capacity and the total leased to the stripes
   private final AtomicReference<OffHeapResourceState> state;
-  private final String identifier;
+  private final AtomicLongArray credits = new AtomicLongArray(STRIPES * STRIPE_SPACING);
+  private final LongAdder used = new LongAdder();
+  private volatile long chunkSize;
   private final CapacityChangeHandler onCapacityChanged;
   private final OffHeapResourceBinding managementBinding;
   private final MemoryMonitor monitor;
+  private final OffHeapUsageEvaluator usageEvaluator;
 
   /**
    * Creates a resource of the given initial size.
@@ -82,6 +65,21 @@ final class OffHeapResourceImpl implements OffHeapResource, AutoCloseable {
    * @throws IllegalArgumentException if the size is negative
    */
   OffHeapResourceImpl(String identifier, long size, Consumer<OffHeapUsageEvent> onReservationThresholdReached, CapacityChangeHandler onCapacityChanged) throws IllegalArgumentException {
+    this(identifier, size, onReservationThresholdReached, onCapacityChanged,
+        Long.getLong(OffHeapUsageEvaluator.NOTIFICATION_LATENCY_PROPERTY, OffHeapUsageEvaluator.DEFAULT_NOTIFICATION_LATENCY));
+  }
+
+  /**
+   * Creates a resource of the given initial size.
+   *
+   * @param identifier
+   * @param size size of the resource
+   * @param onReservationThresholdReached event consumer - will receive events regarding usage thresholds
+   * @param onCapacityChanged event consumer - will receive an event when the capacity changes
+   * @param notificationLatency maximum delay in milliseconds before the usage events are sent, 0 to send them right away
+   * @throws IllegalArgumentException if the size or the latency is negative
+   */
+  OffHeapResourceImpl(String identifier, long size, Consumer<OffHeapUsageEvent> onReservationThresholdReached, CapacityChangeHandler onCapacityChanged, long notificationLatency) throws IllegalArgumentException {
     this.onCapacityChanged = onCapacityChanged;
     this.managementBinding = new OffHeapResourceBinding(identifier, this);
     if (size < 0) {
@@ -89,9 +87,10 @@ final class OffHeapResourceImpl implements OffHeapResource, AutoCloseable {
     }
 
     this.state = new AtomicReference<>(new OffHeapResourceState(size));
-    this.identifier = identifier;
+    this.chunkSize = chunkSize(size);
     monitor = TripwireFactory.createMemoryMonitor(identifier);
     monitor.register();
+    usageEvaluator = new OffHeapUsageEvaluator(identifier, used::sum, this::capacity, monitor, notificationLatency, STRIPES);
     addUsageListener(UUID.randomUUID(), 0.9f, onReservationThresholdReached);
     addUsageListener(UUID.randomUUID(), 0.75f, onReservationThresholdReached);
   }
@@ -126,6 +125,7 @@ final class OffHeapResourceImpl implements OffHeapResource, AutoCloseable {
 
   @Override
   public void close() {
+    usageEvaluator.close();
     monitor.unregister();
   }
 
@@ -139,64 +139,113 @@ final class OffHeapResourceImpl implements OffHeapResource, AutoCloseable {
       throw new IllegalArgumentException("Reservation size cannot be negative");
     }
 
+    int stripe = stripe();
+    if (!takeCredit(stripe, size) && !lease(stripe, size)) {
+      // another stripe may lease the reclaimed credits before us: only give up once the capacity is really used
+      long backOff = MIN_BACK_OFF_NANOS;
+      while (true) {
+        reclaimCredits();
+        if (lease(stripe, size)) {
+          break;
+        }
+        if (used.sum() + size > capacity()) {
+          return false;
+        }
+        backOff = backOff(backOff);
+      }
+    }
+    used.add(size);
+    usageEvaluator.usageChanged(stripe / STRIPE_SPACING, size);
+    return true;
+  }
+
+  private boolean takeCredit(int stripe, long size) {
+    while (true) {
+      long credit = credits.get(stripe);
+      if (credit < size) {
+        return false;
+      }
+      if (credits.compareAndSet(stripe, credit, credit - size)) {
+        return true;
+      }
+    }
+  }
+
+  /**
+   * Leases {@code size} from the global state, plus a chunk of credit for the stripe when the capacity left allows
+   * every stripe to do the same. Close to the capacity, only the requested size is leased.
+   */
+  private boolean lease(int stripe, long size) {
+    long chunk = chunkSize;
     while (true) {
       OffHeapResourceState currentState = state.get();
-      OffHeapResourceState newState = currentState.reserve(size);
+      long leased = size;
+      if (chunk > size && currentState.canReserve(chunk * STRIPES)) {
+        leased = chunk;
+      }
+      OffHeapResourceState newState = currentState.reserve(leased);
 
       if (newState.isOverflowed()) {
         return false;
       }
 
       if (state.compareAndSet(currentState, newState)) {
-        stateUpdated(currentState, newState);
+        if (leased > size) {
+          returnCredit(stripe, leased - size);
+        }
         return true;
       }
     }
   }
 
-  private void stateUpdated(OffHeapResourceState prevState, OffHeapResourceState newState) {
-    long capacity = newState.getCapacity();
-    long used = newState.getUsed();
-    long prevUsed = prevState.getUsed();
-    long prevCapacity = prevState.getCapacity();
-
-    if (used > prevUsed || capacity < prevCapacity) {
-      // check for rising event.
-      float occupancy = (used * 1.0f) / capacity;
-      OffHeapUsageEvent offHeapUsageEvent = null;
-      for (OffHeapUsageListener offHeapUsageListener : listenerMap.values()) {
-        if (!offHeapUsageListener.isFired() && (Float.compare(offHeapUsageListener.getThreshold(), occupancy) <= 0)) {
-          if (offHeapUsageEvent == null) {
-            offHeapUsageEvent = new OffHeapUsageEventImpl(used, newState.getRemaining(), capacity, OffHeapUsageEventType.RISING);
-          }
-          if (Float.compare(offHeapUsageListener.getThreshold(), 0.9f) == 0) {
-            LOGGER.warn(MESSAGE_PROPERTIES.getProperty(OFFHEAP_WARN_KEY), identifier, (used * 100L) / capacity);
-          } else if (Float.compare(offHeapUsageListener.getThreshold(), 0.75f) == 0) {
-            LOGGER.info(MESSAGE_PROPERTIES.getProperty(OFFHEAP_INFO_KEY), identifier, (used * 100L) / capacity);
-          }
-          offHeapUsageListener.getConsumer().accept(offHeapUsageEvent);
-          offHeapUsageListener.setFiringStatus(true);
-        }
+  /**
+   * Adds to the credit of the stripe, giving the excess back to the global state.
+   */
+  private void returnCredit(int stripe, long size) {
+    long credit = credits.addAndGet(stripe, size);
+    long chunk = chunkSize;
+    if (credit > 2 * chunk) {
+      long excess = credit - chunk;
+      if (credits.compareAndSet(stripe, credit, chunk)) {
+        unlease(excess);
       }
-    } else if (used < prevUsed || capacity > prevCapacity) {
-      // check for falling event.
-      float occupancy = (used * 1.0f) / capacity;
-      OffHeapUsageEvent offHeapUsageEvent = null;
-      for (OffHeapUsageListener offHeapUsageListener : listenerMap.values()) {
-        if (offHeapUsageListener.isFired() && (Float.compare(offHeapUsageListener.getThreshold(), occupancy) > 0)) {
-          if (offHeapUsageEvent == null) {
-            offHeapUsageEvent = new OffHeapUsageEventImpl(used, newState.getRemaining(), capacity, OffHeapUsageEventType.FALLING);
-          }
-          if (Float.compare(offHeapUsageListener.getThreshold(), 0.75f) == 0) {
-            LOGGER.info(MESSAGE_PROPERTIES.getProperty(OFFHEAP_INFO_KEY), identifier, (used * 100L) / capacity);
-          }
-          offHeapUsageListener.getConsumer().accept(offHeapUsageEvent);
-          offHeapUsageListener.setFiringStatus(false);
-        }
+    }
+  }
+
+  private void reclaimCredits() {
+    for (int stripe = 0; stripe < credits.length(); stripe += STRIPE_SPACING) {
+      long credit = credits.getAndSet(stripe, 0);
+      if (credit != 0) {
+        unlease(credit);
+      }
+    }
+  }
+
+  private void unlease(long size) {
+    while (true) {
+      OffHeapResourceState currentState = state.get();
+      if (state.compareAndSet(currentState, currentState.release(size))) {
+        return;
       }
     }
+  }
+
+  /**
+   * Parks for {@code backOff} nanoseconds and returns the next, doubled, back off.
+   */
+  private static long backOff(long backOff) {
+    LockSupport.parkNanos(backOff);
+    return Math.min(backOff * 2, MAX_BACK_OFF_NANOS);
+  }
 
-    monitor.sample(capacity - used, used);
+  private static int stripe() {
+    long id = Thread.currentThread().getId();
+    int hash = (int) (id ^ (id >>> 32)) * 0x9E3779B9;
+    return ((hash >>> 16) & (STRIPES - 1)) * STRIPE_SPACING;
+  }
+
+  private static long chunkSize(long capacity) {
+    return Math.max(1L, capacity / (STRIPES * CHUNKS_PER_STRIPE));
   }
 
   /**
@@ -209,15 +258,10 @@ final class OffHeapResourceImpl implements OffHeapResource, AutoCloseable {
       throw new IllegalArgumentException("Released size cannot be negative");
     }
 
-    while (true) {
-      OffHeapResourceState currentState = state.get();
-      OffHeapResourceState newState = currentState.release(size);
-
-      if (state.compareAndSet(currentState, newState)) {
-        stateUpdated(currentState, newState);
-        return;
-      }
-    }
+    int stripe = stripe();
+    used.add(-size);
+    returnCredit(stripe, size);
+    usageEvaluator.usageChanged(stripe / STRIPE_SPACING, -size);
   }
 
   /**
@@ -225,7 +269,7 @@ final class OffHeapResourceImpl implements OffHeapResource, AutoCloseable {
    */
   @Override
   public long available() {
-    return state.get().getRemaining();
+    return capacity() - used.sum();
   }
 
   @Override
@@ -239,17 +283,30 @@ final class OffHeapResourceImpl implements OffHeapResource, AutoCloseable {
       throw new IllegalArgumentException("New capacity size cannot be negative");
     }
 
+    boolean reclaimed = false;
+    long backOff = MIN_BACK_OFF_NANOS;
     while (true) {
       OffHeapResourceState currentState = state.get();
       OffHeapResourceState newState = currentState.withCapacity(size);
 
       if (newState.isOverflowed()) {
-        return false;
+        if (reclaimed) {
+          // another stripe may lease the reclaimed credits before us: only give up once the capacity is really used
+          if (used.sum() > size) {
+            return false;
+          }
+          backOff = backOff(backOff);
+        }
+        // the stripes may hold credits that are not reserved
+        reclaimCredits();
+        reclaimed = true;
+        continue;
       }
 
       if (state.compareAndSet(currentState, newState)) {
+        chunkSize = chunkSize(size);
         onCapacityChanged.onCapacityChanged(this, currentState.getCapacity(), newState.getCapacity());
-        stateUpdated(currentState, newState);
+        usageEvaluator.capacityChanged();
         return true;
       }
     }
@@ -257,67 +314,50 @@ final class OffHeapResourceImpl implements OffHeapResource, AutoCloseable {
 
   @Override
   public void addUsageListener(UUID listenerUUID, float threshold, Consumer<OffHeapUsageEvent> consumer) {
-    OffHeapUsageListener offHeapUsageListener = new OffHeapUsageListener(threshold, consumer);
-    listenerMap.put(listenerUUID, offHeapUsageListener);
-    // check for rising event if current usage already is above threshold.
-    OffHeapResourceState offHeapResourceState = state.get();
-    long used = offHeapResourceState.used;
-    long capacity = offHeapResourceState.capacity;
-    float occupancy = (used * 1.0f) / capacity;
-    if ((Float.compare(offHeapUsageListener.getThreshold(), occupancy) <= 0)) {
-      OffHeapUsageEvent offHeapUsageEvent = new OffHeapUsageEventImpl(used, offHeapResourceState.getRemaining(), capacity, OffHeapUsageEventType.RISING);
-      offHeapUsageListener.getConsumer().accept(offHeapUsageEvent);
-      offHeapUsageListener.setFiringStatus(true);
-    }
+    usageEvaluator.addUsageListener(listenerUUID, threshold, consumer);
   }
 
   @Override
   public void removeUsageListener(UUID listenerUUID) throws IllegalArgumentException {
-    if (listenerMap.remove(listenerUUID) == null) {
-      throw new IllegalArgumentException("Unknown listener: " + listenerUUID);
-    }
+    usageEvaluator.removeUsageListener(listenerUUID);
   }
 
   private static class OffHeapResourceState {
     private final long capacity;
-    private final long used;
+    private final long leased;
 
     public OffHeapResourceState(long capacity) {
       this.capacity = capacity;
-      this.used = 0;
+      this.leased = 0;
     }
 
-    private OffHeapResourceState(long capacity, long used) {
+    private OffHeapResourceState(long capacity, long leased) {
       this.capacity = capacity;
-      this.used = used;
+      this.leased = leased;
     }
 
     public long getCapacity() {
       return capacity;
     }
 
-    public long getUsed() {
-      return used;
-    }
-
-    public long getRemaining() {
-      return capacity - used;
+    public boolean canReserve(long size) {
+      return leased + size <= capacity;
     }
 
     public boolean isOverflowed() {
-      return used > capacity;
+      return leased > capacity;
     }
 
     public OffHeapResourceState reserve(long size) {
-      return new OffHeapResourceState(capacity, used + size);
+      return new OffHeapResourceState(capacity, leased + size);
     }
 
     public OffHeapResourceState release(long size) {
-      return new OffHeapResourceState(capacity, used - size);
+      return new OffHeapResourceState(capacity, leased - size);
     }
 
     public OffHeapResourceState withCapacity(long newCapacity) {
-      return new OffHeapResourceState(newCapacity, used);
+      return new OffHeapResourceState(newCapacity, leased);
     }
   }
 }
@@ -0,0 +1,271 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.offheapresource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.terracotta.tripwire.MemoryMonitor;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Evaluates the usage thresholds of an off-heap resource off the reservation path.
+ * <p>
+ * Reservations and releases only add their size to the drift of their stripe, and compare it with a step derived
+ * from the distance between the usage and the next threshold boundaries: as long as no stripe drifted by a full step,
+ * no boundary can have been crossed. Their cost depends neither on the number of listeners nor on the number of
+ * stripes. When a stripe drifts by a step the listeners are evaluated: right away when the notification latency is
+ * zero, or else by a shared scheduler at most once per latency period. The Tripwire monitor is sampled by
+ * the same scheduler, on a fixed cadence.
+ */
+final class OffHeapUsageEvaluator implements AutoCloseable {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(OffHeapUsageEvaluator.class);
+
+  /**
+   * System property holding the maximum delay, in milliseconds, before the usage listeners are notified of a crossed
+   * threshold. {@code 0} notifies them from the reserving or releasing thread.
+   */
+  static final String NOTIFICATION_LATENCY_PROPERTY = "offheap.usage.notification.latency";
+  static final long DEFAULT_NOTIFICATION_LATENCY = 100L;
+  static final long SAMPLE_PERIOD = 1000L;
+
+  // one drift per stripe, spaced by a cache line to avoid false sharing
+  private static final int DRIFT_SPACING = 8;
+
+  private static final String MESSAGE_PROPERTIES_RESOURCE_NAME = "/offheap-message.properties";
+  private static final String OFFHEAP_INFO_KEY = "offheap.info";
+  private static final String OFFHEAP_WARN_KEY = "offheap.warn";
+  private static final String DEFAULT_MESSAGE = "Offheap allocation for resource \"{}\" reached {}%, you may run out of memory if allocation continues.";
+  private static final Properties MESSAGE_PROPERTIES;
+
+  static {
+    Properties defaults = new Properties();
+    defaults.setProperty(OFFHEAP_INFO_KEY, DEFAULT_MESSAGE);
+    defaults.setProperty(OFFHEAP_WARN_KEY, DEFAULT_MESSAGE);
+    MESSAGE_PROPERTIES = new Properties(defaults);
+    boolean loaded = false;
+    try (InputStream resource = OffHeapUsageEvaluator.class.getResourceAsStream(MESSAGE_PROPERTIES_RESOURCE_NAME)) {
+      if (resource != null) {
+        MESSAGE_PROPERTIES.load(resource);
+        loaded = true;
+      }
+    } catch (IOException e) {
+      LOGGER.debug("Exception loading {}", MESSAGE_PROPERTIES_RESOURCE_NAME, e);
+    } finally {
+      if (!loaded) {
+        LOGGER.info("Unable to load {}, will be using default messages.", MESSAGE_PROPERTIES_RESOURCE_NAME);
+      }
+
+    }
+  }
+
+  private final Map<UUID, OffHeapUsageListener> listenerMap = new ConcurrentHashMap<>();
+  private final String identifier;
+  private final LongSupplier used;
+  private final LongSupplier capacity;
+  private final MemoryMonitor monitor;
+  private final long notificationLatency;
+  private final ScheduledFuture<?> sampling;
+  private final ScheduledFuture<?> evaluation;
+  private final int stripes;
+  // usage change of each stripe since the last evaluation
+  private final AtomicLongArray drifts;
+
+  // drift of a single stripe from which a boundary may have been crossed
+  private volatile long step;
+  private volatile boolean crossed;
+
+  OffHeapUsageEvaluator(String identifier, LongSupplier used, LongSupplier capacity, MemoryMonitor monitor, long notificationLatency, int stripes) {
+    if (notificationLatency < 0) {
+      throw new IllegalArgumentException("Notification latency cannot be negative");
+    }
+    this.stripes = stripes;
+    this.drifts = new AtomicLongArray(stripes * DRIFT_SPACING);
+    this.identifier = identifier;
+    this.used = used;
+    this.capacity = capacity;
+    this.monitor = monitor;
+    this.notificationLatency = notificationLatency;
+    this.sampling = Scheduler.INSTANCE.scheduleAtFixedRate(this::sample, SAMPLE_PERIOD, SAMPLE_PERIOD, MILLISECONDS);
+    if (notificationLatency > 0) {
+      this.evaluation = Scheduler.INSTANCE.scheduleAtFixedRate(this::evaluateIfCrossed, notificationLatency, notificationLatency, MILLISECONDS);
+    } else {
+      this.evaluation = null;
+    }
+  }
+
+  /**
+   * Called on every reservation and release, after the usage changed by {@code delta}.
+   *
+   * @param stripe the stripe of the calling thread, between 0 and the number of stripes
+   * @param delta the size reserved, or the opposite of the size released
+   */
+  void usageChanged(int stripe, long delta) {
+    long drift = drifts.addAndGet(stripe * DRIFT_SPACING, delta);
+    if (Math.abs(drift) >= step) {
+      if (notificationLatency == 0) {
+        evaluate();
+      } else {
+        crossed = true;
+      }
+    }
+  }
+
+  /**
+   * Called when the capacity changed, which moves all the boundaries.
+   */
+  void capacityChanged() {
+    evaluate();
+    sample();
+  }
+
+  void addUsageListener(UUID listenerUUID, float threshold, Consumer<OffHeapUsageEvent> consumer) {
+    listenerMap.put(listenerUUID, new OffHeapUsageListener(threshold, consumer));
+    // fires right away if the current usage already is above threshold.
+    evaluate();
+  }
+
+  void removeUsageListener(UUID listenerUUID) throws IllegalArgumentException {
+    if (listenerMap.remove(listenerUUID) == null) {
+      throw new IllegalArgumentException("Unknown listener: " + listenerUUID);
+    }
+    evaluate();
+  }
+
+  @Override
+  public void close() {
+    sampling.cancel(false);
+    if (evaluation != null) {
+      evaluation.cancel(false);
+    }
+  }
+
+  private void evaluateIfCrossed() {
+    if (crossed) {
+      crossed = false;
+      try {
+        evaluate();
+      } catch (RuntimeException e) {
+        LOGGER.warn("Failed notifying the usage listeners of offheap resource \"{}\"", identifier, e);
+      }
+    }
+  }
+
+  synchronized void evaluate() {
+    // reset before reading the usage: a change missing from the usage read is then still counted by its drift
+    for (int i = 0; i < drifts.length(); i += DRIFT_SPACING) {
+      drifts.set(i, 0);
+    }
+    long currentCapacity = capacity.getAsLong();
+    long currentUsed = used.getAsLong();
+    float occupancy = (currentUsed * 1.0f) / currentCapacity;
+
+    OffHeapUsageEvent risingEvent = null;
+    OffHeapUsageEvent fallingEvent = null;
+    for (OffHeapUsageListener offHeapUsageListener : listenerMap.values()) {
+      if (!offHeapUsageListener.isFired() && (Float.compare(offHeapUsageListener.getThreshold(), occupancy) <= 0)) {
+        if (risingEvent == null) {
+          risingEvent = new OffHeapUsageEventImpl(currentUsed, currentCapacity - currentUsed, currentCapacity, OffHeapUsageEventType.RISING);
+        }
+        if (Float.compare(offHeapUsageListener.getThreshold(), 0.9f) == 0) {
+          LOGGER.warn(MESSAGE_PROPERTIES.getProperty(OFFHEAP_WARN_KEY), identifier, percent(currentUsed, currentCapacity));
+        } else if (Float.compare(offHeapUsageListener.getThreshold(), 0.75f) == 0) {
+          LOGGER.info(MESSAGE_PROPERTIES.getProperty(OFFHEAP_INFO_KEY), identifier, percent(currentUsed, currentCapacity));
+        }
+        offHeapUsageListener.getConsumer().accept(risingEvent);
+        offHeapUsageListener.setFiringStatus(true);
+      } else if (offHeapUsageListener.isFired() && (Float.compare(offHeapUsageListener.getThreshold(), occupancy) > 0)) {
+        if (fallingEvent == null) {
+          fallingEvent = new OffHeapUsageEventImpl(currentUsed, currentCapacity - currentUsed, currentCapacity, OffHeapUsageEventType.FALLING);
+        }
+        if (Float.compare(offHeapUsageListener.getThreshold(), 0.75f) == 0) {
+          LOGGER.info(MESSAGE_PROPERTIES.getProperty(OFFHEAP_INFO_KEY), identifier, percent(currentUsed, currentCapacity));
+        }
+        offHeapUsageListener.getConsumer().accept(fallingEvent);
+        offHeapUsageListener.setFiringStatus(false);
+      }
+    }
+    updateStep(currentUsed, currentCapacity);
+  }
+
+  private void updateStep(long currentUsed, long currentCapacity) {
+    // smallest change of the usage that crosses the boundary of a listener
+    long distance = Long.MAX_VALUE;
+    for (OffHeapUsageListener offHeapUsageListener : listenerMap.values()) {
+      long boundary = boundary(offHeapUsageListener.getThreshold(), currentCapacity);
+      if (offHeapUsageListener.isFired()) {
+        // falls below the boundary
+        distance = Math.min(distance, currentUsed - boundary + 1);
+      } else {
+        // rises up to the boundary
+        distance = Math.min(distance, boundary - currentUsed);
+      }
+    }
+    // the usage cannot change by the distance while every stripe drifted by less than a step
+    step = Math.max(0L, distance / stripes);
+  }
+
+  /**
+   * Returns the smallest usage at which the occupancy computed by {@link #evaluate()} reaches the threshold, so that
+   * the float rounding of the occupancy never hides a crossing.
+   */
+  private static long boundary(float threshold, long currentCapacity) {
+    long low = 0L;
+    long high = Long.MAX_VALUE / 2;
+    while (low < high) {
+      long middle = (low + high) >>> 1;
+      if (Float.compare(threshold, (middle * 1.0f) / currentCapacity) <= 0) {
+        high = middle;
+      } else {
+        low = middle + 1;
+      }
+    }
+    return low;
+  }
+
+  private static long percent(long used, long capacity) {
+    return capacity == 0 ? 100L : (used * 100L) / capacity;
+  }
+
+  private void sample() {
+    long currentCapacity = capacity.getAsLong();
+    long currentUsed = used.getAsLong();
+    monitor.sample(currentCapacity - currentUsed, currentUsed);
+  }
+
+  private static final class Scheduler {
+    static final ScheduledExecutorService INSTANCE = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "offheap-usage-evaluator");
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+}
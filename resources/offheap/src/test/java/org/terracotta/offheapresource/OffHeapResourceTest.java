@@ -21,6 +21,16 @@ import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -161,4 +171,181 @@ public class OffHeapResourceTest {
     assertThat(ohr.available(), is(6L));
     verifyNoMoreInteractions(onCapacityChange);
   }
+
+  @Test
+  public void testCreditsOfOtherThreadsAreReclaimed() throws Exception {
+    OffHeapResourceImpl ohr = new OffHeapResourceImpl(identifier, 1024 * 1024L);
+    Thread thread = new Thread(() -> {
+      ohr.reserve(1L);
+      ohr.release(1L);
+    });
+    thread.start();
+    thread.join();
+
+    assertThat(ohr.available(), is(1024 * 1024L));
+    assertThat(ohr.reserve(1024 * 1024L), is(true));
+    assertThat(ohr.available(), is(0L));
+    assertThat(ohr.reserve(1L), is(false));
+  }
+
+  @Test
+  public void testSetCapacityReclaimsCredits() {
+    OffHeapResourceImpl ohr = new OffHeapResourceImpl(identifier, 1024 * 1024L, onThresholdChange, onCapacityChange);
+    ohr.reserve(10L);
+    ohr.release(10L);
+    ohr.reserve(20L);
+    assertThat(ohr.setCapacity(20L), is(true));
+    assertThat(ohr.available(), is(0L));
+    verify(onCapacityChange).onCapacityChanged(ohr, 1024 * 1024L, 20L);
+  }
+
+  @Test
+  public void testShrinkIsNotRefusedByConcurrentReservations() throws Exception {
+    long capacity = 1024 * 1024 * 1024L;
+    OffHeapResourceImpl ohr = new OffHeapResourceImpl(identifier, capacity, onThresholdChange, onCapacityChange);
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    AtomicBoolean stop = new AtomicBoolean();
+    try {
+      Future<?> future = executor.submit(() -> {
+        while (!stop.get()) {
+          assertThat(ohr.reserve(1L), is(true));
+          ohr.release(1L);
+        }
+      });
+      for (int i = 0; i < 100; i++) {
+        assertThat(ohr.setCapacity(1024 * 1024L), is(true));
+        assertThat(ohr.setCapacity(capacity), is(true));
+      }
+      stop.set(true);
+      future.get(30, TimeUnit.SECONDS);
+    } finally {
+      executor.shutdownNow();
+    }
+    assertThat(ohr.available(), is(capacity));
+  }
+
+  @Test
+  public void testConcurrentReservationsNeverExceedCapacity() throws Exception {
+    long capacity = 1024 * 1024L;
+    OffHeapResourceImpl ohr = new OffHeapResourceImpl(identifier, capacity);
+    AtomicLong reserved = new AtomicLong();
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int t = 0; t < 8; t++) {
+        futures.add(executor.submit(() -> {
+          for (int i = 0; i < 10_000; i++) {
+            long size = 1 + (i % 512);
+            if (ohr.reserve(size)) {
+              assertThat(reserved.addAndGet(size) <= capacity, is(true));
+              if (i % 3 != 0) {
+                reserved.addAndGet(-size);
+                ohr.release(size);
+              }
+            }
+          }
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get(30, TimeUnit.SECONDS);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    assertThat(ohr.available(), is(capacity - reserved.get()));
+    assertThat(ohr.reserve(ohr.available()), is(true));
+    assertThat(ohr.reserve(1L), is(false));
+  }
+
+  @Test
+  public void testContendedReservationsNearCapacityAreNotRefused() throws Exception {
+    int threads = 8;
+    long size = 256L;
+    long capacity = 64 * 1024L;
+    OffHeapResourceImpl ohr = new OffHeapResourceImpl(identifier, capacity);
+    // only leaves room for one reservation per thread
+    assertThat(ohr.reserve(capacity - threads * size), is(true));
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int t = 0; t < threads; t++) {
+        futures.add(executor.submit(() -> {
+          for (int i = 0; i < 20_000; i++) {
+            assertThat(ohr.reserve(size), is(true));
+            ohr.release(size);
+          }
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get(30, TimeUnit.SECONDS);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    assertThat(ohr.available(), is(threads * size));
+  }
+
+  @Test
+  public void testThresholdEventsWithStripedReservations() {
+    List<OffHeapUsageEvent> events = new ArrayList<>();
+    OffHeapResourceImpl ohr = new OffHeapResourceImpl(identifier, 100L * 1024 * 1024, events::add, onCapacityChange, 0L);
+    ohr.reserve(70L * 1024 * 1024);
+    assertThat(events.size(), is(0));
+    ohr.reserve(5L * 1024 * 1024);
+    assertThat(events.size(), is(1));
+    assertThat(events.get(0).getEventType(), is(OffHeapUsageEventType.RISING));
+    ohr.release(1024L);
+    assertThat(events.size(), is(2));
+    assertThat(events.get(1).getEventType(), is(OffHeapUsageEventType.FALLING));
+    assertThat(events.get(1).getUsed(), is(75L * 1024 * 1024 - 1024));
+  }
+
+  @Test
+  public void testThresholdEventsAreNotifiedAsynchronously() throws Exception {
+    List<OffHeapUsageEvent> events = new CopyOnWriteArrayList<>();
+    OffHeapResourceImpl ohr = new OffHeapResourceImpl(identifier, 100L, events::add, onCapacityChange, 10L);
+    try {
+      ohr.reserve(80L);
+      waitForEvents(events, 1);
+      assertThat(events.get(0).getEventType(), is(OffHeapUsageEventType.RISING));
+      assertThat(events.get(0).getUsed(), is(80L));
+
+      ohr.release(50L);
+      waitForEvents(events, 2);
+      assertThat(events.get(1).getEventType(), is(OffHeapUsageEventType.FALLING));
+      assertThat(events.get(1).getUsed(), is(30L));
+    } finally {
+      ohr.close();
+    }
+  }
+
+  @Test
+  public void testListenerAddedAboveThresholdFiresRightAway() {
+    OffHeapResourceImpl ohr = new OffHeapResourceImpl(identifier, 100L, onThresholdChange, onCapacityChange, 10L);
+    ohr.reserve(60L);
+    List<OffHeapUsageEvent> events = new ArrayList<>();
+    ohr.addUsageListener(UUID.randomUUID(), 0.5f, events::add);
+    assertThat(events.size(), is(1));
+    assertThat(events.get(0).getEventType(), is(OffHeapUsageEventType.RISING));
+    ohr.close();
+  }
+
+  @Test
+  public void testCapacityChangeEvaluatesThresholds() {
+    List<OffHeapUsageEvent> events = new ArrayList<>();
+    OffHeapResourceImpl ohr = new OffHeapResourceImpl(identifier, 100L, events::add, onCapacityChange, 10L);
+    ohr.reserve(70L);
+    assertThat(ohr.setCapacity(80L), is(true));
+    assertThat(events.size(), is(1));
+    assertThat(events.get(0).getEventType(), is(OffHeapUsageEventType.RISING));
+    ohr.close();
+  }
+
+  private static void waitForEvents(List<OffHeapUsageEvent> events, int count) throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+    while (events.size() < count && System.nanoTime() < deadline) {
+      Thread.sleep(5);
+    }
+    assertThat(events.size(), is(count));
+  }
 }
@@ -0,0 +1,114 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.offheapresource;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.terracotta.tripwire.MemoryMonitor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.number.OrderingComparison.lessThan;
+
+@RunWith(MockitoJUnitRunner.class)
+public class OffHeapUsageEvaluatorTest {
+  @Mock
+  private MemoryMonitor monitor;
+
+  private final AtomicLong used = new AtomicLong();
+  private final AtomicInteger reads = new AtomicInteger();
+  private final LongSupplier countingUsed = () -> {
+    reads.incrementAndGet();
+    return used.get();
+  };
+
+  @Test
+  public void testChangesFarFromTheBoundariesAreNotEvaluated() {
+    OffHeapUsageEvaluator evaluator = new OffHeapUsageEvaluator("id", countingUsed, () -> 1_000_000L, monitor, 0L, 4);
+    try {
+      List<OffHeapUsageEvent> events = new ArrayList<>();
+      evaluator.addUsageListener(UUID.randomUUID(), 0.5f, events::add);
+      int readsBefore = reads.get();
+      for (int i = 0; i < 10_000; i++) {
+        change(evaluator, i % 4, 10L);
+      }
+      assertThat(used.get(), is(100_000L));
+      assertThat(reads.get() - readsBefore, lessThan(10));
+      assertThat(events.size(), is(0));
+    } finally {
+      evaluator.close();
+    }
+  }
+
+  @Test
+  public void testUsageOscillatingNearABoundaryIsNotEvaluatedOnEveryChange() {
+    OffHeapUsageEvaluator evaluator = new OffHeapUsageEvaluator("id", countingUsed, () -> 1_000_000L, monitor, 0L, 1);
+    try {
+      List<OffHeapUsageEvent> events = new ArrayList<>();
+      evaluator.addUsageListener(UUID.randomUUID(), 0.5f, events::add);
+      change(evaluator, 0, 499_990L);
+      int readsBefore = reads.get();
+      for (int i = 0; i < 10_000; i++) {
+        change(evaluator, 0, 1L);
+        change(evaluator, 0, -1L);
+      }
+      assertThat(reads.get() - readsBefore, lessThan(10));
+      assertThat(events.size(), is(0));
+    } finally {
+      evaluator.close();
+    }
+  }
+
+  @Test
+  public void testDriftsOfAllTheStripesAreAccountedFor() {
+    OffHeapUsageEvaluator evaluator = new OffHeapUsageEvaluator("id", countingUsed, () -> 1000L, monitor, 0L, 4);
+    try {
+      List<OffHeapUsageEvent> events = new ArrayList<>();
+      evaluator.addUsageListener(UUID.randomUUID(), 0.5f, events::add);
+      for (int stripe = 0; stripe < 3; stripe++) {
+        change(evaluator, stripe, 125L);
+      }
+      change(evaluator, 3, 124L);
+      assertThat(events.size(), is(0));
+      change(evaluator, 3, 1L);
+      assertThat(events.size(), is(1));
+      assertThat(events.get(0).getEventType(), is(OffHeapUsageEventType.RISING));
+      assertThat(events.get(0).getUsed(), is(500L));
+
+      change(evaluator, 1, -1L);
+      assertThat(events.size(), is(2));
+      assertThat(events.get(1).getEventType(), is(OffHeapUsageEventType.FALLING));
+      assertThat(events.get(1).getUsed(), is(499L));
+    } finally {
+      evaluator.close();
+    }
+  }
+
+  private void change(OffHeapUsageEvaluator evaluator, int stripe, long delta) {
+    used.addAndGet(delta);
+    evaluator.usageChanged(stripe, delta);
+  }
+}
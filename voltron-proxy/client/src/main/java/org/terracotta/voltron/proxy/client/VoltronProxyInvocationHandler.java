@@ -23,6 +23,7 @@ import org.terracotta.entity.EndpointDelegate;
 import org.terracotta.entity.EntityClientEndpoint;
 import org.terracotta.entity.EntityUserException;
 import org.terracotta.entity.Invocation;
+import org.terracotta.entity.InvocationCallback;
 import org.terracotta.voltron.proxy.Codec;
 import org.terracotta.voltron.proxy.MessageListener;
 import org.terracotta.voltron.proxy.MessageType;
@@ -33,6 +34,8 @@ import org.terracotta.voltron.proxy.ProxyEntityResponse;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
 import java.util.Collection;
+import java.util.EnumSet;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CopyOnWriteArrayList;
@@ -154,7 +157,9 @@ class VoltronProxyInvocationHandler implements InvocationHandler {
 
     final Invocation<ProxyEntityResponse> builder = entityClientEndpoint.message(new ProxyEntityMessage(methodDescriptor, args, MessageType.MESSAGE));
 
-    if (methodDescriptor.isAsync()) {
+    if (methodDescriptor.isCompletionStage()) {
+      return invokeAsync(builder);
+    } else if (methodDescriptor.isAsync()) {
       return new ProxiedInvokeFuture<>(builder.invoke());
     } else {
       try {
@@ -165,6 +170,29 @@ class VoltronProxyInvocationHandler implements InvocationHandler {
     }
   }
 
+  private static CompletableFuture<Object> invokeAsync(Invocation<ProxyEntityResponse> builder) {
+    CompletableFuture<Object> result = new CompletableFuture<>();
+    builder.invoke(new InvocationCallback<ProxyEntityResponse>() {
+      @Override
+      public void result(ProxyEntityResponse response) {
+        // the response is null when the server will answer later through an invoke channel
+        if (response != null) {
+          try {
+            result.complete(getResponse(response));
+          } catch (EntityUserException e) {
+            result.completeExceptionally(e);
+          }
+        }
+      }
+
+      @Override
+      public void failure(Throwable failure) {
+        result.completeExceptionally(failure);
+      }
+    }, EnumSet.of(InvocationCallback.Types.RESULT, InvocationCallback.Types.FAILURE));
+    return result;
+  }
+
   private static Object getResponse(ProxyEntityResponse proxyEntityResponse) throws EntityUserException {
     if (proxyEntityResponse == null) {
       return null;
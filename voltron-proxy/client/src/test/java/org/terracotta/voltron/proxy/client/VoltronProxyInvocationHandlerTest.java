@@ -17,10 +17,13 @@
 package org.terracotta.voltron.proxy.client;
 
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.ArgumentMatchers;
 import org.terracotta.entity.EntityClientEndpoint;
 import org.terracotta.entity.EntityMessage;
 import org.terracotta.entity.Invocation;
+import org.terracotta.entity.InvocationCallback;
+import org.terracotta.voltron.proxy.Async;
 import org.terracotta.voltron.proxy.ClientId;
 import org.terracotta.voltron.proxy.MethodDescriptor;
 import org.terracotta.voltron.proxy.ProxyEntityMessage;
@@ -31,8 +34,13 @@ import java.util.Collections;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.Future;
 
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
@@ -75,6 +83,34 @@ public class VoltronProxyInvocationHandlerTest {
     }
   }
 
+  @SuppressWarnings("unchecked")
+  @Test
+  public void testCompletionStageCompletesOnDeferredResponse() throws Throwable {
+    final EntityClientEndpoint<ProxyEntityMessage, ProxyEntityResponse> endpoint = mock(EntityClientEndpoint.class);
+    final Invocation builder = mock(Invocation.class);
+    when(endpoint.message(ArgumentMatchers.any())).thenReturn(builder);
+    final ArgumentCaptor<InvocationCallback> callback = ArgumentCaptor.forClass(InvocationCallback.class);
+    when(builder.invoke(callback.capture(), ArgumentMatchers.any())).thenReturn(null);
+
+    VoltronProxyInvocationHandler handler = new VoltronProxyInvocationHandler(endpoint, Collections.<Class<?>>emptyList(), new SerializationCodec());
+    CompletableFuture<String> result = (CompletableFuture<String>) handler.invoke(null, AsyncInterface.class.getMethod("get"), null);
+
+    // server did not answer yet
+    callback.getValue().result(null);
+    assertFalse(result.isDone());
+
+    // server answers through the invoke channel
+    callback.getValue().result(ProxyEntityResponse.messageResponse(String.class, "foo"));
+    assertThat(result.get(), is("foo"));
+  }
+
+  interface AsyncInterface {
+
+    @Async
+    CompletionStage<String> get();
+
+  }
+
   interface TestInterface {
 
     void testing(Object foo, @ClientId Object bar);
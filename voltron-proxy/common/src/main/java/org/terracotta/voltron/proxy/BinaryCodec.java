@@ -0,0 +1,713 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.voltron.proxy;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * A {@link Codec} writing values in a compact binary form instead of using Java serialization.
+ * <p>
+ * The encoding of a method signature (or of a response type) is derived once from the declared types and then cached,
+ * so that encoding a call does not need any reflection. Supported types are primitives and their wrappers, strings, enums,
+ * arrays, collections (lists, sets and maps) and the value types registered with
+ * {@link #register(Class, ValueWriter, ValueReader)}. Any other value is encoded with the fallback codec
+ * (a {@link SerializationCodec} by default).
+ * <p>
+ * {@code ArrayList}, {@code HashSet}, {@code LinkedHashSet}, {@code HashMap} and {@code LinkedHashMap} values keep
+ * their type. Any other value of a type declared as {@code Collection} or {@code List} is decoded as an
+ * {@code ArrayList}, as {@code Set} as a {@code LinkedHashSet} and as {@code Map} as a {@code LinkedHashMap}: for
+ * instance an unmodifiable list is decoded as a modifiable copy.
+ * <p>
+ * Both sides of a connection must use the same codec with the same registered types.
+ */
+public class BinaryCodec implements Codec {
+
+  public interface ValueWriter<T> {
+    void write(DataOutput output, T value) throws IOException;
+  }
+
+  public interface ValueReader<T> {
+    T read(DataInput input) throws IOException;
+  }
+
+  // flags written before a value whose declared type is not a primitive
+  private static final byte NULL = 0;
+  private static final byte DECLARED = 1;
+  private static final byte OTHER = 2;
+
+  // tags written before a value which is encoded according to its runtime type
+  private static final byte TAG_NULL = 0;
+  private static final byte TAG_BOOLEAN = 1;
+  private static final byte TAG_BYTE = 2;
+  private static final byte TAG_SHORT = 3;
+  private static final byte TAG_CHAR = 4;
+  private static final byte TAG_INT = 5;
+  private static final byte TAG_LONG = 6;
+  private static final byte TAG_FLOAT = 7;
+  private static final byte TAG_DOUBLE = 8;
+  private static final byte TAG_STRING = 9;
+  private static final byte TAG_BYTES = 10;
+  private static final byte TAG_ARRAY_LIST = 11;
+  private static final byte TAG_HASH_SET = 12;
+  private static final byte TAG_LINKED_HASH_SET = 13;
+  private static final byte TAG_HASH_MAP = 14;
+  private static final byte TAG_LINKED_HASH_MAP = 15;
+  private static final byte TAG_REGISTERED = 16;
+  private static final byte TAG_FALLBACK = 17;
+
+  private static final Encoding VOID = new Encoding() {
+    @Override
+    public void write(DataOutputStream output, Object value) {
+    }
+
+    @Override
+    public Object read(DataInputStream input) {
+      return null;
+    }
+  };
+
+  private static final Map<Class<?>, Encoding> PRIMITIVES = new HashMap<>();
+  private static final Map<Class<?>, Encoding> WRAPPERS = new HashMap<>();
+  private static final Map<Class<?>, Encoding> PRIMITIVE_ARRAYS = new HashMap<>();
+  // collection types which keep their type when encoded with a tag
+  private static final Set<Class<?>> TAGGED_COLLECTIONS = new HashSet<>(Arrays.asList(
+      ArrayList.class, HashSet.class, LinkedHashSet.class, HashMap.class, LinkedHashMap.class));
+
+  static {
+    primitive(boolean.class, Boolean.class, (out, v) -> out.writeBoolean((Boolean) v), DataInput::readBoolean);
+    primitive(byte.class, Byte.class, (out, v) -> out.writeByte((Byte) v), DataInput::readByte);
+    primitive(short.class, Short.class, (out, v) -> out.writeShort((Short) v), DataInput::readShort);
+    primitive(char.class, Character.class, (out, v) -> out.writeChar((Character) v), DataInput::readChar);
+    primitive(int.class, Integer.class, (out, v) -> out.writeInt((Integer) v), DataInput::readInt);
+    primitive(long.class, Long.class, (out, v) -> out.writeLong((Long) v), DataInput::readLong);
+    primitive(float.class, Float.class, (out, v) -> out.writeFloat((Float) v), DataInput::readFloat);
+    primitive(double.class, Double.class, (out, v) -> out.writeDouble((Double) v), DataInput::readDouble);
+
+    // one loop per primitive type: no reflection and no boxing of the elements
+    PRIMITIVE_ARRAYS.put(boolean[].class, encoding((out, v) -> {
+      boolean[] array = (boolean[]) v;
+      out.writeInt(array.length);
+      for (boolean element : array) {
+        out.writeBoolean(element);
+      }
+    }, in -> {
+      boolean[] array = new boolean[in.readInt()];
+      for (int i = 0; i < array.length; i++) {
+        array[i] = in.readBoolean();
+      }
+      return array;
+    }));
+    PRIMITIVE_ARRAYS.put(byte[].class, encoding((out, v) -> writeBytes(out, (byte[]) v), BinaryCodec::readBytes));
+    PRIMITIVE_ARRAYS.put(short[].class, encoding((out, v) -> {
+      short[] array = (short[]) v;
+      out.writeInt(array.length);
+      for (short element : array) {
+        out.writeShort(element);
+      }
+    }, in -> {
+      short[] array = new short[in.readInt()];
+      for (int i = 0; i < array.length; i++) {
+        array[i] = in.readShort();
+      }
+      return array;
+    }));
+    PRIMITIVE_ARRAYS.put(char[].class, encoding((out, v) -> {
+      char[] array = (char[]) v;
+      out.writeInt(array.length);
+      for (char element : array) {
+        out.writeChar(element);
+      }
+    }, in -> {
+      char[] array = new char[in.readInt()];
+      for (int i = 0; i < array.length; i++) {
+        array[i] = in.readChar();
+      }
+      return array;
+    }));
+    PRIMITIVE_ARRAYS.put(int[].class, encoding((out, v) -> {
+      int[] array = (int[]) v;
+      out.writeInt(array.length);
+      for (int element : array) {
+        out.writeInt(element);
+      }
+    }, in -> {
+      int[] array = new int[in.readInt()];
+      for (int i = 0; i < array.length; i++) {
+        array[i] = in.readInt();
+      }
+      return array;
+    }));
+    PRIMITIVE_ARRAYS.put(long[].class, encoding((out, v) -> {
+      long[] array = (long[]) v;
+      out.writeInt(array.length);
+      for (long element : array) {
+        out.writeLong(element);
+      }
+    }, in -> {
+      long[] array = new long[in.readInt()];
+      for (int i = 0; i < array.length; i++) {
+        array[i] = in.readLong();
+      }
+      return array;
+    }));
+    PRIMITIVE_ARRAYS.put(float[].class, encoding((out, v) -> {
+      float[] array = (float[]) v;
+      out.writeInt(array.length);
+      for (float element : array) {
+        out.writeFloat(element);
+      }
+    }, in -> {
+      float[] array = new float[in.readInt()];
+      for (int i = 0; i < array.length; i++) {
+        array[i] = in.readFloat();
+      }
+      return array;
+    }));
+    PRIMITIVE_ARRAYS.put(double[].class, encoding((out, v) -> {
+      double[] array = (double[]) v;
+      out.writeInt(array.length);
+      for (double element : array) {
+        out.writeDouble(element);
+      }
+    }, in -> {
+      double[] array = new double[in.readInt()];
+      for (int i = 0; i < array.length; i++) {
+        array[i] = in.readDouble();
+      }
+      return array;
+    }));
+  }
+
+  private final Codec fallback;
+  private final Map<Class<?>, Registration> registrations = new ConcurrentHashMap<>();
+  private final Map<String, Registration> registrationsByName = new ConcurrentHashMap<>();
+  private final Map<Class<?>, Encoding> encodings = new ConcurrentHashMap<>();
+  private final Map<List<Class<?>>, Encoding[]> signatures = new ConcurrentHashMap<>();
+  private final Encoding dynamic = new Encoding() {
+    @Override
+    public void write(DataOutputStream output, Object value) throws IOException {
+      writeDynamic(output, value);
+    }
+
+    @Override
+    public Object read(DataInputStream input) throws IOException {
+      return readDynamic(input);
+    }
+  };
+
+  public BinaryCodec() {
+    this(new SerializationCodec());
+  }
+
+  public BinaryCodec(Codec fallback) {
+    this.fallback = Objects.requireNonNull(fallback);
+  }
+
+  /**
+   * Registers a value type that will be encoded with the given writer and reader instead of the fallback codec.
+   * Registration must happen before the codec is used.
+   */
+  public <T> BinaryCodec register(Class<T> type, ValueWriter<? super T> writer, ValueReader<? extends T> reader) {
+    if (type.isPrimitive() || type.isArray() || type.isInterface()) {
+      throw new IllegalArgumentException("Cannot register type: " + type.getName());
+    }
+    Registration registration = new Registration(type, writer, reader);
+    if (registrations.putIfAbsent(type, registration) != null) {
+      throw new IllegalArgumentException("Type already registered: " + type.getName());
+    }
+    registrationsByName.put(type.getName(), registration);
+    encodings.clear();
+    signatures.clear();
+    return this;
+  }
+
+  @Override
+  public byte[] encode(Class<?> type, Object value) {
+    ByteArrayOutputStream bout = new ByteArrayOutputStream();
+    try (DataOutputStream output = new DataOutputStream(bout)) {
+      encoding(type).write(output, value);
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+    return bout.toByteArray();
+  }
+
+  @Override
+  public byte[] encode(Class<?>[] types, Object[] values) {
+    if (values == null) {
+      values = new Object[0];
+    }
+    if (types.length != values.length) {
+      throw new IllegalArgumentException();
+    }
+    Encoding[] signature = signature(types);
+    ByteArrayOutputStream bout = new ByteArrayOutputStream();
+    try (DataOutputStream output = new DataOutputStream(bout)) {
+      for (int i = 0; i < signature.length; i++) {
+        signature[i].write(output, values[i]);
+      }
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+    return bout.toByteArray();
+  }
+
+  @Override
+  public <T> T decode(Class<T> type, byte[] buffer) {
+    return decode(type, buffer, 0, buffer.length);
+  }
+
+  @SuppressWarnings("unchecked")
+  @Override
+  public <T> T decode(Class<T> type, byte[] buffer, int offset, int len) {
+    if (len == 0) {
+      return null;
+    }
+    try (DataInputStream input = new DataInputStream(new ByteArrayInputStream(buffer, offset, len))) {
+      Object value = encoding(type).read(input);
+      return type.isPrimitive() ? (T) value : type.cast(value);
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  @Override
+  public Object[] decode(Class<?>[] types, byte[] buffer) {
+    return decode(types, buffer, 0, buffer.length);
+  }
+
+  @Override
+  public Object[] decode(Class<?>[] types, byte[] buffer, int offset, int len) {
+    Encoding[] signature = signature(types);
+    Object[] values = new Object[signature.length];
+    try (DataInputStream input = new DataInputStream(new ByteArrayInputStream(buffer, offset, len))) {
+      for (int i = 0; i < signature.length; i++) {
+        Object value = signature[i].read(input);
+        values[i] = types[i].isPrimitive() ? value : types[i].cast(value);
+      }
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+    return values;
+  }
+
+  private Encoding[] signature(Class<?>[] types) {
+    Encoding[] signature = signatures.get(Arrays.asList(types));
+    if (signature == null) {
+      signature = new Encoding[types.length];
+      for (int i = 0; i < types.length; i++) {
+        signature[i] = encoding(types[i]);
+      }
+      signatures.putIfAbsent(Arrays.asList(types.clone()), signature);
+    }
+    return signature;
+  }
+
+  private Encoding encoding(Class<?> type) {
+    Encoding encoding = encodings.get(type);
+    if (encoding == null) {
+      // not using computeIfAbsent(): array encodings are recursive
+      encoding = createEncoding(type);
+      encodings.putIfAbsent(type, encoding);
+    }
+    return encoding;
+  }
+
+  private Encoding createEncoding(Class<?> type) {
+    if (type == void.class || type == Void.class) {
+      return VOID;
+    }
+    if (type.isPrimitive()) {
+      return PRIMITIVES.get(type);
+    }
+    Encoding wrapper = WRAPPERS.get(type);
+    if (wrapper != null) {
+      return declared(value -> value.getClass() == type, wrapper);
+    }
+    if (type == String.class) {
+      return declared(value -> value.getClass() == String.class, new Encoding() {
+        @Override
+        public void write(DataOutputStream output, Object value) throws IOException {
+          writeString(output, (String) value);
+        }
+
+        @Override
+        public Object read(DataInputStream input) throws IOException {
+          return readString(input);
+        }
+      });
+    }
+    Registration registration = registrations.get(type);
+    if (registration != null) {
+      return declared(value -> value.getClass() == type, registration);
+    }
+    if (type.isEnum()) {
+      return declared(value -> type.isInstance(value) && ((Enum<?>) value).getDeclaringClass() == type, new Encoding() {
+        @Override
+        public void write(DataOutputStream output, Object value) throws IOException {
+          writeString(output, ((Enum<?>) value).name());
+        }
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        @Override
+        public Object read(DataInputStream input) throws IOException {
+          return Enum.valueOf((Class) type, readString(input));
+        }
+      });
+    }
+    if (type.isArray()) {
+      return declared(value -> value.getClass() == type, arrayEncoding(type));
+    }
+    // the tagged collection types are encoded dynamically, which keeps their type
+    if (type == Collection.class || type == List.class) {
+      return declared(value -> type.isInstance(value) && !TAGGED_COLLECTIONS.contains(value.getClass()), new CollectionEncoding(ArrayList::new));
+    }
+    if (type == Set.class) {
+      return declared(value -> type.isInstance(value) && !TAGGED_COLLECTIONS.contains(value.getClass()), new CollectionEncoding(LinkedHashSet::new));
+    }
+    if (type == Map.class) {
+      return declared(value -> type.isInstance(value) && !TAGGED_COLLECTIONS.contains(value.getClass()), new MapEncoding(LinkedHashMap::new));
+    }
+    return dynamic;
+  }
+
+  private Encoding arrayEncoding(Class<?> arrayType) {
+    Encoding primitiveArray = PRIMITIVE_ARRAYS.get(arrayType);
+    if (primitiveArray != null) {
+      return primitiveArray;
+    }
+    Class<?> componentType = arrayType.getComponentType();
+    Encoding component = encoding(componentType);
+    return new Encoding() {
+      @Override
+      public void write(DataOutputStream output, Object value) throws IOException {
+        Object[] array = (Object[]) value;
+        output.writeInt(array.length);
+        for (Object element : array) {
+          component.write(output, element);
+        }
+      }
+
+      @Override
+      public Object read(DataInputStream input) throws IOException {
+        Object[] array = (Object[]) Array.newInstance(componentType, input.readInt());
+        for (int i = 0; i < array.length; i++) {
+          array[i] = component.read(input);
+        }
+        return array;
+      }
+    };
+  }
+
+  private Encoding declared(Predicate<Object> accepts, Encoding encoding) {
+    return new Encoding() {
+      @Override
+      public void write(DataOutputStream output, Object value) throws IOException {
+        if (value == null) {
+          output.writeByte(NULL);
+        } else if (accepts.test(value)) {
+          output.writeByte(DECLARED);
+          encoding.write(output, value);
+        } else {
+          // i.e. a subclass of the declared type
+          output.writeByte(OTHER);
+          writeDynamic(output, value);
+        }
+      }
+
+      @Override
+      public Object read(DataInputStream input) throws IOException {
+        byte flag = input.readByte();
+        switch (flag) {
+          case NULL:
+            return null;
+          case DECLARED:
+            return encoding.read(input);
+          case OTHER:
+            return readDynamic(input);
+          default:
+            throw new IllegalStateException("Bad flag: " + flag);
+        }
+      }
+    };
+  }
+
+  private void writeDynamic(DataOutputStream output, Object value) throws IOException {
+    if (value == null) {
+      output.writeByte(TAG_NULL);
+      return;
+    }
+    Class<?> type = value.getClass();
+    Encoding wrapper = WRAPPERS.get(type);
+    if (wrapper != null) {
+      output.writeByte(wrapperTag(type));
+      wrapper.write(output, value);
+    } else if (type == String.class) {
+      output.writeByte(TAG_STRING);
+      writeString(output, (String) value);
+    } else if (type == byte[].class) {
+      output.writeByte(TAG_BYTES);
+      writeBytes(output, (byte[]) value);
+    } else if (type == ArrayList.class) {
+      output.writeByte(TAG_ARRAY_LIST);
+      writeCollection(output, (Collection<?>) value);
+    } else if (type == HashSet.class) {
+      output.writeByte(TAG_HASH_SET);
+      writeCollection(output, (Collection<?>) value);
+    } else if (type == LinkedHashSet.class) {
+      output.writeByte(TAG_LINKED_HASH_SET);
+      writeCollection(output, (Collection<?>) value);
+    } else if (type == HashMap.class) {
+      output.writeByte(TAG_HASH_MAP);
+      writeMap(output, (Map<?, ?>) value);
+    } else if (type == LinkedHashMap.class) {
+      output.writeByte(TAG_LINKED_HASH_MAP);
+      writeMap(output, (Map<?, ?>) value);
+    } else {
+      Registration registration = registrations.get(type);
+      if (registration != null) {
+        output.writeByte(TAG_REGISTERED);
+        output.writeUTF(type.getName());
+        registration.write(output, value);
+      } else {
+        output.writeByte(TAG_FALLBACK);
+        writeBytes(output, fallback.encode(Object.class, value));
+      }
+    }
+  }
+
+  private Object readDynamic(DataInputStream input) throws IOException {
+    byte tag = input.readByte();
+    switch (tag) {
+      case TAG_NULL:
+        return null;
+      case TAG_BOOLEAN:
+        return input.readBoolean();
+      case TAG_BYTE:
+        return input.readByte();
+      case TAG_SHORT:
+        return input.readShort();
+      case TAG_CHAR:
+        return input.readChar();
+      case TAG_INT:
+        return input.readInt();
+      case TAG_LONG:
+        return input.readLong();
+      case TAG_FLOAT:
+        return input.readFloat();
+      case TAG_DOUBLE:
+        return input.readDouble();
+      case TAG_STRING:
+        return readString(input);
+      case TAG_BYTES:
+        return readBytes(input);
+      case TAG_ARRAY_LIST:
+        return readCollection(input, new ArrayList<>());
+      case TAG_HASH_SET:
+        return readCollection(input, new HashSet<>());
+      case TAG_LINKED_HASH_SET:
+        return readCollection(input, new LinkedHashSet<>());
+      case TAG_HASH_MAP:
+        return readMap(input, new HashMap<>());
+      case TAG_LINKED_HASH_MAP:
+        return readMap(input, new LinkedHashMap<>());
+      case TAG_REGISTERED: {
+        String name = input.readUTF();
+        Registration registration = registrationsByName.get(name);
+        if (registration == null) {
+          throw new IllegalStateException("Type not registered: " + name);
+        }
+        return registration.read(input);
+      }
+      case TAG_FALLBACK:
+        return fallback.decode(Object.class, readBytes(input));
+      default:
+        throw new IllegalStateException("Bad tag: " + tag);
+    }
+  }
+
+  private void writeCollection(DataOutputStream output, Collection<?> collection) throws IOException {
+    output.writeInt(collection.size());
+    for (Object o : collection) {
+      writeDynamic(output, o);
+    }
+  }
+
+  private Collection<Object> readCollection(DataInputStream input, Collection<Object> collection) throws IOException {
+    int size = input.readInt();
+    for (int i = 0; i < size; i++) {
+      collection.add(readDynamic(input));
+    }
+    return collection;
+  }
+
+  private void writeMap(DataOutputStream output, Map<?, ?> map) throws IOException {
+    output.writeInt(map.size());
+    for (Map.Entry<?, ?> entry : map.entrySet()) {
+      writeDynamic(output, entry.getKey());
+      writeDynamic(output, entry.getValue());
+    }
+  }
+
+  private Map<Object, Object> readMap(DataInputStream input, Map<Object, Object> map) throws IOException {
+    int size = input.readInt();
+    for (int i = 0; i < size; i++) {
+      map.put(readDynamic(input), readDynamic(input));
+    }
+    return map;
+  }
+
+  private static byte wrapperTag(Class<?> type) {
+    if (type == Boolean.class) return TAG_BOOLEAN;
+    if (type == Byte.class) return TAG_BYTE;
+    if (type == Short.class) return TAG_SHORT;
+    if (type == Character.class) return TAG_CHAR;
+    if (type == Integer.class) return TAG_INT;
+    if (type == Long.class) return TAG_LONG;
+    if (type == Float.class) return TAG_FLOAT;
+    if (type == Double.class) return TAG_DOUBLE;
+    throw new AssertionError(type);
+  }
+
+  private static void writeString(DataOutputStream output, String value) throws IOException {
+    // not using writeUTF(), which is limited to 64K
+    writeBytes(output, value.getBytes(UTF_8));
+  }
+
+  private static String readString(DataInputStream input) throws IOException {
+    return new String(readBytes(input), UTF_8);
+  }
+
+  private static void writeBytes(DataOutput output, byte[] bytes) throws IOException {
+    output.writeInt(bytes.length);
+    output.write(bytes);
+  }
+
+  private static byte[] readBytes(DataInput input) throws IOException {
+    byte[] bytes = new byte[input.readInt()];
+    input.readFully(bytes);
+    return bytes;
+  }
+
+  private static void primitive(Class<?> primitive, Class<?> wrapper, ValueWriter<Object> writer, ValueReader<Object> reader) {
+    Encoding encoding = encoding(writer, reader);
+    PRIMITIVES.put(primitive, encoding);
+    WRAPPERS.put(wrapper, encoding);
+  }
+
+  private static Encoding encoding(ValueWriter<Object> writer, ValueReader<?> reader) {
+    return new Encoding() {
+      @Override
+      public void write(DataOutputStream output, Object value) throws IOException {
+        writer.write(output, value);
+      }
+
+      @Override
+      public Object read(DataInputStream input) throws IOException {
+        return reader.read(input);
+      }
+    };
+  }
+
+  private interface Encoding {
+    void write(DataOutputStream output, Object value) throws IOException;
+
+    Object read(DataInputStream input) throws IOException;
+  }
+
+  private final class CollectionEncoding implements Encoding {
+    private final Supplier<Collection<Object>> factory;
+
+    CollectionEncoding(Supplier<Collection<Object>> factory) {
+      this.factory = factory;
+    }
+
+    @Override
+    public void write(DataOutputStream output, Object value) throws IOException {
+      writeCollection(output, (Collection<?>) value);
+    }
+
+    @Override
+    public Object read(DataInputStream input) throws IOException {
+      return readCollection(input, factory.get());
+    }
+  }
+
+  private final class MapEncoding implements Encoding {
+    private final Supplier<Map<Object, Object>> factory;
+
+    MapEncoding(Supplier<Map<Object, Object>> factory) {
+      this.factory = factory;
+    }
+
+    @Override
+    public void write(DataOutputStream output, Object value) throws IOException {
+      writeMap(output, (Map<?, ?>) value);
+    }
+
+    @Override
+    public Object read(DataInputStream input) throws IOException {
+      return readMap(input, factory.get());
+    }
+  }
+
+  private static final class Registration implements Encoding {
+    private final Class<?> type;
+    private final ValueWriter<Object> writer;
+    private final ValueReader<?> reader;
+
+    @SuppressWarnings("unchecked")
+    <T> Registration(Class<T> type, ValueWriter<? super T> writer, ValueReader<? extends T> reader) {
+      this.type = type;
+      this.writer = (ValueWriter<Object>) Objects.requireNonNull(writer);
+      this.reader = Objects.requireNonNull(reader);
+    }
+
+    @Override
+    public void write(DataOutputStream output, Object value) throws IOException {
+      writer.write(output, type.cast(value));
+    }
+
+    @Override
+    public Object read(DataInputStream input) throws IOException {
+      return reader.read(input);
+    }
+  }
+}
@@ -17,14 +17,20 @@
 package org.terracotta.voltron.proxy;
 
 import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Array;
 import java.lang.reflect.GenericArrayType;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.lang.reflect.TypeVariable;
 import java.lang.reflect.WildcardType;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 
@@ -34,20 +40,28 @@ import java.util.concurrent.Future;
 public final class MethodDescriptor {
 
   private final boolean async;
+  private final boolean completionStage;
   private final Class<?> messageType;
   private final Method method;
+  private final Class<?>[] parameterTypes;
   private final ExecutionStrategy.Location location;
   private final int concurrencyKey;
 
+  // created on first invocation: only the descriptors of the server side are invoked
+  private volatile MethodHandle invoker;
+  private volatile boolean reflective;
+
   private MethodDescriptor(Method method) {
     this.method = method;
+    this.parameterTypes = method.getParameterTypes();
 
     // @Async
     async = method.getAnnotation(Async.class) != null;
+    completionStage = async && (method.getReturnType() == CompletionStage.class || method.getReturnType() == CompletableFuture.class);
     if (async) {
-      // @Async required a Future
-      if (method.getReturnType() != Future.class) {
-        throw new IllegalStateException("@Async requires a Future as a return type on method: " + method);
+      // @Async required a Future or a CompletionStage
+      if (method.getReturnType() != Future.class && !completionStage) {
+        throw new IllegalStateException("@Async requires a Future, CompletionStage or CompletableFuture as a return type on method: " + method);
       }
       Type returnType = method.getGenericReturnType();
       messageType = returnType instanceof Class<?> ?
@@ -78,6 +92,13 @@ public final class MethodDescriptor {
     return async;
   }
 
+  /**
+   * @return true if this method is {@link Async} and returns a {@link CompletionStage}: its result can be awaited without blocking
+   */
+  public boolean isCompletionStage() {
+    return completionStage;
+  }
+
   public Class<?> getMessageType() {
     return messageType;
   }
@@ -117,24 +138,206 @@ public final class MethodDescriptor {
   }
 
   public Object invoke(Object target, Object... args) throws IllegalAccessException, IllegalArgumentException, InvocationTargetException {
-    Object ret = method.invoke(target, args);
+    Object ret = call(target, args);
     if (async) {
+      ret = await(ret);
+    }
+    return ret;
+  }
+
+  /**
+   * Invokes the method without waiting for the completion of the {@link CompletionStage} returned by an {@link Async} method.
+   * The result of the other methods is returned as a completed stage.
+   */
+  public CompletionStage<?> invokeAsync(Object target, Object... args) throws IllegalAccessException, IllegalArgumentException, InvocationTargetException {
+    Object ret = call(target, args);
+    if (completionStage && ret != null) {
+      return (CompletionStage<?>) ret;
+    }
+    return CompletableFuture.completedFuture(async ? await(ret) : ret);
+  }
+
+  private Object call(Object target, Object... args) throws IllegalAccessException, IllegalArgumentException, InvocationTargetException {
+    MethodHandle invoker = reflective ? null : getInvoker();
+    Object ret;
+    if (invoker == null) {
+      ret = method.invoke(target, args);
+    } else {
+      if (!Modifier.isStatic(method.getModifiers())) {
+        if (target == null) {
+          throw new NullPointerException("Target is null for method: " + method);
+        }
+        if (!method.getDeclaringClass().isInstance(target)) {
+          throw new IllegalArgumentException("Target is not an instance of " + method.getDeclaringClass().getName() + " for method: " + method);
+        }
+      }
+      if (args == null ? parameterTypes.length != 0 : args.length != parameterTypes.length) {
+        throw new IllegalArgumentException("Wrong number of arguments for method: " + method);
+      }
+      // the arguments are checked first, so that only the failures of the method itself are reported as invocation failures
+      Object[] converted = convertArguments(args);
       try {
-        ret = ((Future<?>) ret).get();
-      } catch (InterruptedException e) {
-        Thread.currentThread().interrupt();
+        ret = (Object) invoker.invokeExact(target, converted);
+      } catch (Throwable e) {
         throw new InvocationTargetException(e);
-      } catch (ExecutionException e) {
-        throw new InvocationTargetException(e.getCause());
       }
     }
     return ret;
   }
 
+  /**
+   * Checks the arguments against the parameter types, unwrapping and widening the primitive ones like
+   * {@link Method#invoke(Object, Object...)} does, so that the method handle can take them as they are.
+   *
+   * @throws IllegalArgumentException if an argument cannot be converted to its parameter type
+   */
+  private Object[] convertArguments(Object[] args) {
+    Object[] converted = args;
+    for (int i = 0; i < parameterTypes.length; i++) {
+      Class<?> type = parameterTypes[i];
+      Object arg = args[i];
+      if (type.isPrimitive()) {
+        Object widened = widen(arg, type);
+        if (widened == null) {
+          throw new IllegalArgumentException("Argument " + i + " of type " + (arg == null ? "null" : arg.getClass().getName()) + " cannot be converted to " + type.getName() + " for method: " + method);
+        }
+        if (widened != arg) {
+          if (converted == args) {
+            converted = args.clone();
+          }
+          converted[i] = widened;
+        }
+      } else if (arg != null && !type.isInstance(arg)) {
+        throw new IllegalArgumentException("Argument " + i + " of type " + arg.getClass().getName() + " is not an instance of " + type.getName() + " for method: " + method);
+      }
+    }
+    return converted;
+  }
+
+  /**
+   * @return the wrapper of the given primitive type holding the value, after an identity or widening primitive
+   * conversion, or null if there is no such conversion
+   */
+  private static Object widen(Object value, Class<?> type) {
+    if (value == null) {
+      return null;
+    }
+    Class<?> from = value.getClass();
+    if (type == boolean.class) {
+      return from == Boolean.class ? value : null;
+    }
+    if (type == char.class) {
+      return from == Character.class ? value : null;
+    }
+    int fromRank = rank(from);
+    int toRank = rank(type);
+    if (fromRank < 0 || fromRank > toRank) {
+      return null;
+    }
+    if (fromRank == toRank && from != Character.class) {
+      return value;
+    }
+    Number number = from == Character.class ? Integer.valueOf((Character) value) : (Number) value;
+    switch (toRank) {
+      case 1:
+        return number.byteValue();
+      case 2:
+        return number.shortValue();
+      case 3:
+        return number.intValue();
+      case 4:
+        return number.longValue();
+      case 5:
+        return number.floatValue();
+      default:
+        return number.doubleValue();
+    }
+  }
+
+  /**
+   * @return the rank of a numeric primitive or wrapper type in the widening primitive conversions, char being
+   * converted as an int, or -1 if the type is not numeric
+   */
+  private static int rank(Class<?> type) {
+    if (type == byte.class || type == Byte.class) {
+      return 1;
+    }
+    if (type == short.class || type == Short.class) {
+      return 2;
+    }
+    if (type == int.class || type == Integer.class || type == Character.class) {
+      return 3;
+    }
+    if (type == long.class || type == Long.class) {
+      return 4;
+    }
+    if (type == float.class || type == Float.class) {
+      return 5;
+    }
+    if (type == double.class || type == Double.class) {
+      return 6;
+    }
+    return -1;
+  }
+
+  private static Object await(Object ret) throws InvocationTargetException {
+    if (ret == null) {
+      return null;
+    }
+    Future<?> future = ret instanceof Future ? (Future<?>) ret : ((CompletionStage<?>) ret).toCompletableFuture();
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InvocationTargetException(e);
+    } catch (ExecutionException e) {
+      throw new InvocationTargetException(e.getCause());
+    }
+  }
+
   public Method getMethod() {
     return method;
   }
 
+  private MethodHandle getInvoker() {
+    MethodHandle invoker = this.invoker;
+    if (invoker == null) {
+      invoker = createInvoker(method);
+      if (invoker == null) {
+        // fallback to reflection if no method handle can be created
+        reflective = true;
+      } else {
+        this.invoker = invoker;
+      }
+    }
+    return invoker;
+  }
+
+  /**
+   * Creates a method handle of type {@code (Object, Object[])Object} calling the method on the target (first argument)
+   * with the arguments of the array
+   */
+  private static MethodHandle createInvoker(Method method) {
+    try {
+      MethodHandle handle;
+      try {
+        handle = MethodHandles.publicLookup().unreflect(method);
+      } catch (IllegalAccessException e) {
+        // i.e. non-public proxied interface
+        method.setAccessible(true);
+        handle = MethodHandles.lookup().unreflect(method);
+      }
+      if (Modifier.isStatic(method.getModifiers())) {
+        handle = MethodHandles.dropArguments(handle, 0, Object.class);
+      }
+      return handle
+          .asSpreader(Object[].class, method.getParameterCount())
+          .asType(MethodType.methodType(Object.class, Object.class, Object[].class));
+    } catch (IllegalAccessException | RuntimeException e) {
+      return null;
+    }
+  }
+
   private static Class<?> determineRawType(Type type) {
     if (type instanceof Class<?>) {
       return (Class<?>) type;
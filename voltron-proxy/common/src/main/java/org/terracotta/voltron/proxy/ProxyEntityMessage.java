@@ -21,6 +21,7 @@ import org.terracotta.entity.EntityMessage;
 
 import java.lang.annotation.Annotation;
 import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.CompletionStage;
 
 /**
  * @author Alex Snaps
@@ -49,6 +50,20 @@ public class ProxyEntityMessage implements EntityMessage {
   }
 
   public Object invoke(final Object target, final Object clientDescriptor) throws InvocationTargetException, IllegalAccessException {
+    setClientDescriptor(clientDescriptor);
+    return method.invoke(target, args);
+  }
+
+  /**
+   * Same as {@link #invoke(Object, Object)} but does not wait for the completion of the {@link CompletionStage}
+   * returned by an {@link Async} method
+   */
+  public CompletionStage<?> invokeAsync(final Object target, final Object clientDescriptor) throws InvocationTargetException, IllegalAccessException {
+    setClientDescriptor(clientDescriptor);
+    return method.invokeAsync(target, args);
+  }
+
+  private void setClientDescriptor(final Object clientDescriptor) {
     if (clientDescriptor != null) {
       final Annotation[][] allAnnotations = method.getParameterAnnotations();
       for (int i = 0; i < allAnnotations.length; i++) {
@@ -60,8 +75,6 @@ public class ProxyEntityMessage implements EntityMessage {
         }
       }
     }
-
-    return method.invoke(target, args);
   }
 
   public Object invoke(final Object target) throws InvocationTargetException, IllegalAccessException {
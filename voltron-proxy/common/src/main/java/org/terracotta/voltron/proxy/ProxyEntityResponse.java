@@ -50,6 +50,9 @@ public final class ProxyEntityResponse implements EntityResponse {
   private final Class<?> responseType;
   private final Object response;
 
+  // encoded form of this response, shared when a message is fired to several clients
+  private volatile byte[] encoded;
+
   private ProxyEntityResponse(MessageType messageType, Class<?> responseType, Object response) {
     this.messageType = messageType;
     this.responseType = responseType;
@@ -67,4 +70,12 @@ public final class ProxyEntityResponse implements EntityResponse {
   public Object getResponse() {
     return response;
   }
+
+  byte[] getEncoded() {
+    return encoded;
+  }
+
+  void setEncoded(byte[] encoded) {
+    this.encoded = encoded;
+  }
 }
@@ -81,6 +81,11 @@ public class ProxyMessageCodec implements MessageCodec<ProxyEntityMessage, Proxy
     if (r == null) {
       return new byte[0];
     }
+    byte[] encoded = r.getEncoded();
+    if (encoded != null) {
+      // the same response is sent to several clients: only encode it once
+      return encoded;
+    }
     MessageType messageType = r.getMessageType();
     ByteArrayOutputStream byteOut = new ByteArrayOutputStream();
     DataOutputStream output = new DataOutputStream(byteOut);
@@ -92,7 +97,9 @@ public class ProxyMessageCodec implements MessageCodec<ProxyEntityMessage, Proxy
     } catch (Exception e) {
       throw new MessageCodecException("Error encoding ProxyEntityResponse", e);
     }
-    return byteOut.toByteArray();
+    encoded = byteOut.toByteArray();
+    r.setEncoded(encoded);
+    return encoded;
   }
 
   @Override
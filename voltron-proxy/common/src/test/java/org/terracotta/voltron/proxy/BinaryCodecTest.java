@@ -0,0 +1,172 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.voltron.proxy;
+
+import org.junit.Test;
+import org.terracotta.AvailableClass;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.Collections.singletonList;
+import static java.util.Collections.unmodifiableSet;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsInstanceOf.instanceOf;
+import static org.hamcrest.core.IsNull.nullValue;
+
+public class BinaryCodecTest {
+
+  private final BinaryCodec codec = new BinaryCodec()
+      .register(AvailableClass.class, (output, value) -> output.writeUTF(value.string), input -> new AvailableClass(input.readUTF()));
+
+  @Test
+  public void testPrimitivesAndStrings() {
+    Class<?>[] types = {int.class, long.class, boolean.class, String.class, String.class, Integer.class, Object.class};
+    Object[] values = {1, 2L, true, "foo", null, null, 3.5d};
+
+    Object[] decoded = codec.decode(types, codec.encode(types, values));
+
+    assertThat(Arrays.asList(decoded), is(Arrays.asList(values)));
+  }
+
+  @Test
+  public void testArraysEnumsAndCollections() {
+    Map<String, Object> map = new LinkedHashMap<>();
+    map.put("a", 1L);
+    map.put("b", new ArrayList<>(Arrays.asList("x", null)));
+    Class<?>[] types = {byte[].class, String[].class, long[].class, TimeUnit.class, List.class, Collection.class, Map.class};
+    Object[] values = {new byte[]{1, 2}, new String[]{"a", null}, new long[]{3L}, TimeUnit.SECONDS, singletonList("foo"), Arrays.asList(1, 2), map};
+
+    Object[] decoded = codec.decode(types, codec.encode(types, values));
+
+    assertThat(decoded[0], is(values[0]));
+    assertThat(decoded[1], is(values[1]));
+    assertThat(decoded[2], is(values[2]));
+    assertThat(decoded[3], is(TimeUnit.SECONDS));
+    assertThat(decoded[4], is(singletonList("foo")));
+    assertThat(decoded[5], is(Arrays.asList(1, 2)));
+    assertThat(decoded[6], is(map));
+  }
+
+  @Test
+  public void testPrimitiveArrays() {
+    Class<?>[] types = {boolean[].class, short[].class, char[].class, int[].class, long[].class, float[].class, double[].class, int[][].class, Object[].class};
+    Object[] values = {new boolean[]{true, false}, new short[]{1, -2}, new char[]{'a', 'b'}, new int[]{3, Integer.MIN_VALUE},
+        new long[]{Long.MAX_VALUE}, new float[]{1.5f}, new double[]{2.5d, Double.NaN}, new int[][]{{1}, null, {}}, new Object[]{1, "a", new int[]{2}}};
+
+    Object[] decoded = codec.decode(types, codec.encode(types, values));
+
+    for (int i = 0; i < types.length; i++) {
+      assertThat(decoded[i], instanceOf(types[i]));
+    }
+    assertThat(Arrays.deepEquals(decoded, values), is(true));
+  }
+
+  @Test
+  public void testCollectionsKeepTheirTypeWhenTagged() {
+    Set<String> set = new HashSet<>(Arrays.asList("a", "b"));
+    Map<String, String> map = new HashMap<>();
+    map.put("a", "b");
+    Class<?>[] types = {Collection.class, Set.class, Set.class, Map.class, List.class};
+    Object[] values = {new LinkedHashSet<>(singletonList("a")), set, unmodifiableSet(set), map, new ArrayList<>(singletonList(1))};
+
+    Object[] decoded = codec.decode(types, codec.encode(types, values));
+
+    assertThat(decoded[0], instanceOf(LinkedHashSet.class));
+    assertThat(decoded[1].getClass(), is(HashSet.class));
+    assertThat(decoded[2].getClass(), is(LinkedHashSet.class));
+    assertThat(decoded[3].getClass(), is(HashMap.class));
+    assertThat(decoded[4].getClass(), is(ArrayList.class));
+    assertThat(Arrays.asList(decoded), is(Arrays.asList(values)));
+  }
+
+  @Test
+  public void testRegisteredTypes() {
+    Class<?>[] types = {AvailableClass.class, Object.class, AvailableClass[].class};
+    Object[] values = {new AvailableClass("foo"), new AvailableClass("bar"), new AvailableClass[]{new AvailableClass("baz")}};
+
+    Object[] decoded = codec.decode(types, codec.encode(types, values));
+
+    assertThat(((AvailableClass) decoded[0]).string, is("foo"));
+    assertThat(((AvailableClass) decoded[1]).string, is("bar"));
+    assertThat(((AvailableClass[]) decoded[2])[0].string, is("baz"));
+  }
+
+  @Test
+  public void testFallback() {
+    Class<?>[] types = {Date.class, Object.class, AvailableClass.class, Map.class};
+    Map<String, Date> map = new HashMap<>();
+    map.put("date", new Date(2));
+    Object[] values = {new Date(0), new Date(1), new SubClass("foo"), map};
+
+    Object[] decoded = codec.decode(types, codec.encode(types, values));
+
+    assertThat(decoded[0], is(new Date(0)));
+    assertThat(decoded[1], is(new Date(1)));
+    assertThat(decoded[2], instanceOf(SubClass.class));
+    assertThat(((AvailableClass) decoded[2]).string, is("foo"));
+    assertThat(decoded[3], is(map));
+  }
+
+  @Test
+  public void testResponses() {
+    assertThat(codec.decode(void.class, codec.encode(void.class, null)), is(nullValue()));
+    assertThat(codec.decode(int.class, codec.encode(int.class, 5)), is(5));
+    assertThat(codec.decode(String.class, codec.encode(String.class, "foo")), is("foo"));
+    assertThat(codec.decode(Object.class, codec.encode(Object.class, null)), is(nullValue()));
+  }
+
+  @Test
+  public void testWithProxyMessageCodec() throws Exception {
+    ProxyMessageCodec messageCodec = new ProxyMessageCodec(Service.class);
+    messageCodec.setCodec(codec);
+    MethodDescriptor method = MethodDescriptor.of(Service.class.getMethod("call", String.class, int.class, List.class));
+
+    ProxyEntityMessage message = messageCodec.decodeMessage(messageCodec.encodeMessage(new ProxyEntityMessage(method, new Object[]{"foo", 1, singletonList(2L)}, MessageType.MESSAGE)));
+    assertThat(message.getMethod(), is(method));
+    assertThat(Arrays.asList(message.getArguments()), is(Arrays.asList("foo", 1, singletonList(2L))));
+
+    ProxyEntityResponse response = messageCodec.decodeResponse(messageCodec.encodeResponse(ProxyEntityResponse.messageResponse(String.class, "bar")));
+    assertThat(response.getResponse(), is("bar"));
+  }
+
+  public interface Service {
+    @Async
+    Future<String> call(String name, int count, List<Long> values);
+  }
+
+  public static class SubClass extends AvailableClass implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    public SubClass(String string) {
+      super(string);
+    }
+  }
+}
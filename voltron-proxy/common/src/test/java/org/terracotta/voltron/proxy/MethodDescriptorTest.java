@@ -0,0 +1,154 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.voltron.proxy;
+
+import org.junit.Test;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Future;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsInstanceOf.instanceOf;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.junit.Assert.fail;
+
+public class MethodDescriptorTest {
+
+  private final Service service = new Service() {
+    @Override
+    public int add(int a, int b) {
+      return a + b;
+    }
+
+    @Override
+    public void fail(String message) {
+      throw new IllegalStateException(message);
+    }
+
+    @Override
+    public String name() {
+      return "service";
+    }
+
+    @Override
+    public Future<String> async(String value) {
+      return CompletableFuture.completedFuture(value);
+    }
+  };
+
+  @Test
+  public void testInvoke() throws Exception {
+    assertThat(MethodDescriptor.of(Service.class.getMethod("add", int.class, int.class)).invoke(service, 1, 2), is(3));
+    assertThat(MethodDescriptor.of(Service.class.getMethod("name")).invoke(service), is("service"));
+    assertThat(MethodDescriptor.of(Service.class.getMethod("name")).invoke(service, (Object[]) null), is("service"));
+    assertThat(MethodDescriptor.of(Service.class.getMethod("async", String.class)).invoke(service, "foo"), is("foo"));
+  }
+
+  @Test
+  public void testInvokeVoid() throws Exception {
+    MethodDescriptor method = MethodDescriptor.of(Service.class.getMethod("fail", String.class));
+    try {
+      method.invoke(service, "error");
+      fail();
+    } catch (InvocationTargetException e) {
+      assertThat(e.getTargetException(), instanceOf(IllegalStateException.class));
+    }
+  }
+
+  @Test
+  public void testInvokeNonPublicInterface() throws Exception {
+    MethodDescriptor method = MethodDescriptor.of(Internal.class.getDeclaredMethod("run"));
+    assertThat(method.invoke((Internal) () -> {}), is(nullValue()));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvokeWrongArguments() throws Exception {
+    MethodDescriptor.of(Service.class.getMethod("add", int.class, int.class)).invoke(service, 1);
+  }
+
+  @Test
+  public void testInvokeWidensPrimitiveArguments() throws Exception {
+    MethodDescriptor method = MethodDescriptor.of(Service.class.getMethod("add", int.class, int.class));
+    assertThat(method.invoke(service, (byte) 1, 'a'), is(98));
+    assertThat(method.invoke(service, (short) 1, 2), is(3));
+  }
+
+  @Test
+  public void testInvokeReportsBadArgumentsAsIllegalArguments() throws Exception {
+    MethodDescriptor add = MethodDescriptor.of(Service.class.getMethod("add", int.class, int.class));
+    MethodDescriptor fail = MethodDescriptor.of(Service.class.getMethod("fail", String.class));
+    // unboxing a null, narrowing, a wrong reference type, a wrong target: none of these reaches the method
+    assertIllegalArgument(() -> add.invoke(service, null, 2));
+    assertIllegalArgument(() -> add.invoke(service, 1L, 2));
+    assertIllegalArgument(() -> add.invoke(service, "1", 2));
+    assertIllegalArgument(() -> fail.invoke(service, 42));
+    assertIllegalArgument(() -> add.invoke(new Object(), 1, 2));
+  }
+
+  @Test
+  public void testInvokeAsync() throws Exception {
+    CompletableFuture<String> future = new CompletableFuture<>();
+    Stages stages = () -> future;
+    MethodDescriptor method = MethodDescriptor.of(Stages.class.getMethod("get"));
+
+    assertThat(method.isAsync(), is(true));
+    assertThat(method.isCompletionStage(), is(true));
+    assertThat(method.getMessageType() == String.class, is(true));
+    assertThat(method.invokeAsync(stages) == future, is(true));
+
+    future.complete("foo");
+    assertThat(method.invoke(stages), is("foo"));
+    assertThat(MethodDescriptor.of(Service.class.getMethod("name")).invokeAsync(service).toCompletableFuture().get(), is("service"));
+  }
+
+  private static void assertIllegalArgument(Invocation invocation) throws Exception {
+    try {
+      invocation.invoke();
+      fail();
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
+
+  @FunctionalInterface
+  private interface Invocation {
+    Object invoke() throws Exception;
+  }
+
+  public interface Service {
+    int add(int a, int b);
+
+    void fail(String message);
+
+    String name();
+
+    @Async
+    Future<String> async(String value);
+  }
+
+  public interface Stages {
+    @Async
+    CompletionStage<String> get();
+  }
+
+  interface Internal {
+    void run();
+  }
+}
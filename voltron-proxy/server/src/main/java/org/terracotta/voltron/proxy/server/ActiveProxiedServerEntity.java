@@ -119,6 +119,18 @@ public abstract class ActiveProxiedServerEntity<S, R, M extends Messenger> imple
     Collection<ClientDescriptor> clients = getClients();
     stateDumpCollector.addState("clientCount", String.valueOf(clients.size()));
     stateDumpCollector.addState("clients", clients);
+    // messages fired to clients
+    stateDumpCollector.addState("firedMessageCount", String.valueOf(entityInvoker.getFiredMessageCount()));
+    stateDumpCollector.addState("sentMessageCount", String.valueOf(entityInvoker.getSentMessageCount()));
+    stateDumpCollector.addState("failedSendCount", String.valueOf(entityInvoker.getFailedSendCount()));
+    stateDumpCollector.addState("sendTimeNanos", String.valueOf(entityInvoker.getSendTimeNanos()));
+    StateDumpCollector clientSends = stateDumpCollector.subStateDumpCollector("clientSends");
+    for (ClientDescriptor client : clients) {
+      ProxyInvoker.SendStatistics sends = entityInvoker.getSendStatistics(client);
+      if (sends != null) {
+        clientSends.addState(String.valueOf(client), sends.toString());
+      }
+    }
 
     // custom
     dumpState(stateDumpCollector);
@@ -16,6 +16,7 @@
  */
 package org.terracotta.voltron.proxy.server;
 
+import org.terracotta.entity.ActiveInvokeChannel;
 import org.terracotta.entity.ActiveInvokeContext;
 import org.terracotta.entity.ClientCommunicator;
 import org.terracotta.entity.ClientDescriptor;
@@ -28,9 +29,15 @@ import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * @author Alex Snaps
@@ -38,8 +45,12 @@ import java.util.Set;
 class ProxyInvoker<T> implements MessageFiring {
 
   private final T target;
-  private final Set<ClientDescriptor> clients = Collections.synchronizedSet(new HashSet<>());
+  // iterated without locking when firing messages
+  private final Map<ClientDescriptor, SendStatistics> clients = new ConcurrentHashMap<>();
   private final ThreadLocal<InvocationContext> invocationContext = new ThreadLocal<>();
+  private final LongAdder firedMessages = new LongAdder();
+  // all the sends, including those to the clients gone since
+  private final SendStatistics sends = new SendStatistics();
 
   private Set<Class<?>> messageTypes;
   private ClientCommunicator clientCommunicator;
@@ -52,6 +63,9 @@ class ProxyInvoker<T> implements MessageFiring {
     ClientDescriptor clientDescriptor = context.getClientDescriptor();
     try {
       invocationContext.set(new InvocationContext(clientDescriptor));
+      if (message.getMethod().isCompletionStage()) {
+        return invokeAsync(context, message);
+      }
       return ProxyEntityResponse.response(message.getType(), message.messageType(), message.invoke(target, clientDescriptor));
     } catch (IllegalAccessException e) {
       throw new IllegalArgumentException(e);
@@ -60,18 +74,60 @@ class ProxyInvoker<T> implements MessageFiring {
       if (targetException instanceof Error) {
         throw (Error) targetException;
       }
-      StringBuilder errorMessage = new StringBuilder("Entity: ").append(target.getClass().getName())
-          .append(": exception in user code: ")
-          .append(targetException.getClass().getName())
-          .append(": ")
-          .append(targetException.getMessage());
-      EntityUserException entityUserException = new EntityUserException(errorMessage.toString(), targetException);
-      return ProxyEntityResponse.error(entityUserException);
+      return error(targetException);
     } finally {
       invocationContext.remove();
     }
   }
 
+  /**
+   * Invokes a method returning a {@link CompletionStage} without blocking the server thread.
+   * If the stage is not already completed, the response is sent through an invoke channel once it completes, and null is returned.
+   */
+  private ProxyEntityResponse invokeAsync(ActiveInvokeContext<ProxyEntityResponse> context, final ProxyEntityMessage message) throws InvocationTargetException, IllegalAccessException {
+    CompletableFuture<?> future = message.invokeAsync(target, context.getClientDescriptor()).toCompletableFuture();
+    if (future.isDone()) {
+      return response(message, future);
+    }
+    ActiveInvokeChannel<ProxyEntityResponse> channel = context.openInvokeChannel();
+    future.whenComplete((result, failure) -> {
+      try {
+        channel.sendResponse(response(message, future));
+      } catch (Throwable t) {
+        // the stage failed with an error, or its response could not be encoded or sent: the client still has to be answered
+        channel.sendException(t instanceof Exception ? (Exception) t : userException(t));
+      } finally {
+        channel.close();
+      }
+    });
+    return null;
+  }
+
+  private ProxyEntityResponse response(ProxyEntityMessage message, CompletableFuture<?> completed) {
+    try {
+      return ProxyEntityResponse.response(message.getType(), message.messageType(), completed.join());
+    } catch (CompletionException | CancellationException e) {
+      Throwable failure = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+      if (failure instanceof Error) {
+        throw (Error) failure;
+      }
+      return error(failure);
+    }
+  }
+
+  private ProxyEntityResponse error(Throwable targetException) {
+    return ProxyEntityResponse.error(userException(targetException));
+  }
+
+  private EntityUserException userException(Throwable targetException) {
+    StringBuilder errorMessage = new StringBuilder("Entity: ").append(target.getClass().getName())
+        .append(": exception in user code: ")
+        .append(targetException.getClass().getName())
+        .append(": ")
+        .append(targetException.getMessage());
+    return new EntityUserException(errorMessage.toString(), targetException);
+  }
+
   void invoke(final ProxyEntityMessage message) {
     try {
       message.invoke(target);
@@ -96,15 +152,18 @@ class ProxyInvoker<T> implements MessageFiring {
     }
     final InvocationContext invocationContext = this.invocationContext.get();
     final ClientDescriptor caller = invocationContext == null ? null : invocationContext.caller;
-    for (ClientDescriptor client : clients) {
+    // the same response is sent to all clients so that it is only encoded once
+    ProxyEntityResponse response = ProxyEntityResponse.messageResponse(type, message);
+    firedMessages.increment();
+    RuntimeException failure = null;
+    for (ClientDescriptor client : clients.keySet()) {
       if (echo || !client.equals(caller)) {
-        try {
-          clientCommunicator.sendNoResponse(client, ProxyEntityResponse.messageResponse(type, message));
-        } catch (MessageCodecException ex) {
-          handleExceptionOnSend(ex);
-        }
+        failure = send(client, response, failure);
       }
     }
+    if (failure != null) {
+      throw failure;
+    }
   }
 
   @Override
@@ -112,17 +171,50 @@ class ProxyInvoker<T> implements MessageFiring {
     if (!messageTypes.contains(type)) {
       throw new IllegalArgumentException("Event type '" + type + "' isn't supported");
     }
+    ProxyEntityResponse response = ProxyEntityResponse.messageResponse(type, message);
+    firedMessages.increment();
+    RuntimeException failure = null;
     for (ClientDescriptor client : clients) {
-      try {
-        clientCommunicator.sendNoResponse(client, ProxyEntityResponse.messageResponse(type, message));
-      } catch (MessageCodecException ex) {
-        handleExceptionOnSend(ex);
+      failure = send(client, response, failure);
+    }
+    if (failure != null) {
+      throw failure;
+    }
+  }
+
+  /**
+   * Sends a message to a client, recording the send in the statistics of the client.
+   * A failed send is recorded and returned, together with the previous failures, so that the message is still sent to the
+   * other clients.
+   */
+  private RuntimeException send(ClientDescriptor client, ProxyEntityResponse response, RuntimeException failures) {
+    SendStatistics clientSends = clients.get(client);
+    long start = System.nanoTime();
+    try {
+      clientCommunicator.sendNoResponse(client, response);
+      long time = System.nanoTime() - start;
+      sends.sent(time);
+      if (clientSends != null) {
+        clientSends.sent(time);
+      }
+      return failures;
+    } catch (MessageCodecException | RuntimeException e) {
+      long time = System.nanoTime() - start;
+      sends.failed(time);
+      if (clientSends != null) {
+        clientSends.failed(time);
       }
+      RuntimeException failure = e instanceof RuntimeException ? (RuntimeException) e : new RuntimeException(e);
+      if (failures == null) {
+        return failure;
+      }
+      failures.addSuppressed(failure);
+      return failures;
     }
   }
 
   void addClient(ClientDescriptor descriptor) {
-    clients.add(descriptor);
+    clients.putIfAbsent(descriptor, new SendStatistics());
   }
 
   void removeClient(ClientDescriptor descriptor) {
@@ -130,11 +222,30 @@ class ProxyInvoker<T> implements MessageFiring {
   }
 
   public Collection<ClientDescriptor> getClients() {
-    return new ArrayList<>(clients);
+    return new ArrayList<>(clients.keySet());
+  }
+
+  /**
+   * @return the statistics of the messages sent to a connected client, or null if the client is not connected
+   */
+  SendStatistics getSendStatistics(ClientDescriptor client) {
+    return clients.get(client);
+  }
+
+  long getFiredMessageCount() {
+    return firedMessages.sum();
+  }
+
+  long getSentMessageCount() {
+    return sends.getSentMessageCount();
+  }
+
+  long getFailedSendCount() {
+    return sends.getFailedSendCount();
   }
 
-  private void handleExceptionOnSend(MessageCodecException ex) {
-    throw new RuntimeException(ex);
+  long getSendTimeNanos() {
+    return sends.getSendTimeNanos();
   }
 
   ProxyInvoker<T> activateEvents(ClientCommunicator clientCommunicator, Class<?>[] messageTypes) {
@@ -155,6 +266,40 @@ class ProxyInvoker<T> implements MessageFiring {
     return this;
   }
 
+  static final class SendStatistics {
+
+    private final LongAdder sentMessages = new LongAdder();
+    private final LongAdder failedSends = new LongAdder();
+    private final LongAdder sendTimeNanos = new LongAdder();
+
+    private void sent(long timeNanos) {
+      sentMessages.increment();
+      sendTimeNanos.add(timeNanos);
+    }
+
+    private void failed(long timeNanos) {
+      failedSends.increment();
+      sendTimeNanos.add(timeNanos);
+    }
+
+    long getSentMessageCount() {
+      return sentMessages.sum();
+    }
+
+    long getFailedSendCount() {
+      return failedSends.sum();
+    }
+
+    long getSendTimeNanos() {
+      return sendTimeNanos.sum();
+    }
+
+    @Override
+    public String toString() {
+      return "sentMessageCount=" + getSentMessageCount() + ", failedSendCount=" + getFailedSendCount() + ", sendTimeNanos=" + getSendTimeNanos();
+    }
+  }
+
   private static final class InvocationContext {
 
     private final ClientDescriptor caller;
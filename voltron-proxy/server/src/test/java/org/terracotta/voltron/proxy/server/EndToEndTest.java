@@ -17,6 +17,7 @@
 package org.terracotta.voltron.proxy.server;
 
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.terracotta.connection.entity.Entity;
 import org.terracotta.entity.ActiveInvokeContext;
 import org.terracotta.entity.ClientCommunicator;
@@ -25,11 +26,16 @@ import org.terracotta.entity.ClientSourceId;
 import org.terracotta.entity.EndpointDelegate;
 import org.terracotta.entity.EntityClientEndpoint;
 import org.terracotta.entity.EntityResponse;
+import org.terracotta.entity.EntityUserException;
 import org.terracotta.entity.Invocation;
 import org.terracotta.entity.InvocationCallback;
 import org.terracotta.entity.MessageCodec;
+import org.terracotta.entity.MessageCodecException;
+import org.terracotta.voltron.proxy.Async;
 import org.terracotta.voltron.proxy.ClientId;
 import org.terracotta.voltron.proxy.MessageListener;
+import org.terracotta.voltron.proxy.MessageType;
+import org.terracotta.voltron.proxy.MethodDescriptor;
 import org.terracotta.voltron.proxy.ProxyEntityMessage;
 import org.terracotta.voltron.proxy.ProxyEntityResponse;
 import org.terracotta.voltron.proxy.ProxyMessageCodec;
@@ -41,6 +47,8 @@ import java.io.Serializable;
 import java.util.Properties;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
@@ -52,9 +60,14 @@ import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.CoreMatchers.instanceOf;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.fail;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import org.terracotta.entity.ActiveInvokeChannel;
 
@@ -151,6 +164,166 @@ public class EndToEndTest {
     assertThat(messageReceived.get(5, TimeUnit.SECONDS), equalTo(message));
   }
 
+  @Test
+  public void testCompletionStageIsAnsweredThroughInvokeChannel() throws Exception {
+    final CompletableFuture<String> future = new CompletableFuture<>();
+    final ProxyInvoker<AsyncService> proxyInvoker = new ProxyInvoker<AsyncService>(() -> future);
+    final ActiveInvokeContext<ProxyEntityResponse> context = mock(ActiveInvokeContext.class);
+    final ActiveInvokeChannel<ProxyEntityResponse> channel = mock(ActiveInvokeChannel.class);
+    when(context.openInvokeChannel()).thenReturn(channel);
+    final ProxyEntityMessage message = new ProxyEntityMessage(MethodDescriptor.of(AsyncService.class.getMethod("get")), new Object[0], MessageType.MESSAGE);
+
+    // server thread is not blocked
+    assertThat(proxyInvoker.invoke(context, message), is(nullValue()));
+    verify(channel, never()).sendResponse(any());
+
+    future.complete("foo");
+
+    final ArgumentCaptor<ProxyEntityResponse> response = ArgumentCaptor.forClass(ProxyEntityResponse.class);
+    verify(channel).sendResponse(response.capture());
+    verify(channel).close();
+    assertThat(response.getValue().getResponse(), is("foo"));
+
+    // already completed stages are answered directly
+    assertThat(proxyInvoker.invoke(context, message).getResponse(), is("foo"));
+  }
+
+  @Test
+  public void testCompletionStageFailingWithAnErrorIsAnsweredThroughInvokeChannel() throws Exception {
+    final CompletableFuture<String> future = new CompletableFuture<>();
+    final ProxyInvoker<AsyncService> proxyInvoker = new ProxyInvoker<AsyncService>(() -> future);
+    final ActiveInvokeContext<ProxyEntityResponse> context = mock(ActiveInvokeContext.class);
+    final ActiveInvokeChannel<ProxyEntityResponse> channel = mock(ActiveInvokeChannel.class);
+    when(context.openInvokeChannel()).thenReturn(channel);
+    final ProxyEntityMessage message = new ProxyEntityMessage(MethodDescriptor.of(AsyncService.class.getMethod("get")), new Object[0], MessageType.MESSAGE);
+
+    assertThat(proxyInvoker.invoke(context, message), is(nullValue()));
+
+    final AssertionError error = new AssertionError("boom");
+    future.completeExceptionally(error);
+
+    final ArgumentCaptor<Exception> exception = ArgumentCaptor.forClass(Exception.class);
+    verify(channel, never()).sendResponse(any());
+    verify(channel).sendException(exception.capture());
+    verify(channel).close();
+    assertThat(exception.getValue(), instanceOf(EntityUserException.class));
+    assertThat(exception.getValue().getCause(), is(error));
+  }
+
+  @Test
+  public void testFailureToSendTheResponseIsAnsweredThroughInvokeChannel() throws Exception {
+    final CompletableFuture<String> future = new CompletableFuture<>();
+    final ProxyInvoker<AsyncService> proxyInvoker = new ProxyInvoker<AsyncService>(() -> future);
+    final ActiveInvokeContext<ProxyEntityResponse> context = mock(ActiveInvokeContext.class);
+    final ActiveInvokeChannel<ProxyEntityResponse> channel = mock(ActiveInvokeChannel.class);
+    when(context.openInvokeChannel()).thenReturn(channel);
+    final RuntimeException sendFailure = new RuntimeException("cannot encode");
+    doThrow(sendFailure).when(channel).sendResponse(any());
+    final ProxyEntityMessage message = new ProxyEntityMessage(MethodDescriptor.of(AsyncService.class.getMethod("get")), new Object[0], MessageType.MESSAGE);
+
+    assertThat(proxyInvoker.invoke(context, message), is(nullValue()));
+
+    future.complete("foo");
+
+    verify(channel).sendException(sendFailure);
+    verify(channel).close();
+  }
+
+  public interface AsyncService {
+    @Async
+    CompletionStage<String> get();
+  }
+
+  @Test
+  public void testMessageFiringEncodesOnce() throws Exception {
+    final AtomicInteger encodings = new AtomicInteger();
+    final ProxyMessageCodec messageCodec = new ProxyMessageCodec(Comparable.class, new Class[] {String.class});
+    messageCodec.setCodec(new SerializationCodec() {
+      @Override
+      public byte[] encode(Class<?> type, Object value) {
+        encodings.incrementAndGet();
+        return super.encode(type, value);
+      }
+    });
+    final Set<String> received = ConcurrentHashMap.newKeySet();
+    final ProxyInvoker<Comparable> proxyInvoker = new ProxyInvoker<Comparable>(new Comparable() {
+      public int compareTo(final Object o) {
+        return 42;
+      }
+    }).activateEvents(new ClientCommunicator() {
+      @Override
+      public void closeClientConnection(ClientDescriptor clientDescriptor) {
+
+      }
+      public void sendNoResponse(final ClientDescriptor clientDescriptor, final EntityResponse message) throws MessageCodecException {
+        received.add((String) messageCodec.decodeResponse(messageCodec.encodeResponse((ProxyEntityResponse) message)).getResponse() + "@" + System.identityHashCode(clientDescriptor));
+      }
+
+      public Future<Void> send(final ClientDescriptor clientDescriptor, final EntityResponse message) {
+        throw new UnsupportedOperationException("Implement me!");
+      }
+    }, new Class[] {String.class});
+
+    for (int i = 0; i < 10; i++) {
+      proxyInvoker.addClient(mock(ClientDescriptor.class));
+    }
+    proxyInvoker.fireMessage(String.class, "Hello world!", true);
+
+    assertThat(received.size(), is(10));
+    assertThat(encodings.get(), is(1));
+    assertThat(proxyInvoker.getFiredMessageCount(), is(1L));
+    assertThat(proxyInvoker.getSentMessageCount(), is(10L));
+    assertThat(proxyInvoker.getFailedSendCount(), is(0L));
+  }
+
+  @Test
+  public void testMessageFiringGoesOnAfterAFailedSend() throws Exception {
+    final ClientDescriptor failing = mock(ClientDescriptor.class);
+    final ClientDescriptor client1 = mock(ClientDescriptor.class);
+    final ClientDescriptor client2 = mock(ClientDescriptor.class);
+    final Set<ClientDescriptor> received = ConcurrentHashMap.newKeySet();
+    final ProxyInvoker<Comparable> proxyInvoker = new ProxyInvoker<Comparable>(new Comparable() {
+      public int compareTo(final Object o) {
+        return 42;
+      }
+    }).activateEvents(new ClientCommunicator() {
+      @Override
+      public void closeClientConnection(ClientDescriptor clientDescriptor) {
+
+      }
+      public void sendNoResponse(final ClientDescriptor clientDescriptor, final EntityResponse message) throws MessageCodecException {
+        if (clientDescriptor == failing) {
+          throw new MessageCodecException("boom", null);
+        }
+        received.add(clientDescriptor);
+      }
+
+      public Future<Void> send(final ClientDescriptor clientDescriptor, final EntityResponse message) {
+        throw new UnsupportedOperationException("Implement me!");
+      }
+    }, new Class[] {String.class});
+    proxyInvoker.addClient(client1);
+    proxyInvoker.addClient(failing);
+    proxyInvoker.addClient(client2);
+
+    try {
+      proxyInvoker.fireMessage(String.class, "Hello world!", true);
+      fail();
+    } catch (RuntimeException e) {
+      assertThat(e.getCause(), instanceOf(MessageCodecException.class));
+    }
+
+    // the other clients still got the message
+    assertThat(received.size(), is(2));
+    assertThat(proxyInvoker.getSentMessageCount(), is(2L));
+    assertThat(proxyInvoker.getFailedSendCount(), is(1L));
+    assertThat(proxyInvoker.getSendStatistics(failing).getSentMessageCount(), is(0L));
+    assertThat(proxyInvoker.getSendStatistics(failing).getFailedSendCount(), is(1L));
+    assertThat(proxyInvoker.getSendStatistics(client1).getSentMessageCount(), is(1L));
+    assertThat(proxyInvoker.getSendStatistics(client1).getFailedSendCount(), is(0L));
+    assertThat(proxyInvoker.getSendStatistics(client2).getSentMessageCount(), is(1L));
+  }
+
   @Test
   public void testClientInvokeInitiatedMessageFiring() throws ExecutionException, InterruptedException {
     final SerializationCodec codec = new SerializationCodec();